@@ -24,6 +24,13 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release-like build used by the :benchmark module (not debuggable, signed with the debug key)
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
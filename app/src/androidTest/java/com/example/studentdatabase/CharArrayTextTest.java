@@ -0,0 +1,90 @@
+package com.example.studentdatabase;
+
+import android.widget.TextView;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for CharArrayText: a real TextView keeps the same object for every bind instead of
+ * copying the text, and shows the chars it currently points at.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CharArrayTextTest {
+
+    @Test
+    public void textView_keepsTheSameTextAcrossBinds() {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            try {
+                TextView view = new TextView(InstrumentationRegistry.getInstrumentation().getTargetContext());
+                view.setSpannableFactory(CharArrayText.FACTORY);
+                CharArrayText text = new CharArrayText();
+                char[] buffer = "--Aisha Ibrahim".toCharArray();
+
+                text.set(buffer, 2, 5);
+                view.setText(text, TextView.BufferType.SPANNABLE);
+                assertSame(text, view.getText());
+                assertEquals("Aisha", view.getText().toString());
+
+                // The next bind reuses the same buffer and text, with a longer then shorter range
+                text.set(buffer, 2, 13);
+                view.setText(text, TextView.BufferType.SPANNABLE);
+                assertSame(text, view.getText());
+                assertEquals("Aisha Ibrahim", view.getText().toString());
+                text.set(buffer, 8, 7);
+                view.setText(text, TextView.BufferType.SPANNABLE);
+                assertEquals("Ibrahim", view.getText().toString());
+
+                // Plain text is still copied as usual
+                view.setText("Hawwa", TextView.BufferType.NORMAL);
+                assertEquals("Hawwa", view.getText().toString());
+                assertNotSame(text, view.getText());
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+    }
+
+    @Test
+    public void spans_areKeptUntilRemoved() {
+        CharArrayText text = new CharArrayText();
+        text.set("Ali Hassan".toCharArray(), 0, 10);
+        Object first = new Object();
+        Object second = "span";
+        text.setSpan(first, 0, 10, 18);
+        text.setSpan(second, 4, 10, 0);
+        text.setSpan(new Object(), 0, 3, 0); // Grows the span arrays
+
+        assertEquals(3, text.getSpans(0, 10, Object.class).length);
+        assertArrayEquals(new String[]{"span"}, text.getSpans(0, 10, String.class));
+        assertEquals(18, text.getSpanFlags(first));
+        assertEquals(4, text.nextSpanTransition(3, 10, String.class));
+
+        // No match gives the same empty array every time
+        assertEquals(0, text.getSpans(0, 10, Integer.class).length);
+        assertSame(text.getSpans(0, 10, Integer.class), text.getSpans(0, 10, Integer.class));
+
+        // A shorter text cuts the spans back
+        text.set("Ali".toCharArray(), 0, 3);
+        assertEquals(3, text.getSpanEnd(first));
+        assertEquals(3, text.getSpanStart(second));
+
+        text.removeSpan(first);
+        assertEquals(-1, text.getSpanStart(first));
+        assertEquals(2, text.getSpans(0, 3, Object.class).length);
+        char[] copy = new char[3];
+        text.getChars(0, 3, copy, 0);
+        assertEquals("Ali", new String(copy));
+    }
+}
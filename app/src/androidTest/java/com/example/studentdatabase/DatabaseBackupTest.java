@@ -0,0 +1,252 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for backups of a real database file: a snapshot taken while students are being
+ * added is consistent, incremental snapshots only hold the changed pages, a restore brings back a
+ * deleted roster, backups started together take turns, a copy staged before a reset is saved after it,
+ * and a damaged snapshot is refused without touching the database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseBackupTest {
+
+    private static final String DB_NAME = "backup-test.db";
+
+    private Context context;
+    private File directory;
+    private MyDatabaseHelper myDB;
+    private DatabaseBackup backup;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        directory = new File(context.getCacheDir(), "backup-test");
+        deleteDirectory(directory);
+        myDB = new MyDatabaseHelper(context, DB_NAME);
+        backup = new DatabaseBackup(myDB, directory);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+        context.deleteDatabase(DB_NAME);
+        deleteDirectory(directory);
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private void addStudents(int count) {
+        for (int i = 0; i < count; i++) {
+            myDB.addStudent("Student " + i, 100000 + i, "student" + i + "@cyryx.edu.mv", i % 101, (i * 7) % 101, "C");
+        }
+    }
+
+    @Test
+    public void restore_bringsBackADeletedRoster() throws IOException {
+        addStudents(200);
+        DatabaseBackup.Result result = backup.run(DatabaseBackup.Mode.FULL);
+        assertTrue(result.snapshot.isFull());
+        assertEquals(200, result.snapshot.studentCount);
+        assertTrue(result.getBytesPerStudent() > 0);
+        assertTrue(result.snapshotBytes < result.snapshot.getDatabaseBytes()); // Compressed
+
+        myDB.deleteAllData();
+        assertEquals(0, myDB.readStatistics().studentCount);
+
+        backup.restore(result.snapshot);
+        assertEquals(200, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+        assertTrue(myDB.checkIntegrity(10).isEmpty());
+        assertEquals(201, myDB.addStudent("New", 1, "new@cyryx.edu.mv", 50, 50, "C")); // IDs carry on
+    }
+
+    @Test
+    public void incrementalSnapshot_onlyHoldsChangedPages() throws IOException {
+        addStudents(2000);
+        DatabaseBackup.Result full = backup.run(DatabaseBackup.Mode.INCREMENTAL); // Nothing to build on yet
+        assertTrue(full.snapshot.isFull());
+
+        myDB.updateStudent("1000", "Edited", 1, "edited@cyryx.edu.mv", 99, 99, "A+");
+        DatabaseBackup.Result incremental = backup.run(DatabaseBackup.Mode.INCREMENTAL);
+        assertFalse(incremental.snapshot.isFull());
+        assertEquals(full.snapshot.number, incremental.snapshot.baseNumber);
+        assertTrue(incremental.snapshot.pagesStored < full.snapshot.pagesStored / 10);
+        assertTrue(incremental.snapshotBytes < full.snapshotBytes / 10);
+
+        myDB.deleteAllData();
+        backup.restore(incremental.snapshot);
+        assertEquals(2000, myDB.readStatistics().studentCount);
+        Cursor cursor = myDB.readStudent(1000);
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("Edited", Student.fromCursor(cursor).name);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void snapshotTakenDuringWrites_isConsistent() throws Exception {
+        addStudents(500);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger added = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            while (!stop.get()) {
+                int n = added.incrementAndGet();
+                myDB.addStudent("Busy", n, "busy" + n + "@cyryx.edu.mv", 60, 60, "C+");
+            }
+        });
+        writer.start();
+        DatabaseBackup.Result result;
+        try {
+            result = backup.run(DatabaseBackup.Mode.FULL);
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+        assertTrue(added.get() > 0);
+
+        backup.restore(result.snapshot);
+        // Exactly the students committed when the copy was taken, with matching summary tables
+        assertEquals(result.snapshot.studentCount, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+        assertTrue(myDB.checkIntegrity(10).isEmpty());
+    }
+
+    @Test
+    public void backupsFromTwoThreads_takeTurns() throws Exception {
+        addStudents(1000);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            try {
+                backup.run(DatabaseBackup.Mode.FULL);
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        other.start();
+        try {
+            backup.run(DatabaseBackup.Mode.FULL);
+        } finally {
+            other.join();
+        }
+        assertNull(failure.get());
+
+        // Two complete snapshots with their own numbers, each restorable
+        List<DatabaseSnapshot> snapshots = backup.list();
+        assertEquals(2, snapshots.size());
+        assertEquals(snapshots.get(0).number + 1, snapshots.get(1).number);
+        for (DatabaseSnapshot snapshot : snapshots) {
+            backup.verify(snapshot);
+            assertEquals(1000, snapshot.studentCount);
+        }
+    }
+
+    @Test
+    public void stagedCopy_isSavedLaterFromTheStateItWasTakenIn() throws IOException {
+        addStudents(300);
+        File leftover = new File(directory, "staging-1.db"); // From a backup cut short in an earlier run
+        assertTrue(leftover.createNewFile());
+
+        // Staged before a reset, saved after it: the snapshot still holds the students
+        DatabaseBackup.Staged beforeReset = backup.stage();
+        myDB.deleteAllData();
+        DatabaseBackup.Staged afterReset = backup.stage();
+        assertEquals(300, backup.save(beforeReset, DatabaseBackup.Mode.FULL).snapshot.studentCount);
+        assertEquals(0, backup.save(afterReset, DatabaseBackup.Mode.INCREMENTAL).snapshot.studentCount);
+
+        // The staging files, including the leftover, are gone
+        String[] names = directory.list((dir, name) -> name.startsWith("staging-"));
+        assertEquals(0, names.length);
+        backup.restore(backup.list().get(0));
+        assertEquals(300, myDB.readStatistics().studentCount);
+    }
+
+    @Test
+    public void snapshots_startAgainFromFullAndOldOnesAreDeleted() throws IOException {
+        addStudents(100);
+        int runs = (DatabaseBackup.MAX_INCREMENTAL + 1) * (DatabaseBackup.KEEP_FULL + 1);
+        for (int i = 0; i < runs; i++) {
+            myDB.addStudent("Run " + i, i, "run" + i + "@cyryx.edu.mv", 50, 50, "C");
+            DatabaseBackup.Result result = backup.run(DatabaseBackup.Mode.INCREMENTAL);
+            assertEquals(i % (DatabaseBackup.MAX_INCREMENTAL + 1) == 0, result.snapshot.isFull());
+        }
+
+        List<DatabaseSnapshot> kept = backup.list();
+        int fullKept = 0;
+        for (DatabaseSnapshot snapshot : kept) {
+            if (snapshot.isFull()) {
+                fullKept++;
+            }
+        }
+        assertEquals(DatabaseBackup.KEEP_FULL, fullKept);
+        assertTrue(kept.get(0).isFull());
+        backup.verify(kept.get(kept.size() - 1));
+    }
+
+    @Test
+    public void damagedSnapshot_leavesTheDatabaseAlone() throws IOException {
+        addStudents(300);
+        DatabaseBackup.Result result = backup.run(DatabaseBackup.Mode.FULL);
+        try (RandomAccessFile file = new RandomAccessFile(result.snapshot.file, "rw")) {
+            file.seek(file.length() / 2);
+            int b = file.read();
+            file.seek(file.length() / 2);
+            file.write(b ^ 0xFF);
+        }
+        myDB.addStudent("After", 1, "after@cyryx.edu.mv", 50, 50, "C");
+
+        try {
+            backup.verify(result.snapshot);
+            fail("The damage should be found");
+        } catch (IOException expected) {
+            // Checksum mismatch
+        }
+        try {
+            backup.restore(result.snapshot);
+            fail("A damaged snapshot should not be restored");
+        } catch (IOException expected) {
+            // Refused before the swap
+        }
+        assertEquals(301, myDB.readStatistics().studentCount);
+    }
+
+    @Test(expected = IOException.class)
+    public void inMemoryDatabase_cannotBeBackedUp() throws IOException {
+        MyDatabaseHelper inMemory = new MyDatabaseHelper(context, null);
+        try {
+            new DatabaseBackup(inMemory, directory).run(DatabaseBackup.Mode.FULL);
+        } finally {
+            inMemory.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Microbenchmark of the per-operation cost of opening a new MyDatabaseHelper for every action
+ * (the old pattern) against reusing one long-lived connection with write-ahead logging.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseConnectionBenchmarkTest {
+
+    private static final String TAG = "DbConnectionBenchmark";
+    private static final String DB_NAME = "connection_benchmark.db";
+    private static final int OPERATIONS = 200;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DB_NAME);
+    }
+
+    // Old pattern: a new helper (and connection) per insert, default journal and sync settings
+    private long openPerAction(DatabaseConfig config) {
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < OPERATIONS; i++) {
+            MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME, config);
+            myDB.addStudent("Student " + i, i, "s" + i + "@example.com", 50, 60, "B");
+            myDB.close();
+        }
+        return (SystemClock.elapsedRealtimeNanos() - start) / OPERATIONS;
+    }
+
+    // New pattern: one shared connection for every insert
+    private long sharedConnection(DatabaseConfig config) {
+        MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME, config);
+        myDB.getWritableDatabase(); // Opened once, at app start
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < OPERATIONS; i++) {
+            myDB.addStudent("Student " + i, i, "s" + i + "@example.com", 50, 60, "B");
+        }
+        long perOp = (SystemClock.elapsedRealtimeNanos() - start) / OPERATIONS;
+        myDB.close();
+        return perOp;
+    }
+
+    @Test
+    public void sharedWalConnection_isFasterThanOpenPerAction() {
+        DatabaseConfig legacy = new DatabaseConfig(false, 4096, 2048, DatabaseConfig.Synchronous.FULL);
+
+        long openPerActionNs = openPerAction(legacy);
+        context.deleteDatabase(DB_NAME);
+        long sharedNs = sharedConnection(DatabaseConfig.DEFAULT);
+
+        Log.i(TAG, "Per insert: open-per-action " + openPerActionNs / 1000 + " us, shared WAL connection "
+                + sharedNs / 1000 + " us");
+        assertTrue("Shared connection (" + sharedNs + " ns) not faster than open-per-action (" + openPerActionNs + " ns)",
+                sharedNs < openPerActionNs);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the fast reset (deleteAllData) and the database maintenance tasks.
+ * They use a database file, because free pages and vacuum only mean something for a file.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMaintenanceTest {
+
+    private static final String DB_NAME = "maintenance-test.db";
+
+    private Context context;
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        myDB = new MyDatabaseHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    private void addStudents(int rows) {
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        SQLiteStatement insert = myDB.compileInsertStatement(db);
+        db.beginTransaction();
+        try {
+            for (int i = 1; i <= rows; i++) {
+                insert.bindString(1, "Student " + i);
+                insert.bindLong(2, 2020000 + i);
+                insert.bindString(3, "s" + i + "@cyryx.edu.mv");
+                insert.bindLong(4, i % 101);
+                insert.bindLong(5, (i * 7) % 101);
+                insert.bindString(6, GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    private long count(String table) {
+        return DatabaseUtils.queryNumEntries(myDB.getReadableDatabase(), table);
+    }
+
+    @Test
+    public void newDatabase_usesIncrementalVacuum() {
+        assertTrue(myDB.isIncrementalVacuumEnabled());
+    }
+
+    @Test
+    public void deleteAllData_emptiesEveryDerivedTable() {
+        addStudents(500);
+        long chemistry = myDB.addSubject("Chemistry");
+        myDB.setScore(1, chemistry, 70);
+
+        myDB.deleteAllData();
+
+        assertEquals(0, count("cyryx_college"));
+        assertEquals(0, count("scores"));
+        assertEquals(0, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+        Cursor found = myDB.searchStudents("Student", null, 0, 10);
+        try {
+            assertEquals(0, found.getCount());
+        } finally {
+            found.close();
+        }
+        assertEquals(3, count("subjects")); // Subjects are kept
+    }
+
+    @Test
+    public void deleteAllData_restartsIdsAndKeepsTriggersWorking() {
+        addStudents(10);
+        myDB.deleteAllData();
+
+        long id = myDB.addStudent("Ali", 2020001, "ali@cyryx.edu.mv", 95, 91, "A+");
+        assertEquals(1, id);
+        assertEquals(2, count("scores"));
+        assertEquals(1, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+        Cursor found = myDB.searchStudents("Ali", null, 0, 10);
+        try {
+            assertEquals(1, found.getCount());
+        } finally {
+            found.close();
+        }
+    }
+
+    @Test
+    public void reclaimFreePages_returnsTheSpaceOfAReset() {
+        addStudents(5000);
+        long pagesBefore = DatabaseUtils.longForQuery(myDB.getReadableDatabase(), "PRAGMA page_count", null);
+        myDB.deleteAllData();
+        long free = myDB.getFreePageCount();
+        assertTrue(free > 0);
+
+        // A limited step frees at most that many pages
+        assertEquals(Math.min(10, free), myDB.reclaimFreePages(10));
+        myDB.reclaimFreePages(Integer.MAX_VALUE);
+        assertEquals(0, myDB.getFreePageCount());
+        long pagesAfter = DatabaseUtils.longForQuery(myDB.getReadableDatabase(), "PRAGMA page_count", null);
+        assertTrue(pagesAfter < pagesBefore);
+    }
+
+    @Test
+    public void maintenance_reportsAHealthyDatabase() {
+        addStudents(1000);
+        myDB.deleteStudents(StudentSelection.byNumberRange(2020001, 2020500));
+
+        DatabaseMaintenance.Result result = new DatabaseMaintenance(myDB).run();
+        assertTrue(result.problems.toString(), result.isHealthy());
+        assertFalse(result.fullVacuum);
+        assertTrue(result.pagesFreed > 0);
+        assertEquals(0, myDB.getFreePageCount());
+        // ANALYZE stored its statistics
+        assertTrue(count("sqlite_stat1") > 0);
+    }
+
+    @Test
+    public void maintenance_reportsBrokenStatistics() {
+        addStudents(10);
+        myDB.getWritableDatabase().execSQL("UPDATE student_stats SET student_count = 99");
+
+        DatabaseMaintenance.Result result = new DatabaseMaintenance(myDB).run();
+        assertFalse(result.isHealthy());
+        assertEquals(1, result.problems.size());
+    }
+
+    @Test
+    public void maintenance_vacuumsAnOlderFileOnce() {
+        myDB.close();
+        context.deleteDatabase(DB_NAME);
+        MigrationTest.createVersion1(context, DB_NAME, 2000); // Created without auto-vacuum
+        myDB = new MyDatabaseHelper(context, DB_NAME);
+        assertFalse(myDB.isIncrementalVacuumEnabled());
+        myDB.deleteStudents(StudentSelection.byNumberRange(100000, 100999));
+
+        DatabaseMaintenance.Result first = new DatabaseMaintenance(myDB).run();
+        assertTrue(first.fullVacuum);
+        assertTrue(first.isHealthy());
+        assertTrue(myDB.isIncrementalVacuumEnabled());
+        assertEquals(0, myDB.getFreePageCount());
+
+        // From now on free pages are reclaimed without rewriting the file
+        myDB.deleteStudents(StudentSelection.byNumberRange(101000, 101999));
+        assertFalse(new DatabaseMaintenance(myDB).run().fullVacuum);
+    }
+
+    @Test
+    public void maintenance_convertsAnOlderFileBeforeItHasFreePages() {
+        myDB.close();
+        context.deleteDatabase(DB_NAME);
+        MigrationTest.createVersion1(context, DB_NAME, 100); // Created without auto-vacuum, nothing deleted
+        myDB = new MyDatabaseHelper(context, DB_NAME);
+        assertFalse(myDB.isIncrementalVacuumEnabled());
+
+        assertTrue(new DatabaseMaintenance(myDB).run().fullVacuum);
+        assertTrue(myDB.isIncrementalVacuumEnabled());
+
+        // Reopening the file does not change its mode again, and a reset can now be reclaimed in steps
+        myDB.close();
+        myDB = new MyDatabaseHelper(context, DB_NAME);
+        assertTrue(myDB.isIncrementalVacuumEnabled());
+        addStudents(2000);
+        myDB.deleteAllData();
+        assertTrue(myDB.reclaimFreePages(Integer.MAX_VALUE) > 0);
+    }
+}
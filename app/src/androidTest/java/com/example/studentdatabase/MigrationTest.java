@@ -0,0 +1,251 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the schema migrations. A database is created with the original (version 1)
+ * schema, then opened through MyDatabaseHelper so every migration step runs on it.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+
+    private static final String DB_NAME = "migration-test.db";
+
+    // The student table as the first release of the app created it
+    static final String V1_SCHEMA = "CREATE TABLE cyryx_college (_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            "student_name TEXT, student_num INTEGER, student_mail TEXT, " +
+            "student_physics INTEGER, student_math INTEGER, student_grade TEXT)";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DB_NAME);
+    }
+
+    // Creates a version 1 database file with the given number of students
+    static void createVersion1(Context context, String name, int rows) {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(name), null);
+        try {
+            db.execSQL(V1_SCHEMA);
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < rows; i++) {
+                    db.execSQL("INSERT INTO cyryx_college (student_name, student_num, student_mail, student_physics, " +
+                                    "student_math, student_grade) VALUES (?, ?, ?, ?, ?, ?)",
+                            new Object[]{"Student " + i, 100000 + i, "student" + i + "@cyryx.edu.mv",
+                                    i % 101, (i * 7) % 101, GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101)});
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.setVersion(1);
+        } finally {
+            db.close();
+        }
+    }
+
+    // Lists every index, trigger and table in the schema with its SQL (except the student table itself)
+    private static List<String> schema(SQLiteDatabase db) {
+        List<String> items = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT type, name, sql FROM sqlite_master " +
+                "WHERE name NOT LIKE 'sqlite_%' AND name != 'cyryx_college' ORDER BY type, name", null);
+        try {
+            while (cursor.moveToNext()) {
+                items.add(cursor.getString(0) + " " + cursor.getString(1) + ": " + cursor.getString(2));
+            }
+        } finally {
+            cursor.close();
+        }
+        return items;
+    }
+
+    @Test
+    public void upgradeFromVersion1_keepsEveryStudent() {
+        createVersion1(context, DB_NAME, 1000);
+
+        MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME);
+        try {
+            SQLiteDatabase db = myDB.getWritableDatabase();
+            assertEquals(MyDatabaseHelper.MIGRATIONS.getLatestVersion(), db.getVersion());
+            assertEquals(1000, DatabaseUtils.queryNumEntries(db, "cyryx_college"));
+
+            // The new indexes and summary tables cover the old rows
+            Cursor found = myDB.searchStudents("Student 42", null, 0, 10);
+            try {
+                assertTrue(found.getCount() >= 1);
+            } finally {
+                found.close();
+            }
+            assertEquals(1000, myDB.readStatistics().studentCount);
+            assertTrue(myDB.verifyStatistics());
+
+            // Every old student is in the change log, ready for the first sync
+            assertEquals(1000, myDB.getPendingChangeCount());
+
+            // Every old mark was copied into the scores table (student ID 43 was inserted with i = 42)
+            assertEquals(2000, DatabaseUtils.queryNumEntries(db, "scores"));
+            Cursor scores = myDB.readStudentScores(43);
+            try {
+                assertTrue(scores.moveToFirst());
+                assertEquals(42, scores.getInt(1));
+                assertTrue(scores.moveToNext());
+                assertEquals((42 * 7) % 101, scores.getInt(1));
+            } finally {
+                scores.close();
+            }
+
+            // New IDs continue after the old ones
+            assertEquals(1001, myDB.addStudent("New", 1, "new@cyryx.edu.mv", 50, 50, "C+"));
+        } finally {
+            myDB.close();
+        }
+    }
+
+    @Test
+    public void upgrade_setsAsideLaterDuplicates() {
+        createVersion1(context, DB_NAME, 100);
+        SQLiteDatabase old = SQLiteDatabase.openDatabase(context.getDatabasePath(DB_NAME).getPath(), null,
+                SQLiteDatabase.OPEN_READWRITE);
+        try {
+            String insert = "INSERT INTO cyryx_college (student_name, student_num, student_mail, student_physics, " +
+                    "student_math, student_grade) VALUES (?, ?, ?, 50, 50, 'C')";
+            old.execSQL(insert, new Object[]{"Same number", 100005, "other@cyryx.edu.mv"});  // ID 101
+            old.execSQL(insert, new Object[]{"Same email", 7, "STUDENT6@cyryx.edu.mv"});     // ID 102
+            old.execSQL(insert, new Object[]{"Blank email", 8, " "});
+            old.execSQL(insert, new Object[]{"Another blank email", 9, ""});
+            // Only clashes with "Same number", which is set aside, so it stays
+            old.execSQL(insert, new Object[]{"Chained", 10, "OTHER@cyryx.edu.mv"});
+        } finally {
+            old.close();
+        }
+
+        MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME);
+        try {
+            SQLiteDatabase db = myDB.getWritableDatabase();
+            assertEquals(103, DatabaseUtils.queryNumEntries(db, "cyryx_college"));
+            assertEquals(0, DatabaseUtils.queryNumEntries(db, "cyryx_college", "student_name LIKE 'Same %'"));
+            assertEquals(1, DatabaseUtils.queryNumEntries(db, "cyryx_college", "student_name = 'Chained'"));
+            assertEquals(2, DatabaseUtils.queryNumEntries(db, "cyryx_college", "student_mail IS NULL"));
+            assertEquals(103, myDB.readStatistics().studentCount);
+            assertTrue(myDB.verifyStatistics());
+
+            // The set-aside students keep their values, scores and sync IDs, and point at the student they clashed with
+            assertEquals(2, DatabaseUtils.queryNumEntries(db, "student_duplicates"));
+            assertEquals(1, DatabaseUtils.queryNumEntries(db, "student_duplicates",
+                    "_id = 101 AND student_mail = 'other@cyryx.edu.mv' AND kept_id = 6 AND sync_id IS NOT NULL"));
+            assertEquals(1, DatabaseUtils.queryNumEntries(db, "student_duplicates", "_id = 102 AND kept_id = 7"));
+            assertEquals(4, DatabaseUtils.queryNumEntries(db, "student_duplicate_scores"));
+
+            // The indexes now refuse new copies
+            assertEquals(-1, myDB.addStudent("Copy", 100005, "copy@cyryx.edu.mv", 50, 50, "C"));
+            assertEquals(-1, myDB.addStudent("Copy", 1, "Student5@cyryx.edu.mv", 50, 50, "C"));
+        } finally {
+            myDB.close();
+        }
+    }
+
+    @Test
+    public void upgradedSchema_matchesFreshSchema() {
+        createVersion1(context, DB_NAME, 10);
+
+        MyDatabaseHelper upgraded = new MyDatabaseHelper(context, DB_NAME);
+        MyDatabaseHelper fresh = new MyDatabaseHelper(context, null);
+        try {
+            assertEquals(schema(fresh.getReadableDatabase()), schema(upgraded.getReadableDatabase()));
+        } finally {
+            upgraded.close();
+            fresh.close();
+        }
+    }
+
+    @Test
+    public void upgrade_reportsProgressForEveryStep() {
+        createVersion1(context, DB_NAME, 10);
+
+        List<Integer> started = new ArrayList<>();
+        MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME);
+        myDB.setMigrationListener((stepIndex, stepCount, migration, done, total) -> {
+            assertEquals(MyDatabaseHelper.MIGRATIONS.getLatestVersion() - 1, stepCount);
+            if (done == 0) {
+                started.add(migration.version);
+            }
+        });
+        try {
+            myDB.getWritableDatabase();
+        } finally {
+            myDB.close();
+        }
+        for (int i = 0; i < started.size(); i++) {
+            assertEquals(i + 2, (int) started.get(i));
+        }
+        assertEquals(MyDatabaseHelper.MIGRATIONS.getLatestVersion() - 1, started.size());
+    }
+
+    @Test
+    public void tableRebuild_copiesRowsInChunksAndKeepsIds() {
+        MyDatabaseHelper myDB = new MyDatabaseHelper(context, null);
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        try {
+            db.execSQL("CREATE TABLE scratch (_id INTEGER PRIMARY KEY AUTOINCREMENT, value INTEGER)");
+            db.beginTransaction();
+            try {
+                for (int i = 1; i <= 12_345; i++) {
+                    db.execSQL("INSERT INTO scratch (value) VALUES (?)", new Object[]{i});
+                }
+                db.execSQL("DELETE FROM scratch WHERE _id > 12340"); // The counter stays at 12345
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            List<Long> progress = new ArrayList<>();
+            TableRebuilder rebuilder = new TableRebuilder("scratch",
+                    "CREATE TABLE %s (_id INTEGER PRIMARY KEY AUTOINCREMENT, value INTEGER NOT NULL, doubled INTEGER NOT NULL)",
+                    "_id, value, doubled", "_id, value, value * 2", 1000);
+            db.beginTransaction();
+            try {
+                assertEquals(12_340, rebuilder.rebuild(db, (done, total) -> {
+                    assertEquals(12_340, total);
+                    progress.add(done);
+                }));
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            assertEquals(14, progress.size()); // Start plus 13 chunks
+            assertEquals(12_340, (long) progress.get(progress.size() - 1));
+            assertEquals(12_340, DatabaseUtils.queryNumEntries(db, "scratch"));
+            assertEquals(24_680, DatabaseUtils.longForQuery(db, "SELECT doubled FROM scratch WHERE _id = 12340", null));
+
+            db.execSQL("INSERT INTO scratch (value, doubled) VALUES (0, 0)");
+            assertEquals(12_346, DatabaseUtils.longForQuery(db, "SELECT MAX(_id) FROM scratch", null));
+        } finally {
+            myDB.close();
+        }
+    }
+}
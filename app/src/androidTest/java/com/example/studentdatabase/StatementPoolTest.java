@@ -0,0 +1,95 @@
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the single-row writes that go through the statement pool: the statements are
+ * compiled once and reused, values from one call never leak into the next, and the pool keeps working
+ * after the tables are recreated or the database is reopened.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StatementPoolTest {
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    private Student read(long id) {
+        Cursor cursor = myDB.readStudent(id);
+        try {
+            return cursor.moveToFirst() ? Student.fromCursor(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void insertsReuseOneStatement() {
+        myDB.addStudent("First", 1, "first@cyryx.edu.mv", 50, 60, "C");
+        long compiled = myDB.getStatementPool().getCompiledCount();
+        for (int i = 0; i < 100; i++) {
+            myDB.addStudent("Student " + i, 100 + i, "s" + i + "@cyryx.edu.mv", i, i, "F");
+        }
+        assertEquals(compiled, myDB.getStatementPool().getCompiledCount());
+    }
+
+    @Test
+    public void nullTextIsStoredAsNull() {
+        long id = myDB.addStudent(null, 7, null, 70, 80, "B+");
+        assertTrue(id > 0);
+        Student student = read(id);
+        assertNull(student.name);
+        assertNull(student.mail);
+        assertEquals(80, student.math);
+    }
+
+    @Test
+    public void updateAndDeleteOnlyTouchTheGivenStudent() {
+        long first = myDB.addStudent("First", 1, "first@cyryx.edu.mv", 50, 60, "C");
+        long second = myDB.addStudent("Second", 2, "second@cyryx.edu.mv", 40, 30, "F");
+
+        assertEquals(1, myDB.updateStudent(String.valueOf(first), "Renamed", 11, "renamed@cyryx.edu.mv", 90, 95, "A+"));
+        assertEquals("Renamed", read(first).name);
+        assertEquals("Second", read(second).name);
+
+        assertEquals(1, myDB.deleteOneRow(String.valueOf(second)));
+        assertEquals(0, myDB.deleteOneRow(String.valueOf(second)));
+        assertNotNull(read(first));
+        assertNull(read(second));
+    }
+
+    @Test
+    public void statementsWorkAfterTheTablesAreRecreated() {
+        myDB.addStudent("First", 1, "first@cyryx.edu.mv", 50, 60, "C");
+        myDB.deleteAllData();
+        assertEquals(1, myDB.addStudent("Again", 2, "again@cyryx.edu.mv", 70, 70, "B"));
+        assertEquals(1, myDB.setScore(1, MyDatabaseHelper.SUBJECT_PHYSICS, 99));
+        assertEquals(99, read(1).physics);
+    }
+
+    @Test
+    public void statementsWorkAfterTheDatabaseIsReopened() {
+        myDB.addStudent("First", 1, "first@cyryx.edu.mv", 50, 60, "C");
+        myDB.close();
+        // The in-memory database starts out empty again
+        assertEquals(1, myDB.addStudent("Again", 2, "again@cyryx.edu.mv", 70, 70, "B"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the batch delete and update operations. They check that ID lists longer than
+ * one IN (...) chunk are handled completely, that conditions select the right students, and that the
+ * search index, statistics and scores stay in step with the student table.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentBatchTest {
+
+    private static final int ROWS = 1200;
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        SQLiteStatement insert = myDB.compileInsertStatement(db);
+        db.beginTransaction();
+        try {
+            for (int i = 1; i <= ROWS; i++) {
+                insert.bindString(1, "Student " + i);
+                insert.bindLong(2, 2020000 + i);
+                insert.bindString(3, "s" + i + "@cyryx.edu.mv");
+                insert.bindLong(4, i % 101);
+                insert.bindLong(5, (i * 7) % 101);
+                insert.bindString(6, GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    private long count(String where) {
+        return DatabaseUtils.longForQuery(myDB.getReadableDatabase(), "SELECT COUNT(*) FROM cyryx_college WHERE " + where, null);
+    }
+
+    @Test
+    public void deleteByIds_spansSeveralChunks() {
+        // Every even ID, more than two IN (...) chunks, plus IDs that do not exist
+        long[] ids = new long[ROWS / 2 + 2];
+        for (int i = 0; i < ROWS / 2; i++) {
+            ids[i] = 2L * (i + 1);
+        }
+        ids[ROWS / 2] = ROWS + 10;
+        ids[ROWS / 2 + 1] = 2; // Duplicate
+        assertTrue(ids.length > 2 * MyDatabaseHelper.MAX_IDS_PER_STATEMENT);
+
+        assertEquals(ROWS / 2, myDB.deleteStudents(StudentSelection.ofIds(ids)));
+        assertEquals(0, count("_id % 2 = 0"));
+        assertEquals(ROWS / 2, count("1"));
+
+        assertTrue(myDB.verifyStatistics());
+        assertEquals(ROWS, DatabaseUtils.queryNumEntries(myDB.getReadableDatabase(), "scores")); // Two per student left
+        Cursor found = myDB.searchStudents("s2@cyryx", null, 0, 10);
+        try {
+            assertEquals(0, found.getCount()); // Student 2 is gone from the mail index
+        } finally {
+            found.close();
+        }
+    }
+
+    @Test
+    public void deleteByNumberRange_removesACohort() {
+        assertEquals(100, myDB.deleteStudents(StudentSelection.byNumberRange(2020101, 2020200)));
+        assertEquals(0, count("student_num BETWEEN 2020101 AND 2020200"));
+        assertEquals(ROWS - 100, count("1"));
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void deleteByGrade_removesOnlyThatGrade() {
+        long failing = count("student_grade = 'F'");
+        assertTrue(failing > 0);
+        assertEquals(failing, myDB.deleteStudents(StudentSelection.byGrade("F")));
+        assertEquals(0, count("student_grade = 'F'"));
+        assertEquals(0, myDB.readStatistics().getGradeCount("F"));
+    }
+
+    @Test
+    public void updateMarks_setsMarksAndRegrades() {
+        long[] ids = new long[700];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        assertEquals(700, myDB.updateMarks(StudentSelection.ofIds(ids), 95, null, GradingPolicy.DEFAULT));
+        assertEquals(700, count("student_physics = 95"));
+
+        // Each student is regraded from the new physics mark and their own math mark
+        Cursor cursor = myDB.readPage(0, 700);
+        try {
+            while (cursor.moveToNext()) {
+                assertEquals(GradingPolicy.DEFAULT.grade(95, cursor.getInt(5)), cursor.getString(6));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertTrue(myDB.verifyStatistics());
+        assertEquals(700, DatabaseUtils.longForQuery(myDB.getReadableDatabase(),
+                "SELECT COUNT(*) FROM scores WHERE subject_id = 1 AND score = 95", null));
+    }
+
+    @Test
+    public void updateMarks_byGradeUpdatesTheWholeGroup() {
+        long failing = count("student_grade = 'F'");
+        assertEquals(failing, myDB.updateMarks(StudentSelection.byGrade("F"), 100, 100, GradingPolicy.DEFAULT));
+        assertEquals(0, count("student_grade = 'F'"));
+        assertEquals(failing, count("student_physics = 100 AND student_math = 100 AND student_grade = 'A+'"));
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void updateMarks_withNothingToSetChangesNothing() {
+        assertEquals(0, myDB.updateMarks(StudentSelection.byGrade("F"), null, null, GradingPolicy.DEFAULT));
+    }
+}
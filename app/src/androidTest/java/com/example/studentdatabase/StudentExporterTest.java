@@ -0,0 +1,115 @@
+package com.example.studentdatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for StudentExporter: CSV and JSON Lines exports read back to the same values,
+ * text that needs quoting or escaping survives, missing values stay missing instead of becoming 0,
+ * and a cancelled export stops after the current chunk.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentExporterTest {
+
+    // Needs CSV quoting (quote, comma, line break) and JSON escaping, plus a character outside ASCII
+    private static final String AWKWARD_NAME = "Aisha \"Ash\" Ibrahim, Jr.\nMal\u00e9";
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+        myDB.addStudent("Hassan", 100001, "hassan@cyryx.edu.mv", 80, 75, "A");
+        myDB.addStudent(AWKWARD_NAME, 100002, "aisha@cyryx.edu.mv", 60, 55, "C+");
+        // A student with only a name: every other column is NULL
+        myDB.getWritableDatabase().execSQL("INSERT INTO cyryx_college (student_name) VALUES ('Nobody')");
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    private String export(StudentExporter exporter, StudentExporter.Format format,
+                          StudentExporter.ProgressListener listener, StudentExporter.Result[] result) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        result[0] = exporter.export(Channels.newChannel(bytes), format, listener);
+        assertEquals(bytes.size(), result[0].bytesWritten);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static List<List<String>> readCsv(String csv) throws Exception {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(csv), ',');
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        while (reader.readRecord(fields)) {
+            records.add(new ArrayList<>(fields));
+        }
+        return records;
+    }
+
+    @Test
+    public void csv_readsBackToTheSameValues() throws Exception {
+        StudentExporter.Result[] result = new StudentExporter.Result[1];
+        List<List<String>> records = readCsv(export(new StudentExporter(myDB, 2), StudentExporter.Format.CSV, null, result));
+        assertEquals(3, result[0].rowsExported);
+        assertFalse(result[0].cancelled);
+
+        assertEquals(4, records.size());
+        assertEquals(Arrays.asList("id", "name", "number", "mail", "physics", "math", "grade"), records.get(0));
+        assertEquals(Arrays.asList("1", "Hassan", "100001", "hassan@cyryx.edu.mv", "80", "75", "A"), records.get(1));
+        assertEquals(AWKWARD_NAME, records.get(2).get(1));
+        // Missing values are empty fields, not 0
+        assertEquals(Arrays.asList("3", "Nobody", "", "", "", "", ""), records.get(3));
+    }
+
+    @Test
+    public void jsonLines_readBackToTheSameValues() throws Exception {
+        StudentExporter.Result[] result = new StudentExporter.Result[1];
+        String[] lines = export(new StudentExporter(myDB, 2), StudentExporter.Format.JSON_LINES, null, result).split("\n");
+        assertEquals(3, lines.length);
+
+        JSONObject hassan = new JSONObject(lines[0]);
+        assertEquals(1, hassan.getLong("id"));
+        assertEquals(100001, hassan.getInt("number"));
+        assertEquals(80, hassan.getInt("physics"));
+        assertEquals("A", hassan.getString("grade"));
+        assertEquals(AWKWARD_NAME, new JSONObject(lines[1]).getString("name"));
+
+        JSONObject nobody = new JSONObject(lines[2]);
+        assertEquals("Nobody", nobody.getString("name"));
+        for (String column : new String[]{"number", "mail", "physics", "math", "grade"}) {
+            assertTrue(column + " should be null", nobody.isNull(column));
+        }
+    }
+
+    @Test
+    public void cancelledExport_stopsAfterTheCurrentChunk() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            myDB.addStudent("Student " + i, 200000 + i, "student" + i + "@cyryx.edu.mv", 50, 50, "C");
+        }
+        StudentExporter exporter = new StudentExporter(myDB, 5);
+        StudentExporter.Result[] result = new StudentExporter.Result[1];
+        String csv = export(exporter, StudentExporter.Format.CSV, (rows, bytes) -> exporter.cancel(), result);
+
+        assertTrue(result[0].cancelled);
+        assertEquals(5, result[0].rowsExported);
+        assertEquals(6, readCsv(csv).size()); // The header and the first chunk, each line complete
+    }
+}
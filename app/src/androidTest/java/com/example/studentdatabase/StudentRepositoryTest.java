@@ -0,0 +1,245 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for StudentRepository. The main-thread guard is enabled for every test,
+ * so any query that reaches SQLite from the UI thread fails the test.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentRepositoryTest {
+
+    private MyDatabaseHelper myDB;
+    private StudentRepository repository;
+
+    @Before
+    public void setUp() {
+        DbThreadGuard.setEnabled(true);
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        myDB = new MyDatabaseHelper(context, null); // In-memory database
+        repository = new StudentRepository(myDB);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+        DbThreadGuard.setEnabled(false);
+    }
+
+    @Test
+    public void queryOnMainThread_isRejected() {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            try {
+                myDB.readPage(0, 10).close();
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        assertTrue(error.get() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void writesAndReads_runOffMainThread() throws Exception {
+        long id = repository.addStudent("Ali", 1001, "ali@example.com", 80, 90, null).get(5, TimeUnit.SECONDS);
+        assertTrue(id > 0);
+
+        int updated = repository.updateStudent(String.valueOf(id), "Ali Hassan", 1001, "ali@example.com", 95, 90, null)
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(1, updated);
+
+        StudentPageSource pageSource = new StudentPageSource(myDB, 10);
+        StudentTable page = repository.loadFirstPage(pageSource, new StudentTable.Builder(10), null).get(5, TimeUnit.SECONDS);
+        assertEquals(1, page.size());
+        assertEquals("Ali Hassan", page.getName(0));
+        assertEquals("A+", page.getGrade(0)); // Regraded by the repository from the new marks
+
+        assertEquals(1, (int) repository.deleteOneRow(String.valueOf(id), null).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void pages_appendToTheTableAndReloadReadsThemAgain() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            repository.addStudent("Student " + i, 2000 + i, "student" + i + "@example.com", 50, 50, null)
+                    .get(5, TimeUnit.SECONDS);
+        }
+        StudentPageSource pageSource = new StudentPageSource(myDB, 10);
+        StudentTable.Builder builder = new StudentTable.Builder(10);
+        StudentTable first = repository.loadFirstPage(pageSource, builder, null).get(5, TimeUnit.SECONDS);
+        StudentTable second = repository.loadNextPage(pageSource, builder, null).get(5, TimeUnit.SECONDS);
+        assertEquals(10, first.size());
+        assertEquals(20, second.size());
+        assertTrue(first.rowEquals(9, second, 9)); // Earlier snapshots are unchanged by later pages
+        assertEquals("Student 19", second.getName(19));
+
+        repository.updateStudent(String.valueOf(second.getId(0)), "Renamed", 2000, "student0@example.com", 90, 90, null)
+                .get(5, TimeUnit.SECONDS);
+        StudentTable reloaded = repository.reload(pageSource, new StudentTable.Builder(20), null).get(5, TimeUnit.SECONDS);
+        assertEquals(20, reloaded.size());
+        assertEquals("Renamed", reloaded.getName(0));
+        assertEquals("Student 0", second.getName(0));
+    }
+
+    @Test
+    public void failure_isDeliveredToTheErrorCallback() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Exception> error = new AtomicReference<>();
+        AtomicReference<Boolean> gotResult = new AtomicReference<>(false);
+        repository.importCsv(() -> {
+            throw new FileNotFoundException("students.csv");
+        }, null, StudentRepository.callback(result -> gotResult.set(true), e -> {
+            error.set(e);
+            latch.countDown();
+        }));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof FileNotFoundException);
+        assertFalse(gotResult.get());
+    }
+
+    @Test
+    public void fullQueue_makesBackgroundCallersWaitAndRejectsTheMainThread() throws Exception {
+        // Holding a transaction on this thread keeps the writer stuck on its first operation
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        db.beginTransaction();
+        List<Future<Long>> added = Collections.synchronizedList(new ArrayList<>());
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 300; i++) {
+                added.add(repository.addStudent("Student " + i, 3000 + i, "s" + i + "@example.com", 50, 50, null));
+            }
+        });
+        try {
+            producer.start();
+            producer.join(1000);
+            assertTrue(producer.isAlive()); // Waiting for room in the queue
+
+            // The main thread is not made to wait: its operation fails instead
+            AtomicReference<Future<Long>> fromMain = new AtomicReference<>();
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                    fromMain.set(repository.addStudent("Main", 9999, "main@example.com", 50, 50, null)));
+            try {
+                fromMain.get().get(5, TimeUnit.SECONDS);
+                fail("The main thread's operation was queued");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        } finally {
+            db.endTransaction();
+        }
+
+        // Once the writer is free again every background operation runs
+        producer.join(5000);
+        assertEquals(300, added.size());
+        for (Future<Long> future : added) {
+            assertTrue(future.get(5, TimeUnit.SECONDS) > 0);
+        }
+    }
+
+    @Test
+    public void committedChanges_areSavedToTheListSnapshot() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File file = new File(context.getCacheDir(), "repository-test.snapshot");
+        file.delete();
+        StudentRepository withSnapshot = new StudentRepository(myDB, null, null, file);
+        withSnapshot.addStudent("Ali", 1001, "ali@example.com", 80, 90, null).get(5, TimeUnit.SECONDS);
+        withSnapshot.addStudent("Sara", 1002, "sara@example.com", 70, 60, null).get(5, TimeUnit.SECONDS);
+
+        // The batch is handed out after a short delay, and the snapshot is then written on a reader thread
+        StudentListSnapshot snapshot = null;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (snapshot == null || snapshot.size() < 2) {
+            assertTrue("No list snapshot was written", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+            if (file.exists()) {
+                snapshot = StudentListSnapshot.map(file);
+            }
+        }
+        assertEquals(myDB.getDataVersion(), snapshot.getStamp());
+        assertEquals(1002, snapshot.getNumber(1));
+        char[] name = new char[snapshot.getNameLength(1)];
+        snapshot.copyName(1, name);
+        assertEquals("Sara", new String(name));
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void callback_isDeliveredOnMainThread() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Boolean> onMain = new AtomicReference<>(false);
+        repository.addStudent("Sara", 1002, "sara@example.com", 70, 60, result -> {
+            onMain.set(android.os.Looper.myLooper() == android.os.Looper.getMainLooper());
+            latch.countDown();
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(onMain.get());
+    }
+
+    @Test
+    public void newGradingPolicy_regradesExistingStudents() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            repository.addStudent("Student " + i, i, "s" + i + "@example.com", i % 101, (i * 3) % 101, null);
+        }
+
+        // Pass/fail policy where Math counts twice as much as Physics
+        GradingPolicy passFail = new GradingPolicy(1, 2, new String[]{"Pass", "Fail"}, new int[]{50});
+        GradeRecalculator.Result result = repository.setGradingPolicy(passFail, null, null).get(30, TimeUnit.SECONDS);
+        assertEquals(250, result.rowsScanned);
+        assertEquals(250, result.rowsChanged); // No old grade was "Pass" or "Fail"
+        assertSame(passFail, repository.getGradingPolicy());
+
+        StudentTable table = repository.loadFirstPage(new StudentPageSource(myDB, 500), new StudentTable.Builder(500), null)
+                .get(5, TimeUnit.SECONDS);
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(passFail.grade(table.getPhysics(row), table.getMath(row)), table.getGrade(row));
+        }
+        assertTrue(myDB.verifyStatistics()); // The grade histogram followed the regrade
+
+        // Running it again finds nothing to change
+        assertEquals(0, repository.recomputeGrades(null, null).get(30, TimeUnit.SECONDS).rowsChanged);
+    }
+
+    @Test
+    public void loadStudent_isCachedAndInvalidatedByWrites() throws Exception {
+        long id = repository.addStudent("Ali", 1001, "ali@example.com", 80, 90, null).get(5, TimeUnit.SECONDS);
+        StudentCache cache = repository.getStudentCache();
+
+        assertNull(repository.getCachedStudent(id));
+        assertEquals("Ali", repository.loadStudent(id, null).get(5, TimeUnit.SECONDS).name);
+        assertEquals("Ali", repository.getCachedStudent(id).name); // Now served from memory
+        long hits = cache.getHitCount();
+
+        // An update replaces the cached copy
+        repository.updateStudent(String.valueOf(id), "Ali Hassan", 1001, "ali@example.com", 80, 90, null)
+                .get(5, TimeUnit.SECONDS);
+        assertNull(repository.getCachedStudent(id));
+        assertEquals("Ali Hassan", repository.loadStudent(id, null).get(5, TimeUnit.SECONDS).name);
+        assertEquals(hits, cache.getHitCount());
+
+        // A delete removes it, and loading finds nothing
+        repository.deleteOneRow(String.valueOf(id), null).get(5, TimeUnit.SECONDS);
+        assertNull(repository.getCachedStudent(id));
+        assertNull(repository.loadStudent(id, null).get(5, TimeUnit.SECONDS));
+    }
+}
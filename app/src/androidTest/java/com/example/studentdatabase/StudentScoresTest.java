@@ -0,0 +1,181 @@
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the subject and score tables. They check that the physics and math columns
+ * are mirrored into the scores table by triggers, that a page of score vectors comes back from one
+ * joined query without a temporary sort, and that the main list never reads the scores table.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentScoresTest {
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    // Student numbers are unique, so each student gets the next one (the first gets 1000)
+    private int nextNumber = 1000;
+
+    private long add(String name, int physics, int math) {
+        return myDB.addStudent(name, nextNumber++, name + "@cyryx.edu.mv", physics, math, GradingPolicy.DEFAULT.grade(physics, math));
+    }
+
+    // Reads a student's scores as "subject=score" pairs
+    private String scoresOf(long studentId) {
+        StringBuilder text = new StringBuilder();
+        Cursor cursor = myDB.readStudentScores(studentId);
+        try {
+            while (cursor.moveToNext()) {
+                text.append(cursor.getLong(0)).append('=').append(cursor.getInt(1)).append(' ');
+            }
+        } finally {
+            cursor.close();
+        }
+        return text.toString().trim();
+    }
+
+    // Joins the detail column of a query plan into one string
+    private static String plan(Cursor cursor) {
+        StringBuilder plan = new StringBuilder();
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+
+    @Test
+    public void physicsAndMathAreMirroredIntoScores() {
+        long id = add("Ali", 80, 70);
+        assertEquals("1=80 2=70", scoresOf(id));
+
+        myDB.updateStudent(String.valueOf(id), "Ali", 1000, "ali@cyryx.edu.mv", 85, 60, "B+");
+        assertEquals("1=85 2=60", scoresOf(id));
+
+        assertEquals(1, myDB.setScore(id, MyDatabaseHelper.SUBJECT_MATH, 90));
+        assertEquals("1=85 2=90", scoresOf(id));
+        assertEquals(175, myDB.readStatistics().physicsSum + myDB.readStatistics().mathSum);
+
+        myDB.deleteOneRow(String.valueOf(id));
+        assertEquals("", scoresOf(id));
+    }
+
+    @Test
+    public void extraSubjectsAreStoredOnlyInScores() {
+        long chemistry = myDB.addSubject("Chemistry");
+        assertEquals(chemistry, myDB.addSubject("chemistry")); // Names are unique, ignoring case
+        long id = add("Sara", 50, 60);
+
+        assertEquals(1, myDB.setScore(id, chemistry, 77));
+        assertEquals(0, myDB.setScore(id + 100, chemistry, 77)); // No such student
+        assertEquals("1=50 2=60 " + chemistry + "=77", scoresOf(id));
+
+        // Editing the legacy marks leaves the other subjects alone
+        myDB.updateStudent(String.valueOf(id), "Sara", 1000, "sara@cyryx.edu.mv", 40, 60, "C+");
+        assertEquals("1=40 2=60 " + chemistry + "=77", scoresOf(id));
+
+        assertEquals(1, myDB.deleteScore(id, chemistry));
+        assertEquals("1=40 2=60", scoresOf(id));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void legacySubjectsCannotBeDeleted() {
+        myDB.deleteScore(add("Ali", 80, 70), MyDatabaseHelper.SUBJECT_PHYSICS);
+    }
+
+    @Test
+    public void scorePageHasOneVectorPerStudent() {
+        long chemistry = myDB.addSubject("Chemistry");
+        for (int i = 1; i <= 30; i++) {
+            long id = add("Student " + i, i, 100 - i);
+            if (i % 3 == 0) {
+                myDB.setScore(id, chemistry, i * 2);
+            }
+        }
+
+        SubjectScores.Builder builder = new SubjectScores.Builder(
+                new long[]{MyDatabaseHelper.SUBJECT_PHYSICS, MyDatabaseHelper.SUBJECT_MATH, chemistry},
+                new String[]{"Physics", "Math", "Chemistry"});
+        Cursor cursor = myDB.readScorePage(10, 10);
+        try {
+            while (cursor.moveToNext()) {
+                builder.appendFromCursor(cursor);
+            }
+        } finally {
+            cursor.close();
+        }
+        SubjectScores scores = builder.build();
+
+        assertEquals(10, scores.getStudentCount());
+        assertEquals(11, scores.getStudentId(0));
+        assertEquals(20, scores.getStudentId(9));
+        assertEquals(11, scores.getScore(0, 0));
+        assertEquals(89, scores.getScore(0, 1));
+        assertFalse(scores.hasScore(0, 2));
+        assertEquals(24, scores.getScore(1, 2)); // Student 12
+    }
+
+    @Test
+    public void scorePageIsOneJoinWithoutSorting() {
+        String plan = plan(myDB.explainScorePage(0, 50));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+        assertFalse(plan, plan.contains("SCAN"));
+    }
+
+    @Test
+    public void listPageNeverReadsScores() {
+        String plan = plan(myDB.explainPage(0, 50));
+        assertFalse(plan, plan.contains("scores"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void subjectQueriesUseSubjectIndex() {
+        String plan = plan(myDB.explainTopScores(MyDatabaseHelper.SUBJECT_MATH, 10));
+        assertTrue(plan, plan.contains("COVERING INDEX idx_scores_subject"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+
+        add("Ali", 90, 40);
+        add("Sara", 70, 80);
+        Cursor top = myDB.readTopScores(MyDatabaseHelper.SUBJECT_MATH, 1);
+        try {
+            assertTrue(top.moveToFirst());
+            assertEquals(80, top.getInt(1));
+        } finally {
+            top.close();
+        }
+
+        Cursor averages = myDB.readSubjectAverages();
+        try {
+            assertTrue(averages.moveToFirst());
+            assertEquals("Physics", averages.getString(1));
+            assertEquals(2, averages.getLong(2));
+            assertEquals(80.0, averages.getDouble(3), 1e-9);
+        } finally {
+            averages.close();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for MyDatabaseHelper.searchStudents(). They check the results and that
+ * EXPLAIN QUERY PLAN shows the intended index for each kind of search at 100k rows. The query time
+ * depends on the device, so it is measured by a benchmark instead of asserted here.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentSearchTest {
+
+    private static final int ROWS = 100_000;
+    private static final String[] FIRST_NAMES = {"Ali", "Sara", "Hassan", "Aisha", "Ibrahim", "Mariyam", "Ahmed", "Fathimath"};
+    private static final String[] GRADES = {"A+", "A", "B+", "B", "C+", "C", "D", "F"};
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        SQLiteStatement insert = myDB.compileInsertStatement(db);
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROWS; i++) {
+                insert.bindString(1, FIRST_NAMES[i % FIRST_NAMES.length] + " Student" + i);
+                insert.bindLong(2, 100000 + i);
+                insert.bindString(3, "student" + i + "@cyryx.edu.mv");
+                insert.bindLong(4, i % 101);
+                insert.bindLong(5, (i * 7) % 101);
+                insert.bindString(6, GRADES[i % GRADES.length]);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    private static int count(Cursor cursor) {
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private String plan(String text, String grade) {
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = myDB.explainSearch(text, grade, 0, 50);
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+
+    @Test
+    public void searchResults() {
+        assertEquals(1, count(myDB.searchStudents("100042", null, 0, 50)));
+        assertEquals(1, count(myDB.searchStudents("STUDENT42@cyryx", null, 0, 50)));
+        assertEquals(50, count(myDB.searchStudents("sar", null, 0, 50)));
+        assertEquals(1, count(myDB.searchStudents("sara student1", null, 0, 50)));
+        assertEquals(50, count(myDB.searchStudents("", "B+", 0, 50)));
+    }
+
+    @Test
+    public void nameIndex_followsUpdatesAndDeletes() {
+        long id = myDB.addStudent("Zubair Test", 1, "zubair@example.com", 50, 50, "C+");
+        assertEquals(1, count(myDB.searchStudents("zub", null, 0, 50)));
+        myDB.updateStudent(String.valueOf(id), "Yoosuf Test", 1, "zubair@example.com", 50, 50, "C+");
+        assertEquals(0, count(myDB.searchStudents("zub", null, 0, 50)));
+        assertEquals(1, count(myDB.searchStudents("yoo", null, 0, 50)));
+        myDB.deleteOneRow(String.valueOf(id));
+        assertEquals(0, count(myDB.searchStudents("yoo", null, 0, 50)));
+    }
+
+    @Test
+    public void queryPlans_useIndexes() {
+        assertTrue(plan("100042", null), plan("100042", null).contains("idx_student_num"));
+        assertTrue(plan("student42@", null), plan("student42@", null).contains("idx_student_mail"));
+        assertTrue(plan("", "A"), plan("", "A").contains("idx_student_grade"));
+        assertTrue(plan("sara", null), plan("sara", null).contains("VIRTUAL TABLE INDEX"));
+    }
+}
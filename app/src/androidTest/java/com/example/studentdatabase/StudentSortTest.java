@@ -0,0 +1,112 @@
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the sorted list. Paging through every order in small pages must give the
+ * same rows, in the same order, as one full ORDER BY query, including ties and missing values, and the
+ * first page of every order must come straight from an index without a sort step.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentSortTest {
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < 300; i++) {
+                // Few distinct values so there are many ties, names differing only in case, and some missing values
+                // (student numbers are unique, so they are shuffled instead)
+                db.execSQL("INSERT INTO cyryx_college (student_name, student_num, student_mail, student_physics, " +
+                                "student_math, student_grade) VALUES (?, ?, ?, ?, ?, ?)",
+                        new Object[]{i % 31 == 0 ? null : (i % 2 == 0 ? "ali " : "ALI ") + (i % 7),
+                                1000 + (i * 37) % 300, "s" + i + "@cyryx.edu.mv",
+                                i % 23 == 0 ? null : i % 11, i % 5,
+                                GradingPolicy.DEFAULT.grade(i % 11, i % 5)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    // The IDs in the expected order, from a single query over the whole table
+    private List<Long> expectedOrder(StudentSort sort) {
+        String dir = sort.descending ? " DESC" : "";
+        String order = sort.column == null ? "_id" : sort.key() + dir + ", _id" + dir;
+        List<Long> ids = new ArrayList<>();
+        Cursor cursor = myDB.getReadableDatabase().rawQuery("SELECT _id FROM cyryx_college ORDER BY " + order, null);
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+
+    @Test
+    public void pagingMatchesFullOrderForEverySort() {
+        for (StudentSort sort : StudentSort.values()) {
+            StudentPageSource pageSource = StudentPageSource.forSort(myDB, sort, 7);
+            List<Long> ids = new ArrayList<>();
+            while (pageSource.loadNextPage(cursor -> ids.add(cursor.getLong(0))) > 0) {
+                // Keep loading until the end of the table
+            }
+            assertFalse(sort.name(), pageSource.hasMore());
+            assertEquals(sort.name(), expectedOrder(sort), ids);
+        }
+    }
+
+    @Test
+    public void reloadKeepsTheSortOrder() {
+        StudentPageSource pageSource = StudentPageSource.forSort(myDB, StudentSort.MATH, 20);
+        pageSource.loadNextPage(cursor -> { });
+        pageSource.loadNextPage(cursor -> { });
+
+        List<Long> ids = new ArrayList<>();
+        assertEquals(40, pageSource.reload(cursor -> ids.add(cursor.getLong(0))));
+        assertEquals(expectedOrder(StudentSort.MATH).subList(0, 40), ids);
+    }
+
+    @Test
+    public void firstPageOfEverySortUsesAnIndex() {
+        for (StudentSort sort : StudentSort.values()) {
+            StringBuilder plan = new StringBuilder();
+            Cursor cursor = myDB.explainSortedPage(sort, 50);
+            try {
+                int detail = cursor.getColumnIndexOrThrow("detail");
+                while (cursor.moveToNext()) {
+                    plan.append(cursor.getString(detail)).append('\n');
+                }
+            } finally {
+                cursor.close();
+            }
+            assertFalse(sort.name() + ": " + plan, plan.toString().contains("TEMP B-TREE"));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the dashboard statistics. They check that the trigger-maintained summary
+ * tables always match a full scan after inserts, updates and deletes, that a rebuild repairs them,
+ * and that the top students query walks the total-marks index.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentStatisticsTest {
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    // Student numbers are unique, so each student gets the next one (the first gets 1000)
+    private int nextNumber = 1000;
+
+    private long add(String name, int physics, int math) {
+        return myDB.addStudent(name, nextNumber++, name + "@cyryx.edu.mv", physics, math, GradingPolicy.DEFAULT.grade(physics, math));
+    }
+
+    @Test
+    public void emptyDatabaseHasZeroStatistics() {
+        StudentStatistics statistics = myDB.readStatistics();
+        assertEquals(0, statistics.studentCount);
+        assertEquals(0, statistics.getPhysicsAverage(), 0);
+        assertEquals(0, statistics.getGradeCount("A+"));
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void insertsAreSummarised() {
+        add("Ali", 95, 91);   // A+
+        add("Sara", 80, 84);  // A
+        add("Hassan", 10, 20); // F
+
+        StudentStatistics statistics = myDB.readStatistics();
+        assertEquals(3, statistics.studentCount);
+        assertEquals(185, statistics.physicsSum);
+        assertEquals(195, statistics.mathSum);
+        assertEquals(65.0, statistics.getMathAverage(), 1e-9);
+        assertEquals(1, statistics.getGradeCount("A+"));
+        assertEquals(1, statistics.getGradeCount("A"));
+        assertEquals(1, statistics.getGradeCount("F"));
+        assertEquals(0, statistics.getGradeCount("B"));
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void updatesAndDeletesAdjustTheSummary() {
+        long ali = add("Ali", 95, 91);
+        long sara = add("Sara", 80, 84);
+
+        // Changes the marks and the grade
+        myDB.updateStudent(String.valueOf(ali), "Ali", 1000, "ali@cyryx.edu.mv", 60, 62, GradingPolicy.DEFAULT.grade(60, 62));
+        StudentStatistics statistics = myDB.readStatistics();
+        assertEquals(140, statistics.physicsSum);
+        assertEquals(0, statistics.getGradeCount("A+"));
+        assertEquals(1, statistics.getGradeCount("B"));
+        assertTrue(myDB.verifyStatistics());
+
+        myDB.deleteOneRow(String.valueOf(sara));
+        statistics = myDB.readStatistics();
+        assertEquals(1, statistics.studentCount);
+        assertEquals(0, statistics.getGradeCount("A"));
+        assertTrue(myDB.verifyStatistics());
+
+        myDB.deleteAllData();
+        assertEquals(0, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void rebuildRepairsOutOfSyncSummary() {
+        add("Ali", 95, 91);
+        add("Sara", 50, 50);
+
+        // Simulate drift by changing the summary behind the triggers' back
+        myDB.getWritableDatabase().execSQL("UPDATE student_stats SET student_count = 99");
+        myDB.getWritableDatabase().execSQL("DELETE FROM grade_counts");
+        assertFalse(myDB.verifyStatistics());
+
+        myDB.rebuildStatistics();
+        assertTrue(myDB.verifyStatistics());
+        assertEquals(2, myDB.readStatistics().studentCount);
+    }
+
+    @Test
+    public void bulkLoadStaysInSync() {
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        SQLiteStatement insert = myDB.compileInsertStatement(db);
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                int physics = i % 101;
+                int math = (i * 7) % 101;
+                insert.bindString(1, "Student" + i);
+                insert.bindLong(2, 100000 + i);
+                insert.bindString(3, "student" + i + "@cyryx.edu.mv");
+                insert.bindLong(4, physics);
+                insert.bindLong(5, math);
+                insert.bindString(6, GradingPolicy.DEFAULT.grade(physics, math));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+
+        assertEquals(myDB.computeStatistics(), myDB.readStatistics());
+        assertEquals(10_000, myDB.readStatistics().studentCount);
+    }
+
+    @Test
+    public void topStudentsAreOrderedByTotalMarks() {
+        add("Ali", 50, 50);
+        add("Sara", 99, 98);
+        add("Hassan", 70, 90);
+        add("Aisha", 99, 98);
+
+        Cursor cursor = myDB.readTopStudents(3);
+        try {
+            assertEquals(3, cursor.getCount());
+            cursor.moveToNext();
+            assertEquals("Aisha", Student.fromCursor(cursor).name); // Ties go to the newest student
+            cursor.moveToNext();
+            assertEquals("Sara", Student.fromCursor(cursor).name);
+            cursor.moveToNext();
+            assertEquals("Hassan", Student.fromCursor(cursor).name);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void topStudentsUseTotalIndex() {
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = myDB.explainTopStudents(10);
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        assertTrue(plan.toString(), plan.toString().contains("idx_student_total"));
+        assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the unique student numbers and emails and the batched upsert: repeating a
+ * batch or an import changes nothing, changed students are updated in place, and a student whose email
+ * belongs to someone else is rejected without stopping the rest of the batch.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StudentUpsertTest {
+
+    private MyDatabaseHelper myDB;
+
+    @Before
+    public void setUp() {
+        myDB = new MyDatabaseHelper(InstrumentationRegistry.getInstrumentation().getTargetContext(), null);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+    }
+
+    private static Student student(String name, int number, String mail, int physics, int math) {
+        return new Student(0, name, number, mail, physics, math, GradingPolicy.DEFAULT.grade(physics, math));
+    }
+
+    private static List<Student> roster(int count) {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            students.add(student("Student " + i, 100000 + i, "student" + i + "@cyryx.edu.mv", i % 101, (i * 7) % 101));
+        }
+        return students;
+    }
+
+    private Student readByNumber(int number) {
+        Cursor cursor = myDB.getReadableDatabase().rawQuery("SELECT * FROM cyryx_college WHERE student_num = ?",
+                new String[]{String.valueOf(number)});
+        try {
+            return cursor.moveToFirst() ? Student.fromCursor(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void duplicateNumberOrEmail_isRefused() {
+        assertTrue(myDB.addStudent("Aisha", 1, "aisha@cyryx.edu.mv", 80, 75, "A") > 0);
+        assertEquals(-1, myDB.addStudent("Aisha again", 1, "other@cyryx.edu.mv", 80, 75, "A"));
+        assertEquals(-1, myDB.addStudent("Aisha again", 2, "AISHA@cyryx.edu.mv", 80, 75, "A")); // Case is ignored
+        long hassan = myDB.addStudent("Hassan", 2, null, 60, 55, "C+");
+        assertTrue(myDB.addStudent("Ibrahim", 3, null, 40, 45, "F") > 0); // Missing emails never clash
+
+        assertEquals(0, myDB.updateStudent(String.valueOf(hassan), "Hassan", 1, null, 60, 55, "C+"));
+        assertEquals(3, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void repeatedBatch_changesNothing() {
+        UpsertResult first = myDB.upsertStudents(roster(500));
+        assertEquals(500, first.inserted);
+        assertEquals(0, first.getConflicts());
+        long pending = myDB.getPendingChangeCount();
+
+        UpsertResult again = myDB.upsertStudents(roster(500));
+        assertEquals(0, again.getChanged());
+        assertEquals(500, again.unchanged);
+        assertEquals(500, myDB.readStatistics().studentCount);
+        assertEquals(pending, myDB.getPendingChangeCount()); // Nothing was written, so nothing to sync
+    }
+
+    @Test
+    public void changedStudents_areUpdatedInPlace() {
+        myDB.upsertStudents(roster(10));
+        long id = readByNumber(100003).id;
+
+        UpsertResult result = myDB.upsertStudents(Arrays.asList(
+                student("Student 3", 100003, "student3@cyryx.edu.mv", 99, 98), // New marks
+                student("Student 4", 100004, "student4@cyryx.edu.mv", 4, 28),  // Same as before
+                student("New", 200000, "new@cyryx.edu.mv", 50, 50)));
+        assertEquals(1, result.inserted);
+        assertEquals(1, result.updated);
+        assertEquals(1, result.unchanged);
+        assertEquals(0, result.rejected);
+
+        Student updated = readByNumber(100003);
+        assertEquals(id, updated.id); // Same row
+        assertEquals(99, updated.physics);
+        assertEquals("A+", updated.grade);
+        assertEquals(11, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void emailOfAnotherStudent_isRejectedAndTheRestGoIn() {
+        myDB.upsertStudents(roster(10));
+
+        UpsertResult result = myDB.upsertStudents(Arrays.asList(
+                student("Thief", 300000, "STUDENT1@cyryx.edu.mv", 50, 50),   // New number, taken email
+                student("Student 2", 100002, "student5@cyryx.edu.mv", 50, 50), // Existing number, taken email
+                student("Fine", 300001, "fine@cyryx.edu.mv", 50, 50)));
+        assertEquals(1, result.inserted);
+        assertEquals(2, result.rejected);
+
+        assertNull(readByNumber(300000));
+        assertEquals("student2@cyryx.edu.mv", readByNumber(100002).mail);
+        assertEquals(11, myDB.readStatistics().studentCount);
+        assertTrue(myDB.verifyStatistics());
+    }
+
+    @Test
+    public void repeatedImport_isCountedAsUnchanged() throws IOException {
+        StringBuilder csv = new StringBuilder("name,number,email,physics,math\n");
+        for (int i = 0; i < 1200; i++) {
+            csv.append("Student ").append(i).append(',').append(100000 + i).append(",student").append(i)
+                    .append("@cyryx.edu.mv,").append(i % 101).append(',').append((i * 7) % 101).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        List<UpsertResult> batches = new ArrayList<>();
+        StudentCsvImporter importer = new StudentCsvImporter(myDB, 500, GradingPolicy.DEFAULT);
+
+        StudentCsvImporter.Result first = importer.importFrom(new ByteArrayInputStream(bytes), null);
+        assertEquals(1200, first.rowsImported);
+        assertEquals(0, first.getConflicts());
+
+        StudentCsvImporter.Result again = importer.importFrom(new ByteArrayInputStream(bytes),
+                (imported, skipped, rowsPerSecond, batch) -> batches.add(batch));
+        assertEquals(0, again.rowsImported);
+        assertEquals(1200, again.rowsUnchanged);
+        assertEquals(3, batches.size()); // 500 + 500 + 200
+        assertEquals(200, batches.get(2).unchanged);
+        assertEquals(1200, myDB.readStatistics().studentCount);
+    }
+}
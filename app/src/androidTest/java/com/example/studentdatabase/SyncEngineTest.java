@@ -0,0 +1,235 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * End-to-end tests of syncing two devices (two in-memory databases) through an in-process roster service.
+ * They check that only the changes since the last sync travel, that pulled changes are not pushed back,
+ * that a reset reaches the other device, that students added on both devices with the same number or
+ * email end up only once, and that failed calls are retried with backoff.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SyncEngineTest {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * A roster service kept in memory. It numbers every change it accepts, remembers which device sent it,
+     * and can be told to fail the next few calls.
+     */
+    static class MockRosterServer implements RosterService {
+        final List<SyncChange> changes = new ArrayList<>();
+        final List<String> senders = new ArrayList<>();
+        final Map<String, Long> lastBatchIds = new HashMap<>();
+        int failuresLeft = 0;
+        int pushCalls = 0;
+
+        @Override
+        public synchronized void push(String deviceId, long batchId, byte[] batch) throws IOException {
+            failIfAsked();
+            pushCalls++;
+            Long lastBatchId = lastBatchIds.get(deviceId);
+            if (lastBatchId != null && batchId <= lastBatchId) {
+                return; // Already accepted (a retry after a lost reply)
+            }
+            for (SyncChange change : SyncChange.decode(batch)) {
+                changes.add(change.withSeq(changes.size() + 1));
+                senders.add(deviceId);
+            }
+            lastBatchIds.put(deviceId, batchId);
+        }
+
+        @Override
+        public synchronized byte[] pull(String deviceId, long afterSeq, int limit) throws IOException {
+            failIfAsked();
+            List<SyncChange> found = new ArrayList<>();
+            for (int i = (int) afterSeq; i < changes.size() && found.size() < limit; i++) {
+                if (!senders.get(i).equals(deviceId)) {
+                    found.add(changes.get(i));
+                }
+            }
+            return SyncChange.encode(found);
+        }
+
+        private void failIfAsked() throws IOException {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IOException("Service unavailable");
+            }
+        }
+    }
+
+    private MockRosterServer server;
+    private MyDatabaseHelper deviceA, deviceB;
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        server = new MockRosterServer();
+        deviceA = new MyDatabaseHelper(context, null);
+        deviceB = new MyDatabaseHelper(context, null);
+    }
+
+    @After
+    public void tearDown() {
+        deviceA.close();
+        deviceB.close();
+    }
+
+    private SyncEngine.Result sync(MyDatabaseHelper device) throws IOException {
+        return new SyncEngine(device, server, BATCH_SIZE, sleeps::add).run();
+    }
+
+    // Every student's values, sorted, so two devices can be compared regardless of their local IDs
+    private static List<String> students(MyDatabaseHelper device) {
+        List<String> rows = new ArrayList<>();
+        Cursor cursor = device.readAllData();
+        try {
+            while (cursor.moveToNext()) {
+                Student s = Student.fromCursor(cursor);
+                rows.add(s.name + "/" + s.number + "/" + s.mail + "/" + s.physics + "/" + s.math + "/" + s.grade);
+            }
+        } finally {
+            cursor.close();
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+    @Test
+    public void changesReachTheOtherDevice() throws IOException {
+        long aisha = deviceA.addStudent("Aisha", 1, "aisha@cyryx.edu.mv", 80, 75, "A");
+        deviceA.addStudent("Hassan", 2, "hassan@cyryx.edu.mv", 60, 55, "C+");
+        long ibrahim = deviceA.addStudent("Ibrahim", 3, null, 40, 45, "F");
+        deviceA.updateStudent(String.valueOf(aisha), "Aisha Ali", 1, "aisha@cyryx.edu.mv", 90, 85, "A+");
+        deviceA.deleteOneRow(String.valueOf(ibrahim));
+
+        SyncEngine.Result pushed = sync(deviceA);
+        assertEquals(3, pushed.changesPushed); // One change per student
+        assertEquals(0, deviceA.getPendingChangeCount());
+
+        SyncEngine.Result pulled = sync(deviceB);
+        assertEquals(3, pulled.changesPulled);
+        assertEquals(students(deviceA), students(deviceB));
+        assertEquals(0, deviceB.getPendingChangeCount()); // Applying them did not log them again
+    }
+
+    @Test
+    public void changesFlowBothWaysAndOnlyDeltasTravel() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            deviceA.addStudent("Student " + i, i, "s" + i + "@cyryx.edu.mv", i, i, "F");
+        }
+        SyncEngine.Result first = sync(deviceA);
+        sync(deviceB);
+
+        // Device B edits one student; only that change travels
+        deviceB.updateStudent("10", "Edited", 9, "s9@cyryx.edu.mv", 99, 99, "A+");
+        SyncEngine.Result delta = sync(deviceB);
+        assertEquals(1, delta.changesPushed);
+        assertTrue(delta.bytesSent < first.bytesSent);
+
+        SyncEngine.Result back = sync(deviceA);
+        assertEquals(0, back.changesPushed);
+        assertEquals(1, back.changesPulled);
+        assertEquals(students(deviceB), students(deviceA));
+    }
+
+    @Test
+    public void resetReachesTheOtherDevice() throws IOException {
+        deviceA.addStudent("Aisha", 1, "aisha@cyryx.edu.mv", 80, 75, "A");
+        sync(deviceA);
+        sync(deviceB);
+        assertEquals(1, students(deviceB).size());
+
+        deviceA.deleteAllData();
+        deviceA.addStudent("Mariyam", 4, "mariyam@cyryx.edu.mv", 70, 70, "B");
+        sync(deviceA);
+        long versionBefore = deviceB.getDataVersion();
+        sync(deviceB);
+        assertEquals(students(deviceA), students(deviceB));
+        assertEquals(1, deviceB.readStatistics().studentCount);
+        assertTrue(deviceB.verifyStatistics());
+        assertTrue(deviceB.getDataVersion() > versionBefore); // The list knows to reload
+        assertEquals(0, sync(deviceB).changesPushed); // Applying the reset logged nothing
+    }
+
+    @Test
+    public void sameStudentAddedOnBothDevices_endsUpOnceEverywhere() throws IOException {
+        deviceA.addStudent("Aisha", 1, "aisha@cyryx.edu.mv", 80, 75, "A");
+        deviceA.addStudent("Hassan", 2, "hassan@cyryx.edu.mv", 60, 55, "C+");
+        deviceB.addStudent("Aisha Ali", 1, "aisha.ali@cyryx.edu.mv", 90, 85, "A+"); // Same number
+        deviceB.addStudent("Hassan Ali", 3, "HASSAN@cyryx.edu.mv", 50, 50, "C"); // Same email
+        sync(deviceA);
+        sync(deviceB);
+        sync(deviceA);
+
+        // Both devices kept the same one of each pair
+        assertEquals(students(deviceA), students(deviceB));
+        assertEquals(2, students(deviceA).size());
+        assertTrue(deviceA.verifyStatistics());
+        assertTrue(deviceB.verifyStatistics());
+        assertEquals(0, sync(deviceB).changesPushed); // Removing the clashing students was not logged
+    }
+
+    @Test
+    public void largeSyncsAreBatched() throws IOException {
+        for (int i = 0; i < 1200; i++) {
+            deviceA.addStudent("Student " + i, i, "s" + i + "@cyryx.edu.mv", i % 101, i % 101, "C");
+        }
+        sync(deviceA);
+        assertEquals(3, server.pushCalls);
+
+        SyncEngine.Result pulled = sync(deviceB);
+        assertEquals(1200, pulled.changesPulled);
+        assertEquals(1200, students(deviceB).size());
+    }
+
+    @Test
+    public void failedCallsAreRetriedWithBackoff() throws IOException {
+        deviceA.addStudent("Aisha", 1, "aisha@cyryx.edu.mv", 80, 75, "A");
+        server.failuresLeft = 3;
+
+        SyncEngine.Result result = sync(deviceA);
+        assertEquals(3, result.retries);
+        assertEquals(1, result.changesPushed);
+        assertEquals(3, sleeps.size());
+        // Each wait is between half and all of its backoff step, and the steps double
+        for (int i = 0; i < sleeps.size(); i++) {
+            long step = SyncEngine.INITIAL_BACKOFF_MS << i;
+            assertTrue(sleeps.get(i) > step / 2 - 1 && sleeps.get(i) <= step);
+        }
+    }
+
+    @Test
+    public void changesAreKeptWhenTheServiceIsDown() {
+        deviceA.addStudent("Aisha", 1, "aisha@cyryx.edu.mv", 80, 75, "A");
+        server.failuresLeft = Integer.MAX_VALUE;
+        try {
+            sync(deviceA);
+            fail("The sync should give up");
+        } catch (IOException expected) {
+            // Gave up after MAX_ATTEMPTS tries
+        }
+        assertEquals(SyncEngine.MAX_ATTEMPTS - 1, sleeps.size());
+        assertEquals(1, deviceA.getPendingChangeCount()); // Still there for the next sync
+    }
+}
@@ -3,7 +3,7 @@
 
  * This activity allows users to add a new student record to the database.
  * It collects student details such as name, number, email, physics marks, and math marks,
- * calculates the average grade, and stores the data in the database.
+ * and stores the data in the database. The grade is worked out from the marks by the current GradingPolicy.
 
  * Author: Abdulla Nibah Hussain
  * Date: 24/11/2024
@@ -52,27 +52,30 @@ public class AddActivity extends AppCompatActivity {
                 int physics = Integer.parseInt(physics_input.getText().toString().trim());
                 int math = Integer.parseInt(math_input.getText().toString().trim());
 
-                // Calculate average and determine grade based on marks
-                int average = (physics + math) / 2;
-                String grade = (average >= 90) ? "A+" : (average >= 80) ? "A" :
-                        (average >= 70) ? "B+" : (average >= 60) ? "B" :
-                                (average >= 50) ? "C+" : (average >= 40) ? "C" :
-                                        (average >= 33) ? "D" : "F";
-
                 // Validate required fields
                 if (name.isEmpty() || email.isEmpty()) {
                     Toast.makeText(AddActivity.this, "Name and Email are required!", Toast.LENGTH_SHORT).show();
                     return;
                 }
 
-                // Save student data to the database
-                MyDatabaseHelper myDB = new MyDatabaseHelper(AddActivity.this);
-                myDB.addStudent(name, number, email, physics, math, grade);
-
-                // Send result back to MainActivity and close the activity
-                Intent returnIntent = new Intent();
-                setResult(RESULT_OK, returnIntent);
-                finish(); // Close this activity
+                // Save student data to the database on a background thread (the repository grades it)
+                add_button.setEnabled(false); // Prevent double submission while the insert runs
+                StudentRepository.getInstance(AddActivity.this).addStudent(name, number, email, physics, math, StudentRepository.callback(result -> {
+                    if (result == -1) {
+                        Toast.makeText(AddActivity.this, "Failed to add student. The number or email may already be in use.", Toast.LENGTH_SHORT).show();
+                        add_button.setEnabled(true);
+                        return;
+                    }
+                    Toast.makeText(AddActivity.this, "Student added successfully", Toast.LENGTH_SHORT).show();
+
+                    // Send result back to MainActivity and close the activity
+                    Intent returnIntent = new Intent();
+                    setResult(RESULT_OK, returnIntent);
+                    finish(); // Close this activity
+                }, error -> {
+                    Toast.makeText(AddActivity.this, "Failed to add student: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+                    add_button.setEnabled(true); // Let the user try again
+                }));
 
             } catch (NumberFormatException e) {
                 // Handle invalid number input (non-numeric)
@@ -0,0 +1,224 @@
+/**
+ * CharArrayText.java
+
+ * This class shows part of a char array as text without copying it. Each row of the student list keeps one
+ * per text view and points it at the row's char buffers whenever a row of the list snapshot is bound (see
+ * CustomAdapter.bindPreview()), so binding creates no String, wrapper or other object.
+ * TextView copies the text it is given into a String of its own, unless the text is Spannable, the view
+ * is asked for a SPANNABLE buffer, and the view's Spannable.Factory hands the same object back (FACTORY).
+ * So this is a Spannable with no styling: it only keeps the spans TextView attaches to its text (its change
+ * watchers), so they can be found and removed again.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: The view reads the chars whenever it measures or draws, so they must not change until the view is
+ * given its text again. Spans are kept but span watchers are not told about them, which TextView does not
+ * need for text that cannot be edited. Use only on the main thread.
+ */
+
+package com.example.studentdatabase;
+
+import android.text.GetChars;
+import android.text.Spannable;
+
+import java.lang.reflect.Array;
+import java.util.HashMap;
+
+final class CharArrayText implements Spannable, GetChars {
+
+    /**
+     * Give this to TextView.setSpannableFactory(), so the view keeps a CharArrayText it is given with
+     * BufferType.SPANNABLE instead of copying it. Other text is copied as usual.
+     */
+    static final Spannable.Factory FACTORY = new Spannable.Factory() {
+        @Override
+        public Spannable newSpannable(CharSequence source) {
+            return source instanceof CharArrayText ? (CharArrayText) source : super.newSpannable(source);
+        }
+    };
+
+    // Empty results of getSpans() by span type, which layout asks for on every bind
+    private static final HashMap<Class<?>, Object[]> NO_SPANS = new HashMap<>();
+
+    private char[] chars = new char[0];
+    private int start;
+    private int length;
+
+    // The attached spans, with the start, end and flags of span i at spanData[3 * i] onwards
+    private Object[] spans = new Object[2];
+    private int[] spanData = new int[6];
+    private int spanCount = 0;
+
+    /**
+     * Makes this text show chars[start] to chars[start + length - 1]. The array is not copied.
+     * Spans attached before are cut back to the new length.
+     */
+    void set(char[] chars, int start, int length) {
+        if (start < 0 || length < 0 || start + length > chars.length) {
+            throw new IndexOutOfBoundsException(start + ", " + length);
+        }
+        this.chars = chars;
+        this.start = start;
+        this.length = length;
+        for (int i = 0; i < spanCount * 3; i += 3) {
+            spanData[i] = Math.min(spanData[i], length);
+            spanData[i + 1] = Math.min(spanData[i + 1], length);
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return chars[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        checkRange(from, to);
+        return new String(chars, start + from, to - from);
+    }
+
+    @Override
+    public void getChars(int from, int to, char[] dest, int destoff) {
+        checkRange(from, to);
+        System.arraycopy(chars, start + from, dest, destoff, to - from);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, start, length);
+    }
+
+    @Override
+    public void setSpan(Object what, int spanStart, int spanEnd, int flags) {
+        checkRange(spanStart, spanEnd);
+        int i = indexOf(what);
+        if (i < 0) {
+            if (spanCount == spans.length) {
+                Object[] grownSpans = new Object[spanCount * 2];
+                System.arraycopy(spans, 0, grownSpans, 0, spanCount);
+                spans = grownSpans;
+                int[] grownData = new int[spanCount * 6];
+                System.arraycopy(spanData, 0, grownData, 0, spanCount * 3);
+                spanData = grownData;
+            }
+            i = spanCount++;
+            spans[i] = what;
+        }
+        spanData[3 * i] = spanStart;
+        spanData[3 * i + 1] = spanEnd;
+        spanData[3 * i + 2] = flags;
+    }
+
+    @Override
+    public void removeSpan(Object what) {
+        int i = indexOf(what);
+        if (i < 0) {
+            return;
+        }
+        spanCount--;
+        System.arraycopy(spans, i + 1, spans, i, spanCount - i);
+        System.arraycopy(spanData, 3 * (i + 1), spanData, 3 * i, 3 * (spanCount - i));
+        spans[spanCount] = null;
+    }
+
+    // Returns the attached spans of the given type that overlap from..to (or touch it, if it is empty)
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] getSpans(int from, int to, Class<T> type) {
+        int found = 0;
+        for (int i = 0; i < spanCount; i++) {
+            if (matches(i, from, to, type)) {
+                found++;
+            }
+        }
+        if (found == 0) {
+            Object[] none = NO_SPANS.get(type);
+            if (none == null) {
+                none = (Object[]) Array.newInstance(type == null ? Object.class : type, 0);
+                NO_SPANS.put(type, none);
+            }
+            return (T[]) none;
+        }
+        T[] result = (T[]) Array.newInstance(type == null ? Object.class : type, found);
+        found = 0;
+        for (int i = 0; i < spanCount; i++) {
+            if (matches(i, from, to, type)) {
+                result[found++] = (T) spans[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int getSpanStart(Object what) {
+        int i = indexOf(what);
+        return i < 0 ? -1 : spanData[3 * i];
+    }
+
+    @Override
+    public int getSpanEnd(Object what) {
+        int i = indexOf(what);
+        return i < 0 ? -1 : spanData[3 * i + 1];
+    }
+
+    @Override
+    public int getSpanFlags(Object what) {
+        int i = indexOf(what);
+        return i < 0 ? 0 : spanData[3 * i + 2];
+    }
+
+    @Override
+    public int nextSpanTransition(int from, int limit, Class type) {
+        for (int i = 0; i < spanCount; i++) {
+            if (type == null || type.isInstance(spans[i])) {
+                int spanStart = spanData[3 * i];
+                int spanEnd = spanData[3 * i + 1];
+                if (spanStart > from && spanStart < limit) {
+                    limit = spanStart;
+                }
+                if (spanEnd > from && spanEnd < limit) {
+                    limit = spanEnd;
+                }
+            }
+        }
+        return limit;
+    }
+
+    private boolean matches(int i, int from, int to, Class<?> type) {
+        int spanStart = spanData[3 * i];
+        int spanEnd = spanData[3 * i + 1];
+        if (spanStart > to || spanEnd < from) {
+            return false;
+        }
+        // A span that only touches the range must be empty itself, or the range must be empty
+        if (spanStart != spanEnd && from != to && (spanStart == to || spanEnd == from)) {
+            return false;
+        }
+        return type == null || type.isInstance(spans[i]);
+    }
+
+    private int indexOf(Object what) {
+        for (int i = 0; i < spanCount; i++) {
+            if (spans[i] == what) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || from > to || to > length) {
+            throw new IndexOutOfBoundsException(from + ", " + to + " (length " + length + ")");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * CsvRecordReader.java
+
+ * This class reads delimited text (CSV or TSV) one record at a time from a Reader.
+ * It supports quoted fields (including delimiters, line breaks and doubled quotes inside quotes)
+ * and both LF and CRLF line endings, and never holds more than one record in memory.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: The caller owns the Reader and is responsible for closing it.
+ */
+
+package com.example.studentdatabase;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+public class CsvRecordReader {
+
+    private final Reader reader;
+    private final char delimiter;
+
+    // Reused buffer for the field currently being read
+    private final StringBuilder field = new StringBuilder();
+
+    // One character of look-ahead (-2 means nothing has been pushed back)
+    private int pushedBack = -2;
+
+    // Number of records read so far (used for error messages)
+    private long lineNumber = 0;
+
+    /**
+     * Constructor for the CsvRecordReader class.
+     *
+     * @param reader The source of the text. Wrap it in a BufferedReader for good performance.
+     * @param delimiter The field separator, usually ',' or '\t'.
+     */
+    public CsvRecordReader(Reader reader, char delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Reads the next record into the given list, replacing its contents.
+     *
+     * @param fields The list that receives the fields of the record.
+     * @return False if the end of the input was reached before any record, true otherwise.
+     * @throws IOException If the underlying Reader fails.
+     */
+    public boolean readRecord(List<String> fields) throws IOException {
+        fields.clear();
+        field.setLength(0);
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        lineNumber++;
+
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    break; // Unterminated quote: keep what was read
+                } else if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"'); // Escaped quote
+                    } else {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == -1 || c == '\n') {
+                break;
+            } else if (c == '\r') {
+                int next = read();
+                if (next != '\n') {
+                    unread(next);
+                }
+                break;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return true;
+    }
+
+    // Returns the number of records read so far
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    // Reads one character, honouring any pushed-back character
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    // Pushes a single character back so the next read() returns it
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
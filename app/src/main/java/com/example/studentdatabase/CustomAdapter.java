@@ -11,7 +11,15 @@
  * Version: 1.0
 
  * Note: This adapter handles the creation and binding of student items in the RecyclerView and
- * passes student details to the UpdateActivity when an item is clicked.
+ * passes the student's ID to the UpdateActivity when an item is clicked.
+ * The adapter shows an immutable StudentTable snapshot of the list. A new snapshot is compared with the current one
+ * on a background thread with DiffUtil, and only the rows that changed are updated on screen.
+ * When the list is sorted by grade, the first student of each grade shows the grade as a group header.
+ * A long press starts selecting rows for batch operations; while selecting, a tap toggles a row instead of
+ * opening it. Rows removed by a batch delete are taken out with range notifications, without reloading the list.
+ * At a cold start, before the first page has been read, the adapter can show the StudentListSnapshot saved by
+ * the last session. Those rows are copied straight from the mapped file into char buffers kept by each
+ * ViewHolder, so binding them creates no Strings or Student objects.
  */
 
 package com.example.studentdatabase;
@@ -20,54 +28,256 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import android.graphics.Color;
+
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CustomAdapter extends RecyclerView.Adapter<CustomAdapter.MyViewHolder> {
 
+    // Background thread shared by all adapters for computing list differences
+    private static final ExecutorService DIFF_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "StudentList-diff");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Timers for computing list differences and binding rows (see Metrics)
+    private static final Metrics.Timer DIFF_TIMER = Metrics.timer("ui.diff");
+    private static final Metrics.Timer BIND_TIMER = Metrics.timer("ui.bindRow");
+    private static final Metrics.Timer BIND_PREVIEW_TIMER = Metrics.timer("ui.bindPreviewRow");
+
     private final Context context;
     private final Activity activity;
-    private final ArrayList<String> student_id, student_name, student_num, student_mail, grade, student_physics, student_math;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // The snapshot currently shown (never modified once set)
+    private StudentTable students = StudentTable.empty();
+
+    // List snapshot shown until the first list is submitted (null once it has been replaced)
+    @Nullable
+    private StudentListSnapshot preview;
+
+    // Incremented on every submitList() so an older diff that finishes late is discarded
+    private int submitGeneration = 0;
+
+    // True to show a header above the first student of each grade (the list must be sorted by grade)
+    private boolean groupByGrade = false;
+
+    // Background of a selected row
+    private static final int SELECTED_COLOR = 0xFFBBDEFB;
+
+    /**
+     * Receives changes to the selected rows.
+     */
+    public interface SelectionListener {
+        /**
+         * Called whenever a row is selected or unselected.
+         *
+         * @param selectedCount The number of rows now selected (0 when selection has ended).
+         */
+        void onSelectionChanged(int selectedCount);
+    }
+
+    // IDs of the selected rows, and whether selection mode is on
+    private final HashSet<Long> selectedIds = new HashSet<>();
+    private boolean selecting = false;
+    @Nullable
+    private SelectionListener selectionListener;
 
     /**
-     * Constructor for the CustomAdapter class. Initializes the data arrays and context.
+     * Constructor for the CustomAdapter class.
      *
      * @param activity The activity from which this adapter is invoked.
      * @param context The context for inflating views.
-     * @param student_id List of student IDs.
-     * @param student_name List of student names.
-     * @param student_num List of student numbers.
-     * @param student_mail List of student emails.
-     * @param grade List of student grades.
-     * @param student_physics List of student marks in Physics.
-     * @param student_math List of student marks in Math.
      */
-    public CustomAdapter(Activity activity,
-                         Context context,
-                         ArrayList<String> student_id,
-                         ArrayList<String> student_name,
-                         ArrayList<String> student_num,
-                         ArrayList<String> student_mail,
-                         ArrayList<String> grade,
-                         ArrayList<String> student_physics,
-                         ArrayList<String> student_math) {
+    public CustomAdapter(Activity activity, Context context) {
         this.activity = activity;
         this.context = context;
-        this.student_id = student_id;
-        this.student_name = student_name;
-        this.student_num = student_num;
-        this.student_mail = student_mail;
-        this.grade = grade;
-        this.student_physics = student_physics;
-        this.student_math = student_math;
+        setHasStableIds(true); // Row IDs come from the _id column
+    }
+
+    /**
+     * Replaces the list shown by the adapter. The difference from the current list is computed on a
+     * background thread, and then only the inserted, removed, moved and changed rows are updated.
+     *
+     * @param newList The new snapshot.
+     * @param onCommitted Optional action run on the main thread once the new list is shown.
+     */
+    public void submitList(StudentTable newList, @Nullable Runnable onCommitted) {
+        final int generation = ++submitGeneration;
+        final StudentTable oldList = students;
+        preview = null; // Any list snapshot is replaced by a real list (students is still empty, so no diff)
+
+        // Nothing to compare against: swap directly
+        if (oldList.size() == 0 || newList.size() == 0) {
+            students = newList;
+            notifyDataSetChanged();
+            if (onCommitted != null) {
+                onCommitted.run();
+            }
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(() -> {
+            long start = DIFF_TIMER.start();
+            DiffUtil.DiffResult result;
+            try {
+                result = DiffUtil.calculateDiff(new StudentDiff(oldList, newList, groupByGrade));
+            } finally {
+                DIFF_TIMER.stop(start);
+            }
+            mainHandler.post(() -> {
+                if (generation != submitGeneration) {
+                    return; // A newer list was submitted while this diff was running
+                }
+                students = newList;
+                result.dispatchUpdatesTo(CustomAdapter.this);
+                if (onCommitted != null) {
+                    onCommitted.run();
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows the list snapshot saved by the last session until the first list is submitted.
+     * Does nothing if a list is already shown. Rows shown from it can be opened but not selected.
+     *
+     * @param snapshot The mapped list snapshot.
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    public void showSnapshot(StudentListSnapshot snapshot) {
+        if (students.size() > 0) {
+            return;
+        }
+        preview = snapshot;
+        notifyDataSetChanged();
+    }
+
+    // Returns true while the rows shown come from a list snapshot
+    public boolean isShowingSnapshot() {
+        return preview != null;
+    }
+
+    // Returns the snapshot currently shown
+    public StudentTable getCurrentList() {
+        return students;
+    }
+
+    // Turns the grade group headers on or off
+    @SuppressLint("NotifyDataSetChanged")
+    public void setGroupByGrade(boolean groupByGrade) {
+        if (this.groupByGrade != groupByGrade) {
+            this.groupByGrade = groupByGrade;
+            notifyDataSetChanged();
+        }
+    }
+
+    // Sets the receiver of selection changes
+    public void setSelectionListener(@Nullable SelectionListener listener) {
+        this.selectionListener = listener;
+    }
+
+    // Returns true while rows are being selected
+    public boolean isSelecting() {
+        return selecting;
+    }
+
+    // Returns a copy of the IDs of the selected rows
+    public Set<Long> getSelectedIds() {
+        return new HashSet<>(selectedIds);
+    }
+
+    // Selects or unselects the row at the given position, starting selection mode if needed
+    public void toggleSelection(int position) {
+        if (preview != null) {
+            return; // The rows may be out of date, so they cannot be changed in a batch
+        }
+        long id = students.getId(position);
+        if (!selectedIds.remove(id)) {
+            selectedIds.add(id);
+        }
+        selecting = true;
+        notifyItemChanged(position);
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selectedIds.size());
+        }
+    }
+
+    // Unselects every row and ends selection mode
+    public void clearSelection() {
+        if (!selecting) {
+            return;
+        }
+        selecting = false;
+        for (int position = 0; position < students.size() && !selectedIds.isEmpty(); position++) {
+            if (selectedIds.remove(students.getId(position))) {
+                notifyItemChanged(position);
+            }
+        }
+        selectedIds.clear(); // Selected rows that are no longer in the list
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(0);
+        }
+    }
+
+    /**
+     * Shows a list that is the current one with some rows removed (after a batch delete).
+     * Each run of consecutive removed rows is sent to the RecyclerView as one range removal, so the other
+     * rows keep their views and the removal is animated, without reloading or diffing the list.
+     *
+     * @param newList The current list without the removed rows, in the same order.
+     * @param removedIds The IDs of the removed rows.
+     */
+    public void submitRemoval(StudentTable newList, Set<Long> removedIds) {
+        ++submitGeneration; // Any diff still running is based on the old list
+        preview = null;
+        StudentTable oldList = students;
+        students = newList;
+        selectedIds.removeAll(removedIds);
+
+        // Walk backwards so the positions of earlier runs are not shifted by later ones
+        int removed = 0;
+        int position = oldList.size() - 1;
+        while (position >= 0) {
+            if (!removedIds.contains(oldList.getId(position))) {
+                position--;
+                continue;
+            }
+            int end = position;
+            while (position >= 0 && removedIds.contains(oldList.getId(position))) {
+                position--;
+            }
+            notifyItemRangeRemoved(position + 1, end - position);
+            removed += end - position;
+            if (groupByGrade && position + 1 < newList.size()) {
+                notifyItemChanged(position + 1); // The row that moved up may now start a group
+            }
+        }
+        if (oldList.size() - removed != newList.size()) {
+            notifyDataSetChanged(); // The new list is not the old one minus these rows
+        }
+    }
+
+    // Returns true if the row starts a new grade group (its grade differs from the row above)
+    private static boolean startsGroup(StudentTable table, int position) {
+        return position == 0 || !table.getGrade(position).equals(table.getGrade(position - 1));
     }
 
     @NonNull
@@ -76,37 +286,182 @@ public class CustomAdapter extends RecyclerView.Adapter<CustomAdapter.MyViewHold
         // Inflate the item layout for each student record
         LayoutInflater inflater = LayoutInflater.from(context);
         View view = inflater.inflate(R.layout.my_row, parent, false);
-        return new MyViewHolder(view);
-    }
+        MyViewHolder holder = new MyViewHolder(view);
 
-    @Override
-    public void onBindViewHolder(@NonNull MyViewHolder holder, @SuppressLint("RecyclerView") final int position) {
-        // Bind student data to the views in the ViewHolder
-        holder.student_id_txt.setText(student_id.get(position));
-        holder.student_name_txt.setText(student_name.get(position));
-        holder.student_number_txt.setText(student_num.get(position));
-        holder.student_mail_txt.setText(student_mail.get(position));
-        holder.student_grade_txt.setText(grade.get(position));
-
-        // Set a click listener on the main layout to open UpdateActivity with the selected student's data
-        holder.mainLayout.setOnClickListener(view -> {
+        // One click listener per ViewHolder: it looks up the row the holder shows when it is clicked
+        holder.mainLayout.setOnClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return; // The row is being removed
+            }
+            if (selecting) {
+                toggleSelection(position);
+                return;
+            }
+            // Open UpdateActivity with just the student's ID; it reads the current row itself
             Intent intent = new Intent(context, UpdateActivity.class);
-            // Pass the selected student's details to the UpdateActivity
-            intent.putExtra("id", student_id.get(position));
-            intent.putExtra("name", student_name.get(position));
-            intent.putExtra("number", student_num.get(position));
-            intent.putExtra("mail", student_mail.get(position));
-            intent.putExtra("physics", student_physics.get(position));
-            intent.putExtra("math", student_math.get(position));
-            intent.putExtra("grade", grade.get(position));
-            activity.startActivityForResult(intent, 1);  // Start UpdateActivity and expect a result
+            intent.putExtra(UpdateActivity.EXTRA_ID, getItemId(position));
+            activity.startActivity(intent);  // Changes reach the list through the repository's change listener
         });
+
+        // A long press selects the row (and starts selection mode)
+        holder.mainLayout.setOnLongClickListener(v -> {
+            int position = holder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION || preview != null) {
+                return false;
+            }
+            toggleSelection(position);
+            return true;
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MyViewHolder holder, int position) {
+        if (preview != null) {
+            bindPreview(holder, preview, position);
+            return;
+        }
+        long start = BIND_TIMER.start();
+        try {
+            // Bind student data to the views in the ViewHolder
+            // (NORMAL, because a holder that showed a snapshot row has its views set to SPANNABLE)
+            Student student = students.get(position);
+            holder.student_id_txt.setText(String.valueOf(student.id), TextView.BufferType.NORMAL);
+            holder.student_name_txt.setText(student.name, TextView.BufferType.NORMAL);
+            holder.student_number_txt.setText(String.valueOf(student.number), TextView.BufferType.NORMAL);
+            holder.student_mail_txt.setText(student.mail, TextView.BufferType.NORMAL);
+            holder.student_grade_txt.setText(student.grade, TextView.BufferType.NORMAL);
+
+            // Highlight selected rows
+            holder.mainLayout.setBackgroundColor(selectedIds.contains(student.id) ? SELECTED_COLOR : Color.TRANSPARENT);
+
+            // Show the grade above the first student of each group
+            if (groupByGrade && startsGroup(students, position)) {
+                holder.group_header_txt.setText(student.grade.isEmpty() ? "No grade" : "Grade " + student.grade);
+                holder.group_header_txt.setVisibility(View.VISIBLE);
+            } else {
+                holder.group_header_txt.setVisibility(View.GONE);
+            }
+        } finally {
+            BIND_TIMER.stop(start);
+        }
+    }
+
+    /**
+     * Binds a row of a list snapshot. The text is copied from the mapped file into the holder's own
+     * char buffers and shown through the holder's CharArrayText views of them, which the text views keep
+     * instead of copying (see showChars()). Nothing is created per bind. The buffers are only changed
+     * again by the next bind of this holder, which gives the views their text again straight away.
+     */
+    private void bindPreview(MyViewHolder holder, StudentListSnapshot rows, int position) {
+        long start = BIND_PREVIEW_TIMER.start();
+        try {
+            int digits = formatNumber(rows.getId(position), holder.idChars);
+            showChars(holder.student_id_txt, holder.idText, holder.idChars, digits, holder.idChars.length - digits);
+            digits = formatNumber(rows.getNumber(position), holder.numberChars);
+            showChars(holder.student_number_txt, holder.numberText, holder.numberChars, digits,
+                    holder.numberChars.length - digits);
+
+            int length = rows.getNameLength(position);
+            holder.nameChars = ensureCapacity(holder.nameChars, length);
+            rows.copyName(position, holder.nameChars);
+            showChars(holder.student_name_txt, holder.nameText, holder.nameChars, 0, length);
+
+            length = rows.getMailLength(position);
+            holder.mailChars = ensureCapacity(holder.mailChars, length);
+            rows.copyMail(position, holder.mailChars);
+            showChars(holder.student_mail_txt, holder.mailText, holder.mailChars, 0, length);
+
+            length = rows.getGradeLength(position);
+            holder.gradeChars = ensureCapacity(holder.gradeChars, length);
+            rows.copyGrade(position, holder.gradeChars);
+            showChars(holder.student_grade_txt, holder.gradeText, holder.gradeChars, 0, length);
+
+            holder.mainLayout.setBackgroundColor(Color.TRANSPARENT);
+            holder.group_header_txt.setVisibility(View.GONE); // The snapshot is in ID order
+        } finally {
+            BIND_PREVIEW_TIMER.stop(start);
+        }
+    }
+
+    // Points the view's CharArrayText at the chars and gives it to the view, which keeps that same object
+    // (its Spannable.Factory is CharArrayText.FACTORY)
+    private static void showChars(TextView view, CharArrayText text, char[] chars, int start, int length) {
+        text.set(chars, start, length);
+        view.setText(text, TextView.BufferType.SPANNABLE);
+    }
+
+    // Returns the buffer if it holds at least length chars, otherwise a new larger one
+    private static char[] ensureCapacity(char[] buffer, int length) {
+        return buffer.length >= length ? buffer : new char[Math.max(length, buffer.length * 2)];
+    }
+
+    // Writes a number in decimal, as String.valueOf() would, at the end of the buffer (20 chars fit any long)
+    // and returns where it starts
+    static int formatNumber(long value, char[] buffer) {
+        int at = buffer.length;
+        boolean negative = value < 0;
+        long rest = negative ? value : -value; // Kept negative so Long.MIN_VALUE works too
+        do {
+            buffer[--at] = (char) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (negative) {
+            buffer[--at] = '-';
+        }
+        return at;
     }
 
     @Override
     public int getItemCount() {
         // Return the total number of items (students) in the list
-        return student_id.size();
+        return preview != null ? preview.size() : students.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        // Stable ID: the student's row ID
+        return preview != null ? preview.getId(position) : students.getId(position);
+    }
+
+    /**
+     * Compares two snapshots: rows are the same item if they have the same ID,
+     * and unchanged if every field is equal (and, when grouping, if the row still does or does not start a group).
+     */
+    private static class StudentDiff extends DiffUtil.Callback {
+
+        private final StudentTable oldList, newList;
+        private final boolean groupByGrade;
+
+        StudentDiff(StudentTable oldList, StudentTable newList, boolean groupByGrade) {
+            this.oldList = oldList;
+            this.newList = newList;
+            this.groupByGrade = groupByGrade;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldList.getId(oldItemPosition) == newList.getId(newItemPosition);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            if (groupByGrade && startsGroup(oldList, oldItemPosition) != startsGroup(newList, newItemPosition)) {
+                return false; // The header above the row appears or disappears
+            }
+            return oldList.rowEquals(oldItemPosition, newList, newItemPosition);
+        }
     }
 
     /**
@@ -114,9 +469,23 @@ public class CustomAdapter extends RecyclerView.Adapter<CustomAdapter.MyViewHold
      */
     public static class MyViewHolder extends RecyclerView.ViewHolder {
 
-        TextView student_id_txt, student_name_txt, student_number_txt, student_mail_txt, student_grade_txt;
+        TextView student_id_txt, student_name_txt, student_number_txt, student_mail_txt, student_grade_txt, group_header_txt;
         LinearLayout mainLayout;
 
+        // Text of a row bound from a list snapshot (see bindPreview()); the text buffers grow when needed
+        final char[] idChars = new char[20];
+        final char[] numberChars = new char[20];
+        char[] nameChars = new char[32];
+        char[] mailChars = new char[48];
+        char[] gradeChars = new char[4];
+
+        // The text each view shows for a snapshot row, reused for every bind (pointed at the buffers above)
+        final CharArrayText idText = new CharArrayText();
+        final CharArrayText numberText = new CharArrayText();
+        final CharArrayText nameText = new CharArrayText();
+        final CharArrayText mailText = new CharArrayText();
+        final CharArrayText gradeText = new CharArrayText();
+
         /**
          * Constructor for MyViewHolder class. Initializes the views for a single student item.
          *
@@ -130,7 +499,14 @@ public class CustomAdapter extends RecyclerView.Adapter<CustomAdapter.MyViewHold
             student_number_txt = itemView.findViewById(R.id.student_number_txt);
             student_mail_txt = itemView.findViewById(R.id.student_mail_txt);
             student_grade_txt = itemView.findViewById(R.id.student_grade_txt);
+            group_header_txt = itemView.findViewById(R.id.group_header_txt);
             mainLayout = itemView.findViewById(R.id.mainLayout);  // Root layout of the item
+
+            // Let the views keep the CharArrayText they are given for snapshot rows instead of copying it
+            for (TextView view : new TextView[]{student_id_txt, student_name_txt, student_number_txt,
+                    student_mail_txt, student_grade_txt}) {
+                view.setSpannableFactory(CharArrayText.FACTORY);
+            }
         }
     }
 }
@@ -0,0 +1,419 @@
+/**
+ * DatabaseBackup.java
+
+ * This class takes backups of the student database while the app keeps working, and restores them.
+ * A backup runs in three steps:
+ * 1. The database file (and its write-ahead log) is copied inside a write transaction. Writes wait for
+ *    the copy, which is a straight file copy and so takes milliseconds; reads carry on as normal.
+ * 2. The copy is opened once, so SQLite moves the copied log into it, giving one complete file.
+ * 3. The complete file is saved as a DatabaseSnapshot: a full one, or an incremental one holding only
+ *    the pages that changed since the last snapshot. This is the slow part, and the lock is already free.
+ * After every MAX_INCREMENTAL incremental snapshots the next one is full, so a restore never has to apply
+ * a long chain, and only the last KEEP_FULL full snapshots (with the incremental ones on them) are kept.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: This class blocks on disk I/O. Run it through StudentRepository.backup() and restore().
+ * Step 1 is stage(), and steps 2 and 3 are save(), so a caller that must not wait for the slow part (the
+ * writer, before a reset) can hand the staged copy to another thread. Every staged copy has its own file.
+ * save(), verify() and restore() are synchronized, so snapshots are numbered and written one at a time.
+ * A restored database brings back its sync state too, so changes made after the backup are not pushed.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public class DatabaseBackup {
+
+    private static final String TAG = "DatabaseBackup";
+
+    // Incremental snapshots taken on top of a full snapshot before the next full one
+    static final int MAX_INCREMENTAL = 6;
+
+    // Full snapshots kept, each with the incremental snapshots built on it
+    static final int KEEP_FULL = 2;
+
+    private static final String STAGING_PREFIX = "staging-";
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-\\d+\\.sdb");
+
+    private static final Metrics.Timer LOCK_TIMER = Metrics.timer("backup.lock");
+    private static final Metrics.Counter BYTES_WRITTEN = Metrics.counter("backup.bytesWritten");
+
+    /**
+     * What kind of snapshot to take.
+     */
+    public enum Mode {
+        // Every page
+        FULL,
+        // Only the pages changed since the last snapshot (full if there is none to build on)
+        INCREMENTAL
+    }
+
+    /**
+     * A copy of the database taken by stage(), waiting to be saved as a snapshot by save() or dropped.
+     */
+    public static class Staged {
+        private final File file;
+        private final long studentCount;
+        private final long lockMillis;
+        private final long createdAt;
+        private final long startedAt;
+
+        Staged(File file, long studentCount, long lockMillis, long createdAt, long startedAt) {
+            this.file = file;
+            this.studentCount = studentCount;
+            this.lockMillis = lockMillis;
+            this.createdAt = createdAt;
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Summary of a backup, with its size next to the number of students it holds.
+     */
+    public static class Result {
+        public final DatabaseSnapshot snapshot;
+        public final long snapshotBytes;
+        public final long lockMillis;
+        public final long elapsedMillis;
+
+        Result(DatabaseSnapshot snapshot, long snapshotBytes, long lockMillis, long elapsedMillis) {
+            this.snapshot = snapshot;
+            this.snapshotBytes = snapshotBytes;
+            this.lockMillis = lockMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        // Returns the snapshot size per student (0 for an empty roster)
+        public double getBytesPerStudent() {
+            return snapshot.studentCount == 0 ? 0 : (double) snapshotBytes / snapshot.studentCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Backup{" + (snapshot.isFull() ? "full" : "incremental") + " snapshot " + snapshot.number +
+                    ", " + snapshot.pagesStored + "/" + snapshot.pageCount + " pages, " + snapshotBytes + " of " +
+                    snapshot.getDatabaseBytes() + " bytes, " + snapshot.studentCount + " students (" +
+                    Math.round(getBytesPerStudent()) + " bytes each), writes paused " + lockMillis + " ms, total " +
+                    elapsedMillis + " ms}";
+        }
+    }
+
+    private final MyDatabaseHelper myDB;
+    private final File directory;
+
+    // Staging files handed out by stage() and not saved or dropped yet
+    private final Set<File> staged = new HashSet<>();
+
+    /**
+     * Constructor for the DatabaseBackup class.
+     *
+     * @param myDB The database helper to back up.
+     * @param directory Where the snapshots are kept.
+     */
+    public DatabaseBackup(MyDatabaseHelper myDB, File directory) {
+        this.myDB = myDB;
+        this.directory = directory;
+    }
+
+    /**
+     * Takes a snapshot of the database: stage() followed by save().
+     *
+     * @param mode Whether to store every page or only the changed ones.
+     * @return The summary of the backup.
+     * @throws IOException If the database could not be copied or the snapshot could not be written.
+     */
+    public Result run(Mode mode) throws IOException {
+        return save(stage(), mode);
+    }
+
+    /**
+     * Copies the database file (and its write-ahead log) to a staging file of its own while nothing can
+     * write to it. This is the only part of a backup that holds up writes.
+     *
+     * @return The copy, to pass to save().
+     * @throws IOException If the database could not be copied.
+     */
+    public Staged stage() throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File staging;
+        synchronized (staged) {
+            staging = File.createTempFile(STAGING_PREFIX, ".db", directory);
+            staged.add(staging);
+        }
+        try {
+            long copyStart = SystemClock.elapsedRealtime();
+            long lockStart = LOCK_TIMER.start();
+            long studentCount = myDB.copyDatabaseFile(staging);
+            LOCK_TIMER.stop(lockStart);
+            return new Staged(staging, studentCount, SystemClock.elapsedRealtime() - copyStart,
+                    System.currentTimeMillis(), start);
+        } catch (IOException | RuntimeException e) {
+            drop(staging);
+            throw e;
+        }
+    }
+
+    /**
+     * Saves a staged copy as the next snapshot and deletes the copy. The database is not touched.
+     *
+     * @param copy The copy from stage().
+     * @param mode Whether to store every page or only the changed ones.
+     * @return The summary of the backup, timed from the start of stage().
+     * @throws IOException If the snapshot could not be written.
+     */
+    public synchronized Result save(Staged copy, Mode mode) throws IOException {
+        File staging = copy.file;
+        try {
+            // 2. Move the copied log into the copied file
+            applyLog(staging);
+
+            // 3. Save the pages, or only the changed ones if there is a recent snapshot to build on
+            int pageSize = DatabaseSnapshot.readPageSize(staging);
+            DatabaseSnapshot.PageScan scan = DatabaseSnapshot.scan(staging, pageSize);
+            List<DatabaseSnapshot> snapshots = list();
+            DatabaseSnapshot latest = snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+            long[] baseDigests = null;
+            if (mode == Mode.INCREMENTAL && latest != null && countIncremental(snapshots) < MAX_INCREMENTAL) {
+                baseDigests = DatabaseSnapshot.readDigests(digestFile(latest.number), pageSize);
+            }
+            long number = latest == null ? 1 : latest.number + 1;
+            long baseNumber = baseDigests == null ? 0 : latest.number;
+
+            // Written under a temporary name, so a backup cut short is never taken for a snapshot
+            File target = snapshotFile(number);
+            File temp = new File(directory, target.getName() + ".tmp");
+            try {
+                DatabaseSnapshot.write(staging, temp, number, baseNumber, scan, baseDigests, copy.studentCount,
+                        copy.createdAt);
+                if (!temp.renameTo(target)) {
+                    throw new IOException("Could not move " + temp + " to " + target);
+                }
+            } finally {
+                deleteIfExists(temp);
+            }
+            DatabaseSnapshot.writeDigests(scan, digestFile(number));
+            if (latest != null) {
+                deleteIfExists(digestFile(latest.number)); // Only the newest snapshot is built on
+            }
+            deleteOldSnapshots();
+
+            DatabaseSnapshot snapshot = DatabaseSnapshot.read(target);
+            BYTES_WRITTEN.add(target.length());
+            Result result = new Result(snapshot, target.length(), copy.lockMillis,
+                    SystemClock.elapsedRealtime() - copy.startedAt);
+            Log.i(TAG, result.toString());
+            return result;
+        } finally {
+            drop(staging);
+            deleteLeftoverStaging();
+        }
+    }
+
+    /**
+     * Deletes a staged copy that will not be saved.
+     *
+     * @param copy The copy from stage().
+     */
+    public void drop(Staged copy) {
+        drop(copy.file);
+    }
+
+    /**
+     * Lists the snapshots kept, oldest first. Files that cannot be read are left out.
+     *
+     * @return The snapshots.
+     */
+    public List<DatabaseSnapshot> list() {
+        List<DatabaseSnapshot> snapshots = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return snapshots;
+        }
+        for (File file : files) {
+            if (!SNAPSHOT_NAME.matcher(file.getName()).matches()) {
+                continue;
+            }
+            try {
+                snapshots.add(DatabaseSnapshot.read(file));
+            } catch (IOException e) {
+                Log.w(TAG, "Skipping unreadable snapshot " + file, e);
+            }
+        }
+        Collections.sort(snapshots, (a, b) -> Long.compare(a.number, b.number));
+        return snapshots;
+    }
+
+    /**
+     * Checks that a snapshot can be restored: every snapshot it needs is there and readable, and the database
+     * they rebuild matches the recorded checksum. The database itself is not touched.
+     *
+     * @param snapshot The snapshot to check.
+     * @throws IOException If the snapshot cannot be restored.
+     */
+    public synchronized void verify(DatabaseSnapshot snapshot) throws IOException {
+        File rebuilt = new File(directory, "verify.db");
+        try {
+            DatabaseSnapshot.restore(chainOf(snapshot), rebuilt);
+        } finally {
+            deleteIfExists(rebuilt);
+        }
+    }
+
+    /**
+     * Replaces the database with a snapshot. The snapshot is rebuilt and checked next to the database file
+     * first, and only then swapped in, so a damaged snapshot leaves the database as it was.
+     * Nothing else may use the database while this runs (StudentRepository.restore() makes sure of that).
+     *
+     * @param snapshot The snapshot to restore.
+     * @throws IOException If the snapshot cannot be restored.
+     */
+    public synchronized void restore(DatabaseSnapshot snapshot) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        // In the same directory as the database, so the final rename does not have to copy
+        File rebuilt = new File(myDB.getDatabaseFile().getPath() + ".restore");
+        try {
+            DatabaseSnapshot.restore(chainOf(snapshot), rebuilt);
+            int version = DatabaseSnapshot.readUserVersion(rebuilt);
+            if (version > MyDatabaseHelper.MIGRATIONS.getLatestVersion()) {
+                throw new IOException("Snapshot " + snapshot.number + " was taken by a newer version of the app");
+            }
+            myDB.replaceDatabaseFile(rebuilt);
+        } finally {
+            deleteIfExists(rebuilt);
+        }
+        Log.i(TAG, "Restored " + snapshot + " in " + (SystemClock.elapsedRealtime() - start) + " ms");
+    }
+
+    // Returns the full snapshot a snapshot builds on, followed by every snapshot up to and including it
+    private List<DatabaseSnapshot> chainOf(DatabaseSnapshot snapshot) throws IOException {
+        Map<Long, DatabaseSnapshot> byNumber = new HashMap<>();
+        for (DatabaseSnapshot kept : list()) {
+            byNumber.put(kept.number, kept);
+        }
+        List<DatabaseSnapshot> chain = new ArrayList<>();
+        DatabaseSnapshot current = snapshot;
+        while (true) {
+            chain.add(current);
+            if (current.isFull()) {
+                break;
+            }
+            DatabaseSnapshot base = byNumber.get(current.baseNumber);
+            if (base == null) {
+                throw new IOException("Snapshot " + current.number + " needs snapshot " + current.baseNumber + ", which is missing");
+            }
+            current = base;
+        }
+        Collections.reverse(chain);
+        return chain;
+    }
+
+    // Returns the number of incremental snapshots since the last full one
+    private static int countIncremental(List<DatabaseSnapshot> snapshots) {
+        int count = 0;
+        for (int i = snapshots.size() - 1; i >= 0 && !snapshots.get(i).isFull(); i--) {
+            count++;
+        }
+        return count;
+    }
+
+    // Deletes every snapshot older than the last KEEP_FULL full snapshots
+    private void deleteOldSnapshots() {
+        List<DatabaseSnapshot> snapshots = list();
+        int fullSeen = 0;
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            DatabaseSnapshot snapshot = snapshots.get(i);
+            if (fullSeen >= KEEP_FULL) {
+                deleteIfExists(snapshot.file);
+                deleteIfExists(digestFile(snapshot.number));
+            } else if (snapshot.isFull()) {
+                fullSeen++;
+            }
+        }
+    }
+
+    // Opens a copied database once, so SQLite moves the copied write-ahead log into it and removes the log
+    private static void applyLog(File copy) {
+        if (!new File(copy.getPath() + "-wal").exists()) {
+            return;
+        }
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(copy.getPath(), null,
+                SQLiteDatabase.OPEN_READWRITE | SQLiteDatabase.ENABLE_WRITE_AHEAD_LOGGING);
+        try {
+            Cursor cursor = db.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null);
+            try {
+                cursor.moveToFirst();
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    // Deletes a staging file with its log, and forgets it
+    private void drop(File staging) {
+        deleteIfExists(staging);
+        deleteIfExists(new File(staging.getPath() + "-wal"));
+        deleteIfExists(new File(staging.getPath() + "-shm"));
+        synchronized (staged) {
+            staged.remove(staging);
+        }
+    }
+
+    // Deletes staging files that no stage() in this process handed out: left over by a backup cut short
+    private void deleteLeftoverStaging() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(STAGING_PREFIX));
+        if (files == null) {
+            return;
+        }
+        synchronized (staged) {
+            for (File file : files) {
+                String path = file.getPath();
+                File base = new File(path.endsWith("-wal") || path.endsWith("-shm")
+                        ? path.substring(0, path.length() - 4) : path);
+                if (!staged.contains(base)) {
+                    deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private File snapshotFile(long number) {
+        return new File(directory, String.format(Locale.US, "snapshot-%06d.sdb", number));
+    }
+
+    // The page digests of a snapshot, kept for the newest one so the next incremental snapshot can build on it
+    private File digestFile(long number) {
+        return new File(directory, String.format(Locale.US, "snapshot-%06d.pages", number));
+    }
+
+    private static void deleteIfExists(@Nullable File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete " + file);
+        }
+    }
+}
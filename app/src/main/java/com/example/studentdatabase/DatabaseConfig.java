@@ -0,0 +1,48 @@
+/**
+ * DatabaseConfig.java
+
+ * This class holds the connection settings applied when the student database is opened:
+ * write-ahead logging, page size, page cache size and the synchronous (disk sync) mode.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: The page size only takes effect when the database file is first created.
+ */
+
+package com.example.studentdatabase;
+
+public final class DatabaseConfig {
+
+    /**
+     * SQLite's synchronous setting: how often the database waits for data to reach the disk.
+     * NORMAL is safe with write-ahead logging and much cheaper than FULL.
+     */
+    public enum Synchronous {
+        OFF, NORMAL, FULL
+    }
+
+    // The settings used by the app
+    public static final DatabaseConfig DEFAULT = new DatabaseConfig(true, 4096, 2048, Synchronous.NORMAL);
+
+    public final boolean writeAheadLogging;
+    public final int pageSize;
+    public final int cacheSizeKb;
+    public final Synchronous synchronous;
+
+    /**
+     * Constructor for the DatabaseConfig class.
+     *
+     * @param writeAheadLogging True to use write-ahead logging, so reads can run while a write is in progress.
+     * @param pageSize The database page size in bytes (a power of two from 512 to 65536).
+     * @param cacheSizeKb The page cache size of each connection, in KiB.
+     * @param synchronous The synchronous mode.
+     */
+    public DatabaseConfig(boolean writeAheadLogging, int pageSize, int cacheSizeKb, Synchronous synchronous) {
+        this.writeAheadLogging = writeAheadLogging;
+        this.pageSize = pageSize;
+        this.cacheSizeKb = cacheSizeKb;
+        this.synchronous = synchronous;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * DatabaseMaintenance.java
+
+ * This class runs the periodic housekeeping of the student database and measures how long each part takes:
+ * 1. Reclaim free pages, so the file shrinks after large deletes (a file created before incremental vacuum
+ *    was switched on is rebuilt once with VACUUM, which switches it on for that file too).
+ * 2. ANALYZE, so the query planner has up-to-date statistics when choosing between indexes.
+ * 3. An integrity check of the file, plus a check that the dashboard summary tables add up.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: This class blocks on disk I/O and takes the write lock. Run it through
+ * StudentRepository.runMaintenance(), which uses the writer thread.
+ */
+
+package com.example.studentdatabase;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class DatabaseMaintenance {
+
+    private static final String TAG = "DatabaseMaintenance";
+
+    // Most corruption messages collected by the integrity check
+    private static final int MAX_PROBLEMS = 10;
+
+    /**
+     * Summary of a maintenance run, with the time taken by each part.
+     */
+    public static class Result {
+        public final long pagesFreed;
+        public final boolean fullVacuum;
+        public final long vacuumMillis;
+        public final long analyzeMillis;
+        public final long checkMillis;
+        public final List<String> problems;
+        public final long elapsedMillis;
+
+        Result(long pagesFreed, boolean fullVacuum, long vacuumMillis, long analyzeMillis, long checkMillis,
+               List<String> problems, long elapsedMillis) {
+            this.pagesFreed = pagesFreed;
+            this.fullVacuum = fullVacuum;
+            this.vacuumMillis = vacuumMillis;
+            this.analyzeMillis = analyzeMillis;
+            this.checkMillis = checkMillis;
+            this.problems = Collections.unmodifiableList(problems);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        // Returns true if the checks found nothing wrong
+        public boolean isHealthy() {
+            return problems.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Maintenance{freed " + pagesFreed + " pages" + (fullVacuum ? " (full vacuum)" : "") +
+                    " in " + vacuumMillis + " ms, analyze " + analyzeMillis + " ms, check " + checkMillis +
+                    " ms, " + problems.size() + " problems, total " + elapsedMillis + " ms}";
+        }
+    }
+
+    private final MyDatabaseHelper myDB;
+
+    /**
+     * Constructor for the DatabaseMaintenance class.
+     *
+     * @param myDB The database helper to maintain.
+     */
+    public DatabaseMaintenance(MyDatabaseHelper myDB) {
+        this.myDB = myDB;
+    }
+
+    /**
+     * Runs every maintenance task once.
+     *
+     * @return The summary, including any problems the checks found.
+     */
+    public Result run() {
+        long start = SystemClock.elapsedRealtime();
+
+        // 1. Give free pages back to the file system
+        long pagesFreed;
+        boolean fullVacuum = false;
+        if (myDB.isIncrementalVacuumEnabled()) {
+            pagesFreed = myDB.reclaimFreePages(Integer.MAX_VALUE);
+        } else {
+            // An older file: rewritten once, even with no free pages yet, so later deletes can be reclaimed
+            // a chunk at a time (see StudentRepository.reclaimSpace())
+            pagesFreed = myDB.getFreePageCount();
+            myDB.vacuum();
+            fullVacuum = true;
+        }
+        long vacuumEnd = SystemClock.elapsedRealtime();
+
+        // 2. Refresh the query planner's statistics
+        myDB.analyze();
+        long analyzeEnd = SystemClock.elapsedRealtime();
+
+        // 3. Check the file and the summary tables
+        List<String> problems = new ArrayList<>(myDB.checkIntegrity(MAX_PROBLEMS));
+        if (!myDB.verifyStatistics()) {
+            problems.add("Statistics do not match the student table");
+        }
+        long end = SystemClock.elapsedRealtime();
+
+        Result result = new Result(pagesFreed, fullVacuum, vacuumEnd - start, analyzeEnd - vacuumEnd,
+                end - analyzeEnd, problems, end - start);
+        if (result.isHealthy()) {
+            Log.i(TAG, result.toString());
+        } else {
+            Log.e(TAG, result + ": " + problems);
+        }
+        return result;
+    }
+}
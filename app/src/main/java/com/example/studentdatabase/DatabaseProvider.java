@@ -0,0 +1,49 @@
+/**
+ * DatabaseProvider.java
+
+ * This class owns the single MyDatabaseHelper shared by the whole process.
+ * The database is opened once (StudentApplication starts it in the background at app start)
+ * and the same connection is reused by every screen, instead of each action opening its own.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Call init() before the first get() to use settings other than DatabaseConfig.DEFAULT.
+ */
+
+package com.example.studentdatabase;
+
+import android.content.Context;
+
+public final class DatabaseProvider {
+
+    private static MyDatabaseHelper helper;
+
+    private DatabaseProvider() {
+        // Static holder, not meant to be instantiated
+    }
+
+    /**
+     * Creates the shared database helper with the given settings. Does nothing if it already exists.
+     *
+     * @param context Any context; only the application context is kept.
+     * @param config The connection settings.
+     */
+    public static synchronized void init(Context context, DatabaseConfig config) {
+        if (helper == null) {
+            helper = new MyDatabaseHelper(context.getApplicationContext(), MyDatabaseHelper.DATABASE_NAME, config);
+        }
+    }
+
+    /**
+     * Returns the shared database helper, creating it with the default settings on first use.
+     *
+     * @param context Any context; only the application context is kept.
+     * @return The shared MyDatabaseHelper.
+     */
+    public static synchronized MyDatabaseHelper get(Context context) {
+        init(context, DatabaseConfig.DEFAULT);
+        return helper;
+    }
+}
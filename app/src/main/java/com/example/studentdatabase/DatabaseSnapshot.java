@@ -0,0 +1,404 @@
+/**
+ * DatabaseSnapshot.java
+
+ * This class is one backup of the student database file, stored as a compressed list of database pages.
+ * A full snapshot stores every page. An incremental snapshot only stores the pages that changed since the
+ * snapshot before it (its base), found by comparing a digest of each page, so a backup after a few edits
+ * is a few pages instead of the whole file. Restoring applies the full snapshot and then each incremental
+ * one in turn, and checks the rebuilt file against the checksum recorded when the snapshot was taken.
+
+ * File layout: the 8 bytes "SDBSNAP1", then a gzip stream holding
+ * 1. the header: number, base number (0 for a full snapshot), page size, page count, pages stored,
+ *    student count, time taken (milliseconds since 1970);
+ * 2. each stored page: its index (int) followed by its bytes, then -1;
+ * 3. a CRC32 of the whole database file.
+ * The gzip stream has its own CRC, so a damaged snapshot file is detected while it is read.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: This class only handles files; DatabaseBackup takes the copies of the live database.
+ */
+
+package com.example.studentdatabase;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public final class DatabaseSnapshot {
+
+    private static final byte[] MAGIC = "SDBSNAP1".getBytes(StandardCharsets.US_ASCII);
+    private static final int END_OF_PAGES = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Where the page size and the schema version (user_version) are kept in an SQLite file header
+    private static final int HEADER_SIZE = 100;
+    private static final int PAGE_SIZE_OFFSET = 16;
+    private static final int USER_VERSION_OFFSET = 60;
+
+    /**
+     * The digest of every page of a database file, and a checksum of the whole file.
+     */
+    static final class PageScan {
+        final int pageSize;
+        final long[] digests;
+        final long checksum;
+
+        PageScan(int pageSize, long[] digests, long checksum) {
+            this.pageSize = pageSize;
+            this.digests = digests;
+            this.checksum = checksum;
+        }
+    }
+
+    public final File file;
+    public final long number;
+    public final long baseNumber;
+    public final int pageSize;
+    public final long pageCount;
+    public final long pagesStored;
+    public final long studentCount;
+    public final long createdAt;
+
+    private DatabaseSnapshot(File file, long number, long baseNumber, int pageSize, long pageCount, long pagesStored,
+                             long studentCount, long createdAt) {
+        this.file = file;
+        this.number = number;
+        this.baseNumber = baseNumber;
+        this.pageSize = pageSize;
+        this.pageCount = pageCount;
+        this.pagesStored = pagesStored;
+        this.studentCount = studentCount;
+        this.createdAt = createdAt;
+    }
+
+    // Returns true if this snapshot stores every page (it does not need another snapshot to be restored)
+    public boolean isFull() {
+        return baseNumber == 0;
+    }
+
+    // Returns the size of the database file this snapshot restores
+    public long getDatabaseBytes() {
+        return pageCount * pageSize;
+    }
+
+    /**
+     * Reads the header of a snapshot file.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot it describes.
+     * @throws IOException If the file is not a snapshot or cannot be read.
+     */
+    public static DatabaseSnapshot read(File file) throws IOException {
+        try (DataInputStream in = openSnapshot(file)) {
+            return readHeader(file, in);
+        }
+    }
+
+    /**
+     * Reads an SQLite database file page by page, digesting each page so the next snapshot can tell
+     * which pages changed.
+     *
+     * @param image The database file (which must not change while it is read).
+     * @param pageSize Its page size (see readPageSize()).
+     * @return The page digests and the checksum of the whole file.
+     */
+    static PageScan scan(File image, int pageSize) throws IOException {
+        long length = image.length();
+        if (length % pageSize != 0) {
+            throw new IOException(image + " is not a whole number of " + pageSize + " byte pages");
+        }
+        long[] digests = new long[(int) (length / pageSize)];
+        CRC32 whole = new CRC32();
+        CRC32 crc = new CRC32();
+        Adler32 adler = new Adler32();
+        byte[] page = new byte[pageSize];
+        try (InputStream in = new BufferedInputStream(new FileInputStream(image), BUFFER_SIZE)) {
+            for (int i = 0; i < digests.length; i++) {
+                readPage(in, page);
+                whole.update(page, 0, pageSize);
+                // Two different 32-bit checksums together make it very unlikely a changed page looks unchanged
+                crc.reset();
+                crc.update(page, 0, pageSize);
+                adler.reset();
+                adler.update(page, 0, pageSize);
+                digests[i] = (crc.getValue() << 32) | adler.getValue();
+            }
+        }
+        return new PageScan(pageSize, digests, whole.getValue());
+    }
+
+    /**
+     * Writes a snapshot of a database file.
+     *
+     * @param image The database file (which must not change while it is read).
+     * @param target The snapshot file to write.
+     * @param number The snapshot's number (each snapshot's is higher than the last).
+     * @param baseNumber The number of the snapshot this one builds on, or 0 for a full snapshot.
+     * @param scan The page digests of image.
+     * @param baseDigests The page digests of the base snapshot (only read for an incremental snapshot).
+     * @param studentCount The number of students in the database.
+     * @param createdAt When the copy was taken, in milliseconds since 1970.
+     * @return The number of pages stored.
+     */
+    static long write(File image, File target, long number, long baseNumber, PageScan scan,
+                      @Nullable long[] baseDigests, long studentCount, long createdAt) throws IOException {
+        int pageSize = scan.pageSize;
+        long[] digests = scan.digests;
+
+        // Mark the pages to store: all of them, or for an incremental snapshot those that differ from the base
+        boolean[] store = new boolean[digests.length];
+        long pagesStored = 0;
+        for (int i = 0; i < digests.length; i++) {
+            store[i] = baseNumber == 0 || baseDigests == null || i >= baseDigests.length || digests[i] != baseDigests[i];
+            if (store[i]) {
+                pagesStored++;
+            }
+        }
+
+        FileOutputStream file = new FileOutputStream(target);
+        try {
+            file.write(MAGIC);
+            // Database pages compress well even at the fastest level, which keeps large backups quick
+            GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(file, BUFFER_SIZE), BUFFER_SIZE) {
+                {
+                    def.setLevel(Deflater.BEST_SPEED);
+                }
+            };
+            DataOutputStream out = new DataOutputStream(gzip);
+            out.writeLong(number);
+            out.writeLong(baseNumber);
+            out.writeInt(pageSize);
+            out.writeLong(digests.length);
+            out.writeLong(pagesStored);
+            out.writeLong(studentCount);
+            out.writeLong(createdAt);
+
+            byte[] page = new byte[pageSize];
+            try (InputStream in = new BufferedInputStream(new FileInputStream(image), BUFFER_SIZE)) {
+                for (int i = 0; i < digests.length; i++) {
+                    readPage(in, page);
+                    if (store[i]) {
+                        out.writeInt(i);
+                        out.write(page);
+                    }
+                }
+            }
+            out.writeInt(END_OF_PAGES);
+            out.writeLong(scan.checksum);
+            gzip.finish();
+            out.flush();
+            file.getFD().sync(); // On the disk before it is counted as a backup
+            out.close();
+        } finally {
+            file.close();
+        }
+        return pagesStored;
+    }
+
+    /**
+     * Rebuilds the database file a chain of snapshots describes and checks it against the last one's checksum.
+     *
+     * @param chain A full snapshot followed by the incremental snapshots built on it, in order.
+     * @param target Receives the rebuilt database file.
+     * @throws IOException If a snapshot cannot be read, the chain is broken, or the rebuilt file is wrong.
+     */
+    static void restore(List<DatabaseSnapshot> chain, File target) throws IOException {
+        if (chain.isEmpty() || !chain.get(0).isFull()) {
+            throw new IOException("A restore must start from a full snapshot");
+        }
+        DatabaseSnapshot last = null;
+        long checksum = 0;
+        try (RandomAccessFile out = new RandomAccessFile(target, "rw")) {
+            out.setLength(0);
+            for (DatabaseSnapshot snapshot : chain) {
+                if (last != null && (snapshot.baseNumber != last.number || snapshot.pageSize != last.pageSize)) {
+                    throw new IOException("Snapshot " + snapshot.number + " does not build on snapshot " + last.number);
+                }
+                checksum = applyPages(snapshot, out);
+                out.setLength(snapshot.getDatabaseBytes());
+                last = snapshot;
+            }
+            out.getFD().sync();
+        }
+        if (checksum(target) != checksum) {
+            throw new IOException("Restored database does not match the checksum of snapshot " + last.number);
+        }
+    }
+
+    // Writes the pages stored in a snapshot into the file being rebuilt, returning the snapshot's checksum
+    private static long applyPages(DatabaseSnapshot snapshot, RandomAccessFile out) throws IOException {
+        try (DataInputStream in = openSnapshot(snapshot.file)) {
+            DatabaseSnapshot header = readHeader(snapshot.file, in);
+            if (header.number != snapshot.number) {
+                throw new IOException(snapshot.file + " has changed since it was listed");
+            }
+            byte[] page = new byte[header.pageSize];
+            long pagesRead = 0;
+            int index;
+            while ((index = in.readInt()) != END_OF_PAGES) {
+                if (index < 0 || index >= header.pageCount) {
+                    throw new IOException("Page " + index + " is outside snapshot " + header.number);
+                }
+                in.readFully(page);
+                out.seek((long) index * header.pageSize);
+                out.write(page);
+                pagesRead++;
+            }
+            if (pagesRead != header.pagesStored) {
+                throw new IOException("Snapshot " + header.number + " is missing pages");
+            }
+            return in.readLong();
+        } catch (EOFException e) {
+            throw new IOException(snapshot.file + " is cut short", e);
+        }
+    }
+
+    // Returns the CRC32 of a whole file
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Saves the page digests of a snapshot, so the next incremental snapshot can be compared against it.
+     *
+     * @param scan The page digests.
+     * @param file The file to save them to.
+     */
+    static void writeDigests(PageScan scan, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+            out.writeInt(scan.pageSize);
+            out.writeInt(scan.digests.length);
+            for (long digest : scan.digests) {
+                out.writeLong(digest);
+            }
+        }
+    }
+
+    /**
+     * Reads page digests saved by writeDigests().
+     *
+     * @param file The saved digests.
+     * @param pageSize The page size of the database now.
+     * @return The digests, or null if there are none or the page size has changed (a full snapshot is needed).
+     */
+    @Nullable
+    static long[] readDigests(File file, int pageSize) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != pageSize) {
+                return null;
+            }
+            long[] digests = new long[in.readInt()];
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = in.readLong();
+            }
+            return digests;
+        }
+    }
+
+    // Returns the page size recorded in an SQLite file header
+    static int readPageSize(File database) throws IOException {
+        byte[] header = readFileHeader(database);
+        int pageSize = ((header[PAGE_SIZE_OFFSET] & 0xFF) << 8) | (header[PAGE_SIZE_OFFSET + 1] & 0xFF);
+        return pageSize == 1 ? 65536 : pageSize; // 65536 does not fit in two bytes, so it is stored as 1
+    }
+
+    // Returns the schema version (user_version) recorded in an SQLite file header
+    static int readUserVersion(File database) throws IOException {
+        byte[] header = readFileHeader(database);
+        return ((header[USER_VERSION_OFFSET] & 0xFF) << 24) | ((header[USER_VERSION_OFFSET + 1] & 0xFF) << 16) |
+                ((header[USER_VERSION_OFFSET + 2] & 0xFF) << 8) | (header[USER_VERSION_OFFSET + 3] & 0xFF);
+    }
+
+    private static byte[] readFileHeader(File database) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(database))) {
+            in.readFully(header);
+        } catch (EOFException e) {
+            throw new IOException(database + " is not an SQLite database", e);
+        }
+        if (!new String(header, 0, 15, StandardCharsets.US_ASCII).equals("SQLite format 3")) {
+            throw new IOException(database + " is not an SQLite database");
+        }
+        return header;
+    }
+
+    // Checks the magic bytes and opens the compressed part of a snapshot file
+    private static DataInputStream openSnapshot(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            new DataInputStream(in).readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException(file + " is not a database snapshot");
+            }
+            return new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static DatabaseSnapshot readHeader(File file, DataInputStream in) throws IOException {
+        long number = in.readLong();
+        long baseNumber = in.readLong();
+        int pageSize = in.readInt();
+        long pageCount = in.readLong();
+        long pagesStored = in.readLong();
+        long studentCount = in.readLong();
+        long createdAt = in.readLong();
+        if (number <= 0 || baseNumber < 0 || baseNumber >= number || pageSize < 512 || pageCount < 0) {
+            throw new IOException(file + " has an invalid header");
+        }
+        return new DatabaseSnapshot(file, number, baseNumber, pageSize, pageCount, pagesStored, studentCount, createdAt);
+    }
+
+    // Fills the buffer with the next page
+    private static void readPage(InputStream in, byte[] page) throws IOException {
+        int done = 0;
+        while (done < page.length) {
+            int read = in.read(page, done, page.length - done);
+            if (read == -1) {
+                throw new EOFException("Database file ended in the middle of a page");
+            }
+            done += read;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot{" + number + (isFull() ? " full" : " on " + baseNumber) + ", " + pagesStored + "/" +
+                pageCount + " pages, " + studentCount + " students, " + file.length() + " bytes}";
+    }
+}
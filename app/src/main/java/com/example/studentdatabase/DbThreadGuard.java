@@ -0,0 +1,50 @@
+/**
+ * DbThreadGuard.java
+
+ * This class is a StrictMode-style check for database access on the main (UI) thread.
+ * MyDatabaseHelper calls check() at the start of every query, and when the guard is enabled
+ * a query made from the main thread throws instead of silently blocking the UI on disk I/O.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: The guard is off by default and is switched on by the tests.
+ */
+
+package com.example.studentdatabase;
+
+import android.os.Looper;
+
+public final class DbThreadGuard {
+
+    // Whether main-thread database access should be reported as an error
+    private static volatile boolean enabled = false;
+
+    private DbThreadGuard() {
+        // Static helper, not meant to be instantiated
+    }
+
+    /**
+     * Turns the guard on or off for the whole process.
+     *
+     * @param enable True to fail on main-thread database access.
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    // Returns true if the guard is currently enabled
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Throws an IllegalStateException if the guard is enabled and the caller is on the main thread.
+     */
+    public static void check() {
+        if (enabled && Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("Database accessed on the main thread. Use StudentRepository instead.");
+        }
+    }
+}
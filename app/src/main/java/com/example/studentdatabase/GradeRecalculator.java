@@ -0,0 +1,154 @@
+/**
+ * GradeRecalculator.java
+
+ * This class regrades every student in the database under a GradingPolicy.
+ * The work is done inside SQLite with one UPDATE per chunk of IDs, using the policy as a CASE
+ * expression, so no student is loaded into Java and memory use stays flat however big the table is.
+ * Each chunk is its own short transaction, which keeps the write-ahead log small, lets progress be
+ * reported and lets the job be cancelled between chunks. Only rows whose grade actually changes are
+ * written, so running it again with the same policy is cheap.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: This class blocks on disk I/O. Run it through StudentRepository.setGradingPolicy()
+ * or StudentRepository.recomputeGrades().
+ */
+
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+public class GradeRecalculator {
+
+    // Number of rows regraded per transaction
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    /**
+     * Receives progress updates after every committed chunk.
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsScanned, long rowsChanged, double rowsPerSecond);
+    }
+
+    /**
+     * Summary of a finished (or cancelled) recompute.
+     */
+    public static class Result {
+        public final long rowsScanned;
+        public final long rowsChanged;
+        public final long elapsedMillis;
+        public final boolean cancelled;
+
+        Result(long rowsScanned, long rowsChanged, long elapsedMillis, boolean cancelled) {
+            this.rowsScanned = rowsScanned;
+            this.rowsChanged = rowsChanged;
+            this.elapsedMillis = elapsedMillis;
+            this.cancelled = cancelled;
+        }
+
+        // Average number of rows checked per second over the whole job
+        public double getRowsPerSecond() {
+            return rowsPerSecond(rowsScanned, elapsedMillis);
+        }
+    }
+
+    private final MyDatabaseHelper myDB;
+    private final GradingPolicy policy;
+    private final int chunkSize;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructor for the GradeRecalculator class.
+     *
+     * @param myDB The database helper whose students are regraded.
+     * @param policy The grading policy to apply.
+     * @param chunkSize The number of rows regraded per transaction.
+     */
+    public GradeRecalculator(MyDatabaseHelper myDB, GradingPolicy policy, int chunkSize) {
+        this.myDB = myDB;
+        this.policy = policy;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Asks a running recompute to stop after the current chunk. Chunks already committed stay regraded.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Regrades every student, one chunk of IDs at a time.
+     *
+     * @param listener Optional receiver of progress updates.
+     * @return A summary of the job.
+     */
+    public Result run(@Nullable ProgressListener listener) {
+        DbThreadGuard.check();
+        long start = SystemClock.elapsedRealtime();
+
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        SQLiteStatement regrade = myDB.compileRegradeStatement(db, policy);
+
+        long scanned = 0;
+        long changed = 0;
+        long lastId = 0;
+        boolean stopped = false;
+        try {
+            while (true) {
+                if (cancelled || Thread.currentThread().isInterrupted()) {
+                    stopped = true;
+                    break;
+                }
+
+                int inChunk;
+                db.beginTransaction();
+                try {
+                    // Find where this chunk ends, then regrade everything up to there in one statement
+                    long upToId;
+                    Cursor chunk = myDB.readIdChunk(lastId, chunkSize);
+                    try {
+                        chunk.moveToFirst();
+                        inChunk = chunk.getInt(0);
+                        upToId = chunk.getLong(1);
+                    } finally {
+                        chunk.close();
+                    }
+
+                    if (inChunk > 0) {
+                        regrade.bindLong(1, lastId);
+                        regrade.bindLong(2, upToId);
+                        changed += regrade.executeUpdateDelete();
+                        lastId = upToId;
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                scanned += inChunk;
+
+                if (listener != null && inChunk > 0) {
+                    listener.onProgress(scanned, changed, rowsPerSecond(scanned, SystemClock.elapsedRealtime() - start));
+                }
+                if (inChunk < chunkSize) {
+                    break; // Last chunk
+                }
+            }
+        } finally {
+            regrade.close();
+        }
+
+        return new Result(scanned, changed, SystemClock.elapsedRealtime() - start, stopped);
+    }
+
+    private static double rowsPerSecond(long rows, long millis) {
+        return millis <= 0 ? rows * 1000.0 : rows * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * GradingPolicy.java
+
+ * This class decides a student's grade from their Physics and Math marks.
+ * The score is a weighted average of the two marks (equal weights by default), and the grade is the
+ * first band whose minimum score the student reaches, or the fallback grade if they reach none.
+ * The default policy is the college's usual ladder over (physics + math) / 2:
+ * A+ >= 90, A >= 80, B+ >= 70, B >= 60, C+ >= 50, C >= 40, D >= 33, otherwise F.
+
+ * Grading a student is a table lookup: every possible score from 0 to 100 is mapped to its grade
+ * once when the policy is created, so grade() is a few arithmetic operations and one array read
+ * instead of a chain of comparisons. toSql() turns the same policy into a CASE expression so a
+ * whole table can be regraded inside SQLite without loading any rows into Java.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Scores are clamped to 0..100 before the lookup, both here and in toSql().
+ * A policy is immutable; use StudentRepository.setGradingPolicy() to switch to a new one.
+ */
+
+package com.example.studentdatabase;
+
+import android.content.SharedPreferences;
+
+import java.util.Arrays;
+
+public final class GradingPolicy {
+
+    // Highest possible score (marks are out of 100)
+    public static final int MAX_SCORE = 100;
+
+    // The college's standard ladder with equal subject weights
+    public static final GradingPolicy DEFAULT = new GradingPolicy(1, 1,
+            new String[]{"A+", "A", "B+", "B", "C+", "C", "D", "F"},
+            new int[]{90, 80, 70, 60, 50, 40, 33});
+
+    // SharedPreferences keys used by load() and save()
+    private static final String KEY_PHYSICS_WEIGHT = "grading_physics_weight";
+    private static final String KEY_MATH_WEIGHT = "grading_math_weight";
+    private static final String KEY_GRADES = "grading_grades";
+    private static final String KEY_MIN_SCORES = "grading_min_scores";
+
+    private final int physicsWeight;
+    private final int mathWeight;
+    private final String[] grades;
+    private final int[] minScores;
+
+    // Grade index for every score from 0 to MAX_SCORE
+    private final byte[] gradeByScore = new byte[MAX_SCORE + 1];
+
+    /**
+     * Constructor for the GradingPolicy class.
+     *
+     * @param physicsWeight The weight of the Physics mark (0 or more).
+     * @param mathWeight The weight of the Math mark (0 or more; the two weights cannot both be 0).
+     * @param grades The grades from best to worst. The last one is the fallback for scores below every band.
+     * @param minScores The minimum score for each grade except the last, strictly decreasing, between 0 and 100.
+     * @throws IllegalArgumentException If the weights or bands are not valid.
+     */
+    public GradingPolicy(int physicsWeight, int mathWeight, String[] grades, int[] minScores) {
+        if (physicsWeight < 0 || mathWeight < 0 || physicsWeight + mathWeight == 0) {
+            throw new IllegalArgumentException("Weights must be non-negative and not both zero");
+        }
+        if (grades.length != minScores.length + 1 || grades.length > 127) {
+            throw new IllegalArgumentException("Need exactly one more grade than minimum scores");
+        }
+        for (String grade : grades) {
+            if (grade == null || grade.isEmpty() || grade.indexOf(',') >= 0) {
+                throw new IllegalArgumentException("Grades must be non-empty and cannot contain commas: " + grade);
+            }
+        }
+        for (int i = 0; i < minScores.length; i++) {
+            if (minScores[i] < 0 || minScores[i] > MAX_SCORE || (i > 0 && minScores[i] >= minScores[i - 1])) {
+                throw new IllegalArgumentException("Minimum scores must be strictly decreasing within 0.." + MAX_SCORE);
+            }
+        }
+        this.physicsWeight = physicsWeight;
+        this.mathWeight = mathWeight;
+        this.grades = grades.clone();
+        this.minScores = minScores.clone();
+
+        // Fill the lookup table from the top score down, stepping to the next band as scores drop below it
+        int band = 0;
+        for (int score = MAX_SCORE; score >= 0; score--) {
+            while (band < minScores.length && score < minScores[band]) {
+                band++;
+            }
+            gradeByScore[score] = (byte) band;
+        }
+    }
+
+    public int getPhysicsWeight() {
+        return physicsWeight;
+    }
+
+    public int getMathWeight() {
+        return mathWeight;
+    }
+
+    // Returns the grades from best to worst
+    public String[] getGrades() {
+        return grades.clone();
+    }
+
+    // Returns the minimum score of each grade except the fallback
+    public int[] getMinScores() {
+        return minScores.clone();
+    }
+
+    /**
+     * Calculates the weighted score for the given marks, clamped to 0..100.
+     * With the default weights this is (physics + math) / 2, rounded down.
+     */
+    public int score(int physics, int math) {
+        long weighted = ((long) physics * physicsWeight + (long) math * mathWeight) / (physicsWeight + mathWeight);
+        return (int) Math.max(0, Math.min(MAX_SCORE, weighted));
+    }
+
+    /**
+     * Calculates the grade for the given marks.
+     *
+     * @param physics Marks in Physics.
+     * @param math Marks in Math.
+     * @return The grade, for example "A+".
+     */
+    public String grade(int physics, int math) {
+        return grades[gradeByScore[score(physics, math)]];
+    }
+
+    /**
+     * Builds an SQL expression that gives the same grade as grade() for the given columns.
+     * Missing marks count as 0.
+     *
+     * @param physicsColumn The column holding Physics marks.
+     * @param mathColumn The column holding Math marks.
+     * @return A CASE expression evaluating to the grade text.
+     */
+    public String toSql(String physicsColumn, String mathColumn) {
+        String score = "MAX(0, MIN(" + MAX_SCORE + ", (IFNULL(" + physicsColumn + ", 0) * " + physicsWeight +
+                " + IFNULL(" + mathColumn + ", 0) * " + mathWeight + ") / " + (physicsWeight + mathWeight) + "))";
+        StringBuilder sql = new StringBuilder("(CASE");
+        for (int i = 0; i < minScores.length; i++) {
+            sql.append(" WHEN ").append(score).append(" >= ").append(minScores[i])
+                    .append(" THEN ").append(quote(grades[i]));
+        }
+        sql.append(" ELSE ").append(quote(grades[grades.length - 1])).append(" END)");
+        return sql.toString();
+    }
+
+    // Quotes text as an SQL string literal
+    private static String quote(String text) {
+        return "'" + text.replace("'", "''") + "'";
+    }
+
+    /**
+     * Reads a policy saved with save(), or returns DEFAULT if none was saved or it is not valid.
+     */
+    public static GradingPolicy load(SharedPreferences preferences) {
+        String grades = preferences.getString(KEY_GRADES, null);
+        String minScores = preferences.getString(KEY_MIN_SCORES, null);
+        if (grades == null || minScores == null) {
+            return DEFAULT;
+        }
+        try {
+            String[] scoreParts = minScores.isEmpty() ? new String[0] : minScores.split(",");
+            int[] scores = new int[scoreParts.length];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = Integer.parseInt(scoreParts[i]);
+            }
+            return new GradingPolicy(preferences.getInt(KEY_PHYSICS_WEIGHT, 1), preferences.getInt(KEY_MATH_WEIGHT, 1),
+                    grades.split(","), scores);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT; // Also covers NumberFormatException
+        }
+    }
+
+    /**
+     * Writes this policy to the given editor. The caller applies or commits it.
+     */
+    public void save(SharedPreferences.Editor editor) {
+        StringBuilder gradeList = new StringBuilder();
+        for (int i = 0; i < grades.length; i++) {
+            gradeList.append(i > 0 ? "," : "").append(grades[i]);
+        }
+        StringBuilder scoreList = new StringBuilder();
+        for (int i = 0; i < minScores.length; i++) {
+            scoreList.append(i > 0 ? "," : "").append(minScores[i]);
+        }
+        editor.putInt(KEY_PHYSICS_WEIGHT, physicsWeight)
+                .putInt(KEY_MATH_WEIGHT, mathWeight)
+                .putString(KEY_GRADES, gradeList.toString())
+                .putString(KEY_MIN_SCORES, scoreList.toString());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GradingPolicy)) {
+            return false;
+        }
+        GradingPolicy other = (GradingPolicy) o;
+        return physicsWeight == other.physicsWeight && mathWeight == other.mathWeight
+                && Arrays.equals(grades, other.grades) && Arrays.equals(minScores, other.minScores);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(grades) + Arrays.hashCode(minScores);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * LatencyHistogram.java
+
+ * This class counts how long an operation took, in nanoseconds, in a fixed set of buckets, so percentiles
+ * such as the median and p99 can be reported without keeping every measurement.
+ * The buckets are laid out like HdrHistogram's: each power of two is split into SUB_BUCKETS equal parts,
+ * so every value is counted with an error of at most 1/SUB_BUCKETS (about 6%) whether it is a few
+ * microseconds or several seconds.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: record() only updates atomic counters; it never allocates or locks, so it can be called on
+ * hot paths from any thread. Values of MAX_TRACKABLE_NANOS or more are counted as that value.
+ */
+
+package com.example.studentdatabase;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class LatencyHistogram {
+
+    // Each power of two is split into 2^SUB_BUCKET_BITS buckets
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Largest value counted exactly (about 68 seconds)
+    public static final long MAX_TRACKABLE_NANOS = (1L << 36) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(MAX_TRACKABLE_NANOS) + 1);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // Returns the bucket a value falls into. Values below 2 * SUB_BUCKETS get a bucket each.
+    static int bucketIndex(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // Position of the highest set bit
+        int shift = exponent - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift); // The highest SUB_BUCKET_BITS + 1 bits, SUB_BUCKETS to 2 * SUB_BUCKETS - 1
+        return (shift + 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    // Returns the largest value that falls into a bucket
+    static long bucketUpperBound(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    // Counts one measurement
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        counts.incrementAndGet(bucketIndex(value));
+        sum.addAndGet(value);
+        long previous;
+        while (value > (previous = max.get()) && !max.compareAndSet(previous, value)) {
+            // Another thread raised the maximum meanwhile; try again
+        }
+    }
+
+    // Returns the number of measurements
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // Returns the largest measurement, in nanoseconds (0 if there are none)
+    public long getMax() {
+        return max.get();
+    }
+
+    // Returns the average measurement, in nanoseconds (0 if there are none)
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * Returns the value that the given share of measurements are at or below, for example 99 for p99.
+     * The result is the top of the bucket holding that measurement (never more than the maximum),
+     * so it is never lower than the true value.
+     *
+     * @param percentile A percentage from 0 to 100.
+     * @return The value in nanoseconds, or 0 if there are no measurements.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        // The rank of the wanted measurement, counting from 1
+        long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    // Forgets every measurement
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -4,6 +4,8 @@
  * This is the main activity for the Student Database application.
  * It handles the display of student records in a RecyclerView and allows
  * the user to add, view, and delete student data.
+ * Long-pressing a row starts selecting several students, which can then be deleted or
+ * given new marks together in one batch.
 
  * Author: Abdulla Nibah Hussain
  * Date: 24/11/2024
@@ -16,25 +18,38 @@ package com.example.studentdatabase;
 
 import android.content.DialogInterface;
 import android.content.Intent;
-import android.database.Cursor;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
+import android.text.InputType;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.ImageView;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
+import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -45,10 +60,50 @@ public class MainActivity extends AppCompatActivity {
     TextView no_data;
 
     // Declare necessary data storage variables
-    MyDatabaseHelper myDB;
-    ArrayList<String> student_id, student_name, student_num, student_mail, student_physics, student_math, grade;
+    StudentRepository repository;
+    StudentPageSource pageSource;
+    StudentTable.Builder tableBuilder;
     CustomAdapter customAdapter;
 
+    // Intent extra that stops the list snapshot being shown (used by the startup benchmark to compare cold starts)
+    public static final String EXTRA_NO_LIST_SNAPSHOT = "com.example.studentdatabase.NO_LIST_SNAPSHOT";
+
+    // Start loading the next page when the last visible row is this close to the end of the list
+    private static final int PREFETCH_DISTANCE = 10;
+
+    // Time from asking for the list to be (re)loaded until the rows are shown (see Metrics)
+    private static final Metrics.Timer REFRESH_TIMER = Metrics.timer("ui.refresh");
+
+    // Time from the process starting until the first rows are shown, including any time spent on the login
+    // screen (recorded once per process, see Metrics)
+    private static final Metrics.Timer FIRST_ROWS_TIMER = Metrics.timer("startup.firstRows");
+    private static boolean firstRowsRecorded = false;
+
+    // True once this screen has shown its first rows (or its empty state)
+    private boolean fullyDrawn = false;
+
+    // True while a page request is running, so scrolling does not queue duplicate requests
+    private boolean loadingPage = false;
+
+    // Incremented on every reload so pages from an older load are ignored when they arrive
+    private int loadGeneration = 0;
+
+    // Wait this long after the last keystroke before running a search
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+
+    // Prefix that turns a search into a grade filter, for example "grade:A+"
+    private static final String GRADE_FILTER_PREFIX = "grade:";
+
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+    private String currentQuery = "";
+
+    // The action bar shown while rows are selected (null when not selecting)
+    private ActionMode selectionMode;
+
+    // Order of the full list (searches always show results in the order students were added)
+    private StudentSort currentSort = StudentSort.ID;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -60,99 +115,539 @@ public class MainActivity extends AppCompatActivity {
         empty_imageview = findViewById(R.id.empty_imageview);
         no_data = findViewById(R.id.no_data);
 
-        // Initialize database helper and data lists
-        myDB = new MyDatabaseHelper(MainActivity.this);
-        student_id = new ArrayList<>();
-        student_name = new ArrayList<>();
-        student_num = new ArrayList<>();
-        student_mail = new ArrayList<>();
-        student_physics = new ArrayList<>();
-        student_math = new ArrayList<>();
-        grade = new ArrayList<>();
-
-        // Fetch and store data from database
-        storeDataInArrays();
+        // Initialize the repository and data lists
+        repository = StudentRepository.getInstance(MainActivity.this);
+        pageSource = StudentPageSource.forSort(repository.getDatabaseHelper(), currentSort, StudentPageSource.DEFAULT_PAGE_SIZE);
+        tableBuilder = new StudentTable.Builder(StudentPageSource.DEFAULT_PAGE_SIZE);
 
         // Set up RecyclerView adapter and layout manager
-        customAdapter = new CustomAdapter(
-                MainActivity.this,
-                this,
-                student_id,
-                student_name,
-                student_num,
-                student_mail,
-                grade,
-                student_physics,
-                student_math
-        );
+        customAdapter = new CustomAdapter(MainActivity.this, this);
         recyclerView.setAdapter(customAdapter);
-        recyclerView.setLayoutManager(new LinearLayoutManager(MainActivity.this));
+        customAdapter.setSelectionListener(this::onSelectionChanged);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(MainActivity.this);
+        recyclerView.setLayoutManager(layoutManager);
+
+        // Load further pages as the user scrolls towards the end of the loaded rows
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || loadingPage || !pageSource.hasMore()) {
+                    return;
+                }
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= customAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    // Adapter changes are not allowed inside a scroll callback, so post them
+                    rv.post(() -> loadNextPage());
+                }
+            }
+        });
+
+        // At a cold start, show the rows saved by the last session while the database is still being opened
+        StudentListSnapshot snapshot = getIntent().getBooleanExtra(EXTRA_NO_LIST_SNAPSHOT, false)
+                ? null : repository.takeListSnapshot();
+        if (snapshot != null && snapshot.size() > 0) {
+            customAdapter.showSnapshot(snapshot);
+            showEmptyState(false);
+            onFirstRowsShown();
+        }
+
+        // Show the first page read ahead during startup, or fetch it from the database if there is none
+        int generation = loadGeneration;
+        loadingPage = true;
+        repository.whenFirstPagePrefetched(() -> showFirstPage(generation));
+
+        // Keep the list up to date with every change to the students, wherever it comes from
+        repository.addChangeListener(changeListener);
 
         // Set up the click listener for the add button
         add_button.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                // Open AddActivity to add new student data
+                // Open AddActivity to add new student data (the new row arrives through the change listener)
                 Intent intent = new Intent(MainActivity.this, AddActivity.class);
-                startActivityForResult(intent, 1);  // Start AddActivity and wait for result
+                startActivity(intent);
             }
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        repository.removeChangeListener(changeListener);
+        searchHandler.removeCallbacksAndMessages(null); // Drop any search that has not run yet
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        if (requestCode == 1 && resultCode == RESULT_OK) {
-            // Refresh the data in the RecyclerView after adding a new student
-            storeDataInArrays();
-            customAdapter.notifyDataSetChanged();  // Notify the adapter to refresh RecyclerView
+        if (requestCode == 2 && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            // Import the CSV file the user picked
+            importCsv(data.getData());
+        } else if ((requestCode == 3 || requestCode == 4) && resultCode == RESULT_OK && data != null && data.getData() != null) {
+            // Export to the file the user created
+            export(data.getData(), requestCode == 3 ? StudentExporter.Format.CSV : StudentExporter.Format.JSON_LINES);
+        }
+    }
+
+    // Method to export every student to a CSV or JSON Lines file, showing progress in the action bar
+    void export(Uri uri, StudentExporter.Format format) {
+        ActionBar ab = getSupportActionBar();
+        repository.export(() -> getContentResolver().openOutputStream(uri), format,
+                (rows, bytes) -> {
+                    if (ab != null) {
+                        ab.setSubtitle("Exported " + rows + " students");
+                    }
+                },
+                StudentRepository.callback(result -> {
+                    if (ab != null) {
+                        ab.setSubtitle(null);
+                    }
+                    if (result == null) {
+                        Toast.makeText(MainActivity.this, "Export failed", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    Toast.makeText(MainActivity.this, "Exported " + result.rowsExported + " students ("
+                            + Math.round(result.getRowsPerSecond()) + " rows/s)", Toast.LENGTH_LONG).show();
+                }, error -> {
+                    if (ab != null) {
+                        ab.setSubtitle(null);
+                    }
+                    Toast.makeText(MainActivity.this, "Export failed: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+                }));
+    }
+
+    // Method to ask the user where to save an export
+    private void createExportFile(StudentExporter.Format format, int requestCode) {
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType(format.mimeType);
+        intent.putExtra(Intent.EXTRA_TITLE, "students" + format.extension);
+        startActivityForResult(intent, requestCode);  // Start the file picker and wait for result
+    }
+
+    // Method to bulk-import students from a CSV or TSV file, showing progress in the action bar
+    void importCsv(Uri uri) {
+        ActionBar ab = getSupportActionBar();
+        repository.importCsv(() -> getContentResolver().openInputStream(uri),
+                (imported, skipped, rowsPerSecond, batch) -> {
+                    if (ab != null) {
+                        ab.setSubtitle("Imported " + imported + " (" + Math.round(rowsPerSecond) + " rows/s)");
+                    }
+                },
+                StudentRepository.callback(result -> {
+                    if (ab != null) {
+                        ab.setSubtitle(null);
+                    }
+                    if (result == null) {
+                        Toast.makeText(MainActivity.this, "Import failed", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    Toast.makeText(MainActivity.this, "Imported " + result.rowsImported + " students, updated "
+                            + result.rowsUpdated + ", unchanged " + result.rowsUnchanged + ", rejected "
+                            + result.rowsRejected + ", skipped " + result.rowsSkipped + " in "
+                            + result.elapsedMillis + " ms", Toast.LENGTH_LONG).show();
+                }, error -> {
+                    if (ab != null) {
+                        ab.setSubtitle(null);
+                    }
+                    Toast.makeText(MainActivity.this, "Import failed: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+                }));
+    }
+
+    // Shows the first page read ahead at startup, unless another load has started since it was requested
+    void showFirstPage(int generation) {
+        if (isDestroyed()) {
+            return;
+        }
+        StudentRepository.FirstPage page = repository.takePrefetchedFirstPage();
+        if (generation != loadGeneration) {
+            return;
         }
+        if (page == null || currentSort != StudentSort.ID || !currentQuery.isEmpty()) {
+            storeDataInArrays(); // Nothing read ahead, out of date, or not what the list shows
+            return;
+        }
+        loadGeneration++;
+        loadingPage = false;
+        pageSource = page.pageSource;
+        tableBuilder = page.builder;
+        showStudents(page.table, System.nanoTime());
     }
 
-    // Method to store data in the arrays and update the RecyclerView
+    // Method to store data in the table and update the RecyclerView.
+    // Only the first page is read here (on a background thread); the rest is loaded on demand by loadNextPage().
     void storeDataInArrays() {
-        // Clear the existing data to prevent duplicates
-        student_id.clear();
-        student_name.clear();
-        student_num.clear();
-        student_mail.clear();
-        student_physics.clear();
-        student_math.clear();
-        grade.clear();
-
-        // Query all student data from the database
-        Cursor cursor = myDB.readAllData();
+        int generation = ++loadGeneration;
+        loadingPage = true;
+        long start = System.nanoTime();
+        StudentTable.Builder builder = new StudentTable.Builder(StudentPageSource.DEFAULT_PAGE_SIZE);
+        repository.loadFirstPage(pageSource, builder, StudentRepository.callback(table -> {
+            if (generation != loadGeneration) {
+                return; // A newer reload has been started since
+            }
+            loadingPage = false;
+            tableBuilder = builder;
+            showStudents(table, start);
+        }, error -> onLoadFailed(generation)));
+    }
+
+    // Method to re-read the rows already loaded after the data has changed.
+    // Only the rows that actually changed are updated on screen, and the scroll position is kept.
+    void refreshData() {
+        int generation = ++loadGeneration;
+        loadingPage = true;
+        long start = System.nanoTime();
+        StudentTable.Builder builder = new StudentTable.Builder(Math.max(tableBuilder.size(), StudentPageSource.DEFAULT_PAGE_SIZE));
+        repository.reload(pageSource, builder, StudentRepository.callback(table -> {
+            if (generation != loadGeneration) {
+                return; // A newer reload has been started since
+            }
+            loadingPage = false;
+            tableBuilder = builder;
+            showStudents(table, start);
+        }, error -> onLoadFailed(generation)));
+    }
+
+    // Method to append the next page of students to the table
+    void loadNextPage() {
+        if (loadingPage || !pageSource.hasMore()) {
+            return;
+        }
+        int generation = loadGeneration;
+        loadingPage = true;
+        repository.loadNextPage(pageSource, tableBuilder, StudentRepository.callback(table -> {
+            if (generation != loadGeneration) {
+                return; // The list was reloaded while this page was loading
+            }
+            loadingPage = false;
+            customAdapter.submitList(table, null);
+            showEmptyState(table.size() == 0);
+        }, error -> onLoadFailed(generation)));
+    }
 
+    // Stops waiting for a page that could not be read, so scrolling or the next change can try again
+    private void onLoadFailed(int generation) {
+        if (generation != loadGeneration) {
+            return;
+        }
+        loadingPage = false;
+        Toast.makeText(MainActivity.this, "Could not load the students", Toast.LENGTH_SHORT).show();
+    }
+
+    // Show the given snapshot and show the empty state if it has no rows.
+    // The time from startNanos (when the reload was requested) until the rows are on screen is recorded.
+    private void showStudents(StudentTable table, long startNanos) {
+        customAdapter.submitList(table, () -> {
+            REFRESH_TIMER.record(System.nanoTime() - startNanos);
+            onFirstRowsShown();
+        });
+        showEmptyState(table.size() == 0);
+    }
+
+    // Tells the system (and startup benchmarks) that the screen is complete the first time rows are shown
+    // (including rows from the list snapshot)
+    private void onFirstRowsShown() {
+        if (fullyDrawn) {
+            return;
+        }
+        fullyDrawn = true;
+        reportFullyDrawn();
+        if (!firstRowsRecorded) {
+            firstRowsRecorded = true;
+            FIRST_ROWS_TIMER.record((SystemClock.uptimeMillis() - Process.getStartUptimeMillis()) * 1_000_000L);
+        }
+    }
+
+    // Show or hide the empty state
+    private void showEmptyState(boolean empty) {
         // Check if the database is empty
-        if (cursor.getCount() == 0) {
+        if (empty) {
             // Display the empty state UI
             empty_imageview.setVisibility(View.VISIBLE);
             no_data.setVisibility(View.VISIBLE);
         } else {
-            // Populate the arrays with student data from the database
-            while (cursor.moveToNext()) {
-                student_id.add(cursor.getString(0));
-                student_name.add(cursor.getString(1));
-                student_num.add(cursor.getString(2));
-                student_mail.add(cursor.getString(3));
-                student_physics.add(cursor.getString(4)); // Physics column
-                student_math.add(cursor.getString(5));    // Math column
-                grade.add(cursor.getString(6));
-            }
             // Hide the empty state UI
             empty_imageview.setVisibility(View.GONE);
             no_data.setVisibility(View.GONE);
         }
     }
 
+    // Shows the selection action bar while rows are selected, with the number selected as its title
+    void onSelectionChanged(int selectedCount) {
+        if (selectedCount == 0) {
+            if (selectionMode != null) {
+                selectionMode.finish();
+            }
+            return;
+        }
+        if (selectionMode == null) {
+            selectionMode = startSupportActionMode(selectionCallback);
+        }
+        if (selectionMode != null) {
+            selectionMode.setTitle(selectedCount + " selected");
+        }
+    }
+
+    // Handles the buttons of the selection action bar
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.menu_selection, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            if (item.getItemId() == R.id.delete_selected) {
+                confirmDeleteSelected(customAdapter.getSelectedIds());
+                return true;
+            } else if (item.getItemId() == R.id.set_marks_selected) {
+                showSetMarksDialog(customAdapter.getSelectedIds());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            selectionMode = null;
+            customAdapter.clearSelection();
+        }
+    };
+
+    // Asks for confirmation, then deletes the selected students in one transaction (their rows are removed
+    // when the change arrives)
+    void confirmDeleteSelected(Set<Long> ids) {
+        new AlertDialog.Builder(this)
+                .setTitle("Delete " + ids.size() + " students?")
+                .setMessage("Are you sure you want to delete the selected students?")
+                .setPositiveButton("Yes", (dialogInterface, i) -> repository.deleteStudents(StudentSelection.ofIds(ids),
+                        StudentRepository.callback(deleted -> {
+                            Toast.makeText(MainActivity.this, "Deleted " + deleted + " students", Toast.LENGTH_SHORT).show();
+                            if (selectionMode != null) {
+                                selectionMode.finish();
+                            }
+                        }, error -> Toast.makeText(MainActivity.this, "Failed to delete the students", Toast.LENGTH_SHORT).show())))
+                .setNegativeButton("No", null)
+                .show();
+    }
+
+    // Receives every batch of committed changes and patches the list with it
+    private final StudentRepository.ChangeListener changeListener = this::onStudentsChanged;
+
+    // True while changed rows are being read for patchRows()
+    private boolean patchPending = false;
+
+    /**
+     * Applies a batch of changes to the loaded rows without reloading the whole list where possible:
+     * deleted rows are taken out, updated rows are read again by ID and replaced, and new rows at the end
+     * of the list are paged in. Anything else (a reset, a regrade, a filtered or sorted list whose order
+     * may have changed) re-reads the loaded rows, and DiffUtil still only redraws the rows that changed.
+     */
+    void onStudentsChanged(StudentChange change) {
+        if (change.everything || loadingPage || patchPending) {
+            refreshData();
+            return;
+        }
+        boolean inIdOrder = currentQuery.isEmpty() && currentSort == StudentSort.ID;
+        if (!inIdOrder && (change.updated.length > 0 || change.inserted.length > 0)) {
+            refreshData(); // The changed rows may have moved or now match differently
+            return;
+        }
+
+        if (change.deleted.length > 0) {
+            Set<Long> ids = new HashSet<>();
+            for (long id : change.deleted) {
+                ids.add(id);
+            }
+            removeRows(ids);
+        }
+        if (change.updated.length > 0) {
+            patchRows(change.updated);
+        }
+        if (change.inserted.length > 0 && !pageSource.hasMore()) {
+            // New students come after every loaded row, so they are simply the next page
+            pageSource.resume();
+            loadNextPage();
+        }
+    }
+
+    // Reads the given students again and replaces their loaded rows (students that are not loaded are ignored)
+    void patchRows(long[] ids) {
+        int generation = loadGeneration;
+        patchPending = true;
+        repository.loadStudents(ids, StudentRepository.callback(fresh -> {
+            patchPending = false;
+            if (generation != loadGeneration) {
+                return; // The list was reloaded meanwhile, which includes these changes
+            }
+            if (loadingPage) {
+                refreshData(); // A page is being added to the old rows, so read them again instead
+                return;
+            }
+            HashMap<Long, Integer> freshRows = new HashMap<>();
+            for (int row = 0; row < fresh.size(); row++) {
+                freshRows.put(fresh.getId(row), row);
+            }
+            StudentTable current = tableBuilder.build();
+            StudentTable.Builder builder = new StudentTable.Builder(current.size());
+            for (int row = 0; row < current.size(); row++) {
+                Integer freshRow = freshRows.get(current.getId(row));
+                if (freshRow != null) {
+                    builder.appendRow(fresh, freshRow);
+                } else {
+                    builder.appendRow(current, row);
+                }
+            }
+            tableBuilder = builder;
+            customAdapter.submitList(builder.build(), null); // DiffUtil redraws only the replaced rows
+        }, error -> patchPending = false)); // The next change reads them again
+    }
+
+    // Takes the given students out of the loaded rows without reading the list again
+    void removeRows(Set<Long> ids) {
+        if (loadingPage) {
+            refreshData(); // A page is being added to the old rows, so read them again instead
+            return;
+        }
+        StudentTable current = tableBuilder.build();
+        StudentTable.Builder builder = new StudentTable.Builder(current.size());
+        for (int row = 0; row < current.size(); row++) {
+            if (!ids.contains(current.getId(row))) {
+                builder.appendRow(current, row);
+            }
+        }
+        tableBuilder = builder;
+        StudentTable table = builder.build();
+        customAdapter.submitRemoval(table, ids);
+        if (table.size() == 0) {
+            showEmptyState(true);
+        }
+    }
+
+    // Asks for new physics and/or math marks (blank leaves them unchanged) and applies them to the selected students
+    void showSetMarksDialog(Set<Long> ids) {
+        EditText physicsInput = new EditText(this);
+        physicsInput.setHint("Physics (leave blank to keep)");
+        physicsInput.setInputType(InputType.TYPE_CLASS_NUMBER);
+        EditText mathInput = new EditText(this);
+        mathInput.setHint("Math (leave blank to keep)");
+        mathInput.setInputType(InputType.TYPE_CLASS_NUMBER);
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
+        layout.addView(physicsInput);
+        layout.addView(mathInput);
+
+        new AlertDialog.Builder(this)
+                .setTitle("Set marks for " + ids.size() + " students")
+                .setView(layout)
+                .setPositiveButton("Save", (dialogInterface, i) -> {
+                    try {
+                        String physicsText = physicsInput.getText().toString().trim();
+                        String mathText = mathInput.getText().toString().trim();
+                        Integer physics = physicsText.isEmpty() ? null : Integer.parseInt(physicsText);
+                        Integer math = mathText.isEmpty() ? null : Integer.parseInt(mathText);
+                        repository.updateMarks(StudentSelection.ofIds(ids), physics, math, StudentRepository.callback(updated -> {
+                            Toast.makeText(MainActivity.this, "Updated " + updated + " students", Toast.LENGTH_SHORT).show();
+                            if (selectionMode != null) {
+                                selectionMode.finish();
+                            }
+                        }, error -> Toast.makeText(MainActivity.this, "Failed to update the marks", Toast.LENGTH_SHORT).show()));
+                    } catch (NumberFormatException e) {
+                        Toast.makeText(MainActivity.this, "Please enter valid numbers!", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
     // Inflate the options menu
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.menu_main, menu);  // Inflate the menu from the XML file
+
+        // Set up the search box: search as the user types, once they pause
+        SearchView searchView = (SearchView) menu.findItem(R.id.search).getActionView();
+        if (searchView != null) {
+            searchView.setQueryHint("Name, number, email or grade:A");
+            searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+                @Override
+                public boolean onQueryTextSubmit(String query) {
+                    scheduleSearch(query, 0);
+                    return true;
+                }
+
+                @Override
+                public boolean onQueryTextChange(String newText) {
+                    scheduleSearch(newText, SEARCH_DEBOUNCE_MS);
+                    return true;
+                }
+            });
+        }
         return super.onCreateOptionsMenu(menu);
     }
 
+    // Method to run a search after the given delay, replacing any search that has not started yet
+    void scheduleSearch(String text, long delayMs) {
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+        }
+        pendingSearch = () -> applySearch(text);
+        searchHandler.postDelayed(pendingSearch, delayMs);
+    }
+
+    // Method to switch the list to the results of a search (or back to all students if the text is empty)
+    void applySearch(String text) {
+        String query = text.trim();
+        if (query.equals(currentQuery)) {
+            return;
+        }
+        currentQuery = query;
+
+        // Split off a "grade:X" filter if there is one
+        String grade = null;
+        String words = query;
+        int gradeAt = query.toLowerCase(Locale.ROOT).indexOf(GRADE_FILTER_PREFIX);
+        if (gradeAt >= 0) {
+            int start = gradeAt + GRADE_FILTER_PREFIX.length();
+            int end = query.indexOf(' ', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            grade = query.substring(start, end).toUpperCase(Locale.ROOT);
+            words = (query.substring(0, gradeAt) + query.substring(end)).trim();
+        }
+
+        MyDatabaseHelper myDB = repository.getDatabaseHelper();
+        if (words.isEmpty() && grade == null) {
+            pageSource = StudentPageSource.forSort(myDB, currentSort, StudentPageSource.DEFAULT_PAGE_SIZE);
+        } else {
+            pageSource = StudentPageSource.forSearch(myDB, words, grade, StudentPageSource.DEFAULT_PAGE_SIZE);
+        }
+        customAdapter.setGroupByGrade(currentSort == StudentSort.GRADE && words.isEmpty() && grade == null);
+        storeDataInArrays();
+    }
+
+    // Method to change the order of the list. Only the first page in the new order is read;
+    // the database returns it straight from the sort column's index.
+    void applySort(StudentSort sort) {
+        if (sort == currentSort) {
+            return;
+        }
+        currentSort = sort;
+        if (currentQuery.isEmpty()) {
+            pageSource = StudentPageSource.forSort(repository.getDatabaseHelper(), sort, StudentPageSource.DEFAULT_PAGE_SIZE);
+            customAdapter.setGroupByGrade(sort == StudentSort.GRADE);
+            storeDataInArrays();
+        }
+    }
+
     // Handle menu item selection
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
@@ -160,10 +655,48 @@ public class MainActivity extends AppCompatActivity {
         if(item.getItemId() == R.id.delete_all) {
             // Open the confirmation dialog
             confirmDialog();
+        } else if (sortFor(item.getItemId()) != null) {
+            // Switch the list to the chosen order
+            item.setChecked(true);
+            applySort(sortFor(item.getItemId()));
+        } else if (item.getItemId() == R.id.statistics) {
+            // Open the statistics dashboard
+            startActivity(new Intent(MainActivity.this, StatisticsActivity.class));
+        } else if (item.getItemId() == R.id.import_csv) {
+            // Let the user pick a CSV or TSV file to import
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType("text/*");
+            startActivityForResult(intent, 2);  // Start the file picker and wait for result
+        } else if (item.getItemId() == R.id.export_csv) {
+            createExportFile(StudentExporter.Format.CSV, 3);
+        } else if (item.getItemId() == R.id.export_json) {
+            createExportFile(StudentExporter.Format.JSON_LINES, 4);
+        } else if (item.getItemId() == R.id.metrics) {
+            // Open the debug screen with the timings
+            startActivity(new Intent(MainActivity.this, MetricsActivity.class));
         }
         return super.onOptionsItemSelected(item);
     }
 
+    // Returns the order a "Sort by" menu item stands for, or null if it is not one of them
+    private static StudentSort sortFor(int itemId) {
+        if (itemId == R.id.sort_id) {
+            return StudentSort.ID;
+        } else if (itemId == R.id.sort_name) {
+            return StudentSort.NAME;
+        } else if (itemId == R.id.sort_number) {
+            return StudentSort.NUMBER;
+        } else if (itemId == R.id.sort_grade) {
+            return StudentSort.GRADE;
+        } else if (itemId == R.id.sort_physics) {
+            return StudentSort.PHYSICS;
+        } else if (itemId == R.id.sort_math) {
+            return StudentSort.MATH;
+        }
+        return null;
+    }
+
     // Show a confirmation dialog before deleting all data
     void confirmDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
@@ -174,13 +707,11 @@ public class MainActivity extends AppCompatActivity {
         builder.setPositiveButton("Yes", new DialogInterface.OnClickListener() {
             @Override
             public void onClick(DialogInterface dialogInterface, int i) {
-                // Perform the deletion when "Yes" is clicked
-                MyDatabaseHelper myDB = new MyDatabaseHelper(MainActivity.this);
-                myDB.deleteAllData();  // Delete all student data from the database
-
-                // Refresh the RecyclerView after deletion
-                storeDataInArrays();
-                customAdapter.notifyDataSetChanged();  // Notify the adapter to refresh the RecyclerView
+                // Perform the deletion when "Yes" is clicked (on the repository's writer thread).
+                // The list is emptied when the change arrives.
+                repository.deleteAllData(StudentRepository.callback(result -> {
+                    Toast.makeText(MainActivity.this, "All Data Deleted. ID reset to 1.", Toast.LENGTH_SHORT).show();
+                }, error -> Toast.makeText(MainActivity.this, "Failed to delete the data", Toast.LENGTH_SHORT).show()));
 
                 // Optionally, send a result to notify the user (not necessary here)
                 Intent resultIntent = new Intent();
@@ -0,0 +1,178 @@
+/**
+ * Metrics.java
+
+ * This class collects timings and counts of the app's database operations and list refreshes, so slow
+ * operations (for example a p99 that grows after a change) can be spotted on real devices.
+ * A Timer keeps a LatencyHistogram of how long an operation took and also marks it as an
+ * android.os.Trace section, so the same operations show up by name in a systrace or Perfetto recording.
+ * A Counter counts events. Every timer and counter is registered by name and can be shown on the
+ * debug screen (MetricsActivity) or dumped as JSON.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Create each Timer or Counter once and keep it in a static final field. Starting and stopping
+ * a timer does not allocate, so it is cheap enough for hot paths such as binding list rows.
+ */
+
+package com.example.studentdatabase;
+
+import android.os.Trace;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class Metrics {
+
+    // Every timer and counter, by name, in the order they were created
+    private static final Map<String, Timer> timers = new LinkedHashMap<>();
+    private static final Map<String, Counter> counters = new LinkedHashMap<>();
+
+    private Metrics() {
+        // Static helper, not meant to be instantiated
+    }
+
+    /**
+     * Measures how long an operation takes.
+     */
+    public static final class Timer {
+        public final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Starts timing on the current thread and opens a trace section with the timer's name.
+         * Pass the result to stop(), on the same thread, in a finally block.
+         *
+         * @return The start time.
+         */
+        public long start() {
+            Trace.beginSection(name);
+            return System.nanoTime();
+        }
+
+        // Records the time since start() and closes the trace section
+        public void stop(long startNanos) {
+            histogram.record(System.nanoTime() - startNanos);
+            Trace.endSection();
+        }
+
+        // Records a time measured some other way (for example across threads, where no trace section fits)
+        public void record(long nanos) {
+            histogram.record(nanos);
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    /**
+     * Counts events.
+     */
+    public static final class Counter {
+        public final String name;
+        private final AtomicLong count = new AtomicLong();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            count.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            count.addAndGet(delta);
+        }
+
+        public long get() {
+            return count.get();
+        }
+    }
+
+    // Returns the timer with the given name, creating it on first use
+    public static synchronized Timer timer(String name) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            timer = new Timer(name);
+            timers.put(name, timer);
+        }
+        return timer;
+    }
+
+    // Returns the counter with the given name, creating it on first use
+    public static synchronized Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter(name);
+            counters.put(name, counter);
+        }
+        return counter;
+    }
+
+    public static synchronized List<Timer> getTimers() {
+        return new ArrayList<>(timers.values());
+    }
+
+    public static synchronized List<Counter> getCounters() {
+        return new ArrayList<>(counters.values());
+    }
+
+    // Forgets every measurement and count (the timers and counters themselves stay registered)
+    public static synchronized void reset() {
+        for (Timer timer : timers.values()) {
+            timer.histogram.reset();
+        }
+        for (Counter counter : counters.values()) {
+            counter.count.set(0);
+        }
+    }
+
+    /**
+     * Returns every timer and counter as JSON. Times are in microseconds, for example:
+     * {"timers":{"db.addStudent":{"count":12,"mean_us":850.5,"p50_us":790,"p90_us":1200,"p99_us":2300,"max_us":2310}},
+     *  "counters":{"db.rowsLoaded":500}}
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\"timers\":{");
+        List<Timer> timerList = getTimers();
+        for (int i = 0; i < timerList.size(); i++) {
+            Timer timer = timerList.get(i);
+            LatencyHistogram h = timer.histogram;
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(quote(timer.name)).append(":{")
+                    .append("\"count\":").append(h.getCount())
+                    .append(",\"mean_us\":").append(String.format(Locale.US, "%.1f", h.getMean() / 1000))
+                    .append(",\"p50_us\":").append(h.getValueAtPercentile(50) / 1000)
+                    .append(",\"p90_us\":").append(h.getValueAtPercentile(90) / 1000)
+                    .append(",\"p99_us\":").append(h.getValueAtPercentile(99) / 1000)
+                    .append(",\"max_us\":").append(h.getMax() / 1000)
+                    .append('}');
+        }
+        json.append("},\"counters\":{");
+        List<Counter> counterList = getCounters();
+        for (int i = 0; i < counterList.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(quote(counterList.get(i).name)).append(':').append(counterList.get(i).get());
+        }
+        return json.append("}}").toString();
+    }
+
+    // Quotes a name for JSON (names are plain ASCII, but quotes and backslashes are escaped to be safe)
+    private static String quote(String name) {
+        return '"' + name.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
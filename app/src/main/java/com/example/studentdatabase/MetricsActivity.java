@@ -0,0 +1,90 @@
+/**
+ * MetricsActivity.java
+
+ * This activity is a debug screen showing the timings and counters collected by Metrics:
+ * for each database operation and list refresh, how often it ran and how long it took
+ * (median, p90, p99 and slowest), plus the row cache's hit rate.
+ * The same numbers can be shared as JSON, for example to compare two builds on a real device.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Opened from the "Debug metrics" menu item on the main screen.
+ */
+
+package com.example.studentdatabase;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.util.Locale;
+
+public class MetricsActivity extends AppCompatActivity {
+
+    // UI elements
+    TextView timers_txt, counters_txt;
+    Button share_button, reset_button;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+
+        // Initialize the UI elements
+        timers_txt = findViewById(R.id.timers_txt);
+        counters_txt = findViewById(R.id.counters_txt);
+        share_button = findViewById(R.id.share_metrics_button);
+        reset_button = findViewById(R.id.reset_metrics_button);
+
+        // Share the JSON dump with any app that accepts text (email, notes, a file manager...)
+        share_button.setOnClickListener(view -> {
+            Intent intent = new Intent(Intent.ACTION_SEND);
+            intent.setType("application/json");
+            intent.putExtra(Intent.EXTRA_SUBJECT, "Student Database metrics");
+            intent.putExtra(Intent.EXTRA_TEXT, Metrics.toJson());
+            startActivity(Intent.createChooser(intent, "Share metrics"));
+        });
+
+        // Start measuring again from zero
+        reset_button.setOnClickListener(view -> {
+            Metrics.reset();
+            showMetrics();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    // Fill in one line per timer and per counter
+    void showMetrics() {
+        StringBuilder timers = new StringBuilder(String.format(Locale.US, "%-20s %7s %8s %8s %8s %8s%n",
+                "operation", "count", "p50", "p90", "p99", "max"));
+        for (Metrics.Timer timer : Metrics.getTimers()) {
+            LatencyHistogram h = timer.getHistogram();
+            if (h.getCount() == 0) {
+                continue; // Not run yet
+            }
+            timers.append(String.format(Locale.US, "%-20s %7d %8.2f %8.2f %8.2f %8.2f%n", timer.name, h.getCount(),
+                    h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(90) / 1e6,
+                    h.getValueAtPercentile(99) / 1e6, h.getMax() / 1e6));
+        }
+        timers_txt.setText(timers.toString().trim());
+
+        StringBuilder counters = new StringBuilder();
+        for (Metrics.Counter counter : Metrics.getCounters()) {
+            counters.append(String.format(Locale.US, "%-20s %d%n", counter.name, counter.get()));
+        }
+        StudentCache cache = StudentRepository.getInstance(this).getStudentCache();
+        counters.append(String.format(Locale.US, "%-20s %d/%d, %.0f%% hits", "cache.rows", cache.size(),
+                cache.getMaxSize(), cache.getHitRate() * 100));
+        counters_txt.setText(counters.toString().trim());
+    }
+}
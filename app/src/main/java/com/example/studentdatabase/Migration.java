@@ -0,0 +1,66 @@
+/**
+ * Migration.java
+
+ * This class describes one step of the database schema history: the version it upgrades the
+ * database to, a short description, and the work needed to get there from the version before.
+ * Steps never drop user data; tables that need a new layout are rebuilt by copying their rows
+ * (see TableRebuilder).
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Steps are run in order by MigrationRunner, all inside the upgrade transaction,
+ * so a step must not begin or end transactions of its own.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.sqlite.SQLiteDatabase;
+
+public final class Migration {
+
+    /**
+     * Receives progress from inside a step, for steps that process many rows.
+     */
+    public interface Progress {
+        void report(long done, long total);
+    }
+
+    /**
+     * The work done by a step.
+     */
+    public interface Step {
+        void migrate(SQLiteDatabase db, Progress progress);
+    }
+
+    public final int version;
+    public final String description;
+    private final Step step;
+
+    /**
+     * Constructor for the Migration class.
+     *
+     * @param version The schema version the database has after this step (the step upgrades from version - 1).
+     * @param description A short description of the change, used in logs and progress updates.
+     * @param step The work to do.
+     */
+    public Migration(int version, String description, Step step) {
+        if (version < 2) {
+            throw new IllegalArgumentException("Version 1 is created by onCreate(), migrations start at 2");
+        }
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    // Runs the step
+    void migrate(SQLiteDatabase db, Progress progress) {
+        step.migrate(db, progress);
+    }
+
+    @Override
+    public String toString() {
+        return "v" + version + ": " + description;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * MigrationRunner.java
+
+ * This class upgrades a database from one schema version to another by running the
+ * Migration steps in between, oldest first. The steps are checked up front: versions must be
+ * unique and in order, and every version on the way must have a step, so a missing step fails
+ * loudly instead of leaving the schema half upgraded.
+
+ * All steps run in a single transaction. SQLiteOpenHelper already wraps onUpgrade() in one; when the
+ * runner is used on its own it opens one itself. If any step fails, the whole upgrade is rolled back
+ * and the database stays at its old version with its data intact.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: The time each step takes is written to the log under the "MigrationRunner" tag.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class MigrationRunner {
+
+    private static final String TAG = "MigrationRunner";
+
+    /**
+     * Receives progress updates while an upgrade runs.
+     */
+    public interface ProgressListener {
+        /**
+         * Called when a step starts (done = 0) and whenever it reports progress.
+         *
+         * @param stepIndex The position of the step in this upgrade, starting at 0.
+         * @param stepCount The number of steps in this upgrade.
+         * @param migration The step that is running.
+         * @param done The amount of the step's work done so far (for example rows copied).
+         * @param total The step's total amount of work, or 0 if it does not report any.
+         */
+        void onProgress(int stepIndex, int stepCount, Migration migration, long done, long total);
+    }
+
+    /**
+     * Summary of a finished upgrade.
+     */
+    public static class Result {
+        public final int stepsRun;
+        public final long elapsedMillis;
+
+        Result(int stepsRun, long elapsedMillis) {
+            this.stepsRun = stepsRun;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    private final List<Migration> migrations;
+
+    /**
+     * Constructor for the MigrationRunner class.
+     *
+     * @param migrations Every migration step, in version order.
+     * @throws IllegalArgumentException If two steps share a version or the steps are out of order.
+     */
+    public MigrationRunner(List<Migration> migrations) {
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version <= migrations.get(i - 1).version) {
+                throw new IllegalArgumentException("Migrations out of order at " + migrations.get(i));
+            }
+        }
+        this.migrations = Collections.unmodifiableList(new ArrayList<>(migrations));
+    }
+
+    // Returns the highest version the steps can upgrade to (1 if there are none)
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 1 : migrations.get(migrations.size() - 1).version;
+    }
+
+    /**
+     * Works out which steps take the database from oldVersion to newVersion.
+     *
+     * @return The steps to run, in order.
+     * @throws IllegalStateException If a version on the way has no step.
+     */
+    public List<Migration> plan(int oldVersion, int newVersion) {
+        List<Migration> steps = new ArrayList<>();
+        int version = oldVersion;
+        for (Migration migration : migrations) {
+            if (migration.version <= oldVersion || migration.version > newVersion) {
+                continue;
+            }
+            if (migration.version != version + 1) {
+                throw new IllegalStateException("No migration to version " + (version + 1));
+            }
+            steps.add(migration);
+            version = migration.version;
+        }
+        if (version != newVersion) {
+            throw new IllegalStateException("No migration to version " + (version + 1));
+        }
+        return steps;
+    }
+
+    /**
+     * Upgrades the database from oldVersion to newVersion.
+     *
+     * @param db The database to upgrade.
+     * @param oldVersion The version the database is at now.
+     * @param newVersion The version to upgrade to.
+     * @param listener Optional receiver of progress updates, called on the upgrading thread.
+     * @return A summary of the upgrade.
+     */
+    public Result migrate(SQLiteDatabase db, int oldVersion, int newVersion, @Nullable ProgressListener listener) {
+        List<Migration> steps = plan(oldVersion, newVersion);
+        long start = SystemClock.elapsedRealtime();
+
+        // Use the caller's transaction (onUpgrade) if there is one
+        boolean ownTransaction = !db.inTransaction();
+        if (ownTransaction) {
+            db.beginTransaction();
+        }
+        try {
+            for (int i = 0; i < steps.size(); i++) {
+                Migration migration = steps.get(i);
+                int index = i;
+                if (listener != null) {
+                    listener.onProgress(index, steps.size(), migration, 0, 0);
+                }
+                long stepStart = SystemClock.elapsedRealtime();
+                migration.migrate(db, (done, total) -> {
+                    if (listener != null) {
+                        listener.onProgress(index, steps.size(), migration, done, total);
+                    }
+                });
+                Log.i(TAG, "Migrated to " + migration + " in " + (SystemClock.elapsedRealtime() - stepStart) + " ms");
+            }
+            if (ownTransaction) {
+                db.setVersion(newVersion);
+                db.setTransactionSuccessful();
+            }
+        } finally {
+            if (ownTransaction) {
+                db.endTransaction();
+            }
+        }
+        return new Result(steps.size(), SystemClock.elapsedRealtime() - start);
+    }
+}
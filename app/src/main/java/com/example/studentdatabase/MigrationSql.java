@@ -0,0 +1,173 @@
+/**
+ * MigrationSql.java
+
+ * This class holds the SQL run by each step of the schema history in MyDatabaseHelper.MIGRATIONS,
+ * written out in full with the table, column and index names of that version.
+ * The create...Schema() helpers in MyDatabaseHelper describe the current schema for onCreate() and the
+ * reset, and change whenever the schema does. A step that called them would quietly run different SQL
+ * on the next release, so the steps use these frozen copies instead.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Never edit a statement here once its version has shipped. To change the schema, add a new
+ * step (and its SQL) and make the same change in the helpers. MigrationTest checks that an upgraded
+ * database ends up with the same schema as a new one.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.sqlite.SQLiteDatabase;
+
+final class MigrationSql {
+
+    // Version 2: number, email and grade indexes, and the name full-text index with triggers that
+    // reindex the name on every update. Ends by indexing the existing names.
+    static final String[] V2_SEARCH = {
+            "CREATE INDEX IF NOT EXISTS idx_student_num ON cyryx_college (student_num)",
+            "CREATE INDEX IF NOT EXISTS idx_student_mail ON cyryx_college (student_mail COLLATE NOCASE)",
+            "CREATE INDEX IF NOT EXISTS idx_student_grade ON cyryx_college (student_grade)",
+            "CREATE VIRTUAL TABLE IF NOT EXISTS cyryx_college_fts USING fts4(content=\"cyryx_college\", student_name)",
+            "CREATE TRIGGER IF NOT EXISTS cyryx_college_fts_ai AFTER INSERT ON cyryx_college BEGIN " +
+                    "INSERT INTO cyryx_college_fts(docid, student_name) VALUES (new._id, new.student_name); END",
+            "CREATE TRIGGER IF NOT EXISTS cyryx_college_fts_bu BEFORE UPDATE ON cyryx_college BEGIN " +
+                    "DELETE FROM cyryx_college_fts WHERE docid = old._id; END",
+            "CREATE TRIGGER IF NOT EXISTS cyryx_college_fts_au AFTER UPDATE ON cyryx_college BEGIN " +
+                    "INSERT INTO cyryx_college_fts(docid, student_name) VALUES (new._id, new.student_name); END",
+            "CREATE TRIGGER IF NOT EXISTS cyryx_college_fts_bd BEFORE DELETE ON cyryx_college BEGIN " +
+                    "DELETE FROM cyryx_college_fts WHERE docid = old._id; END",
+            "INSERT INTO cyryx_college_fts(cyryx_college_fts) VALUES('rebuild')"
+    };
+
+    // Version 3: the summary tables, the total marks index and the triggers that keep the summary up to date.
+    // Ends by summarising the existing students.
+    static final String[] V3_STATISTICS = {
+            "CREATE TABLE IF NOT EXISTS student_stats (_id INTEGER PRIMARY KEY CHECK (_id = 1), student_count " +
+                    "INTEGER NOT NULL, physics_sum INTEGER NOT NULL, math_sum INTEGER NOT NULL)",
+            "INSERT OR IGNORE INTO student_stats VALUES (1, 0, 0, 0)",
+            "CREATE TABLE IF NOT EXISTS grade_counts (grade TEXT PRIMARY KEY NOT NULL, " +
+                    "student_count INTEGER NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS idx_student_total ON cyryx_college ((student_physics + student_math), _id)",
+            "CREATE TRIGGER IF NOT EXISTS student_stats_ai AFTER INSERT ON cyryx_college BEGIN " +
+                    "UPDATE student_stats SET student_count = student_count + 1, physics_sum = physics_sum + " +
+                    "IFNULL(new.student_physics, 0), math_sum = math_sum + IFNULL(new.student_math, 0) WHERE _id = 1; " +
+                    "INSERT OR IGNORE INTO grade_counts VALUES (IFNULL(new.student_grade, ''), 0); " +
+                    "UPDATE grade_counts SET student_count = student_count + 1 WHERE grade = IFNULL(new.student_grade, ''); " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS student_stats_ad AFTER DELETE ON cyryx_college BEGIN " +
+                    "UPDATE student_stats SET student_count = student_count - 1, physics_sum = physics_sum - " +
+                    "IFNULL(old.student_physics, 0), math_sum = math_sum - IFNULL(old.student_math, 0) WHERE _id = 1; " +
+                    "INSERT OR IGNORE INTO grade_counts VALUES (IFNULL(old.student_grade, ''), 0); " +
+                    "UPDATE grade_counts SET student_count = student_count - 1 WHERE grade = IFNULL(old.student_grade, ''); " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS student_stats_au AFTER UPDATE OF student_physics, student_math, " +
+                    "student_grade ON cyryx_college BEGIN " +
+                    "UPDATE student_stats SET physics_sum = physics_sum + IFNULL(new.student_physics, 0) - " +
+                    "IFNULL(old.student_physics, 0), math_sum = math_sum + IFNULL(new.student_math, 0) - " +
+                    "IFNULL(old.student_math, 0) WHERE _id = 1; " +
+                    "INSERT OR IGNORE INTO grade_counts VALUES (IFNULL(old.student_grade, ''), 0); " +
+                    "UPDATE grade_counts SET student_count = student_count - 1 WHERE grade = IFNULL(old.student_grade, ''); " +
+                    "INSERT OR IGNORE INTO grade_counts VALUES (IFNULL(new.student_grade, ''), 0); " +
+                    "UPDATE grade_counts SET student_count = student_count + 1 WHERE grade = IFNULL(new.student_grade, ''); " +
+                    "END",
+            "DELETE FROM grade_counts",
+            "INSERT INTO grade_counts SELECT IFNULL(student_grade, ''), COUNT(*) FROM cyryx_college GROUP BY " +
+                    "IFNULL(student_grade, '')",
+            "INSERT OR REPLACE INTO student_stats SELECT 1, COUNT(*), IFNULL(SUM(student_physics), 0), " +
+                    "IFNULL(SUM(student_math), 0) FROM cyryx_college"
+    };
+
+    // Version 4: the full-text update triggers only fire when the name changes
+    static final String[] V4_NAME_TRIGGERS = {
+            "DROP TRIGGER IF EXISTS cyryx_college_fts_bu",
+            "DROP TRIGGER IF EXISTS cyryx_college_fts_au",
+            "CREATE TRIGGER IF NOT EXISTS cyryx_college_fts_bu BEFORE UPDATE OF student_name ON cyryx_college BEGIN " +
+                    "DELETE FROM cyryx_college_fts WHERE docid = old._id; END",
+            "CREATE TRIGGER IF NOT EXISTS cyryx_college_fts_au AFTER UPDATE OF student_name ON cyryx_college BEGIN " +
+                    "INSERT INTO cyryx_college_fts(docid, student_name) VALUES (new._id, new.student_name); END"
+    };
+
+    // Version 5: subjects, per-subject scores and the triggers that copy the physics and math columns into scores
+    static final String[] V5_SCORES = {
+            "CREATE TABLE IF NOT EXISTS subjects (_id INTEGER PRIMARY KEY, " +
+                    "subject_name TEXT NOT NULL UNIQUE COLLATE NOCASE)",
+            "INSERT OR IGNORE INTO subjects VALUES (1, 'Physics')",
+            "INSERT OR IGNORE INTO subjects VALUES (2, 'Math')",
+            "CREATE TABLE IF NOT EXISTS scores (student_id INTEGER NOT NULL, subject_id INTEGER NOT NULL, score " +
+                    "INTEGER NOT NULL, PRIMARY KEY (student_id, subject_id)) WITHOUT ROWID",
+            "CREATE INDEX IF NOT EXISTS idx_scores_subject ON scores (subject_id, score)",
+            "CREATE TRIGGER IF NOT EXISTS scores_ai AFTER INSERT ON cyryx_college BEGIN " +
+                    "INSERT OR REPLACE INTO scores SELECT new._id, 1, new.student_physics " +
+                    "WHERE new.student_physics IS NOT NULL; " +
+                    "INSERT OR REPLACE INTO scores SELECT new._id, 2, new.student_math WHERE new.student_math IS NOT NULL; " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS scores_au AFTER UPDATE OF student_physics, student_math " +
+                    "ON cyryx_college BEGIN " +
+                    "DELETE FROM scores WHERE student_id = old._id AND subject_id IN (1, 2); " +
+                    "INSERT OR REPLACE INTO scores SELECT new._id, 1, new.student_physics " +
+                    "WHERE new.student_physics IS NOT NULL; " +
+                    "INSERT OR REPLACE INTO scores SELECT new._id, 2, new.student_math WHERE new.student_math IS NOT NULL; " +
+                    "END",
+            "CREATE TRIGGER IF NOT EXISTS scores_ad AFTER DELETE ON cyryx_college BEGIN " +
+                    "DELETE FROM scores WHERE student_id = old._id; END"
+    };
+
+    // Version 6: indexes for sorting the list by name, physics and math
+    static final String[] V6_SORT_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_student_name ON cyryx_college (student_name COLLATE NOCASE)",
+            "CREATE INDEX IF NOT EXISTS idx_student_physics ON cyryx_college (student_physics)",
+            "CREATE INDEX IF NOT EXISTS idx_student_math ON cyryx_college (student_math)"
+    };
+
+    // Version 7: sync IDs, the change log and its triggers, and the sync settings. Ends by giving every
+    // existing student a sync ID and logging it, so the first sync sends them all.
+    static final String[] V7_CHANGE_LOG = {
+            "CREATE TABLE IF NOT EXISTS student_sync (student_id INTEGER PRIMARY KEY, sync_id TEXT NOT NULL UNIQUE)",
+            "CREATE TABLE IF NOT EXISTS student_changes (seq INTEGER PRIMARY KEY AUTOINCREMENT, op TEXT NOT NULL, " +
+                    "student_id INTEGER, sync_id TEXT)",
+            "CREATE TABLE IF NOT EXISTS sync_state (name TEXT PRIMARY KEY NOT NULL, value TEXT)",
+            "CREATE TRIGGER IF NOT EXISTS student_changes_ai AFTER INSERT ON cyryx_college BEGIN " +
+                    "INSERT OR IGNORE INTO student_sync VALUES (new._id, lower(hex(randomblob(16)))); " +
+                    "INSERT INTO student_changes (op, student_id, sync_id) SELECT 'W', student_id, sync_id FROM student_sync " +
+                    "WHERE student_id = new._id; END",
+            "CREATE TRIGGER IF NOT EXISTS student_changes_au AFTER UPDATE OF student_name, student_num, " +
+                    "student_mail, student_physics, student_math, student_grade ON cyryx_college BEGIN " +
+                    "INSERT INTO student_changes (op, student_id, sync_id) SELECT 'W', student_id, sync_id FROM student_sync " +
+                    "WHERE student_id = new._id; END",
+            "CREATE TRIGGER IF NOT EXISTS student_changes_ad AFTER DELETE ON cyryx_college BEGIN " +
+                    "INSERT INTO student_changes (op, student_id, sync_id) SELECT 'D', student_id, sync_id FROM student_sync " +
+                    "WHERE student_id = old._id; " +
+                    "DELETE FROM student_sync WHERE student_id = old._id; END",
+            "INSERT INTO student_sync SELECT _id, lower(hex(randomblob(16))) FROM cyryx_college",
+            "INSERT INTO student_changes (op, student_id, sync_id) SELECT 'W', student_id, sync_id FROM student_sync " +
+                    "ORDER BY student_id"
+    };
+
+    // Version 8: the tables that hold the students set aside as duplicates
+    static final String[] V8_DUPLICATE_TABLES = {
+            "CREATE TABLE IF NOT EXISTS student_duplicates (_id INTEGER PRIMARY KEY, student_name TEXT, student_num " +
+                    "INTEGER, student_mail TEXT, student_physics INTEGER, student_math INTEGER, student_grade TEXT, sync_id " +
+                    "TEXT, kept_id INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS student_duplicate_scores (student_id INTEGER NOT NULL, subject_id INTEGER " +
+                    "NOT NULL, score INTEGER NOT NULL, PRIMARY KEY (student_id, subject_id)) WITHOUT ROWID"
+    };
+
+    // Version 8: unique number and email indexes in place of the plain ones
+    static final String[] V8_UNIQUE_INDEXES = {
+            "DROP INDEX IF EXISTS idx_student_num",
+            "DROP INDEX IF EXISTS idx_student_mail",
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_student_num ON cyryx_college (student_num)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_student_mail ON cyryx_college (student_mail COLLATE NOCASE)"
+    };
+
+    private MigrationSql() {
+    }
+
+    // Runs the statements in order
+    static void exec(SQLiteDatabase db, String[] statements) {
+        for (String statement : statements) {
+            db.execSQL(statement);
+        }
+    }
+}
@@ -10,6 +10,9 @@
  * Version: 1.0
 
  * Note: This class extends SQLiteOpenHelper to manage database creation and version management.
+ * Every method here blocks on disk I/O, so screens should go through StudentRepository
+ * instead of calling this class directly from the main thread.
+ * The single-row writes reuse compiled statements from a StatementPool instead of building ContentValues.
  */
 
 package com.example.studentdatabase;
@@ -17,17 +20,33 @@ package com.example.studentdatabase;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.MergeCursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
-import android.widget.Toast;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
 
 import androidx.annotation.Nullable;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class MyDatabaseHelper extends SQLiteOpenHelper {
 
-    private final Context context;
-    private static final String DATABASE_NAME = "StudentDB.db"; // Database name
-    private static final int DATABASE_VERSION = 1; // Database version
+    private static final String TAG = "MyDatabaseHelper";
+
+    static final String DATABASE_NAME = "StudentDB.db"; // Database name
 
     // Table and column names
     private static final String TABLE_NAME = "cyryx_college";
@@ -39,15 +58,189 @@ public class MyDatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_MATH = "student_math";
     private static final String COLUMN_GRADE = "student_grade";
 
-    // Constructor
+    // Full-text index over student names, kept in sync with the student table by triggers
+    private static final String FTS_TABLE_NAME = "cyryx_college_fts";
+
+    // Summary tables for the dashboard, kept in sync with the student table by triggers
+    private static final String STATS_TABLE_NAME = "student_stats";
+    private static final String GRADE_COUNTS_TABLE_NAME = "grade_counts";
+
+    // Subjects and per-subject scores (normalized), see createScoresSchema()
+    private static final String SUBJECTS_TABLE_NAME = "subjects";
+    private static final String SCORES_TABLE_NAME = "scores";
+
+    // Change log for syncing (see createChangeLogSchema()): the logged changes, each student's sync ID, and the
+    // sync settings (device ID and how far this device has pushed and pulled)
+    private static final String CHANGES_TABLE_NAME = "student_changes";
+    private static final String SYNC_IDS_TABLE_NAME = "student_sync";
+    private static final String SYNC_STATE_TABLE_NAME = "sync_state";
+
+    // Students (and their scores) set aside by the upgrade to version 8 because an earlier student
+    // already had the same number or email (see createDuplicatesSchema())
+    private static final String DUPLICATES_TABLE_NAME = "student_duplicates";
+    private static final String DUPLICATE_SCORES_TABLE_NAME = "student_duplicate_scores";
+
+    // Names of the sync settings
+    static final String SYNC_DEVICE_ID = "device_id";
+    static final String SYNC_PULLED_SEQ = "pulled_seq";
+
+    // Expression for a new random sync ID (32 hex digits)
+    private static final String NEW_SYNC_ID = "lower(hex(randomblob(16)))";
+
+    // IDs of the two subjects that also have a column in the student table
+    public static final long SUBJECT_PHYSICS = 1;
+    public static final long SUBJECT_MATH = 2;
+
+    // Most IDs bound in one IN (...) list by the batch operations (older SQLite versions allow at most 999 arguments)
+    static final int MAX_IDS_PER_STATEMENT = 500;
+
+    // Expression for a student's total marks. Queries must use exactly this text to use idx_student_total.
+    private static final String TOTAL_MARKS = "(" + COLUMN_PHYSICS + " + " + COLUMN_MATH + ")";
+
+    // Schema history. Each step upgrades the database by one version without dropping data.
+    // Steps run their own frozen SQL (see MigrationSql), never the create...Schema() helpers below, which
+    // onCreate() and the reset use and which always describe the current schema.
+    // To change the schema, add a step here and make the same change in the helpers.
+    static final MigrationRunner MIGRATIONS = new MigrationRunner(Arrays.asList(
+            new Migration(2, "Add search indexes and the name full-text index",
+                    (db, progress) -> MigrationSql.exec(db, MigrationSql.V2_SEARCH)),
+            new Migration(3, "Add the statistics summary tables",
+                    (db, progress) -> MigrationSql.exec(db, MigrationSql.V3_STATISTICS)),
+            new Migration(4, "Only reindex names when the name changes",
+                    (db, progress) -> MigrationSql.exec(db, MigrationSql.V4_NAME_TRIGGERS)),
+            new Migration(5, "Add subjects and per-subject scores", (db, progress) -> {
+                MigrationSql.exec(db, MigrationSql.V5_SCORES);
+                // Copy the existing physics and math marks into the scores table, one chunk of students at a time
+                long students = TableRebuilder.copyInChunks(db, "cyryx_college", "scores",
+                        "student_id, subject_id, score", "_id, 1, student_physics",
+                        "student_physics IS NOT NULL", TableRebuilder.DEFAULT_CHUNK_SIZE,
+                        (done, total) -> progress.report(done, total * 2));
+                TableRebuilder.copyInChunks(db, "cyryx_college", "scores",
+                        "student_id, subject_id, score", "_id, 2, student_math",
+                        "student_math IS NOT NULL", TableRebuilder.DEFAULT_CHUNK_SIZE,
+                        (done, total) -> progress.report(students + done, total * 2));
+            }),
+            new Migration(6, "Add indexes for sorting the list",
+                    (db, progress) -> MigrationSql.exec(db, MigrationSql.V6_SORT_INDEXES)),
+            new Migration(7, "Add the change log for syncing",
+                    (db, progress) -> MigrationSql.exec(db, MigrationSql.V7_CHANGE_LOG)),
+            new Migration(8, "Make student numbers and emails unique", (db, progress) -> {
+                // Blank emails become NULL, which the unique index allows any number of times
+                db.execSQL("UPDATE cyryx_college SET student_mail = NULL WHERE trim(student_mail) = ''");
+                // Set aside the later students with a number or email already in use, instead of losing them
+                MigrationSql.exec(db, MigrationSql.V8_DUPLICATE_TABLES);
+                int moved = moveDuplicates(db, progress);
+                if (moved > 0) {
+                    Log.w(TAG, "Moved " + moved + " duplicate students to " + DUPLICATES_TABLE_NAME);
+                }
+                MigrationSql.exec(db, MigrationSql.V8_UNIQUE_INDEXES);
+            })
+    ));
+
+    private static final int DATABASE_VERSION = MIGRATIONS.getLatestVersion(); // Database version (the last migration step)
+
+    // SQL of the single-row writes, compiled once and reused through the statement pool.
+    // Bind order: 1 name, 2 number, 3 mail, 4 physics, 5 math, 6 grade (then 7 ID for the update).
+    private static final String INSERT_STUDENT_SQL = "INSERT INTO " + TABLE_NAME + " (" +
+            COLUMN_NAME + ", " + COLUMN_NUMBER + ", " + COLUMN_MAIL + ", " +
+            COLUMN_PHYSICS + ", " + COLUMN_MATH + ", " + COLUMN_GRADE + ") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STUDENT_SQL = "UPDATE " + TABLE_NAME + " SET " +
+            COLUMN_NAME + " = ?, " + COLUMN_NUMBER + " = ?, " + COLUMN_MAIL + " = ?, " +
+            COLUMN_PHYSICS + " = ?, " + COLUMN_MATH + " = ?, " + COLUMN_GRADE + " = ? WHERE " + COLUMN_ID + " = ?";
+    // SQL of the upsert steps, with the same bind order as the insert (numbered, so every step binds alike).
+    // The first returns 0 if the student number is new, 1 if it exists with other values and 2 if nothing differs.
+    private static final String UPSERT_STATE_SQL = "SELECT IFNULL(MAX(" + COLUMN_NAME + " IS ?1 AND " +
+            COLUMN_MAIL + " IS ?3 AND " + COLUMN_PHYSICS + " IS ?4 AND " + COLUMN_MATH + " IS ?5 AND " +
+            COLUMN_GRADE + " IS ?6) + 1, 0) FROM " + TABLE_NAME + " WHERE " + COLUMN_NUMBER + " = ?2";
+    private static final String UPSERT_UPDATE_SQL = "UPDATE " + TABLE_NAME + " SET " +
+            COLUMN_NAME + " = ?1, " + COLUMN_MAIL + " = ?3, " + COLUMN_PHYSICS + " = ?4, " +
+            COLUMN_MATH + " = ?5, " + COLUMN_GRADE + " = ?6 WHERE " + COLUMN_NUMBER + " = ?2";
+    private static final String DELETE_STUDENT_SQL = "DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " = ?";
+    // Bind order: 1 score, 2 student ID
+    private static final String SET_PHYSICS_SQL = "UPDATE " + TABLE_NAME + " SET " + COLUMN_PHYSICS + " = ? WHERE " + COLUMN_ID + " = ?";
+    private static final String SET_MATH_SQL = "UPDATE " + TABLE_NAME + " SET " + COLUMN_MATH + " = ? WHERE " + COLUMN_ID + " = ?";
+    // Bind order: 1 subject ID, 2 score, 3 student ID
+    private static final String SET_SCORE_SQL = "INSERT OR REPLACE INTO " + SCORES_TABLE_NAME +
+            " SELECT " + COLUMN_ID + ", ?, ? FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " = ?";
+    // Bind order: 1 student ID, 2 subject ID
+    private static final String DELETE_SCORE_SQL = "DELETE FROM " + SCORES_TABLE_NAME + " WHERE student_id = ? AND subject_id = ?";
+
+    // Connection settings applied in onConfigure()
+    private final DatabaseConfig config;
+
+    // The database file (null for an in-memory database)
+    @Nullable
+    private final File databaseFile;
+
+    // Bind order: 1 name, 2 number, 3 mail, 4 physics, 5 math, 6 grade, 7 sync ID
+    private static final String UPDATE_BY_SYNC_ID_SQL = "UPDATE " + TABLE_NAME + " SET " +
+            COLUMN_NAME + " = ?, " + COLUMN_NUMBER + " = ?, " + COLUMN_MAIL + " = ?, " +
+            COLUMN_PHYSICS + " = ?, " + COLUMN_MATH + " = ?, " + COLUMN_GRADE + " = ? WHERE " + COLUMN_ID +
+            " = (SELECT student_id FROM " + SYNC_IDS_TABLE_NAME + " WHERE sync_id = ?)";
+
+    // Compiled single-row write statements, reused across calls
+    private final StatementPool statements = new StatementPool(StatementPool.DEFAULT_MAX_IDLE);
+
+    // Receives progress while the database is being upgraded (may be null)
+    @Nullable
+    private volatile MigrationRunner.ProgressListener migrationListener;
+
+    // How many times the database file has been replaced (see replaceDatabaseFile())
+    private volatile int fileGeneration;
+
+    // Constructor. Screens should use DatabaseProvider.get() instead, so the connection is shared.
     public MyDatabaseHelper(@Nullable Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
-        this.context = context;
+        this(context, DATABASE_NAME, DatabaseConfig.DEFAULT);
+    }
+
+    // Constructor with a custom database file name (null creates an in-memory database, used by tests)
+    MyDatabaseHelper(@Nullable Context context, @Nullable String name) {
+        this(context, name, DatabaseConfig.DEFAULT);
+    }
+
+    // Constructor with a custom database file name and connection settings.
+    // (There is no two-argument form with settings: new MyDatabaseHelper(context, null) must stay unambiguous.)
+    MyDatabaseHelper(@Nullable Context context, @Nullable String name, DatabaseConfig config) {
+        super(context, name, null, DATABASE_VERSION);
+        this.config = config;
+        this.databaseFile = context == null || name == null ? null : context.getDatabasePath(name);
+    }
+
+    // Called for every connection before the database is created or upgraded
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // The page size must be set before write-ahead logging is switched on (and only affects a new file)
+        db.execSQL("PRAGMA page_size = " + config.pageSize);
+        // Incremental auto-vacuum lets freed pages be handed back to the file system a chunk at a time
+        // (see reclaimFreePages()). It is only set on a new, still empty file: an existing file keeps its mode
+        // until vacuum() rebuilds it. This cannot wait for onCreate(), because switching on write-ahead
+        // logging below already writes the file header, which fixes the mode.
+        if (DatabaseUtils.longForQuery(db, "PRAGMA page_count", null) == 0) {
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        }
+        db.execSQL("PRAGMA cache_size = -" + config.cacheSizeKb); // Negative value means KiB
+        db.execSQL("PRAGMA synchronous = " + config.synchronous.name());
+        if (config.writeAheadLogging) {
+            db.enableWriteAheadLogging(); // Lets readers run alongside the single writer
+        }
     }
 
     // Called when the database is created for the first time
     @Override
     public void onCreate(SQLiteDatabase db) {
+        createStudentTable(db);
+        createSearchSchema(db);
+        createStatisticsSchema(db);
+        createScoresSchema(db);
+        createSortSchema(db);
+        createChangeLogSchema(db);
+        createDuplicatesSchema(db);
+        createUniqueSchema(db);
+    }
+
+    // Creates the student table itself
+    private static void createStudentTable(SQLiteDatabase db) {
         // SQL query to create the table
         String query = "CREATE TABLE " + TABLE_NAME +
                 " (" + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
@@ -60,80 +253,1388 @@ public class MyDatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(query);
     }
 
-    // Called when the database version is updated
+    // Called when the database version is updated. Runs the migration steps between the two versions,
+    // inside the transaction SQLiteOpenHelper opens for the upgrade.
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME); // Drop the old table
-        onCreate(db); // Create the new table
+        MIGRATIONS.migrate(db, oldVersion, newVersion, migrationListener);
+    }
+
+    // Returns the pool of compiled write statements (to check reuse in tests)
+    StatementPool getStatementPool() {
+        return statements;
+    }
+
+    // Closes the pooled statements along with the database
+    @Override
+    public synchronized void close() {
+        statements.clear();
+        super.close();
+    }
+
+    // Sets the receiver of progress updates for an upgrade (call it before the database is first opened)
+    public void setMigrationListener(@Nullable MigrationRunner.ProgressListener listener) {
+        this.migrationListener = listener;
+    }
+
+    // Creates the grade index used by search and the name full-text index with its sync triggers
+    // (searching by number or email uses the unique indexes from createUniqueSchema())
+    private static void createSearchSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_student_grade ON " + TABLE_NAME + " (" + COLUMN_GRADE + ")");
+
+        // External-content FTS4 table: it stores only the index, the names stay in the student table
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + FTS_TABLE_NAME +
+                " USING fts4(content=\"" + TABLE_NAME + "\", " + COLUMN_NAME + ")");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_ai AFTER INSERT ON " + TABLE_NAME + " BEGIN " +
+                "INSERT INTO " + FTS_TABLE_NAME + "(docid, " + COLUMN_NAME + ") VALUES (new." + COLUMN_ID + ", new." + COLUMN_NAME + "); END");
+        // The update triggers only fire when the name changes, so regrading or editing marks skips the full-text index
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_bu BEFORE UPDATE OF " + COLUMN_NAME + " ON " + TABLE_NAME + " BEGIN " +
+                "DELETE FROM " + FTS_TABLE_NAME + " WHERE docid = old." + COLUMN_ID + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_au AFTER UPDATE OF " + COLUMN_NAME + " ON " + TABLE_NAME + " BEGIN " +
+                "INSERT INTO " + FTS_TABLE_NAME + "(docid, " + COLUMN_NAME + ") VALUES (new." + COLUMN_ID + ", new." + COLUMN_NAME + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + FTS_TABLE_NAME + "_bd BEFORE DELETE ON " + TABLE_NAME + " BEGIN " +
+                "DELETE FROM " + FTS_TABLE_NAME + " WHERE docid = old." + COLUMN_ID + "; END");
+    }
+
+    /**
+     * Creates the summary tables behind the dashboard and the triggers that keep them up to date.
+     * student_stats holds a single row with the student count and the mark totals (averages are
+     * total / count), and grade_counts holds one row per grade. Each insert, update or delete on the
+     * student table adjusts these by the difference, inside the same transaction as the change.
+     * The expression index on the total of both marks lets the top students be read in index order.
+     */
+    private static void createStatisticsSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + STATS_TABLE_NAME + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY CHECK (" + COLUMN_ID + " = 1), " +
+                "student_count INTEGER NOT NULL, " +
+                "physics_sum INTEGER NOT NULL, " +
+                "math_sum INTEGER NOT NULL)");
+        db.execSQL("INSERT OR IGNORE INTO " + STATS_TABLE_NAME + " VALUES (1, 0, 0, 0)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + GRADE_COUNTS_TABLE_NAME + " (" +
+                "grade TEXT PRIMARY KEY NOT NULL, " +
+                "student_count INTEGER NOT NULL)");
+
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_student_total ON " + TABLE_NAME +
+                " (" + TOTAL_MARKS + ", " + COLUMN_ID + ")");
+
+        // Missing marks and grades count as 0 and "" so the totals always add up
+        String newPhysics = "IFNULL(new." + COLUMN_PHYSICS + ", 0)";
+        String newMath = "IFNULL(new." + COLUMN_MATH + ", 0)";
+        String newGrade = "IFNULL(new." + COLUMN_GRADE + ", '')";
+        String oldPhysics = "IFNULL(old." + COLUMN_PHYSICS + ", 0)";
+        String oldMath = "IFNULL(old." + COLUMN_MATH + ", 0)";
+        String oldGrade = "IFNULL(old." + COLUMN_GRADE + ", '')";
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + STATS_TABLE_NAME + "_ai AFTER INSERT ON " + TABLE_NAME + " BEGIN " +
+                "UPDATE " + STATS_TABLE_NAME + " SET student_count = student_count + 1, " +
+                "physics_sum = physics_sum + " + newPhysics + ", math_sum = math_sum + " + newMath + " WHERE " + COLUMN_ID + " = 1; " +
+                addToGrade(newGrade, "+ 1") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + STATS_TABLE_NAME + "_ad AFTER DELETE ON " + TABLE_NAME + " BEGIN " +
+                "UPDATE " + STATS_TABLE_NAME + " SET student_count = student_count - 1, " +
+                "physics_sum = physics_sum - " + oldPhysics + ", math_sum = math_sum - " + oldMath + " WHERE " + COLUMN_ID + " = 1; " +
+                addToGrade(oldGrade, "- 1") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + STATS_TABLE_NAME + "_au AFTER UPDATE OF " +
+                COLUMN_PHYSICS + ", " + COLUMN_MATH + ", " + COLUMN_GRADE + " ON " + TABLE_NAME + " BEGIN " +
+                "UPDATE " + STATS_TABLE_NAME + " SET " +
+                "physics_sum = physics_sum + " + newPhysics + " - " + oldPhysics + ", " +
+                "math_sum = math_sum + " + newMath + " - " + oldMath + " WHERE " + COLUMN_ID + " = 1; " +
+                addToGrade(oldGrade, "- 1") + " " + addToGrade(newGrade, "+ 1") + " END");
+    }
+
+    // Trigger statements that add to (or subtract from) the count of one grade, creating its row if needed
+    private static String addToGrade(String grade, String change) {
+        return "INSERT OR IGNORE INTO " + GRADE_COUNTS_TABLE_NAME + " VALUES (" + grade + ", 0); " +
+                "UPDATE " + GRADE_COUNTS_TABLE_NAME + " SET student_count = student_count " + change +
+                " WHERE grade = " + grade + ";";
+    }
+
+    // Recomputes the summary tables from the student table (must run inside the caller's transaction)
+    private static void rebuildStatistics(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + GRADE_COUNTS_TABLE_NAME);
+        db.execSQL("INSERT INTO " + GRADE_COUNTS_TABLE_NAME + " SELECT IFNULL(" + COLUMN_GRADE + ", ''), COUNT(*) FROM " +
+                TABLE_NAME + " GROUP BY IFNULL(" + COLUMN_GRADE + ", '')");
+        db.execSQL("INSERT OR REPLACE INTO " + STATS_TABLE_NAME + " SELECT 1, COUNT(*), " +
+                "IFNULL(SUM(" + COLUMN_PHYSICS + "), 0), IFNULL(SUM(" + COLUMN_MATH + "), 0) FROM " + TABLE_NAME);
+    }
+
+    /**
+     * Creates the normalized subject and score tables.
+     * subjects holds one row per subject, and scores holds one row per (student, subject) pair.
+     * The primary key of scores is (student_id, subject_id), so a student's scores are stored next
+     * to each other and come back in one range read; WITHOUT ROWID stores the rows in that key order
+     * instead of in a separate table. idx_scores_subject on (subject_id, score) answers per-subject
+     * averages and rankings from the index alone.
+     *
+     * Physics and math still have their own columns in the student table, because the list, the
+     * forms and the grade all use them. Triggers copy those two columns into scores, so every
+     * subject can be read the same way.
+     */
+    private static void createScoresSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + SUBJECTS_TABLE_NAME + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY, " +
+                "subject_name TEXT NOT NULL UNIQUE COLLATE NOCASE)");
+        db.execSQL("INSERT OR IGNORE INTO " + SUBJECTS_TABLE_NAME + " VALUES (" + SUBJECT_PHYSICS + ", 'Physics')");
+        db.execSQL("INSERT OR IGNORE INTO " + SUBJECTS_TABLE_NAME + " VALUES (" + SUBJECT_MATH + ", 'Math')");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + SCORES_TABLE_NAME + " (" +
+                "student_id INTEGER NOT NULL, " +
+                "subject_id INTEGER NOT NULL, " +
+                "score INTEGER NOT NULL, " +
+                "PRIMARY KEY (student_id, subject_id)) WITHOUT ROWID");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_scores_subject ON " + SCORES_TABLE_NAME + " (subject_id, score)");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + SCORES_TABLE_NAME + "_ai AFTER INSERT ON " + TABLE_NAME + " BEGIN " +
+                copyLegacyScores() + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + SCORES_TABLE_NAME + "_au AFTER UPDATE OF " +
+                COLUMN_PHYSICS + ", " + COLUMN_MATH + " ON " + TABLE_NAME + " BEGIN " +
+                "DELETE FROM " + SCORES_TABLE_NAME + " WHERE student_id = old." + COLUMN_ID +
+                " AND subject_id IN (" + SUBJECT_PHYSICS + ", " + SUBJECT_MATH + "); " +
+                copyLegacyScores() + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + SCORES_TABLE_NAME + "_ad AFTER DELETE ON " + TABLE_NAME + " BEGIN " +
+                "DELETE FROM " + SCORES_TABLE_NAME + " WHERE student_id = old." + COLUMN_ID + "; END");
+    }
+
+    // Trigger statements that copy a new student row's physics and math marks into the scores table
+    private static String copyLegacyScores() {
+        return "INSERT OR REPLACE INTO " + SCORES_TABLE_NAME + " SELECT new." + COLUMN_ID + ", " + SUBJECT_PHYSICS +
+                ", new." + COLUMN_PHYSICS + " WHERE new." + COLUMN_PHYSICS + " IS NOT NULL; " +
+                "INSERT OR REPLACE INTO " + SCORES_TABLE_NAME + " SELECT new." + COLUMN_ID + ", " + SUBJECT_MATH +
+                ", new." + COLUMN_MATH + " WHERE new." + COLUMN_MATH + " IS NOT NULL;";
+    }
+
+    // Creates the indexes behind each StudentSort order (student number and grade already have one from
+    // createUniqueSchema and createSearchSchema).
+    // Every index ends with the row ID, so it gives the (sort key, _id) order the list pages through.
+    private static void createSortSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_student_name ON " + TABLE_NAME + " (" + COLUMN_NAME + " COLLATE NOCASE)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_student_physics ON " + TABLE_NAME + " (" + COLUMN_PHYSICS + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_student_math ON " + TABLE_NAME + " (" + COLUMN_MATH + ")");
+    }
+
+    /**
+     * Creates the unique indexes on student number and email, so the same student cannot be added twice
+     * (by a repeated import or a double-tapped Add button) and upsertStudents() can match students by
+     * number. Emails are compared without case, like the email search. Missing emails (NULL) never clash.
+     */
+    private static void createUniqueSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_student_num ON " + TABLE_NAME + " (" + COLUMN_NUMBER + ")");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_student_mail ON " + TABLE_NAME + " (" + COLUMN_MAIL + " COLLATE NOCASE)");
+    }
+
+    /**
+     * Creates the tables that hold the students the upgrade to version 8 set aside (see moveDuplicates()).
+     * student_duplicates has the student's columns, its sync ID and the ID of the kept student it clashed with;
+     * student_duplicate_scores has its scores. Nothing reads them in the app: they keep the rows recoverable.
+     */
+    private static void createDuplicatesSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + DUPLICATES_TABLE_NAME + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY, " +
+                COLUMN_NAME + " TEXT, " +
+                COLUMN_NUMBER + " INTEGER, " +
+                COLUMN_MAIL + " TEXT, " +
+                COLUMN_PHYSICS + " INTEGER, " +
+                COLUMN_MATH + " INTEGER, " +
+                COLUMN_GRADE + " TEXT, " +
+                "sync_id TEXT, " +
+                "kept_id INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + DUPLICATE_SCORES_TABLE_NAME + " (" +
+                "student_id INTEGER NOT NULL, " +
+                "subject_id INTEGER NOT NULL, " +
+                "score INTEGER NOT NULL, " +
+                "PRIMARY KEY (student_id, subject_id)) WITHOUT ROWID");
+    }
+
+    /**
+     * Moves every student whose number or email (without case) is already used by a student with a lower ID
+     * into student_duplicates, with its scores. Students are checked one at a time in ID order against the
+     * students that stay, so a student that only matches one that was moved is kept. The delete triggers
+     * update the summary tables and log the removal for syncing as usual.
+     *
+     * @return The number of students moved.
+     */
+    private static int moveDuplicates(SQLiteDatabase db, Migration.Progress progress) {
+        // Every student that matches an earlier one before anything is moved (the ones to check), read up front
+        // because the moves change the table under the query
+        ArrayList<Long> candidates = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT s." + COLUMN_ID + " FROM " + TABLE_NAME + " AS s WHERE EXISTS (" +
+                "SELECT 1 FROM " + TABLE_NAME + " AS earlier WHERE earlier." + COLUMN_ID + " < s." + COLUMN_ID +
+                " AND (earlier." + COLUMN_NUMBER + " = s." + COLUMN_NUMBER +
+                " OR earlier." + COLUMN_MAIL + " = s." + COLUMN_MAIL + " COLLATE NOCASE))" +
+                " ORDER BY s." + COLUMN_ID, null);
+        try {
+            while (cursor.moveToNext()) {
+                candidates.add(cursor.getLong(0));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        // Bind order: 1 student ID. Returns the first student still in the table that it clashes with, or 0.
+        SQLiteStatement findKept = db.compileStatement("SELECT IFNULL(MIN(kept." + COLUMN_ID + "), 0) FROM " +
+                TABLE_NAME + " AS s, " + TABLE_NAME + " AS kept WHERE s." + COLUMN_ID + " = ?1" +
+                " AND kept." + COLUMN_ID + " < s." + COLUMN_ID + " AND (kept." + COLUMN_NUMBER + " = s." + COLUMN_NUMBER +
+                " OR kept." + COLUMN_MAIL + " = s." + COLUMN_MAIL + " COLLATE NOCASE)");
+        // Bind order: 1 kept student ID, 2 student ID
+        SQLiteStatement copyStudent = db.compileStatement("INSERT INTO " + DUPLICATES_TABLE_NAME + " SELECT s.*, " +
+                "(SELECT sync_id FROM " + SYNC_IDS_TABLE_NAME + " WHERE student_id = s." + COLUMN_ID + "), ?1 " +
+                "FROM " + TABLE_NAME + " AS s WHERE s." + COLUMN_ID + " = ?2");
+        // Bind order: 1 student ID
+        SQLiteStatement copyScores = db.compileStatement("INSERT INTO " + DUPLICATE_SCORES_TABLE_NAME +
+                " SELECT * FROM " + SCORES_TABLE_NAME + " WHERE student_id = ?");
+        SQLiteStatement delete = db.compileStatement(DELETE_STUDENT_SQL);
+        int moved = 0;
+        try {
+            for (int i = 0; i < candidates.size(); i++) {
+                long id = candidates.get(i);
+                findKept.bindLong(1, id);
+                long keptId = findKept.simpleQueryForLong();
+                if (keptId != 0) {
+                    copyStudent.bindLong(1, keptId);
+                    copyStudent.bindLong(2, id);
+                    copyStudent.executeInsert();
+                    copyScores.bindLong(1, id);
+                    copyScores.executeUpdateDelete();
+                    delete.bindLong(1, id);
+                    delete.executeUpdateDelete();
+                    moved++;
+                }
+                progress.report(i + 1, candidates.size());
+            }
+        } finally {
+            findKept.close();
+            copyStudent.close();
+            copyScores.close();
+            delete.close();
+        }
+        return moved;
+    }
+
+    /**
+     * Creates the change log that syncing works from (see SyncEngine) and the triggers that fill it.
+     * Every student gets a random sync ID in student_sync when it is added, which identifies it on every
+     * device. Each insert, update or delete on the student table logs the student's sync ID in
+     * student_changes with "W" (written) or "D" (deleted), inside the same transaction as the change.
+     * deleteAllData() logs "R" (reset) instead. Entries are removed once they have been pushed.
+     */
+    private static void createChangeLogSchema(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + SYNC_IDS_TABLE_NAME + " (" +
+                "student_id INTEGER PRIMARY KEY, " +
+                "sync_id TEXT NOT NULL UNIQUE)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + CHANGES_TABLE_NAME + " (" +
+                "seq INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "op TEXT NOT NULL, " +
+                "student_id INTEGER, " +
+                "sync_id TEXT)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + SYNC_STATE_TABLE_NAME + " (" +
+                "name TEXT PRIMARY KEY NOT NULL, " +
+                "value TEXT)");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + CHANGES_TABLE_NAME + "_ai AFTER INSERT ON " + TABLE_NAME + " BEGIN " +
+                "INSERT OR IGNORE INTO " + SYNC_IDS_TABLE_NAME + " VALUES (new." + COLUMN_ID + ", " + NEW_SYNC_ID + "); " +
+                logChange(SyncChange.WRITE, "new") + " END");
+        // Written students are logged whichever of their values changed
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + CHANGES_TABLE_NAME + "_au AFTER UPDATE OF " +
+                COLUMN_NAME + ", " + COLUMN_NUMBER + ", " + COLUMN_MAIL + ", " +
+                COLUMN_PHYSICS + ", " + COLUMN_MATH + ", " + COLUMN_GRADE + " ON " + TABLE_NAME + " BEGIN " +
+                logChange(SyncChange.WRITE, "new") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + CHANGES_TABLE_NAME + "_ad AFTER DELETE ON " + TABLE_NAME + " BEGIN " +
+                logChange(SyncChange.DELETE, "old") + " " +
+                "DELETE FROM " + SYNC_IDS_TABLE_NAME + " WHERE student_id = old." + COLUMN_ID + "; END");
+    }
+
+    // Trigger statement that logs a change to the student in the given row ("new" or "old") with its sync ID
+    private static String logChange(String op, String row) {
+        return "INSERT INTO " + CHANGES_TABLE_NAME + " (op, student_id, sync_id) SELECT '" + op + "', student_id, sync_id" +
+                " FROM " + SYNC_IDS_TABLE_NAME + " WHERE student_id = " + row + "." + COLUMN_ID + ";";
+    }
+
+    // Method to read the dashboard statistics from the summary tables.
+    // One small query joins the totals row with the (at most a few) grade rows, whatever the number of students.
+    public StudentStatistics readStatistics() {
+        DbThreadGuard.check();
+        String query = "SELECT s.student_count, s.physics_sum, s.math_sum, g.grade, g.student_count" +
+                " FROM " + STATS_TABLE_NAME + " s LEFT JOIN " + GRADE_COUNTS_TABLE_NAME + " g" +
+                " WHERE s." + COLUMN_ID + " = 1";
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return readStatistics(db.rawQuery(query, null));
+    }
+
+    // Method to work out the same statistics by scanning the whole student table (used to check the summary tables)
+    public StudentStatistics computeStatistics() {
+        DbThreadGuard.check();
+        String query = "SELECT t.student_count, t.physics_sum, t.math_sum, g.grade, g.student_count" +
+                " FROM (SELECT COUNT(*) AS student_count, IFNULL(SUM(" + COLUMN_PHYSICS + "), 0) AS physics_sum," +
+                " IFNULL(SUM(" + COLUMN_MATH + "), 0) AS math_sum FROM " + TABLE_NAME + ") t" +
+                " LEFT JOIN (SELECT IFNULL(" + COLUMN_GRADE + ", '') AS grade, COUNT(*) AS student_count" +
+                " FROM " + TABLE_NAME + " GROUP BY 1) g";
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return readStatistics(db.rawQuery(query, null));
     }
 
-    // Method to add a new student to the database
-    public void addStudent(String name, int number, String mail, int physics, int math, String grade) {
+    // Reads (count, physics sum, math sum, grade, grade count) rows into a StudentStatistics and closes the cursor.
+    // Both queries above are a single statement, so the totals and grade counts come from the same snapshot.
+    private static StudentStatistics readStatistics(Cursor cursor) {
+        long count = 0, physicsSum = 0, mathSum = 0;
+        Map<String, Long> gradeCounts = new HashMap<>();
+        try {
+            while (cursor.moveToNext()) {
+                count = cursor.getLong(0);
+                physicsSum = cursor.getLong(1);
+                mathSum = cursor.getLong(2);
+                // Grades whose count has dropped to 0 keep their row in grade_counts, so skip them
+                if (!cursor.isNull(3) && cursor.getLong(4) != 0) {
+                    gradeCounts.put(cursor.getString(3), cursor.getLong(4));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return new StudentStatistics(count, physicsSum, mathSum, gradeCounts);
+    }
+
+    /**
+     * Method to recompute the summary tables from scratch, in one transaction.
+     * Use it if verifyStatistics() ever reports a mismatch, or after changing the table without triggers.
+     */
+    public void rebuildStatistics() {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        db.beginTransaction();
+        try {
+            rebuildStatistics(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Method to check that the summary tables match a full scan of the student table
+    public boolean verifyStatistics() {
+        return readStatistics().equals(computeStatistics());
+    }
+
+    // Method to read the students with the highest total marks, best first (walks idx_student_total backwards)
+    public Cursor readTopStudents(int limit) {
+        DbThreadGuard.check();
+        String query = "SELECT * FROM " + TABLE_NAME +
+                " ORDER BY " + TOTAL_MARKS + " DESC, " + COLUMN_ID + " DESC" +
+                " LIMIT " + limit;
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(query, null);
+    }
+
+    // Method to get the query plan for readTopStudents() (used by tests to check the index is used)
+    Cursor explainTopStudents(int limit) {
+        DbThreadGuard.check();
+        return this.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT * FROM " + TABLE_NAME +
+                " ORDER BY " + TOTAL_MARKS + " DESC, " + COLUMN_ID + " DESC LIMIT " + limit, null);
+    }
+
+    // Method to read every subject, ordered by ID. Columns: _id, subject_name.
+    public Cursor readSubjects() {
+        DbThreadGuard.check();
+        String query = "SELECT " + COLUMN_ID + ", subject_name FROM " + SUBJECTS_TABLE_NAME + " ORDER BY " + COLUMN_ID;
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(query, null);
+    }
+
+    // Method to add a subject. Returns the ID of the subject with that name (the existing one if it is already there).
+    public long addSubject(String name) {
+        DbThreadGuard.check();
         SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
         ContentValues cv = new ContentValues();
+        cv.put("subject_name", name);
+        long id = db.insertWithOnConflict(SUBJECTS_TABLE_NAME, null, cv, SQLiteDatabase.CONFLICT_IGNORE);
+        if (id != -1) {
+            return id;
+        }
+        return DatabaseUtils.longForQuery(db, "SELECT " + COLUMN_ID + " FROM " + SUBJECTS_TABLE_NAME +
+                " WHERE subject_name = ?", new String[]{name});
+    }
 
-        // Add values to ContentValues
-        cv.put(COLUMN_NAME, name);
-        cv.put(COLUMN_NUMBER, number);
-        cv.put(COLUMN_MAIL, mail);
-        cv.put(COLUMN_PHYSICS, physics);
-        cv.put(COLUMN_MATH, math);
-        cv.put(COLUMN_GRADE, grade);
-
-        // Insert the new student data into the table
-        long result = db.insert(TABLE_NAME, null, cv);
-        if (result == -1) {
-            Toast.makeText(context, "Failed to add student", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(context, "Student added successfully", Toast.LENGTH_SHORT).show();
+    /**
+     * Method to set a student's score in one subject.
+     * Physics and math are written to their columns in the student table (the triggers copy them
+     * into scores and keep the statistics up to date); other subjects are written to scores directly.
+     * The caller is responsible for regrading the student after a physics or math change.
+     *
+     * @return The number of rows changed (0 if the student does not exist).
+     */
+    public int setScore(long studentId, long subjectId, int score) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        if (subjectId == SUBJECT_PHYSICS || subjectId == SUBJECT_MATH) {
+            String sql = subjectId == SUBJECT_PHYSICS ? SET_PHYSICS_SQL : SET_MATH_SQL;
+            SQLiteStatement update = statements.acquire(db, sql);
+            try {
+                update.bindLong(1, score);
+                update.bindLong(2, studentId);
+                return update.executeUpdateDelete();
+            } finally {
+                statements.release(sql, update);
+            }
+        }
+        SQLiteStatement insert = statements.acquire(db, SET_SCORE_SQL);
+        try {
+            insert.bindLong(1, subjectId);
+            insert.bindLong(2, score);
+            insert.bindLong(3, studentId);
+            return insert.executeUpdateDelete();
+        } finally {
+            statements.release(SET_SCORE_SQL, insert);
+        }
+    }
+
+    // Method to remove a student's score in one subject. Physics and math cannot be removed, only changed.
+    public int deleteScore(long studentId, long subjectId) {
+        DbThreadGuard.check();
+        if (subjectId == SUBJECT_PHYSICS || subjectId == SUBJECT_MATH) {
+            throw new IllegalArgumentException("Physics and math scores are part of the student record");
+        }
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        SQLiteStatement delete = statements.acquire(db, DELETE_SCORE_SQL);
+        try {
+            delete.bindLong(1, studentId);
+            delete.bindLong(2, subjectId);
+            return delete.executeUpdateDelete();
+        } finally {
+            statements.release(DELETE_SCORE_SQL, delete);
+        }
+    }
+
+    // Method to read one student's scores, ordered by subject. Columns: subject_id, score.
+    // A single range read on the primary key of scores.
+    public Cursor readStudentScores(long studentId) {
+        DbThreadGuard.check();
+        String query = "SELECT subject_id, score FROM " + SCORES_TABLE_NAME +
+                " WHERE student_id = ? ORDER BY subject_id";
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(query, new String[]{String.valueOf(studentId)});
+    }
+
+    /**
+     * Method to read the scores of one page of students (the same students readPage() returns) in a single query.
+     * Returns one row per (student, subject) pair, ordered by student then subject, with columns
+     * student _id, subject_id, score. A student without any score gives one row with a null subject and score.
+     * Both tables are read in primary key order, so no sorting is needed and no query runs per student.
+     */
+    public Cursor readScorePage(long afterId, int limit) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(buildScorePageQuery(limit), new String[]{String.valueOf(afterId)});
+    }
+
+    // Method to get the query plan for readScorePage() (used by tests to check no temporary sort is needed)
+    Cursor explainScorePage(long afterId, int limit) {
+        DbThreadGuard.check();
+        return this.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + buildScorePageQuery(limit),
+                new String[]{String.valueOf(afterId)});
+    }
+
+    // Builds the SQL for readScorePage(). The page ends at the last of the next limit student IDs.
+    private static String buildScorePageQuery(int limit) {
+        return "SELECT s." + COLUMN_ID + ", sc.subject_id, sc.score" +
+                " FROM " + TABLE_NAME + " s LEFT JOIN " + SCORES_TABLE_NAME + " sc ON sc.student_id = s." + COLUMN_ID +
+                " WHERE s." + COLUMN_ID + " > ?1 AND s." + COLUMN_ID + " <= (SELECT MAX(" + COLUMN_ID + ") FROM (SELECT " +
+                COLUMN_ID + " FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " > ?1 ORDER BY " + COLUMN_ID +
+                " LIMIT " + limit + "))" +
+                " ORDER BY s." + COLUMN_ID + ", sc.subject_id";
+    }
+
+    // Method to get the query plan for readPage() (used by tests to check the list never reads the scores table)
+    Cursor explainPage(long afterId, int limit) {
+        DbThreadGuard.check();
+        return this.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT * FROM " + TABLE_NAME +
+                " WHERE " + COLUMN_ID + " > ? ORDER BY " + COLUMN_ID + " LIMIT " + limit,
+                new String[]{String.valueOf(afterId)});
+    }
+
+    // Method to read every subject with its number of scores and average score.
+    // Columns: _id, subject_name, score_count, average (null if no scores). Reads only idx_scores_subject.
+    public Cursor readSubjectAverages() {
+        DbThreadGuard.check();
+        String query = "SELECT sub." + COLUMN_ID + ", sub.subject_name, COUNT(sc.score), AVG(sc.score)" +
+                " FROM " + SUBJECTS_TABLE_NAME + " sub LEFT JOIN " + SCORES_TABLE_NAME + " sc ON sc.subject_id = sub." + COLUMN_ID +
+                " GROUP BY sub." + COLUMN_ID +
+                " ORDER BY sub." + COLUMN_ID;
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(query, null);
+    }
+
+    // Method to read the best scores in one subject, best first. Columns: student_id, score.
+    // Walks idx_scores_subject backwards, so it stops after limit rows.
+    public Cursor readTopScores(long subjectId, int limit) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(buildTopScoresQuery(limit), new String[]{String.valueOf(subjectId)});
+    }
+
+    // Method to get the query plan for readTopScores() (used by tests to check the index is used)
+    Cursor explainTopScores(long subjectId, int limit) {
+        DbThreadGuard.check();
+        return this.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + buildTopScoresQuery(limit),
+                new String[]{String.valueOf(subjectId)});
+    }
+
+    // Builds the SQL for readTopScores()
+    private static String buildTopScoresQuery(int limit) {
+        return "SELECT student_id, score FROM " + SCORES_TABLE_NAME +
+                " WHERE subject_id = ?" +
+                " ORDER BY score DESC, student_id DESC" +
+                " LIMIT " + limit;
+    }
+
+    // Method to add a new student to the database.
+    // Returns the ID of the new row, or -1 if the insert failed (for example, the number or email is taken).
+    public long addStudent(String name, int number, String mail, int physics, int math, String grade) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        SQLiteStatement insert = statements.acquire(db, INSERT_STUDENT_SQL);
+        try {
+            // Bind the values by position
+            bindStudent(insert, name, number, mail, physics, math, grade);
+
+            // Insert the new student data into the table
+            return insert.executeInsert();
+        } catch (SQLException e) {
+            // Like SQLiteDatabase.insert(), report a failed insert as -1
+            Log.e(TAG, "Error inserting student", e);
+            return -1;
+        } finally {
+            statements.release(INSERT_STUDENT_SQL, insert);
+        }
+    }
+
+    /**
+     * Method to add or update a batch of students in one transaction, matched by student number.
+     * A new number is inserted. An existing one is updated if any value differs, and left as it is
+     * (without writing) if they are all the same, so importing the same students again changes nothing.
+     * A student whose email belongs to another student number is rejected and the rest still go in.
+     *
+     * @param batch The students to write. Their IDs are ignored.
+     * @return How many students were inserted, updated, unchanged or rejected.
+     */
+    public UpsertResult upsertStudents(List<Student> batch) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement state = statements.acquire(db, UPSERT_STATE_SQL);
+        SQLiteStatement insert = statements.acquire(db, INSERT_STUDENT_SQL);
+        SQLiteStatement update = statements.acquire(db, UPSERT_UPDATE_SQL);
+        int inserted = 0, updated = 0, unchanged = 0, rejected = 0;
+        db.beginTransaction();
+        try {
+            for (Student student : batch) {
+                // One index lookup tells the three cases apart, so a repeated student costs no write
+                bindStudent(state, student.name, student.number, student.mail, student.physics, student.math, student.grade);
+                long found = state.simpleQueryForLong();
+                if (found == 2) {
+                    unchanged++;
+                    continue;
+                }
+                // Constraint errors only undo the one statement, not the batch. (INSERT OR IGNORE would also
+                // change how the conflict clauses inside the triggers behave, so the error is caught instead.)
+                SQLiteStatement write = found == 0 ? insert : update;
+                bindStudent(write, student.name, student.number, student.mail, student.physics, student.math, student.grade);
+                try {
+                    write.executeUpdateDelete();
+                    if (found == 0) {
+                        inserted++;
+                    } else {
+                        updated++;
+                    }
+                } catch (SQLiteConstraintException e) {
+                    rejected++; // The email belongs to another student number
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statements.release(UPSERT_STATE_SQL, state);
+            statements.release(INSERT_STUDENT_SQL, insert);
+            statements.release(UPSERT_UPDATE_SQL, update);
         }
+        return new UpsertResult(inserted, updated, unchanged, rejected);
+    }
+
+    // Binds a student's values in the order of INSERT_STUDENT_SQL and UPDATE_STUDENT_SQL
+    private static void bindStudent(SQLiteStatement statement, String name, int number, String mail,
+                                    int physics, int math, String grade) {
+        StatementPool.bindText(statement, 1, name);
+        statement.bindLong(2, number);
+        StatementPool.bindText(statement, 3, mail);
+        statement.bindLong(4, physics);
+        statement.bindLong(5, math);
+        StatementPool.bindText(statement, 6, grade);
+    }
+
+    // Method to compile a reusable insert statement for bulk loads.
+    // Bind order: 1 name, 2 number, 3 mail, 4 physics, 5 math, 6 grade.
+    SQLiteStatement compileInsertStatement(SQLiteDatabase db) {
+        return db.compileStatement(INSERT_STUDENT_SQL);
+    }
+
+    // Method to compile a statement that regrades the students with afterId < ID <= upToId under the given policy.
+    // Bind order: 1 afterId, 2 upToId. Rows that already have the right grade are left untouched.
+    SQLiteStatement compileRegradeStatement(SQLiteDatabase db, GradingPolicy policy) {
+        String grade = policy.toSql(COLUMN_PHYSICS, COLUMN_MATH);
+        return db.compileStatement("UPDATE " + TABLE_NAME +
+                " SET " + COLUMN_GRADE + " = " + grade +
+                " WHERE " + COLUMN_ID + " > ? AND " + COLUMN_ID + " <= ?" +
+                " AND " + COLUMN_GRADE + " IS NOT " + grade);
+    }
+
+    // Method to find the next chunk of up to limit IDs after afterId.
+    // Returns one row: the number of IDs in the chunk and the largest of them (0 if there are none).
+    Cursor readIdChunk(long afterId, int limit) {
+        DbThreadGuard.check();
+        String query = "SELECT COUNT(*), IFNULL(MAX(" + COLUMN_ID + "), 0) FROM (SELECT " + COLUMN_ID +
+                " FROM " + TABLE_NAME +
+                " WHERE " + COLUMN_ID + " > ?" +
+                " ORDER BY " + COLUMN_ID +
+                " LIMIT " + limit + ")";
+        return this.getReadableDatabase().rawQuery(query, new String[]{String.valueOf(afterId)});
     }
 
     // Method to read all data from the database
     public Cursor readAllData() {
+        DbThreadGuard.check();
         String query = "SELECT * FROM " + TABLE_NAME;
         SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
         return db.rawQuery(query, null); // Execute query and return cursor
     }
 
-    // Method to update an existing student's details
-    public void updateStudent(String row_id, String name, int number, String mail, int physics, int math, String grade) {
-        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
-        ContentValues cv = new ContentValues();
+    // Method to read a single student by ID (an empty cursor if there is no such student)
+    public Cursor readStudent(long id) {
+        DbThreadGuard.check();
+        String query = "SELECT * FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " = ?";
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(query, new String[]{String.valueOf(id)});
+    }
 
-        // Add updated values to ContentValues
-        cv.put(COLUMN_NAME, name);
-        cv.put(COLUMN_NUMBER, number);
-        cv.put(COLUMN_MAIL, mail);
-        cv.put(COLUMN_PHYSICS, physics);
-        cv.put(COLUMN_MATH, math);
-        cv.put(COLUMN_GRADE, grade);
-
-        // Update the student data in the database
-        long result = db.update(TABLE_NAME, cv, "_id=?", new String[]{row_id});
-        if (result == -1) {
-            Toast.makeText(context, "Failed to update student", Toast.LENGTH_SHORT).show();
+    // Method to read the students with the given IDs, sorted by ID (unknown IDs are skipped).
+    // The IDs are looked up MAX_IDS_PER_STATEMENT at a time, one primary key lookup each.
+    public Cursor readStudents(long[] ids) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        ArrayList<Cursor> parts = new ArrayList<>();
+        for (int from = 0; from < sorted.length || from == 0; from += MAX_IDS_PER_STATEMENT) {
+            int to = Math.min(sorted.length, from + MAX_IDS_PER_STATEMENT);
+            String[] args = new String[to - from];
+            StringBuilder in = new StringBuilder();
+            for (int i = from; i < to; i++) {
+                in.append(i == from ? "?" : ", ?");
+                args[i - from] = String.valueOf(sorted[i]);
+            }
+            parts.add(db.rawQuery("SELECT * FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " IN (" + in + ")" +
+                    " ORDER BY " + COLUMN_ID, args));
+        }
+        return parts.size() == 1 ? parts.get(0) : new MergeCursor(parts.toArray(new Cursor[0]));
+    }
+
+    // Method to read one page of students with an ID greater than afterId (keyset pagination).
+    // Seeking on the primary key keeps the cost of each page the same no matter how far down the list it is.
+    public Cursor readPage(long afterId, int limit) {
+        DbThreadGuard.check();
+        String query = "SELECT * FROM " + TABLE_NAME +
+                " WHERE " + COLUMN_ID + " > ?" +
+                " ORDER BY " + COLUMN_ID +
+                " LIMIT " + limit;
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(query, new String[]{String.valueOf(afterId)});
+    }
+
+    /**
+     * Method to read one page of students in the given order (keyset pagination on the sort key and ID).
+     * The page continues after the student with key afterKey and ID afterId. It is read as (at most) three
+     * index range reads, one after the other: the rest of the students with the same key, then the students
+     * with a later key, and for a descending order the students with no key, which come last.
+     * Every read seeks straight to its start in the sort index, so each page costs the same however far down
+     * the list it is, and no read sorts anything.
+     *
+     * @param sort The order to read in.
+     * @param fromStart True for the first page (afterKey and afterId are then ignored).
+     * @param afterKey The sort key of the last student already shown (may be null if that student had none).
+     * @param afterId The ID of the last student already shown.
+     * @param limit The maximum number of rows to return. The cursor may hold more; only the first limit are the page.
+     * @return A cursor over the page, with the same columns as readAllData().
+     */
+    public Cursor readSortedPage(StudentSort sort, boolean fromStart, @Nullable String afterKey, long afterId, int limit) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        if (sort.column == null) {
+            return readPage(fromStart ? 0 : afterId, limit);
+        }
+        String key = sort.key();
+        String dir = sort.descending ? " DESC" : "";
+        String inOrder = " ORDER BY " + key + dir + ", " + COLUMN_ID + dir + " LIMIT " + limit;
+        String select = "SELECT * FROM " + TABLE_NAME + " WHERE ";
+        if (fromStart) {
+            return db.rawQuery("SELECT * FROM " + TABLE_NAME + inOrder, null);
+        }
+
+        ArrayList<Cursor> parts = new ArrayList<>(3);
+        String id = String.valueOf(afterId);
+        String idAfter = " AND " + COLUMN_ID + (sort.descending ? " < ?" : " > ?") +
+                " ORDER BY " + COLUMN_ID + dir + " LIMIT " + limit;
+
+        // The rest of the students that share the last key
+        if (afterKey == null) {
+            parts.add(db.rawQuery(select + key + " IS NULL" + idAfter, new String[]{id}));
         } else {
-            Toast.makeText(context, "Student updated successfully", Toast.LENGTH_SHORT).show();
+            parts.add(db.rawQuery(select + key + " = ?" + idAfter, new String[]{afterKey, id}));
         }
+
+        // The students with a later key. Missing keys sort first, so they come before every key going up
+        // and after every key going down.
+        if (!sort.descending) {
+            if (afterKey == null) {
+                parts.add(db.rawQuery(select + key + " IS NOT NULL" + inOrder, null));
+            } else {
+                parts.add(db.rawQuery(select + key + " > ?" + inOrder, new String[]{afterKey}));
+            }
+        } else if (afterKey != null) {
+            parts.add(db.rawQuery(select + key + " < ?" + inOrder, new String[]{afterKey}));
+            parts.add(db.rawQuery(select + key + " IS NULL ORDER BY " + COLUMN_ID + " DESC LIMIT " + limit, null));
+        }
+        return new MergeCursor(parts.toArray(new Cursor[0]));
     }
 
-    // Method to delete a single student record
-    public void deleteOneRow(String row_id) {
-        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
-        long result = db.delete(TABLE_NAME, "_id=?", new String[]{row_id});
-        if (result == -1) {
-            Toast.makeText(context, "Failed to delete student", Toast.LENGTH_SHORT).show();
+    // Method to get the query plan for the first page of a sorted list (used by tests to check no sorting is needed)
+    Cursor explainSortedPage(StudentSort sort, int limit) {
+        DbThreadGuard.check();
+        String dir = sort.descending ? " DESC" : "";
+        String order = sort.column == null ? COLUMN_ID : sort.key() + dir + ", " + COLUMN_ID + dir;
+        return this.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT * FROM " + TABLE_NAME +
+                " ORDER BY " + order + " LIMIT " + limit, null);
+    }
+
+    /**
+     * Method to search students, one page at a time (keyset pagination on ID).
+     * The search text picks the index that is used:
+     * all digits searches by student number (exact match), text containing '@' searches by
+     * email prefix, and anything else searches by name, matching the start of each word.
+     *
+     * @param text The search text (may be empty to filter only by grade).
+     * @param grade Optional grade to filter by, for example "A+".
+     * @param afterId Only students with a greater ID are returned.
+     * @param limit The maximum number of rows to return.
+     * @return A cursor over matching rows, with the same columns as readAllData().
+     */
+    public Cursor searchStudents(String text, @Nullable String grade, long afterId, int limit) {
+        DbThreadGuard.check();
+        ArrayList<String> args = new ArrayList<>();
+        String query = buildSearchQuery(text, grade, afterId, limit, args);
+        SQLiteDatabase db = this.getReadableDatabase(); // Get readable database
+        return db.rawQuery(query, args.toArray(new String[0]));
+    }
+
+    // Method to get the query plan SQLite picks for a search (used by tests to check the indexes are used)
+    Cursor explainSearch(String text, @Nullable String grade, long afterId, int limit) {
+        DbThreadGuard.check();
+        ArrayList<String> args = new ArrayList<>();
+        String query = buildSearchQuery(text, grade, afterId, limit, args);
+        return this.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + query, args.toArray(new String[0]));
+    }
+
+    // Builds the SQL for searchStudents() and fills in its arguments
+    private static String buildSearchQuery(String text, @Nullable String grade, long afterId, int limit, ArrayList<String> args) {
+        String term = text.trim();
+        StringBuilder query = new StringBuilder("SELECT s.* FROM " + TABLE_NAME + " s");
+        String key = "s." + COLUMN_ID; // Column used for keyset paging and ordering
+
+        if (term.isEmpty()) {
+            query.append(" WHERE 1");
+        } else if (isDigits(term)) {
+            // Exact student number (idx_student_num)
+            query.append(" WHERE s.").append(COLUMN_NUMBER).append(" = ?");
+            args.add(term);
+        } else if (term.indexOf('@') >= 0) {
+            // Email prefix as an index range (idx_student_mail, case-insensitive)
+            query.append(" WHERE s.").append(COLUMN_MAIL).append(" >= ? COLLATE NOCASE")
+                    .append(" AND s.").append(COLUMN_MAIL).append(" < ? COLLATE NOCASE");
+            args.add(term);
+            args.add(term + '\uFFFF');
         } else {
-            Toast.makeText(context, "Student deleted successfully", Toast.LENGTH_SHORT).show();
+            // Name word prefixes through the full-text index
+            String match = toPrefixMatch(term);
+            if (match.isEmpty()) {
+                query.append(" WHERE 0");
+            } else {
+                query.append(" JOIN ").append(FTS_TABLE_NAME).append(" f ON f.docid = s.").append(COLUMN_ID)
+                        .append(" WHERE f MATCH ?");
+                args.add(match);
+
+                // Page and order on the FTS docid so the full-text index returns rows already in order
+                key = "f.docid";
+            }
+        }
+
+        if (grade != null) {
+            query.append(" AND s.").append(COLUMN_GRADE).append(" = ?");
+            args.add(grade);
+        }
+        query.append(" AND ").append(key).append(" > ?")
+                .append(" ORDER BY ").append(key)
+                .append(" LIMIT ").append(limit);
+        args.add(String.valueOf(afterId));
+        return query.toString();
+    }
+
+    // Turns free text into an FTS query where every word must match the start of a word in the name
+    static String toPrefixMatch(String text) {
+        StringBuilder match = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(word).append('*');
+                word.setLength(0);
+            }
+        }
+        return match.toString();
+    }
+
+    // Returns true if the text is made only of digits
+    private static boolean isDigits(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return !text.isEmpty();
+    }
+
+    // Method to update an existing student's details.
+    // Returns the number of rows updated (0 if the student no longer exists, or the number or email is taken).
+    public int updateStudent(String row_id, String name, int number, String mail, int physics, int math, String grade) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        SQLiteStatement update = statements.acquire(db, UPDATE_STUDENT_SQL);
+        try {
+            // Bind the updated values by position, then the ID
+            bindStudent(update, name, number, mail, physics, math, grade);
+            StatementPool.bindText(update, 7, row_id);
+
+            // Update the student data in the database
+            return update.executeUpdateDelete();
+        } catch (SQLiteConstraintException e) {
+            // The new number or email belongs to another student
+            Log.w(TAG, "Student number or email already taken", e);
+            return 0;
+        } finally {
+            statements.release(UPDATE_STUDENT_SQL, update);
+        }
+    }
+
+    // Method to delete a single student record.
+    // Returns the number of rows deleted (0 if the student no longer exists).
+    public int deleteOneRow(String row_id) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        SQLiteStatement delete = statements.acquire(db, DELETE_STUDENT_SQL);
+        try {
+            StatementPool.bindText(delete, 1, row_id);
+            return delete.executeUpdateDelete();
+        } finally {
+            statements.release(DELETE_STUDENT_SQL, delete);
+        }
+    }
+
+    /**
+     * Method to delete a set of students in one transaction.
+     * An ID list is deleted in chunks of MAX_IDS_PER_STATEMENT IDs (one DELETE ... WHERE _id IN (...) each);
+     * a condition is deleted with a single DELETE. The triggers keep the search index, statistics and scores in step.
+     *
+     * @param selection The students to delete.
+     * @return The number of students deleted.
+     */
+    public int deleteStudents(StudentSelection selection) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        db.beginTransaction();
+        try {
+            int deleted = forEachChunk(selection, (where, args) ->
+                    execute(db, "DELETE FROM " + TABLE_NAME + " WHERE " + where, args));
+            db.setTransactionSuccessful();
+            return deleted;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Method to set the physics and/or math marks of a set of students in one transaction, and regrade them.
+     *
+     * @param selection The students to update.
+     * @param physics The new physics marks, or null to leave them unchanged.
+     * @param math The new math marks, or null to leave them unchanged.
+     * @param policy The policy to regrade the students with.
+     * @return The number of students updated.
+     */
+    public int updateMarks(StudentSelection selection, @Nullable Integer physics, @Nullable Integer math, GradingPolicy policy) {
+        DbThreadGuard.check();
+        if (physics == null && math == null) {
+            return 0;
+        }
+        StringBuilder set = new StringBuilder();
+        ArrayList<Object> values = new ArrayList<>(2);
+        if (physics != null) {
+            set.append(COLUMN_PHYSICS).append(" = ?");
+            values.add(physics);
+        }
+        if (math != null) {
+            set.append(set.length() > 0 ? ", " : "").append(COLUMN_MATH).append(" = ?");
+            values.add(math);
+        }
+        String grade = policy.toSql(COLUMN_PHYSICS, COLUMN_MATH);
+
+        SQLiteDatabase db = this.getWritableDatabase(); // Get writable database
+        db.beginTransaction();
+        try {
+            int updated = forEachChunk(selection, (where, args) -> {
+                Object[] allArgs = new Object[values.size() + args.length];
+                values.toArray(allArgs);
+                System.arraycopy(args, 0, allArgs, values.size(), args.length);
+                int count = execute(db, "UPDATE " + TABLE_NAME + " SET " + set + " WHERE " + where, allArgs);
+
+                // The grade column still matches any grade condition here, so the same rows are regraded
+                execute(db, "UPDATE " + TABLE_NAME + " SET " + COLUMN_GRADE + " = " + grade +
+                        " WHERE (" + where + ") AND " + COLUMN_GRADE + " IS NOT " + grade, args);
+                return count;
+            });
+            db.setTransactionSuccessful();
+            return updated;
+        } finally {
+            db.endTransaction();
         }
     }
 
-    // Method to delete all student records from the database and reset ID to 1
+    /**
+     * Receives one chunk of a selection as a WHERE condition and its arguments.
+     */
+    private interface ChunkAction {
+        int run(String where, Object[] args);
+    }
+
+    // Calls the action once per chunk of IDs (or once for a condition) and adds up what it returns
+    private static int forEachChunk(StudentSelection selection, ChunkAction action) {
+        long[] ids = selection.ids();
+        if (ids == null) {
+            // A condition: one statement covers every matching student
+            StringBuilder where = new StringBuilder("1");
+            ArrayList<Object> args = new ArrayList<>(3);
+            if (selection.grade != null) {
+                where.append(" AND ").append(COLUMN_GRADE).append(" = ?");
+                args.add(selection.grade);
+            }
+            if (selection.minNumber != null) {
+                where.append(" AND ").append(COLUMN_NUMBER).append(" >= ?");
+                args.add(selection.minNumber);
+            }
+            if (selection.maxNumber != null) {
+                where.append(" AND ").append(COLUMN_NUMBER).append(" <= ?");
+                args.add(selection.maxNumber);
+            }
+            return action.run(where.toString(), args.toArray());
+        }
+
+        int total = 0;
+        for (int from = 0; from < ids.length; from += MAX_IDS_PER_STATEMENT) {
+            int count = Math.min(MAX_IDS_PER_STATEMENT, ids.length - from);
+            StringBuilder where = new StringBuilder(COLUMN_ID + " IN (");
+            Object[] args = new Object[count];
+            for (int i = 0; i < count; i++) {
+                where.append(i == 0 ? "?" : ",?");
+                args[i] = ids[from + i];
+            }
+            total += action.run(where.append(')').toString(), args);
+        }
+        return total;
+    }
+
+    // Compiles and runs an UPDATE or DELETE with the given arguments, returning the number of rows changed
+    private static int execute(SQLiteDatabase db, String sql, Object[] args) {
+        SQLiteStatement statement = db.compileStatement(sql);
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] instanceof Number) {
+                    statement.bindLong(i + 1, ((Number) args[i]).longValue());
+                } else {
+                    statement.bindString(i + 1, String.valueOf(args[i]));
+                }
+            }
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Method to delete all student records from the database and reset ID to 1.
+     * A plain DELETE would fire the search, statistics and score triggers once per student, so instead
+     * the student table and the tables derived from it are dropped and created again, empty, in one
+     * transaction. Other connections see either every student or none. Subjects are kept.
+     * The freed pages stay in the file until reclaimFreePages() hands them back.
+     */
     void deleteAllData() {
+        DbThreadGuard.check();
         SQLiteDatabase db = this.getWritableDatabase();
-        db.execSQL("DELETE FROM " + TABLE_NAME);
-        db.execSQL("DELETE FROM sqlite_sequence WHERE name='" + TABLE_NAME + "'");
-        Toast.makeText(context, "All Data Deleted. ID reset to 1.", Toast.LENGTH_SHORT).show();
+        db.beginTransaction();
+        try {
+            recreateStudentTables(db);
+
+            // Changes not pushed yet no longer matter: the reset replaces them all
+            db.execSQL("DELETE FROM " + CHANGES_TABLE_NAME);
+            db.execSQL("INSERT INTO " + CHANGES_TABLE_NAME + " (op) VALUES ('" + SyncChange.RESET + "')");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statements.clear(); // Compiled against the dropped tables
+        }
+    }
+
+    // Drops the student table and the tables derived from it (with the students' sync IDs) and creates them
+    // again, empty, with IDs starting from 1. No trigger fires, so nothing is logged. Call inside a transaction.
+    private void recreateStudentTables(SQLiteDatabase db) {
+        // Dropping the student table also drops its indexes and triggers
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + FTS_TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + SCORES_TABLE_NAME);
+        db.execSQL("DELETE FROM sqlite_sequence WHERE name = ?", new Object[]{TABLE_NAME});
+        db.execSQL("DELETE FROM " + SYNC_IDS_TABLE_NAME);
+
+        createStudentTable(db);
+        createSearchSchema(db);
+        createStatisticsSchema(db);
+        createScoresSchema(db);
+        createSortSchema(db);
+        createChangeLogSchema(db);
+        createUniqueSchema(db);
+        rebuildStatistics(db); // Back to zero
+    }
+
+    // Method to read the logged changes after afterSeq, oldest first, at most limit of them.
+    // Columns: seq, op, sync_id, then the student's current name, number, mail, physics, math, grade and ID
+    // (all NULL if the student no longer exists).
+    Cursor readChangeLog(long afterSeq, int limit) {
+        DbThreadGuard.check();
+        String query = "SELECT c.seq, c.op, c.sync_id, s." + COLUMN_NAME + ", s." + COLUMN_NUMBER + ", s." + COLUMN_MAIL +
+                ", s." + COLUMN_PHYSICS + ", s." + COLUMN_MATH + ", s." + COLUMN_GRADE + ", s." + COLUMN_ID +
+                " FROM " + CHANGES_TABLE_NAME + " c LEFT JOIN " + TABLE_NAME + " s ON s." + COLUMN_ID + " = c.student_id" +
+                " WHERE c.seq > ?" +
+                " ORDER BY c.seq" +
+                " LIMIT " + limit;
+        return this.getReadableDatabase().rawQuery(query, new String[]{String.valueOf(afterSeq)});
+    }
+
+    // Method to count the logged changes that have not been pushed yet
+    long getPendingChangeCount() {
+        DbThreadGuard.check();
+        return DatabaseUtils.queryNumEntries(this.getReadableDatabase(), CHANGES_TABLE_NAME);
+    }
+
+    // Method to get a number that grows whenever a student is added, changed or deleted: the last sequence
+    // number handed out by the change log. Removing pushed changes does not lower it.
+    long getDataVersion() {
+        DbThreadGuard.check();
+        return DatabaseUtils.longForQuery(this.getReadableDatabase(),
+                "SELECT IFNULL((SELECT seq FROM sqlite_sequence WHERE name = ?), 0)", new String[]{CHANGES_TABLE_NAME});
+    }
+
+    // Method to remove the logged changes up to and including upToSeq, once the roster service has them
+    void removePushedChanges(long upToSeq) {
+        DbThreadGuard.check();
+        this.getWritableDatabase().execSQL("DELETE FROM " + CHANGES_TABLE_NAME + " WHERE seq <= ?", new Object[]{upToSeq});
+    }
+
+    // Method to read a sync setting, or null if it has not been set
+    @Nullable
+    String getSyncState(String name) {
+        DbThreadGuard.check();
+        Cursor cursor = this.getReadableDatabase().rawQuery("SELECT value FROM " + SYNC_STATE_TABLE_NAME +
+                " WHERE name = ?", new String[]{name});
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Method to save a sync setting
+    void setSyncState(String name, String value) {
+        DbThreadGuard.check();
+        this.getWritableDatabase().execSQL("INSERT OR REPLACE INTO " + SYNC_STATE_TABLE_NAME + " VALUES (?, ?)",
+                new Object[]{name, value});
+    }
+
+    /**
+     * Method to apply changes pulled from the roster service in one transaction, and save how far this
+     * device has pulled in the same transaction. A written student is updated if this device has it
+     * (matched by sync ID) and added with that sync ID otherwise. Applying the changes is not logged
+     * again, so they are not pushed back.
+     *
+     * Two devices can add the same student number or email without knowing about each other. When a
+     * written student clashes with other students here, the one with the smallest sync ID is kept and
+     * the others are removed (or the change is skipped), so every device ends up keeping the same one.
+     *
+     * @param changes The pulled changes, oldest first.
+     * @param pulledSeq The seq of the last change, saved as SYNC_PULLED_SEQ.
+     * @return The number of students added, updated or deleted.
+     */
+    int applySyncChanges(List<SyncChange> changes, long pulledSeq) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement update = db.compileStatement(UPDATE_BY_SYNC_ID_SQL);
+        SQLiteStatement insert = db.compileStatement(INSERT_STUDENT_SQL);
+        SQLiteStatement setSyncId = db.compileStatement("UPDATE " + SYNC_IDS_TABLE_NAME +
+                " SET sync_id = ? WHERE student_id = ?");
+        SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_ID +
+                " = (SELECT student_id FROM " + SYNC_IDS_TABLE_NAME + " WHERE sync_id = ?)");
+        // Bind order: 1 number, 2 mail, 3 sync ID of the written student
+        String sameNumberOrMail = "(" + COLUMN_NUMBER + " = ?1 OR " + COLUMN_MAIL + " = ?2 COLLATE NOCASE)";
+        SQLiteStatement clashesEarlier = db.compileStatement("SELECT EXISTS (SELECT 1 FROM " + SYNC_IDS_TABLE_NAME +
+                " WHERE sync_id < ?3 AND student_id IN (SELECT " + COLUMN_ID + " FROM " + TABLE_NAME +
+                " WHERE " + sameNumberOrMail + "))");
+        SQLiteStatement deleteClashes = db.compileStatement("DELETE FROM " + TABLE_NAME + " WHERE " + sameNumberOrMail +
+                " AND " + COLUMN_ID + " IN (SELECT student_id FROM " + SYNC_IDS_TABLE_NAME + " WHERE sync_id != ?3)");
+        boolean recreated = false;
+        db.beginTransaction();
+        try {
+            // Everything logged from here on comes from these changes and is removed at the end
+            long logEnd = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(seq), 0) FROM " + CHANGES_TABLE_NAME, null);
+            int applied = 0;
+            for (SyncChange change : changes) {
+                switch (change.op) {
+                    case SyncChange.WRITE:
+                        bindClash(clashesEarlier, change);
+                        if (clashesEarlier.simpleQueryForLong() != 0) {
+                            break; // A student with a smaller sync ID keeps the number or email
+                        }
+                        bindClash(deleteClashes, change);
+                        applied += deleteClashes.executeUpdateDelete();
+                        bindStudent(update, change.name, change.number, change.mail, change.physics, change.math, change.grade);
+                        update.bindString(7, change.syncId);
+                        if (update.executeUpdateDelete() == 0) {
+                            // New to this device: add it, then replace the random sync ID it was given
+                            bindStudent(insert, change.name, change.number, change.mail, change.physics, change.math, change.grade);
+                            long id = insert.executeInsert();
+                            setSyncId.bindString(1, change.syncId);
+                            setSyncId.bindLong(2, id);
+                            setSyncId.executeUpdateDelete();
+                        }
+                        applied++;
+                        break;
+                    case SyncChange.DELETE:
+                        delete.bindString(1, change.syncId);
+                        applied += delete.executeUpdateDelete();
+                        break;
+                    case SyncChange.RESET:
+                        // Recreated like a local reset, so no trigger fires per student. The marker is removed
+                        // below with the rest; it only moves the data version on (see getDataVersion()).
+                        applied += (int) DatabaseUtils.queryNumEntries(db, TABLE_NAME);
+                        recreateStudentTables(db);
+                        recreated = true;
+                        db.execSQL("INSERT INTO " + CHANGES_TABLE_NAME + " (op) VALUES ('" + SyncChange.RESET + "')");
+                        break;
+                }
+            }
+            db.execSQL("DELETE FROM " + CHANGES_TABLE_NAME + " WHERE seq > ?", new Object[]{logEnd});
+            setSyncState(SYNC_PULLED_SEQ, String.valueOf(pulledSeq));
+            db.setTransactionSuccessful();
+            return applied;
+        } finally {
+            db.endTransaction();
+            update.close();
+            insert.close();
+            setSyncId.close();
+            delete.close();
+            clashesEarlier.close();
+            deleteClashes.close();
+            if (recreated) {
+                statements.clear(); // Compiled against the dropped tables
+            }
+        }
+    }
+
+    // Binds a written student's number, email and sync ID to a statement that looks for clashing students
+    private static void bindClash(SQLiteStatement statement, SyncChange change) {
+        statement.bindLong(1, change.number);
+        StatementPool.bindText(statement, 2, change.mail);
+        statement.bindString(3, change.syncId);
+    }
+
+    // Method to get the database file (for backups)
+    File getDatabaseFile() throws IOException {
+        if (databaseFile == null) {
+            throw new IOException("An in-memory database has no file");
+        }
+        return databaseFile;
+    }
+
+    /**
+     * Method to copy the database file for a backup while no connection can write to it.
+     * The copy is taken inside an IMMEDIATE transaction, which only takes the write lock: writes wait until
+     * the copy is done, but with write-ahead logging reads carry on. Nothing else happens inside it.
+     * With write-ahead logging the newest changes may still be in the log file rather than the main file,
+     * so the log is copied too (as target + "-wal") and SQLite moves them into the copy when it is opened.
+     * A checkpoint beforehand moves what it can into the main file, so the log copied is usually small.
+     *
+     * @param target The file to copy the database to.
+     * @return The number of students in the copy.
+     * @throws IOException If the database is in memory or the copy failed.
+     */
+    long copyDatabaseFile(File target) throws IOException {
+        DbThreadGuard.check();
+        File source = getDatabaseFile();
+        File log = new File(source.getPath() + "-wal");
+        File targetLog = new File(target.getPath() + "-wal");
+        SQLiteDatabase db = this.getWritableDatabase();
+
+        // PASSIVE does not wait for readers, so it never holds up the app
+        Cursor cursor = db.rawQuery("PRAGMA wal_checkpoint(PASSIVE)", null);
+        try {
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+
+        db.beginTransactionNonExclusive();
+        try {
+            copyFile(source, target);
+            if (log.length() > 0) {
+                copyFile(log, targetLog);
+            } else if (targetLog.exists() && !targetLog.delete()) {
+                throw new IOException("Could not delete " + targetLog);
+            }
+            return DatabaseUtils.queryNumEntries(db, TABLE_NAME);
+        } finally {
+            db.endTransaction(); // Nothing was written, so there is nothing to commit
+        }
+    }
+
+    // Copies a whole file, letting the kernel move the bytes instead of passing them through Java buffers
+    private static void copyFile(File source, File target) throws IOException {
+        try (FileChannel in = new FileInputStream(source).getChannel();
+             FileChannel out = new FileOutputStream(target).getChannel()) {
+            long size = in.size();
+            long done = 0;
+            while (done < size) {
+                done += in.transferTo(done, size - done, out);
+            }
+        }
+    }
+
+    /**
+     * Method to replace the database with another file (a restored backup).
+     * The database is closed, which moves the write-ahead log into the old file and removes it, and the
+     * new file is then renamed over the old one: a rename either happens completely or not at all, so
+     * the database is never half replaced. The next query opens the new file, upgrading it first if it
+     * came from an older version of the app. Holding the helper's lock stops other threads from opening
+     * the old file again in the meantime.
+     *
+     * @param replacement The new database file, in the same directory as the database.
+     * @throws IOException If the file could not be swapped (the old database is then left as it was).
+     */
+    synchronized void replaceDatabaseFile(File replacement) throws IOException {
+        DbThreadGuard.check();
+        File file = getDatabaseFile();
+        close();
+        // Anything left next to the old file belongs to it and must not be applied to the new one
+        for (String suffix : new String[]{"-wal", "-shm", "-journal"}) {
+            File extra = new File(file.getPath() + suffix);
+            if (extra.exists() && !extra.delete()) {
+                throw new IOException("Could not delete " + extra);
+            }
+        }
+        if (!replacement.renameTo(file)) {
+            throw new IOException("Could not move " + replacement + " to " + file);
+        }
+        fileGeneration++;
+    }
+
+    // Method to tell whether the database file was replaced since a number read earlier from this method.
+    // Long-running work that lets go of the database in between (a sync) checks it before carrying on.
+    int getFileGeneration() {
+        return fileGeneration;
+    }
+
+    // Method to get the number of unused pages in the database file
+    public long getFreePageCount() {
+        DbThreadGuard.check();
+        return DatabaseUtils.longForQuery(this.getReadableDatabase(), "PRAGMA freelist_count", null);
+    }
+
+    // Method to check whether free pages can be reclaimed with reclaimFreePages() (otherwise only vacuum() can)
+    public boolean isIncrementalVacuumEnabled() {
+        DbThreadGuard.check();
+        return DatabaseUtils.longForQuery(this.getReadableDatabase(), "PRAGMA auto_vacuum", null) == 2; // 2 = INCREMENTAL
+    }
+
+    /**
+     * Method to hand up to maxPages unused pages back to the file system, shrinking the file.
+     * Each call is short, so a large reclaim can be split into many calls between other writes.
+     *
+     * @param maxPages The most pages to free.
+     * @return The number of pages freed (0 if incremental vacuum is not enabled).
+     */
+    public long reclaimFreePages(int maxPages) {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase();
+        long before = getFreePageCount();
+        // The pragma frees one page per step, so the cursor must be read to the end
+        Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum(" + maxPages + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                // Nothing to read
+            }
+        } finally {
+            cursor.close();
+        }
+        return before - getFreePageCount();
+    }
+
+    // Method to rebuild the whole database file, removing every free page and switching on incremental vacuum.
+    // This rewrites every page, so it is only used once for files created before incremental vacuum
+    // (by the next maintenance run, or straight after a reset, when the file is nearly empty).
+    void vacuum() {
+        DbThreadGuard.check();
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        db.execSQL("VACUUM"); // Cannot run inside a transaction
+    }
+
+    // Method to refresh the statistics the query planner uses to choose between indexes
+    void analyze() {
+        DbThreadGuard.check();
+        this.getWritableDatabase().execSQL("ANALYZE");
+    }
+
+    /**
+     * Method to check the database file for corruption.
+     *
+     * @param maxProblems The most problems to report.
+     * @return The problems found, empty if the database is intact.
+     */
+    List<String> checkIntegrity(int maxProblems) {
+        DbThreadGuard.check();
+        List<String> problems = new ArrayList<>();
+        Cursor cursor = this.getReadableDatabase().rawQuery("PRAGMA integrity_check(" + maxProblems + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                String line = cursor.getString(0);
+                if (!"ok".equals(line)) {
+                    problems.add(line);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return problems;
     }
 }
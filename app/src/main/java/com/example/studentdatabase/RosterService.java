@@ -0,0 +1,44 @@
+/**
+ * RosterService.java
+
+ * This interface is the roster service that devices sync their students through (see SyncEngine).
+ * The service keeps every change it has accepted in order, numbered by a sequence number (seq),
+ * so each device only has to pull the changes after the last one it has seen.
+ * Batches are gzip-compressed JSON Lines (see SyncChange.encode()).
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Calls block on the network, so they are only made from the repository's sync thread.
+ * An IOException means the call may be retried; pushing the same batch again must do no harm.
+ */
+
+package com.example.studentdatabase;
+
+import java.io.IOException;
+
+public interface RosterService {
+
+    /**
+     * Sends a batch of this device's changes.
+     *
+     * @param deviceId The sending device, so its own changes are not pulled back.
+     * @param batchId Increases with every batch a device sends; a batch the service has already
+     *                accepted from that device (a retry) is ignored.
+     * @param batch The changes, encoded by SyncChange.encode().
+     * @throws IOException If the batch may not have been accepted.
+     */
+    void push(String deviceId, long batchId, byte[] batch) throws IOException;
+
+    /**
+     * Returns the changes made by other devices after the given position, oldest first.
+     *
+     * @param deviceId The pulling device (its own changes are left out).
+     * @param afterSeq The seq of the last change already pulled (0 for everything).
+     * @param limit The most changes to return.
+     * @return The changes, encoded by SyncChange.encode(), each with its seq.
+     * @throws IOException If the changes could not be read.
+     */
+    byte[] pull(String deviceId, long afterSeq, int limit) throws IOException;
+}
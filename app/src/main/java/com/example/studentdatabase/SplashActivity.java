@@ -2,14 +2,14 @@
  * SplashActivity.java
 
  * This activity displays a splash screen when the app is launched.
- * The splash screen appears for a specified duration before transitioning
- * to the LoginActivity.
+ * The splash screen stays only until the database is open and the first page of students has been
+ * read ahead (see StudentApplication), then transitions to the LoginActivity.
 
  * Author: Abdulla Nibah Hussain
  * Date: 24/11/2024
  * Version: 1.0
 
- * Note: The duration of the splash screen is set to 3 seconds.
+ * Note: If the data layer is not ready within MAX_SPLASH_DURATION (3 seconds), the splash moves on anyway.
  */
 
 package com.example.studentdatabase;
@@ -17,12 +17,15 @@ package com.example.studentdatabase;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
 import androidx.appcompat.app.AppCompatActivity;
 
 public class SplashActivity extends AppCompatActivity {
 
-    // Set the duration of the splash screen in milliseconds (3 seconds)
-    private static final int SPLASH_DURATION = 3000;
+    // Longest time the splash screen waits for the data layer, in milliseconds (3 seconds)
+    private static final int MAX_SPLASH_DURATION = 3000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -30,12 +33,31 @@ public class SplashActivity extends AppCompatActivity {
         setTheme(androidx.appcompat.R.style.Theme_AppCompat_Light_NoActionBar); // Set theme for splash screen (no action bar)
         setContentView(R.layout.activity_splash); // Set layout for the splash screen
 
-        // Create a Handler to delay the transition to the LoginActivity
-        new Handler().postDelayed(() -> {
-            // After the splash duration, transition to LoginActivity
-            Intent intent = new Intent(SplashActivity.this, LoginActivity.class);
-            startActivity(intent); // Start LoginActivity
-            finish(); // Close SplashActivity so the user cannot return to it
-        }, SPLASH_DURATION); // Delay of 3 seconds (SPLASH_DURATION)
+        // Move on straight away if the list can be shown from the last session's snapshot, otherwise as soon as
+        // the first page has been read ahead, or after MAX_SPLASH_DURATION at the latest
+        StudentRepository repository = StudentRepository.getInstance(this);
+        if (repository.hasListSnapshot()) {
+            openLogin();
+            return;
+        }
+        handler.postDelayed(this::openLogin, MAX_SPLASH_DURATION);
+        repository.whenFirstPagePrefetched(this::openLogin);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    // Transition to LoginActivity (only the first call does anything)
+    private void openLogin() {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        handler.removeCallbacksAndMessages(null);
+        Intent intent = new Intent(SplashActivity.this, LoginActivity.class);
+        startActivity(intent); // Start LoginActivity
+        finish(); // Close SplashActivity so the user cannot return to it
     }
 }
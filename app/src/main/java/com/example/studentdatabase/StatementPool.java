@@ -0,0 +1,118 @@
+/**
+ * StatementPool.java
+
+ * This class keeps compiled SQLiteStatements so the frequent single-row writes (add, update and delete a
+ * student, set a score) can reuse them instead of building ContentValues and SQL text on every call.
+ * A statement is taken out with acquire(), bound with the positional bindLong()/bindString() setters,
+ * executed, and handed back with release(), which clears its bindings for the next caller.
+ * Statements are kept per SQL text; the SQL must be a constant so the same text (and statement) comes back.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: A statement belongs to one SQLiteDatabase object. If the helper hands out a different one (after it
+ * was closed and reopened), the old statements are closed and new ones are compiled.
+ * acquire() and release() are synchronized, and a statement is only used by the thread that acquired it.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+final class StatementPool {
+
+    // Most unused statements kept per SQL text (writes run on one thread, so more are rarely needed)
+    static final int DEFAULT_MAX_IDLE = 2;
+
+    private final int maxIdle;
+
+    // Unused statements by SQL text, all compiled against database
+    private final HashMap<String, ArrayDeque<SQLiteStatement>> idle = new HashMap<>();
+    @Nullable
+    private SQLiteDatabase database;
+
+    // Statements handed out by acquire() for the current database and not released yet
+    private final Set<SQLiteStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Number of statements compiled so far (to check reuse in tests)
+    private long compiled = 0;
+
+    StatementPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Returns a statement for the given SQL, reusing an unused one if there is one.
+     * Hand it back with release() when done, in a finally block.
+     *
+     * @param db The open database the statement runs on.
+     * @param sql The SQL text (a constant).
+     * @return A statement with no values bound.
+     */
+    synchronized SQLiteStatement acquire(SQLiteDatabase db, String sql) {
+        if (db != database) {
+            clear(); // Compiled against a database object that is no longer in use
+            database = db;
+        }
+        ArrayDeque<SQLiteStatement> statements = idle.get(sql);
+        SQLiteStatement statement;
+        if (statements != null && !statements.isEmpty()) {
+            statement = statements.pop();
+        } else {
+            statement = db.compileStatement(sql);
+            compiled++;
+        }
+        inUse.add(statement);
+        return statement;
+    }
+
+    // Hands a statement back for reuse (or closes it if enough are already kept)
+    synchronized void release(String sql, SQLiteStatement statement) {
+        statement.clearBindings();
+        ArrayDeque<SQLiteStatement> statements = idle.get(sql);
+        if (statements == null) {
+            statements = new ArrayDeque<>(maxIdle);
+            idle.put(sql, statements);
+        }
+        // A statement from before clear() may belong to a database object that is no longer used
+        if (inUse.remove(statement) && statements.size() < maxIdle) {
+            statements.push(statement);
+        } else {
+            statement.close();
+        }
+    }
+
+    // Closes every unused statement (call before the database is closed or its tables are recreated)
+    synchronized void clear() {
+        for (ArrayDeque<SQLiteStatement> statements : idle.values()) {
+            for (SQLiteStatement statement : statements) {
+                statement.close();
+            }
+        }
+        idle.clear();
+        inUse.clear(); // Closed when they are released
+    }
+
+    synchronized long getCompiledCount() {
+        return compiled;
+    }
+
+    // Binds a text value, or NULL if it is null (SQLiteStatement.bindString() does not accept null)
+    static void bindText(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
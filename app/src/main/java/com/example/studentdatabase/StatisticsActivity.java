@@ -0,0 +1,100 @@
+/**
+ * StatisticsActivity.java
+
+ * This activity shows a dashboard of class-wide statistics: the number of students,
+ * the average Physics, Math and overall marks, how many students have each grade,
+ * and the students with the highest total marks.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: The averages and grade counts are read from summary tables that the database keeps
+ * up to date, so opening this screen stays fast however many students there are.
+ */
+
+package com.example.studentdatabase;
+
+import android.os.Bundle;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.util.List;
+import java.util.Locale;
+
+public class StatisticsActivity extends AppCompatActivity {
+
+    // Number of top students to show
+    private static final int TOP_STUDENTS = 10;
+
+    // Width of the longest histogram bar, in characters
+    private static final int BAR_WIDTH = 20;
+
+    // UI elements
+    TextView student_count_txt, physics_average_txt, math_average_txt, overall_average_txt, grades_txt, top_students_txt;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_statistics);
+
+        // Initialize the UI elements
+        student_count_txt = findViewById(R.id.student_count_txt);
+        physics_average_txt = findViewById(R.id.physics_average_txt);
+        math_average_txt = findViewById(R.id.math_average_txt);
+        overall_average_txt = findViewById(R.id.overall_average_txt);
+        grades_txt = findViewById(R.id.grades_txt);
+        top_students_txt = findViewById(R.id.top_students_txt);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // Reload every time the screen is shown, in case students were changed meanwhile
+        StudentRepository repository = StudentRepository.getInstance(this);
+        repository.loadStatistics(this::showStatistics);
+        repository.loadTopStudents(TOP_STUDENTS, this::showTopStudents);
+    }
+
+    // Fill in the counts, averages and grade histogram
+    void showStatistics(StudentStatistics statistics) {
+        student_count_txt.setText("Students: " + statistics.studentCount);
+        physics_average_txt.setText(String.format(Locale.getDefault(), "Physics average: %.1f", statistics.getPhysicsAverage()));
+        math_average_txt.setText(String.format(Locale.getDefault(), "Math average: %.1f", statistics.getMathAverage()));
+        overall_average_txt.setText(String.format(Locale.getDefault(), "Overall average: %.1f", statistics.getOverallAverage()));
+
+        // Show the grades of the current policy, best first, scaled so the most common grade fills BAR_WIDTH characters
+        String[] grades = StudentRepository.getInstance(this).getGradingPolicy().getGrades();
+        long largest = 1;
+        int width = 0;
+        for (String grade : grades) {
+            largest = Math.max(largest, statistics.getGradeCount(grade));
+            width = Math.max(width, grade.length());
+        }
+        StringBuilder histogram = new StringBuilder();
+        for (String grade : grades) {
+            long count = statistics.getGradeCount(grade);
+            histogram.append(grade);
+            for (int i = grade.length(); i <= width; i++) {
+                histogram.append(' '); // Line the bars up
+            }
+            for (long i = 0; i < count * BAR_WIDTH / largest; i++) {
+                histogram.append('#');
+            }
+            histogram.append(' ').append(count).append('\n');
+        }
+        grades_txt.setText(histogram.toString().trim());
+    }
+
+    // Fill in the top students list
+    void showTopStudents(List<Student> students) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            text.append(i + 1).append(". ").append(student.name)
+                    .append(" (").append(student.physics + student.math).append(", ").append(student.grade).append(")\n");
+        }
+        top_students_txt.setText(students.isEmpty() ? "No Data" : text.toString().trim());
+    }
+}
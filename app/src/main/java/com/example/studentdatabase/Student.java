@@ -0,0 +1,90 @@
+/**
+ * Student.java
+
+ * This class is an immutable copy of a single row of the student table.
+ * It is used to hand rows read on a background thread over to the UI thread
+ * without keeping a Cursor open.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: fromCursor() expects the column order of "SELECT *" on the student table.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+
+public final class Student {
+
+    public final long id;
+    public final String name;
+    public final int number;
+    public final String mail;
+    public final int physics;
+    public final int math;
+    public final String grade;
+
+    /**
+     * Constructor for the Student class.
+     *
+     * @param id The row ID of the student.
+     * @param name The student's name.
+     * @param number The student's number.
+     * @param mail The student's email.
+     * @param physics The student's marks in Physics.
+     * @param math The student's marks in Math.
+     * @param grade The student's grade.
+     */
+    public Student(long id, String name, int number, String mail, int physics, int math, String grade) {
+        this.id = id;
+        this.name = name;
+        this.number = number;
+        this.mail = mail;
+        this.physics = physics;
+        this.math = math;
+        this.grade = grade;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Student)) {
+            return false;
+        }
+        Student other = (Student) o;
+        return id == other.id && number == other.number && physics == other.physics && math == other.math
+                && equal(name, other.name) && equal(mail, other.mail) && equal(grade, other.grade);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (id ^ (id >>> 32));
+    }
+
+    // Null-safe string comparison
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Creates a Student from the row the cursor is currently positioned on.
+     *
+     * @param cursor A cursor over "SELECT *" from the student table.
+     * @return The student at the cursor's current position.
+     */
+    public static Student fromCursor(Cursor cursor) {
+        return new Student(
+                cursor.getLong(0),
+                cursor.getString(1),
+                cursor.getInt(2),
+                cursor.getString(3),
+                cursor.getInt(4),  // Physics column
+                cursor.getInt(5),  // Math column
+                cursor.getString(6)
+        );
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * StudentApplication.java
+
+ * This class is the Application object of the Student Database app.
+ * It sets up the shared database connection when the process starts and opens it on the
+ * repository's writer thread, so it is ready by the time the first screen needs it.
+ * The first page of the student list is then read ahead, while the splash and login screens show.
+ * It also schedules the daily database maintenance.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Registered through android:name in AndroidManifest.xml.
+ */
+
+package com.example.studentdatabase;
+
+import android.app.Application;
+
+public class StudentApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Create the shared database helper and open it in the background
+        DatabaseProvider.init(this, DatabaseConfig.DEFAULT);
+        StudentRepository repository = StudentRepository.getInstance(this);
+        repository.open(null);
+        repository.prefetchFirstPage(); // Waits for the open (and any migrations) on a reader thread
+
+        // Reclaim space, refresh planner statistics and check the file about once a day
+        repository.scheduleMaintenance();
+    }
+}
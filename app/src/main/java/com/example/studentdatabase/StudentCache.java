@@ -0,0 +1,131 @@
+/**
+ * StudentCache.java
+
+ * This class keeps the most recently used student rows in memory, keyed by ID, so opening a student's
+ * detail screen again does not go back to the database. It holds at most a fixed number of rows and
+ * drops the least recently used one when it is full (an LRU cache built on an access-ordered LinkedHashMap).
+
+ * StudentRepository removes a row from the cache whenever it writes that row, and clears the cache
+ * after changes that touch many rows, so the cache never serves an older copy than the database holds.
+ * A row read from the database while a write was in progress is not stored (see put()), so a slow read
+ * cannot put an old copy back after the write removed it.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: All methods are synchronized, so the cache can be shared by the main thread and the
+ * repository's reader and writer threads. The hit and miss counters are for the debug screen and benchmarks.
+ */
+
+package com.example.studentdatabase;
+
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StudentCache {
+
+    // Number of rows kept by default
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final int maxSize;
+    private final LinkedHashMap<Long, Student> rows;
+
+    // Incremented by every invalidation, so reads that started before it can be recognised
+    private long version = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * Constructor for the StudentCache class.
+     *
+     * @param maxSize The maximum number of rows to keep.
+     */
+    public StudentCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        // Access order: every get() moves the row to the end, so the eldest entry is the least recently used
+        this.rows = new LinkedHashMap<Long, Student>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Student> eldest) {
+                return size() > StudentCache.this.maxSize;
+            }
+        };
+    }
+
+    // Returns the cached row, or null if it is not cached. Counts as a hit or a miss.
+    @Nullable
+    public synchronized Student get(long id) {
+        Student student = rows.get(id);
+        if (student != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return student;
+    }
+
+    // Returns the current version. Read it before loading a row from the database and pass it to put().
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Stores a row read from the database.
+     *
+     * @param student The row.
+     * @param readVersion The value of getVersion() from before the row was read.
+     * @return True if it was stored, false if the cache was invalidated since (the row may be out of date).
+     */
+    public synchronized boolean put(Student student, long readVersion) {
+        if (readVersion != version) {
+            return false;
+        }
+        rows.put(student.id, student);
+        return true;
+    }
+
+    // Removes one row (call it after the row is updated or deleted)
+    public synchronized void invalidate(long id) {
+        version++;
+        rows.remove(id);
+    }
+
+    // Removes every row (call it after a change to many rows)
+    public synchronized void invalidateAll() {
+        version++;
+        rows.clear();
+    }
+
+    public synchronized int size() {
+        return rows.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    // Returns the share of lookups that were hits (0 if there have been none)
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StudentCache{size=" + rows.size() + "/" + maxSize + ", hits=" + hitCount + ", misses=" + missCount + "}";
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * StudentChange.java
+
+ * This class describes a batch of committed changes to the student table: the IDs of the students
+ * that were inserted, updated and deleted. StudentRepository collects the changes of its writes into
+ * one batch and hands it to its change listeners, so a screen can patch just those rows instead of
+ * reloading everything.
+ * When the IDs are not known, or there are too many to be worth patching one by one (a reset, a
+ * regrade, an import, a change selected by a condition), the batch says "everything" instead.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: A batch is immutable. The ID arrays are sorted, and each ID appears in at most one of them.
+ */
+
+package com.example.studentdatabase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class StudentChange {
+
+    // Most IDs a batch lists before it becomes "everything"
+    static final int MAX_TRACKED_IDS = 1000;
+
+    private static final long[] NONE = new long[0];
+
+    // The net change of one student within a batch
+    private static final int INSERTED = 1;
+    private static final int UPDATED = 2;
+    private static final int DELETED = 3;
+
+    public final long[] inserted;
+    public final long[] updated;
+    public final long[] deleted;
+
+    // True if any number of students may have changed (the ID arrays are then empty)
+    public final boolean everything;
+
+    private StudentChange(long[] inserted, long[] updated, long[] deleted, boolean everything) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+        this.everything = everything;
+    }
+
+    public boolean isEmpty() {
+        return !everything && inserted.length == 0 && updated.length == 0 && deleted.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (everything) {
+            return "StudentChange{everything}";
+        }
+        return "StudentChange{inserted=" + Arrays.toString(inserted) + ", updated=" + Arrays.toString(updated) +
+                ", deleted=" + Arrays.toString(deleted) + "}";
+    }
+
+    /**
+     * Collects changes into a batch. Later changes to the same student are combined with earlier ones:
+     * inserted then updated is still inserted, inserted then deleted cancels out, and updated then
+     * deleted is deleted. Not thread-safe.
+     */
+    public static final class Builder {
+
+        private final HashMap<Long, Integer> changes = new HashMap<>();
+        private boolean everything = false;
+
+        public Builder inserted(long id) {
+            return add(id, INSERTED);
+        }
+
+        public Builder updated(long... ids) {
+            for (long id : ids) {
+                add(id, UPDATED);
+            }
+            return this;
+        }
+
+        public Builder deleted(long... ids) {
+            for (long id : ids) {
+                add(id, DELETED);
+            }
+            return this;
+        }
+
+        // Marks that any number of students may have changed
+        public Builder everything() {
+            everything = true;
+            changes.clear(); // Listeners reload, so the IDs are no longer needed
+            return this;
+        }
+
+        // Adds the changes of another batch that came after the ones already collected
+        public Builder add(StudentChange change) {
+            if (change.everything) {
+                return everything();
+            }
+            for (long id : change.inserted) {
+                add(id, INSERTED);
+            }
+            updated(change.updated);
+            return deleted(change.deleted);
+        }
+
+        private Builder add(long id, int kind) {
+            if (everything) {
+                return this;
+            }
+            Integer previous = changes.get(id);
+            if (previous == null) {
+                changes.put(id, kind);
+            } else if (previous == INSERTED && kind == DELETED) {
+                changes.remove(id); // Never seen by the listeners, so nothing to report
+            } else if (previous == DELETED && kind != DELETED) {
+                changes.put(id, UPDATED); // Deleted and back again: report the new row
+            } else if (previous != INSERTED) {
+                changes.put(id, kind);
+            }
+            if (changes.size() > MAX_TRACKED_IDS) {
+                everything();
+            }
+            return this;
+        }
+
+        public boolean isEmpty() {
+            return !everything && changes.isEmpty();
+        }
+
+        // Builds the batch and empties the builder for the next one
+        public StudentChange build() {
+            StudentChange change;
+            if (everything) {
+                change = new StudentChange(NONE, NONE, NONE, true);
+            } else {
+                change = new StudentChange(ids(INSERTED), ids(UPDATED), ids(DELETED), false);
+            }
+            changes.clear();
+            everything = false;
+            return change;
+        }
+
+        // Returns the IDs with the given net change, sorted
+        private long[] ids(int kind) {
+            long[] ids = new long[changes.size()];
+            int count = 0;
+            for (Map.Entry<Long, Integer> entry : changes.entrySet()) {
+                if (entry.getValue() == kind) {
+                    ids[count++] = entry.getKey();
+                }
+            }
+            ids = Arrays.copyOf(ids, count);
+            Arrays.sort(ids);
+            return ids;
+        }
+    }
+}
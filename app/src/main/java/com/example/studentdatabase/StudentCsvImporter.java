@@ -0,0 +1,236 @@
+/**
+ * StudentCsvImporter.java
+
+ * This class bulk-imports students from CSV or TSV text into the database.
+ * The input is parsed one record at a time, each student is graded with the given GradingPolicy,
+ * and rows are written in large batches through MyDatabaseHelper.upsertStudents(), each batch inside
+ * a single transaction with reused compiled statements. This avoids a separate commit (and disk sync)
+ * per student. Students are matched by number, so importing the same file again updates nothing and
+ * adds no duplicates: every row is counted as unchanged instead.
+
+ * Expected columns, in order: name, number, email, physics, math.
+ * A header line is detected and skipped, and the delimiter (comma or tab) is detected from the first line.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: This class blocks on disk I/O. Run it through StudentRepository.importCsv().
+ */
+
+package com.example.studentdatabase;
+
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StudentCsvImporter {
+
+    // Number of rows written per transaction
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    // How far ahead to look in the first line when detecting the delimiter
+    private static final int SNIFF_LENGTH = 8192;
+
+    /**
+     * Receives progress updates after every committed batch, with the counts of that batch.
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsImported, long rowsSkipped, double rowsPerSecond, UpsertResult batch);
+    }
+
+    /**
+     * Summary of a finished import. Rows that matched an existing student number are counted as
+     * updated or unchanged, and rows whose email belongs to another student as rejected.
+     */
+    public static class Result {
+        public final long rowsImported;
+        public final long rowsUpdated;
+        public final long rowsUnchanged;
+        public final long rowsRejected;
+        public final long rowsSkipped;
+        public final long elapsedMillis;
+
+        Result(long rowsImported, long rowsUpdated, long rowsUnchanged, long rowsRejected, long rowsSkipped,
+               long elapsedMillis) {
+            this.rowsImported = rowsImported;
+            this.rowsUpdated = rowsUpdated;
+            this.rowsUnchanged = rowsUnchanged;
+            this.rowsRejected = rowsRejected;
+            this.rowsSkipped = rowsSkipped;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        // Rows that matched an existing student number or email
+        public long getConflicts() {
+            return rowsUpdated + rowsUnchanged + rowsRejected;
+        }
+
+        // Average throughput over the whole import, counting every well-formed row
+        public double getRowsPerSecond() {
+            return rowsPerSecond(rowsImported + getConflicts(), elapsedMillis);
+        }
+    }
+
+    private final MyDatabaseHelper myDB;
+    private final int batchSize;
+    private final GradingPolicy policy;
+
+    /**
+     * Constructor for the StudentCsvImporter class.
+     *
+     * @param myDB The database helper to import into.
+     * @param batchSize The number of rows written per transaction.
+     * @param policy The grading policy used to grade each imported student.
+     */
+    public StudentCsvImporter(MyDatabaseHelper myDB, int batchSize, GradingPolicy policy) {
+        this.myDB = myDB;
+        this.batchSize = batchSize;
+        this.policy = policy;
+    }
+
+    /**
+     * Imports every student in the stream. Rows that are malformed (missing fields, non-numeric marks,
+     * empty name or email) are skipped and counted. Batches that were already committed stay in the
+     * database if a later one fails.
+     *
+     * @param in The CSV or TSV text, UTF-8 encoded. It is not closed by this method.
+     * @param listener Optional receiver of progress updates.
+     * @return A summary of the import.
+     * @throws IOException If reading the stream fails.
+     */
+    public Result importFrom(InputStream in, @Nullable ProgressListener listener) throws IOException {
+        DbThreadGuard.check();
+        long start = SystemClock.elapsedRealtime();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        CsvRecordReader records = new CsvRecordReader(reader, detectDelimiter(reader));
+        List<String> fields = new ArrayList<>();
+        List<Student> batch = new ArrayList<>(Math.min(batchSize, 1024));
+
+        long imported = 0, updated = 0, unchanged = 0, rejected = 0;
+        long skipped = 0;
+        boolean firstRecord = true;
+        boolean more = true;
+        while (more) {
+            batch.clear();
+            while (batch.size() < batchSize) {
+                if (!records.readRecord(fields)) {
+                    more = false;
+                    break;
+                }
+
+                // Skip blank lines
+                if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                    continue;
+                }
+
+                boolean header = firstRecord && fields.size() > 1 && !isInteger(fields.get(1).trim());
+                firstRecord = false;
+                if (header) {
+                    continue;
+                }
+
+                Student student = parseRow(fields, policy);
+                if (student != null) {
+                    batch.add(student);
+                } else {
+                    skipped++;
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            // The batch is written in one transaction
+            UpsertResult written = myDB.upsertStudents(batch);
+            imported += written.inserted;
+            updated += written.updated;
+            unchanged += written.unchanged;
+            rejected += written.rejected;
+
+            if (listener != null) {
+                listener.onProgress(imported, skipped,
+                        rowsPerSecond(imported + updated + unchanged + rejected, SystemClock.elapsedRealtime() - start),
+                        written);
+            }
+        }
+
+        return new Result(imported, updated, unchanged, rejected, skipped, SystemClock.elapsedRealtime() - start);
+    }
+
+    /**
+     * Validates a record and turns it into a graded student.
+     *
+     * @return The student, or null if the record is malformed and should be skipped.
+     */
+    @Nullable
+    private static Student parseRow(List<String> fields, GradingPolicy policy) {
+        if (fields.size() < 5) {
+            return null;
+        }
+        String name = fields.get(0).trim();
+        String mail = fields.get(2).trim();
+        if (name.isEmpty() || mail.isEmpty()) {
+            return null;
+        }
+
+        int number, physics, math;
+        try {
+            number = Integer.parseInt(fields.get(1).trim());
+            physics = Integer.parseInt(fields.get(3).trim());
+            math = Integer.parseInt(fields.get(4).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        return new Student(0, name, number, mail, physics, math, policy.grade(physics, math));
+    }
+
+    /**
+     * Looks at the first line without consuming it and picks tab if it has more tabs than commas.
+     */
+    static char detectDelimiter(BufferedReader reader) throws IOException {
+        reader.mark(SNIFF_LENGTH);
+        int tabs = 0, commas = 0;
+        for (int i = 0; i < SNIFF_LENGTH; i++) {
+            int c = reader.read();
+            if (c == -1 || c == '\n' || c == '\r') {
+                break;
+            }
+            if (c == '\t') {
+                tabs++;
+            } else if (c == ',') {
+                commas++;
+            }
+        }
+        reader.reset();
+        return tabs > commas ? '\t' : ',';
+    }
+
+    // Returns true if the text is a (possibly signed) whole number
+    private static boolean isInteger(String text) {
+        if (text.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && !(i == 0 && c == '-' && text.length() > 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double rowsPerSecond(long rows, long millis) {
+        return millis <= 0 ? rows * 1000.0 : rows * 1000.0 / millis;
+    }
+}
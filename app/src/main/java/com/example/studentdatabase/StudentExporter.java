@@ -0,0 +1,353 @@
+/**
+ * StudentExporter.java
+
+ * This class streams the whole student table out to CSV or JSON Lines.
+ * Rows are read in ID-ordered chunks with keyset pagination, and each row is encoded straight
+ * from the cursor into a reusable byte buffer that is flushed to a channel when full.
+ * Text columns are copied into a reused char buffer and numbers are written digit by digit,
+ * so no String is created per row and memory use stays flat however many students there are.
+ * A missing (NULL) value is written as an empty CSV field or a JSON null, never as 0 or "".
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: This class blocks on disk I/O. Run it through StudentRepository.export().
+ * An export can be stopped with cancel() or by interrupting its thread; the result reports it.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+public class StudentExporter {
+
+    // Number of rows read from the database per chunk
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    // Size of the output buffer in bytes
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Column headers, in the order of "SELECT *" on the student table
+    private static final String[] COLUMNS = {"id", "name", "number", "mail", "physics", "math", "grade"};
+
+    // Which columns hold text (the others are whole numbers)
+    private static final boolean[] TEXT_COLUMN = {false, true, false, true, false, false, true};
+
+    /**
+     * The output formats supported by the exporter.
+     */
+    public enum Format {
+        CSV("text/csv", ".csv"),
+        JSON_LINES("application/x-ndjson", ".jsonl");
+
+        public final String mimeType;
+        public final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Receives progress updates after every chunk.
+     */
+    public interface ProgressListener {
+        void onProgress(long rowsExported, long bytesWritten);
+    }
+
+    /**
+     * Summary of a finished (or cancelled) export.
+     */
+    public static class Result {
+        public final long rowsExported;
+        public final long bytesWritten;
+        public final long elapsedMillis;
+        public final boolean cancelled;
+
+        Result(long rowsExported, long bytesWritten, long elapsedMillis, boolean cancelled) {
+            this.rowsExported = rowsExported;
+            this.bytesWritten = bytesWritten;
+            this.elapsedMillis = elapsedMillis;
+            this.cancelled = cancelled;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis <= 0 ? rowsExported * 1000.0 : rowsExported * 1000.0 / elapsedMillis;
+        }
+
+        public double getBytesPerSecond() {
+            return elapsedMillis <= 0 ? bytesWritten * 1000.0 : bytesWritten * 1000.0 / elapsedMillis;
+        }
+    }
+
+    private final MyDatabaseHelper myDB;
+    private final int chunkSize;
+    private volatile boolean cancelled = false;
+
+    // Reused buffers
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharArrayBuffer text = new CharArrayBuffer(128);
+    private final byte[] digits = new byte[20];
+    private WritableByteChannel channel;
+    private long bytesWritten;
+
+    /**
+     * Constructor for the StudentExporter class.
+     *
+     * @param myDB The database helper to export from.
+     * @param chunkSize The number of rows read per database query.
+     */
+    public StudentExporter(MyDatabaseHelper myDB, int chunkSize) {
+        this.myDB = myDB;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Asks a running export to stop after the current chunk.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Writes every student to the channel in the given format.
+     *
+     * @param target The channel to write to (for example a FileChannel). It is not closed by this method.
+     * @param format The output format.
+     * @param listener Optional receiver of progress updates.
+     * @return A summary of the export.
+     * @throws IOException If writing to the channel fails.
+     */
+    public Result export(WritableByteChannel target, Format format, @Nullable ProgressListener listener) throws IOException {
+        DbThreadGuard.check();
+        long start = SystemClock.elapsedRealtime();
+        channel = target;
+        bytesWritten = 0;
+        out.clear();
+
+        if (format == Format.CSV) {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    putByte(',');
+                }
+                putAscii(COLUMNS[i]);
+            }
+            putByte('\n');
+        }
+
+        long rows = 0;
+        long lastId = 0;
+        boolean stopped = false;
+        while (true) {
+            if (cancelled || Thread.currentThread().isInterrupted()) {
+                stopped = true;
+                break;
+            }
+
+            int inChunk = 0;
+            Cursor cursor = myDB.readPage(lastId, chunkSize);
+            try {
+                while (cursor.moveToNext()) {
+                    lastId = cursor.getLong(0);
+                    if (format == Format.CSV) {
+                        writeCsvRow(cursor);
+                    } else {
+                        writeJsonRow(cursor);
+                    }
+                    inChunk++;
+                }
+            } finally {
+                cursor.close();
+            }
+            rows += inChunk;
+
+            if (listener != null && inChunk > 0) {
+                listener.onProgress(rows, bytesWritten + out.position());
+            }
+            if (inChunk < chunkSize) {
+                break; // Last chunk
+            }
+        }
+
+        flush();
+        return new Result(rows, bytesWritten, SystemClock.elapsedRealtime() - start, stopped);
+    }
+
+    // Writes one row as a CSV line, quoting text fields only when needed. NULL values are left empty.
+    private void writeCsvRow(Cursor cursor) throws IOException {
+        for (int col = 0; col < COLUMNS.length; col++) {
+            if (col > 0) {
+                putByte(',');
+            }
+            if (cursor.isNull(col)) {
+                continue;
+            }
+            if (TEXT_COLUMN[col]) {
+                cursor.copyStringToBuffer(col, text);
+                putCsvText();
+            } else {
+                putLong(cursor.getLong(col));
+            }
+        }
+        putByte('\n');
+    }
+
+    // Writes one row as a JSON object on its own line
+    private void writeJsonRow(Cursor cursor) throws IOException {
+        putByte('{');
+        for (int col = 0; col < COLUMNS.length; col++) {
+            if (col > 0) {
+                putByte(',');
+            }
+            putByte('"');
+            putAscii(COLUMNS[col]);
+            putByte('"');
+            putByte(':');
+            if (cursor.isNull(col)) {
+                putAscii("null");
+            } else if (TEXT_COLUMN[col]) {
+                cursor.copyStringToBuffer(col, text);
+                putJsonText();
+            } else {
+                putLong(cursor.getLong(col));
+            }
+        }
+        putByte('}');
+        putByte('\n');
+    }
+
+    // Writes the text buffer as a CSV field, quoted if it contains a delimiter, quote or line break
+    private void putCsvText() throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.sizeCopied; i++) {
+            char c = text.data[i];
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (quote) {
+            putByte('"');
+        }
+        for (int i = 0; i < text.sizeCopied; i++) {
+            char c = text.data[i];
+            if (c == '"') {
+                putByte('"'); // Double the quote
+            }
+            i = putChar(text.data, i, text.sizeCopied);
+        }
+        if (quote) {
+            putByte('"');
+        }
+    }
+
+    // Writes the text buffer as a JSON string with the required escapes
+    private void putJsonText() throws IOException {
+        putByte('"');
+        for (int i = 0; i < text.sizeCopied; i++) {
+            char c = text.data[i];
+            if (c == '"' || c == '\\') {
+                putByte('\\');
+                putByte(c);
+            } else if (c == '\n') {
+                putByte('\\');
+                putByte('n');
+            } else if (c == '\r') {
+                putByte('\\');
+                putByte('r');
+            } else if (c == '\t') {
+                putByte('\\');
+                putByte('t');
+            } else if (c < 0x20) {
+                putAscii("\\u00");
+                putByte(Character.forDigit(c >> 4, 16));
+                putByte(Character.forDigit(c & 0xF, 16));
+            } else {
+                i = putChar(text.data, i, text.sizeCopied);
+            }
+        }
+        putByte('"');
+    }
+
+    /**
+     * Encodes the character at index i as UTF-8 (combining surrogate pairs).
+     *
+     * @return The index of the last char consumed.
+     */
+    private int putChar(char[] chars, int i, int length) throws IOException {
+        char c = chars[i];
+        if (c < 0x80) {
+            putByte(c);
+        } else if (c < 0x800) {
+            putByte(0xC0 | (c >> 6));
+            putByte(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(chars[i + 1])) {
+            int cp = Character.toCodePoint(c, chars[i + 1]);
+            putByte(0xF0 | (cp >> 18));
+            putByte(0x80 | ((cp >> 12) & 0x3F));
+            putByte(0x80 | ((cp >> 6) & 0x3F));
+            putByte(0x80 | (cp & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            putByte('?'); // Unpaired surrogate
+        } else {
+            putByte(0xE0 | (c >> 12));
+            putByte(0x80 | ((c >> 6) & 0x3F));
+            putByte(0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    // Writes a whole number in decimal without creating a String
+    private void putLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            putAscii("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            putByte('-');
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (pos < digits.length) {
+            putByte(digits[pos++]);
+        }
+    }
+
+    // Writes a constant ASCII string
+    private void putAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            putByte(s.charAt(i));
+        }
+    }
+
+    private void putByte(int b) throws IOException {
+        if (!out.hasRemaining()) {
+            flush();
+        }
+        out.put((byte) b);
+    }
+
+    // Writes everything in the output buffer to the channel
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            bytesWritten += channel.write(out);
+        }
+        out.clear();
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * StudentListSnapshot.java
+
+ * This class is a small binary copy of the first rows of the student list (ID, name, number, email
+ * and grade), saved to a file after the students change and mapped into memory at the next cold start.
+ * The list can show it before the database has been opened: rows are read straight out of the mapped
+ * file, so nothing is parsed and no object is created per row.
+
+ * File layout (big-endian):
+ * 1. header: magic "STLS", version, stamp (the database's data version when the rows were read),
+ *    time written (milliseconds since 1970), row count, number of text chars;
+ * 2. each row in 24 bytes: ID (long), number (int), offset of its text (int), then the lengths of its
+ *    name, email and grade (shorts) and a spare short;
+ * 3. the text of every row as UTF-16 chars: name, then email, then grade.
+ * The file size must match the header exactly and every row's text must lie inside the text region,
+ * so a damaged or half-written file is rejected instead of shown.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: The snapshot is a cache. It is only shown until the real first page has been read, and the
+ * stamp tells StudentRepository whether it needs writing again.
+ */
+
+package com.example.studentdatabase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+
+public final class StudentListSnapshot {
+
+    private static final int MAGIC = 0x53544C53; // "STLS"
+    private static final int VERSION = 1;
+
+    // Header: magic (4) + version (4) + stamp (8) + time written (8) + row count (4) + text chars (4)
+    static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4;
+
+    // Row: id (8) + number (4) + text offset (4) + name, email and grade lengths (2 each) + spare (2)
+    static final int ROW_BYTES = 8 + 4 + 4 + 2 + 2 + 2 + 2;
+
+    // Where each row value sits within its 24 bytes
+    private static final int NUMBER_OFFSET = 8;
+    private static final int TEXT_OFFSET = 12;
+    private static final int NAME_LENGTH_OFFSET = 16;
+    private static final int MAIL_LENGTH_OFFSET = 18;
+    private static final int GRADE_LENGTH_OFFSET = 20;
+
+    // Longest name, email or grade kept (the lengths are stored as shorts); longer text is cut off
+    private static final int MAX_TEXT_LENGTH = Short.MAX_VALUE;
+
+    private final ByteBuffer rows;
+    private final CharBuffer text;
+    private final int size;
+    private final long stamp;
+    private final long createdAt;
+
+    private StudentListSnapshot(ByteBuffer rows, CharBuffer text, int size, long stamp, long createdAt) {
+        this.rows = rows;
+        this.text = text;
+        this.size = size;
+        this.stamp = stamp;
+        this.createdAt = createdAt;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the data version of the database when these rows were read (see MyDatabaseHelper.getDataVersion())
+    public long getStamp() {
+        return stamp;
+    }
+
+    // Returns the time the snapshot was written (System.currentTimeMillis())
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getId(int row) {
+        return rows.getLong(row * ROW_BYTES);
+    }
+
+    public int getNumber(int row) {
+        return rows.getInt(row * ROW_BYTES + NUMBER_OFFSET);
+    }
+
+    public int getNameLength(int row) {
+        return rows.getShort(row * ROW_BYTES + NAME_LENGTH_OFFSET);
+    }
+
+    public int getMailLength(int row) {
+        return rows.getShort(row * ROW_BYTES + MAIL_LENGTH_OFFSET);
+    }
+
+    public int getGradeLength(int row) {
+        return rows.getShort(row * ROW_BYTES + GRADE_LENGTH_OFFSET);
+    }
+
+    // Copies the name into the start of dest (which must hold getNameLength(row) chars)
+    public void copyName(int row, char[] dest) {
+        copyText(textStart(row), getNameLength(row), dest);
+    }
+
+    // Copies the email into the start of dest (which must hold getMailLength(row) chars)
+    public void copyMail(int row, char[] dest) {
+        copyText(textStart(row) + getNameLength(row), getMailLength(row), dest);
+    }
+
+    // Copies the grade into the start of dest (which must hold getGradeLength(row) chars)
+    public void copyGrade(int row, char[] dest) {
+        copyText(textStart(row) + getNameLength(row) + getMailLength(row), getGradeLength(row), dest);
+    }
+
+    private int textStart(int row) {
+        return rows.getInt(row * ROW_BYTES + TEXT_OFFSET);
+    }
+
+    // The text view has a single position, so the copies are only safe from one thread at a time
+    private void copyText(int start, int length, char[] dest) {
+        text.position(start);
+        text.get(dest, 0, length);
+    }
+
+    /**
+     * Maps a snapshot file into memory and checks it. Only the header and the row table are read;
+     * the text is read when a row is shown.
+     *
+     * @param file The snapshot file.
+     * @return The mapped snapshot, which can be used after the file is deleted or replaced.
+     * @throws IOException If the file is missing, cannot be read, or is not a complete snapshot.
+     */
+    public static StudentListSnapshot map(File file) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            FileChannel channel = in.getChannel();
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a list snapshot (" + length + " bytes)");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length); // Stays valid after the channel closes
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a list snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has unknown version " + buffer.getInt(4));
+        }
+        long stamp = buffer.getLong(8);
+        long createdAt = buffer.getLong(16);
+        int size = buffer.getInt(24);
+        int textChars = buffer.getInt(28);
+        if (size < 0 || textChars < 0
+                || buffer.capacity() != HEADER_BYTES + (long) size * ROW_BYTES + 2L * textChars) {
+            throw new IOException(file + " is incomplete");
+        }
+
+        buffer.position(HEADER_BYTES);
+        buffer.limit(HEADER_BYTES + size * ROW_BYTES);
+        ByteBuffer rows = buffer.slice();
+        buffer.limit(buffer.capacity());
+        buffer.position(HEADER_BYTES + size * ROW_BYTES);
+        CharBuffer text = buffer.slice().asCharBuffer();
+
+        // Every row's text must lie inside the text region, so showing a row can never read past it
+        for (int row = 0; row < size; row++) {
+            int at = row * ROW_BYTES;
+            long start = rows.getInt(at + TEXT_OFFSET);
+            int name = rows.getShort(at + NAME_LENGTH_OFFSET);
+            int mail = rows.getShort(at + MAIL_LENGTH_OFFSET);
+            int grade = rows.getShort(at + GRADE_LENGTH_OFFSET);
+            if (start < 0 || name < 0 || mail < 0 || grade < 0 || start + name + mail + grade > textChars) {
+                throw new IOException(file + " has a damaged row " + row);
+            }
+        }
+        return new StudentListSnapshot(rows, text, size, stamp, createdAt);
+    }
+
+    /**
+     * Writes the first rows of a table to a snapshot file. The file is written under a temporary name and
+     * then renamed over the target, so a reader maps either the old snapshot or the new one. It is not
+     * synced to disk: if it is lost or cut short, map() rejects it and the list waits for the database.
+     *
+     * @param table The rows to save, in the order the list shows them.
+     * @param rowCount How many rows to save (at most table.size()).
+     * @param target The snapshot file.
+     * @param stamp The data version of the database when the rows were read.
+     * @return The size of the file in bytes.
+     * @throws IOException If the file cannot be written.
+     */
+    static long write(StudentTable table, int rowCount, File target, long stamp) throws IOException {
+        int size = Math.min(rowCount, table.size());
+        int textChars = 0;
+        for (int row = 0; row < size; row++) {
+            textChars += Math.min(table.getNameLength(row), MAX_TEXT_LENGTH)
+                    + Math.min(table.getMailLength(row), MAX_TEXT_LENGTH)
+                    + Math.min(table.getGrade(row).length(), MAX_TEXT_LENGTH);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size * ROW_BYTES + 2 * textChars);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(stamp).putLong(System.currentTimeMillis())
+                .putInt(size).putInt(textChars);
+
+        // Collect all text in one array, then copy it into the buffer in one go
+        char[] chars = new char[textChars];
+        int textAt = 0;
+        for (int row = 0; row < size; row++) {
+            int start = textAt;
+            int name = table.copyName(row, chars, textAt, MAX_TEXT_LENGTH);
+            textAt += name;
+            int mail = table.copyMail(row, chars, textAt, MAX_TEXT_LENGTH);
+            textAt += mail;
+            String grade = table.getGrade(row);
+            int gradeLength = Math.min(grade.length(), MAX_TEXT_LENGTH);
+            grade.getChars(0, gradeLength, chars, textAt);
+            textAt += gradeLength;
+
+            buffer.putLong(table.getId(row)).putInt(table.getNumber(row)).putInt(start)
+                    .putShort((short) name).putShort((short) mail).putShort((short) gradeLength).putShort((short) 0);
+        }
+        buffer.asCharBuffer().put(chars);
+        buffer.rewind();
+
+        File temp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Could not replace " + target);
+        }
+        return target.length();
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * StudentPageSource.java
+
+ * This class loads the student list from the database one page at a time.
+ * It remembers the ID of the last student it returned and asks MyDatabaseHelper for the
+ * next rows after that ID, so the list can grow as the user scrolls instead of reading
+ * the whole table up front.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * A sorted list (see StudentSort) is paged the same way, except the position is the sort key and ID of the
+ * last student, so changing the order only starts a new page source instead of reading the whole table.
+
+ * Note: The ID column is the first column of every page cursor (SELECT * with _id first).
+ * Loading and resetting are synchronized because they run on StudentRepository's reader threads;
+ * hasMore() only reads a volatile flag so the main thread can call it without waiting on a query.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+
+import androidx.annotation.Nullable;
+
+public class StudentPageSource {
+
+    // Number of rows fetched per page by default
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    // Rows read by every page source, for the debug screen (see Metrics)
+    private static final Metrics.Counter ROWS_LOADED = Metrics.counter("list.rowsLoaded");
+
+    /**
+     * Receives each row of a loaded page. The cursor is positioned on the row being delivered.
+     */
+    public interface RowSink {
+        void onRow(Cursor cursor);
+    }
+
+    /**
+     * Runs the query for one page: rows with an ID greater than afterId, in ID order, at most limit rows.
+     */
+    public interface PageQuery {
+        Cursor query(long afterId, int limit);
+    }
+
+    /**
+     * Runs the query for one page of a sorted list: rows after the row with key afterKey and ID afterId,
+     * in sort order. The cursor may hold more than limit rows; only the first limit are used.
+     */
+    public interface SortedPageQuery {
+        Cursor query(boolean fromStart, @Nullable String afterKey, long afterId, int limit);
+    }
+
+    private final SortedPageQuery pageQuery;
+    private final int pageSize;
+
+    // Name of the column holding the sort key (null when the list is in ID order)
+    @Nullable
+    private final String keyColumn;
+
+    // Keyset position: the sort key and ID of the last row handed out (0 means "start from the beginning")
+    private long lastId = 0;
+    @Nullable
+    private String lastKey = null;
+    private volatile boolean endReached = false;
+
+    // Number of rows handed out since the last reset
+    private int loadedRows = 0;
+
+    /**
+     * Constructor for the StudentPageSource class.
+     *
+     * @param myDB The database helper to read pages from.
+     * @param pageSize The maximum number of rows returned by each call to loadNextPage().
+     */
+    public StudentPageSource(MyDatabaseHelper myDB, int pageSize) {
+        this(myDB::readPage, pageSize);
+    }
+
+    /**
+     * Constructor for a page source over any ID-ordered query.
+     *
+     * @param pageQuery The query that reads one page.
+     * @param pageSize The maximum number of rows returned by each call to loadNextPage().
+     */
+    public StudentPageSource(PageQuery pageQuery, int pageSize) {
+        this((fromStart, afterKey, afterId, limit) -> pageQuery.query(afterId, limit), null, pageSize);
+    }
+
+    // Constructor for a page source over any query ordered by (key column, ID)
+    private StudentPageSource(SortedPageQuery pageQuery, @Nullable String keyColumn, int pageSize) {
+        this.pageQuery = pageQuery;
+        this.keyColumn = keyColumn;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a page source over every student in the given order.
+     *
+     * @param myDB The database helper to read pages from.
+     * @param sort The order of the list.
+     * @param pageSize The maximum number of rows per page.
+     * @return The page source.
+     */
+    public static StudentPageSource forSort(MyDatabaseHelper myDB, StudentSort sort, int pageSize) {
+        return new StudentPageSource(
+                (fromStart, afterKey, afterId, limit) -> myDB.readSortedPage(sort, fromStart, afterKey, afterId, limit),
+                sort.column, pageSize);
+    }
+
+    /**
+     * Creates a page source over the results of a search.
+     *
+     * @param myDB The database helper to search.
+     * @param text The search text (see MyDatabaseHelper.searchStudents()).
+     * @param grade Optional grade to filter by.
+     * @param pageSize The maximum number of rows per page.
+     * @return The page source.
+     */
+    public static StudentPageSource forSearch(MyDatabaseHelper myDB, String text, String grade, int pageSize) {
+        return new StudentPageSource((afterId, limit) -> myDB.searchStudents(text, grade, afterId, limit), pageSize);
+    }
+
+    /**
+     * Loads the next page of students and passes every row to the sink.
+     *
+     * @param sink The receiver of the loaded rows.
+     * @return The number of rows loaded (0 once the end of the table has been reached).
+     */
+    public synchronized int loadNextPage(RowSink sink) {
+        if (endReached) {
+            return 0;
+        }
+
+        int count = readRows(pageSize, sink);
+        loadedRows += count;
+        return count;
+    }
+
+    /**
+     * Reads again every row loaded so far (at least one page), for example after the data has changed.
+     * The page source continues from the end of the reloaded rows afterwards.
+     *
+     * @param sink The receiver of the reloaded rows.
+     * @return The number of rows reloaded.
+     */
+    public synchronized int reload(RowSink sink) {
+        int limit = Math.max(loadedRows, pageSize);
+        lastId = 0;
+        lastKey = null;
+        endReached = false;
+        loadedRows = readRows(limit, sink);
+        return loadedRows;
+    }
+
+    // Reads up to limit rows after the keyset position and moves the position past them
+    private int readRows(int limit, RowSink sink) {
+        int count = 0;
+        Cursor cursor = pageQuery.query(lastId == 0, lastKey, lastId, limit);
+        try {
+            int keyIndex = keyColumn == null ? -1 : cursor.getColumnIndexOrThrow(keyColumn);
+            while (count < limit && cursor.moveToNext()) {
+                lastId = cursor.getLong(0);
+                if (keyIndex >= 0) {
+                    lastKey = cursor.isNull(keyIndex) ? null : cursor.getString(keyIndex);
+                }
+                sink.onRow(cursor);
+                count++;
+            }
+        } finally {
+            cursor.close();
+        }
+
+        ROWS_LOADED.add(count);
+
+        // A short page means there is nothing more to read
+        if (count < limit) {
+            endReached = true;
+        }
+        return count;
+    }
+
+    /**
+     * Starts paging again from the first student (used after the data has changed).
+     */
+    public synchronized void reset() {
+        lastId = 0;
+        lastKey = null;
+        endReached = false;
+        loadedRows = 0;
+    }
+
+    /**
+     * Lets loadNextPage() read past the last loaded row again, for example after students were added
+     * at the end of the order. The position is kept.
+     */
+    public synchronized void resume() {
+        endReached = false;
+    }
+
+    // Returns true if there may be more rows to load
+    public boolean hasMore() {
+        return !endReached;
+    }
+}
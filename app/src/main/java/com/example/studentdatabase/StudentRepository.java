@@ -0,0 +1,1169 @@
+/**
+ * StudentRepository.java
+
+ * This class runs every MyDatabaseHelper operation off the main thread.
+ * Writes go through a single writer thread so they are applied in the order they were requested,
+ * and reads run on a small pool of reader threads. Each call returns a Future and, if a callback
+ * is given, posts the result back to the main thread so activities only have to render it.
+ * A restore has the database to itself: it waits for running tasks on every thread to finish, and
+ * holds new ones back until the restored file is in place.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Use getInstance() so the whole app shares the same threads and database helper.
+ */
+
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class StudentRepository {
+
+    private static final String TAG = "StudentRepository";
+
+    // Number of threads serving read queries
+    private static final int READER_THREADS = 2;
+
+    // Maximum number of queued operations per executor (see newExecutor())
+    private static final int MAX_QUEUED_TASKS = 128;
+
+    // SharedPreferences file holding the grading policy
+    private static final String PREFERENCES_NAME = "student_repository";
+
+    // Directory (in the app's files) holding the database snapshots
+    private static final String BACKUP_DIRECTORY = "backups";
+
+    // File (in the app's files) holding the list snapshot shown at the next cold start
+    private static final String LIST_SNAPSHOT_FILE = "student_list.snapshot";
+
+    // Rows kept in the list snapshot: the first page, which is more than a screen
+    static final int LIST_SNAPSHOT_ROWS = StudentPageSource.DEFAULT_PAGE_SIZE;
+
+    // Preference holding the time (System.currentTimeMillis()) of the last maintenance run
+    private static final String KEY_LAST_MAINTENANCE = "last_maintenance";
+
+    // How often the scheduled maintenance runs, and how long after startup it is first considered
+    private static final long MAINTENANCE_INTERVAL_MS = TimeUnit.DAYS.toMillis(1);
+    private static final long MAINTENANCE_DELAY_MS = TimeUnit.SECONDS.toMillis(30);
+
+    // Free pages handed back per writer task after a reset, so other writes can run in between
+    private static final int RECLAIM_PAGES_PER_TASK = 1024;
+
+    // How long changes are collected before they are handed to the change listeners as one batch
+    private static final long CHANGE_BATCH_DELAY_MS = 50;
+
+    // Timers for each operation, measured on the thread that runs it (see Metrics)
+    private static final Metrics.Timer OPEN_TIMER = Metrics.timer("db.open");
+    private static final Metrics.Timer LOAD_STUDENT_TIMER = Metrics.timer("db.loadStudent");
+    private static final Metrics.Timer LOAD_STUDENTS_TIMER = Metrics.timer("db.loadStudents");
+    private static final Metrics.Timer ADD_STUDENT_TIMER = Metrics.timer("db.addStudent");
+    private static final Metrics.Timer UPDATE_STUDENT_TIMER = Metrics.timer("db.updateStudent");
+    private static final Metrics.Timer DELETE_ONE_ROW_TIMER = Metrics.timer("db.deleteOneRow");
+    private static final Metrics.Timer UPSERT_STUDENTS_TIMER = Metrics.timer("db.upsertStudents");
+    private static final Metrics.Timer DELETE_STUDENTS_TIMER = Metrics.timer("db.deleteStudents");
+    private static final Metrics.Timer UPDATE_MARKS_TIMER = Metrics.timer("db.updateMarks");
+    private static final Metrics.Timer DELETE_ALL_DATA_TIMER = Metrics.timer("db.deleteAllData");
+    private static final Metrics.Timer RUN_MAINTENANCE_TIMER = Metrics.timer("db.runMaintenance");
+    private static final Metrics.Timer REGRADE_TIMER = Metrics.timer("db.regrade");
+    private static final Metrics.Timer LOAD_STATISTICS_TIMER = Metrics.timer("db.loadStatistics");
+    private static final Metrics.Timer LOAD_TOP_STUDENTS_TIMER = Metrics.timer("db.loadTopStudents");
+    private static final Metrics.Timer LOAD_SCORES_TIMER = Metrics.timer("db.loadScores");
+    private static final Metrics.Timer SET_SCORE_TIMER = Metrics.timer("db.setScore");
+    private static final Metrics.Timer IMPORT_CSV_TIMER = Metrics.timer("db.importCsv");
+    private static final Metrics.Timer EXPORT_TIMER = Metrics.timer("db.export");
+    private static final Metrics.Timer LOAD_FIRST_PAGE_TIMER = Metrics.timer("db.loadFirstPage");
+    private static final Metrics.Timer RELOAD_TIMER = Metrics.timer("db.reload");
+    private static final Metrics.Timer LOAD_NEXT_PAGE_TIMER = Metrics.timer("db.loadNextPage");
+    private static final Metrics.Timer SYNC_TIMER = Metrics.timer("sync.run");
+    private static final Metrics.Timer BACKUP_TIMER = Metrics.timer("db.backup");
+    private static final Metrics.Timer RESTORE_TIMER = Metrics.timer("db.restore");
+    private static final Metrics.Timer WRITE_LIST_SNAPSHOT_TIMER = Metrics.timer("db.writeListSnapshot");
+    private static final Metrics.Timer MAP_LIST_SNAPSHOT_TIMER = Metrics.timer("startup.mapListSnapshot");
+
+    // Time operations spend queued before a thread picks them up
+    private static final Metrics.Timer WRITER_WAIT_TIMER = Metrics.timer("queue.writerWait");
+    private static final Metrics.Timer READER_WAIT_TIMER = Metrics.timer("queue.readerWait");
+    private static final Metrics.Timer SYNC_WAIT_TIMER = Metrics.timer("queue.syncWait");
+
+    // Operations that threw an exception
+    private static final Metrics.Counter FAILURES = Metrics.counter("db.failures");
+
+    // Operations that found their executor's queue full (see newExecutor())
+    private static final Metrics.Counter QUEUE_FULL_WAITS = Metrics.counter("queue.fullWaits");
+    private static final Metrics.Counter QUEUE_FULL_RUNS = Metrics.counter("queue.fullCallerRuns");
+    private static final Metrics.Counter QUEUE_FULL_REJECTIONS = Metrics.counter("queue.fullRejections");
+
+    // List snapshots mapped at startup that turned out older than the database once it was open
+    private static final Metrics.Counter STALE_LIST_SNAPSHOTS = Metrics.counter("startup.listSnapshotStale");
+
+    /**
+     * Receives the result of a repository operation on the main thread.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        // Called on the main thread instead of onResult() if the operation threw. The failure has already been
+        // logged, so by default nothing else is done. Use callback() to handle it with a lambda.
+        default void onError(Exception error) {
+        }
+    }
+
+    /**
+     * Receives the failure of a repository operation on the main thread.
+     */
+    public interface ErrorCallback {
+        void onError(Exception error);
+    }
+
+    /**
+     * Combines a result callback and an error callback, for screens that wait for an operation
+     * (for example with a button disabled) and must recover if it fails.
+     */
+    public static <T> Callback<T> callback(Callback<T> onResult, ErrorCallback onError) {
+        return new Callback<T>() {
+            @Override
+            public void onResult(T result) {
+                onResult.onResult(result);
+            }
+
+            @Override
+            public void onError(Exception error) {
+                onError.onError(error);
+            }
+        };
+    }
+
+    /**
+     * Receives batches of committed changes to the students, on the main thread.
+     */
+    public interface ChangeListener {
+        void onStudentsChanged(StudentChange change);
+    }
+
+    private static StudentRepository instance;
+
+    private final MyDatabaseHelper myDB;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService readExecutor;
+    private final ExecutorService syncExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Every task holds the read lock while it runs, and restore() holds the write lock, so no read, write,
+    // sync or backup is using the connection while the database file is swapped. A sync only holds it for
+    // each of its database steps, not while it waits for the network.
+    private final ReentrantReadWriteLock databaseLock = new ReentrantReadWriteLock();
+
+    // Takes and restores snapshots of the database (null in tests, which use an in-memory database)
+    @Nullable
+    private final DatabaseBackup backup;
+
+    // Where the grading policy is saved (null in tests, where it is not saved)
+    @Nullable
+    private final SharedPreferences preferences;
+
+    // Policy used to grade added, updated and imported students. Only replaced on the writer thread.
+    private volatile GradingPolicy gradingPolicy;
+
+    // Recently opened students, invalidated by every write that changes them
+    private final StudentCache studentCache = new StudentCache(StudentCache.DEFAULT_MAX_SIZE);
+
+    // Change listeners (only used on the main thread)
+    private final List<ChangeListener> changeListeners = new ArrayList<>();
+
+    // Changes committed since the last batch was handed out, and whether handing them out is already scheduled
+    private final StudentChange.Builder pendingChanges = new StudentChange.Builder();
+    private boolean changeDispatchPosted = false;
+
+    // Number of change batches published so far (only changed while holding the pendingChanges lock)
+    private volatile long publishedChanges = 0;
+
+    // The first page read ahead at startup and the screens waiting for it (only used on the main thread)
+    @Nullable
+    private FirstPage prefetchedPage;
+    private boolean prefetching = false;
+    private final List<Runnable> prefetchWaiters = new ArrayList<>();
+
+    // Where the list snapshot is kept (null in tests, where none is written)
+    @Nullable
+    private final File listSnapshotFile;
+
+    // The list snapshot from the last session, until the list takes it or it turns out stale, and the data
+    // version it was saved at (-1 if there was none). Only used on the main thread.
+    @Nullable
+    private StudentListSnapshot listSnapshot;
+    private boolean listSnapshotMapped = false;
+    private long listSnapshotStamp = -1;
+
+    // Whether a list snapshot write is queued and has not started reading yet (later changes queue another)
+    private final AtomicBoolean listSnapshotWriteQueued = new AtomicBoolean();
+
+    // Held while a list snapshot is read and written, so two writes never overlap
+    private final Object listSnapshotLock = new Object();
+
+    /**
+     * Returns the process-wide repository, creating it on first use.
+     *
+     * @param context Any context; only the application context is kept.
+     * @return The shared StudentRepository.
+     */
+    public static synchronized StudentRepository getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new StudentRepository(DatabaseProvider.get(context),
+                    appContext.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE),
+                    new File(appContext.getFilesDir(), BACKUP_DIRECTORY),
+                    new File(appContext.getFilesDir(), LIST_SNAPSHOT_FILE));
+        }
+        return instance;
+    }
+
+    // Constructor (package-private so tests can supply their own database helper). Uses the default grading policy.
+    StudentRepository(MyDatabaseHelper myDB) {
+        this(myDB, null, null, null);
+    }
+
+    // Constructor that loads the grading policy from the given preferences, if any, keeps backups
+    // in the given directory, if any, and saves the list snapshot to the given file, if any
+    StudentRepository(MyDatabaseHelper myDB, @Nullable SharedPreferences preferences, @Nullable File backupDirectory,
+                      @Nullable File listSnapshotFile) {
+        this.myDB = myDB;
+        this.listSnapshotFile = listSnapshotFile;
+        this.preferences = preferences;
+        this.backup = backupDirectory == null ? null : new DatabaseBackup(myDB, backupDirectory);
+        this.gradingPolicy = preferences == null ? GradingPolicy.DEFAULT : GradingPolicy.load(preferences);
+        this.writeExecutor = newExecutor(1, "StudentDB-writer");
+        this.readExecutor = newExecutor(READER_THREADS, "StudentDB-reader");
+        this.syncExecutor = newExecutor(1, "StudentDB-sync");
+    }
+
+    // Returns the database helper behind this repository
+    MyDatabaseHelper getDatabaseHelper() {
+        return myDB;
+    }
+
+    // Method to open the database (creating or upgrading it if needed) ahead of its first use
+    public Future<Void> open(@Nullable Callback<Void> callback) {
+        return open(null, callback);
+    }
+
+    // Method to open the database, reporting the progress of any schema upgrade on the main thread
+    public Future<Void> open(@Nullable MigrationRunner.ProgressListener listener, @Nullable Callback<Void> callback) {
+        return submit(writeExecutor, OPEN_TIMER, () -> {
+            if (listener != null) {
+                myDB.setMigrationListener((stepIndex, stepCount, migration, done, total) -> mainHandler.post(
+                        () -> listener.onProgress(stepIndex, stepCount, migration, done, total)));
+            }
+            try {
+                myDB.getWritableDatabase();
+            } finally {
+                myDB.setMigrationListener(null);
+            }
+            return null;
+        }, callback);
+    }
+
+    // Returns the row cache (for its hit and miss counters)
+    public StudentCache getStudentCache() {
+        return studentCache;
+    }
+
+    // Returns a student straight from the row cache without touching the database, or null if it is not cached.
+    // Safe to call on the main thread.
+    @Nullable
+    public Student getCachedStudent(long id) {
+        return studentCache.get(id);
+    }
+
+    // Method to load one student by ID, from the row cache if it is there.
+    // The callback receives the student, or null if there is no student with that ID.
+    public Future<Student> loadStudent(long id, @Nullable Callback<Student> callback) {
+        return submit(readExecutor, LOAD_STUDENT_TIMER, () -> {
+            Student cached = studentCache.get(id);
+            if (cached != null) {
+                return cached;
+            }
+            long version = studentCache.getVersion();
+            Cursor cursor = myDB.readStudent(id);
+            try {
+                if (!cursor.moveToFirst()) {
+                    return null;
+                }
+                Student student = Student.fromCursor(cursor);
+                studentCache.put(student, version);
+                return student;
+            } finally {
+                cursor.close();
+            }
+        }, callback);
+    }
+
+    // Returns the policy currently used to grade students
+    public GradingPolicy getGradingPolicy() {
+        return gradingPolicy;
+    }
+
+    // Method to add a new student, graded with the current policy. The callback receives the new row ID, or -1 on failure.
+    public Future<Long> addStudent(String name, int number, String mail, int physics, int math,
+                                   @Nullable Callback<Long> callback) {
+        return submit(writeExecutor, ADD_STUDENT_TIMER, () -> {
+            long id = myDB.addStudent(name, number, mail, physics, math, gradingPolicy.grade(physics, math));
+            if (id != -1) {
+                publishChange(new StudentChange.Builder().inserted(id));
+            }
+            return id;
+        }, callback);
+    }
+
+    // Method to update a student, regraded with the current policy. The callback receives the number of rows updated.
+    public Future<Integer> updateStudent(String row_id, String name, int number, String mail, int physics, int math,
+                                         @Nullable Callback<Integer> callback) {
+        return submit(writeExecutor, UPDATE_STUDENT_TIMER, () -> {
+            int updated = myDB.updateStudent(row_id, name, number, mail, physics, math, gradingPolicy.grade(physics, math));
+            studentCache.invalidate(Long.parseLong(row_id));
+            if (updated > 0) {
+                publishChange(new StudentChange.Builder().updated(Long.parseLong(row_id)));
+            }
+            return updated;
+        }, callback);
+    }
+
+    // Method to delete a single student. The callback receives the number of rows deleted.
+    public Future<Integer> deleteOneRow(String row_id, @Nullable Callback<Integer> callback) {
+        return submit(writeExecutor, DELETE_ONE_ROW_TIMER, () -> {
+            int deleted = myDB.deleteOneRow(row_id);
+            studentCache.invalidate(Long.parseLong(row_id));
+            if (deleted > 0) {
+                publishChange(new StudentChange.Builder().deleted(Long.parseLong(row_id)));
+            }
+            return deleted;
+        }, callback);
+    }
+
+    /**
+     * Adds or updates a batch of students in one transaction, matched by student number and regraded with
+     * the current policy (see MyDatabaseHelper.upsertStudents()). Repeating a batch changes nothing.
+     *
+     * @param batch The students to write. Their IDs and grades are ignored.
+     * @param callback Receives how many students were inserted, updated, unchanged or rejected.
+     */
+    public Future<UpsertResult> upsertStudents(List<Student> batch, @Nullable Callback<UpsertResult> callback) {
+        return submit(writeExecutor, UPSERT_STUDENTS_TIMER, () -> {
+            List<Student> graded = new ArrayList<>(batch.size());
+            for (Student student : batch) {
+                graded.add(new Student(0, student.name, student.number, student.mail, student.physics, student.math,
+                        gradingPolicy.grade(student.physics, student.math)));
+            }
+            UpsertResult result = myDB.upsertStudents(graded);
+            if (result.getChanged() > 0) {
+                studentCache.invalidateAll();
+                publishChange(new StudentChange.Builder().everything());
+            }
+            return result;
+        }, callback);
+    }
+
+    // Method to delete a set of students in one transaction. The callback receives the number deleted.
+    public Future<Integer> deleteStudents(StudentSelection selection, @Nullable Callback<Integer> callback) {
+        return submit(writeExecutor, DELETE_STUDENTS_TIMER, () -> {
+            int deleted;
+            try {
+                deleted = myDB.deleteStudents(selection);
+            } finally {
+                studentCache.invalidateAll();
+            }
+            if (deleted > 0) {
+                publishChange(selection.isIdList() ? new StudentChange.Builder().deleted(selection.ids())
+                        : new StudentChange.Builder().everything());
+            }
+            return deleted;
+        }, callback);
+    }
+
+    // Method to set the physics and/or math marks (null leaves them unchanged) of a set of students in one
+    // transaction, regrading them with the current policy. The callback receives the number updated.
+    public Future<Integer> updateMarks(StudentSelection selection, @Nullable Integer physics, @Nullable Integer math,
+                                       @Nullable Callback<Integer> callback) {
+        return submit(writeExecutor, UPDATE_MARKS_TIMER, () -> {
+            int updated;
+            try {
+                updated = myDB.updateMarks(selection, physics, math, gradingPolicy);
+            } finally {
+                studentCache.invalidateAll();
+            }
+            if (updated > 0) {
+                publishChange(selection.isIdList() ? new StudentChange.Builder().updated(selection.ids())
+                        : new StudentChange.Builder().everything());
+            }
+            return updated;
+        }, callback);
+    }
+
+    // Method to delete every student and reset the ID counter. A snapshot is taken first, so a reset
+    // by mistake can be undone with restore(): the writer only copies the file, and the snapshot is written
+    // from the copy on the sync thread. The freed space is then handed back to the file system in small
+    // steps on the writer thread.
+    public Future<Void> deleteAllData(@Nullable Callback<Void> callback) {
+        return submit(writeExecutor, DELETE_ALL_DATA_TIMER, () -> {
+            if (backup != null) {
+                try {
+                    DatabaseBackup.Staged copy = backup.stage();
+                    submit(syncExecutor, BACKUP_TIMER, () -> backup.save(copy, DatabaseBackup.Mode.INCREMENTAL), null);
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not back up before the reset", e); // Still reset: the user asked for it
+                }
+            }
+            try {
+                myDB.deleteAllData();
+            } finally {
+                studentCache.invalidateAll();
+                publishChange(new StudentChange.Builder().everything());
+            }
+            reclaimSpace();
+            return null;
+        }, callback);
+    }
+
+    // Queues one step of giving free pages back to the file system, and another after it while pages remain
+    private void reclaimSpace() {
+        submit(writeExecutor, null, () -> {
+            if (!myDB.isIncrementalVacuumEnabled()) {
+                // A file from before incremental vacuum: it was just emptied, so rebuilding it is quick, frees
+                // every page at once and switches incremental vacuum on for the next time
+                myDB.vacuum();
+            } else if (myDB.reclaimFreePages(RECLAIM_PAGES_PER_TASK) > 0 && myDB.getFreePageCount() > 0) {
+                reclaimSpace();
+            }
+            return null;
+        }, null);
+    }
+
+    /**
+     * Runs the database maintenance (space reclaim, ANALYZE and integrity check) on the writer thread.
+     *
+     * @param callback Receives the summary with the time taken by each part.
+     */
+    public Future<DatabaseMaintenance.Result> runMaintenance(@Nullable Callback<DatabaseMaintenance.Result> callback) {
+        return submit(writeExecutor, RUN_MAINTENANCE_TIMER, () -> {
+            DatabaseMaintenance.Result result = new DatabaseMaintenance(myDB).run();
+            if (preferences != null) {
+                preferences.edit().putLong(KEY_LAST_MAINTENANCE, System.currentTimeMillis()).apply();
+            }
+            return result;
+        }, callback);
+    }
+
+    /**
+     * Sends this device's changes to the roster service and applies everyone else's (see SyncEngine).
+     * The sync has its own thread, so adding or editing students does not wait for the network;
+     * each pulled batch only holds the write lock while its transaction runs. The sync holds databaseLock
+     * only for its database steps, so a restore does not wait for the network either.
+     *
+     * @param service The roster service to sync with.
+     * @param callback Receives the summary, or null if the service could not be reached.
+     */
+    public Future<SyncEngine.Result> sync(RosterService service, @Nullable Callback<SyncEngine.Result> callback) {
+        return submit(syncExecutor, SYNC_TIMER, null, () -> {
+            SyncEngine engine = new SyncEngine(myDB, service, SyncEngine.DEFAULT_BATCH_SIZE, databaseLock.readLock());
+            SyncEngine.Result result;
+            try {
+                result = engine.run();
+            } catch (IOException e) {
+                Log.e(TAG, "Sync failed", e);
+                result = null;
+            }
+            // Pulled batches are committed as they arrive, so some may be in even if the sync failed
+            if (result == null || result.studentsChanged > 0) {
+                studentCache.invalidateAll();
+                publishChange(new StudentChange.Builder().everything());
+            }
+            return result;
+        }, callback);
+    }
+
+    /**
+     * Takes a snapshot of the database on the sync thread, so the slow part (compressing the pages)
+     * does not hold up writes. Writes only wait while the database file itself is copied.
+     *
+     * @param mode Whether to store every page or only the pages changed since the last snapshot.
+     * @param callback Receives the summary, including the time writes were paused and the size per student.
+     */
+    public Future<DatabaseBackup.Result> backup(DatabaseBackup.Mode mode, @Nullable Callback<DatabaseBackup.Result> callback) {
+        return submit(syncExecutor, BACKUP_TIMER, () -> requireBackup().run(mode), callback);
+    }
+
+    // Method to list the snapshots kept, oldest first
+    public Future<List<DatabaseSnapshot>> loadSnapshots(@Nullable Callback<List<DatabaseSnapshot>> callback) {
+        return submit(readExecutor, null, () -> requireBackup().list(), callback);
+    }
+
+    /**
+     * Replaces every student with the contents of a snapshot, on the writer thread so no write is half done.
+     * It waits for running reads, syncs and backups to finish, and the ones started meanwhile wait for it.
+     * The snapshot is checked before the database is touched; if it is damaged the database is left as it was
+     * and the callback is not called.
+     *
+     * @param snapshot The snapshot to restore (from loadSnapshots()).
+     * @param callback Called once the restored database is in place.
+     */
+    public Future<Void> restore(DatabaseSnapshot snapshot, @Nullable Callback<Void> callback) {
+        return submit(writeExecutor, RESTORE_TIMER, databaseLock.writeLock(), () -> {
+            try {
+                requireBackup().restore(snapshot);
+            } finally {
+                studentCache.invalidateAll();
+                publishChange(new StudentChange.Builder().everything());
+            }
+            return null;
+        }, callback);
+    }
+
+    private DatabaseBackup requireBackup() {
+        if (backup == null) {
+            throw new IllegalStateException("Backups are not set up for this repository");
+        }
+        return backup;
+    }
+
+    // Schedules the maintenance to run shortly after startup if it has not run in the last day,
+    // so it does not compete with loading the first screen
+    public void scheduleMaintenance() {
+        if (preferences == null) {
+            return; // Tests run it directly
+        }
+        mainHandler.postDelayed(() -> {
+            long lastRun = preferences.getLong(KEY_LAST_MAINTENANCE, 0);
+            if (System.currentTimeMillis() - lastRun >= MAINTENANCE_INTERVAL_MS) {
+                runMaintenance(null);
+            }
+        }, MAINTENANCE_DELAY_MS);
+    }
+
+    /**
+     * Switches to a new grading policy, saves it, and regrades every existing student on the writer thread.
+     * Writes queued before this call are graded with the old policy and then fixed by the regrade;
+     * writes queued after it use the new policy.
+     *
+     * @param policy The new grading policy.
+     * @param listener Optional receiver of progress updates, called on the main thread.
+     * @param callback Receives the regrade summary.
+     */
+    public Future<GradeRecalculator.Result> setGradingPolicy(GradingPolicy policy,
+                                                             @Nullable GradeRecalculator.ProgressListener listener,
+                                                             @Nullable Callback<GradeRecalculator.Result> callback) {
+        return submit(writeExecutor, REGRADE_TIMER, () -> {
+            gradingPolicy = policy;
+            if (preferences != null) {
+                SharedPreferences.Editor editor = preferences.edit();
+                policy.save(editor);
+                editor.commit(); // Already on a background thread
+            }
+            return regrade(policy, listener);
+        }, callback);
+    }
+
+    // Method to regrade every student with the current policy (for example to repair rows written by older versions).
+    // Cancel the returned Future (with interruption) to stop after the current chunk.
+    public Future<GradeRecalculator.Result> recomputeGrades(@Nullable GradeRecalculator.ProgressListener listener,
+                                                            @Nullable Callback<GradeRecalculator.Result> callback) {
+        return submit(writeExecutor, REGRADE_TIMER, () -> regrade(gradingPolicy, listener), callback);
+    }
+
+    // Runs a GradeRecalculator, forwarding its progress to the main thread
+    private GradeRecalculator.Result regrade(GradingPolicy policy, @Nullable GradeRecalculator.ProgressListener listener) {
+        GradeRecalculator.ProgressListener mainThreadListener = listener == null ? null :
+                (scanned, changed, rate) -> mainHandler.post(() -> listener.onProgress(scanned, changed, rate));
+        GradeRecalculator.Result result;
+        try {
+            result = new GradeRecalculator(myDB, policy, GradeRecalculator.DEFAULT_CHUNK_SIZE).run(mainThreadListener);
+        } finally {
+            studentCache.invalidateAll(); // Any number of grades may have changed
+            publishChange(new StudentChange.Builder().everything());
+        }
+        Log.i(TAG, "Regraded " + result.rowsScanned + " students (" + result.rowsChanged + " changed) at "
+                + Math.round(result.getRowsPerSecond()) + " rows/s");
+        return result;
+    }
+
+    // Method to read the dashboard statistics (count, averages and grade histogram) from the summary tables
+    public Future<StudentStatistics> loadStatistics(@Nullable Callback<StudentStatistics> callback) {
+        return submit(readExecutor, LOAD_STATISTICS_TIMER, myDB::readStatistics, callback);
+    }
+
+    // Method to read the students with the highest total marks, best first
+    public Future<List<Student>> loadTopStudents(int limit, @Nullable Callback<List<Student>> callback) {
+        return submit(readExecutor, LOAD_TOP_STUDENTS_TIMER, () -> {
+            List<Student> students = new ArrayList<>(limit);
+            Cursor cursor = myDB.readTopStudents(limit);
+            try {
+                while (cursor.moveToNext()) {
+                    students.add(Student.fromCursor(cursor));
+                }
+            } finally {
+                cursor.close();
+            }
+            return students;
+        }, callback);
+    }
+
+    // Method to check the summary tables against a full scan, rebuilding them if they differ.
+    // The callback receives true if they already matched.
+    public Future<Boolean> verifyStatistics(@Nullable Callback<Boolean> callback) {
+        return submit(writeExecutor, null, () -> {
+            if (myDB.verifyStatistics()) {
+                return true;
+            }
+            Log.w(TAG, "Statistics out of sync, rebuilding");
+            myDB.rebuildStatistics();
+            return false;
+        }, callback);
+    }
+
+    // Method to load the scores of the students after afterId (up to limit students) in every subject.
+    // Reads the subject list and then the whole page in one joined query.
+    public Future<SubjectScores> loadScores(long afterId, int limit, @Nullable Callback<SubjectScores> callback) {
+        return submit(readExecutor, LOAD_SCORES_TIMER, () -> {
+            ArrayList<Long> ids = new ArrayList<>();
+            ArrayList<String> names = new ArrayList<>();
+            Cursor subjects = myDB.readSubjects();
+            try {
+                while (subjects.moveToNext()) {
+                    ids.add(subjects.getLong(0));
+                    names.add(subjects.getString(1));
+                }
+            } finally {
+                subjects.close();
+            }
+            long[] subjectIds = new long[ids.size()];
+            for (int i = 0; i < subjectIds.length; i++) {
+                subjectIds[i] = ids.get(i);
+            }
+
+            SubjectScores.Builder builder = new SubjectScores.Builder(subjectIds, names.toArray(new String[0]));
+            Cursor cursor = myDB.readScorePage(afterId, limit);
+            try {
+                while (cursor.moveToNext()) {
+                    builder.appendFromCursor(cursor);
+                }
+            } finally {
+                cursor.close();
+            }
+            return builder.build();
+        }, callback);
+    }
+
+    // Method to add a subject. The callback receives its ID (the existing one if the name is already taken).
+    public Future<Long> addSubject(String name, @Nullable Callback<Long> callback) {
+        return submit(writeExecutor, null, () -> myDB.addSubject(name), callback);
+    }
+
+    // Method to set a student's score in one subject. A physics or math change also regrades the student,
+    // in the same transaction. The callback receives the number of rows changed (0 if the student does not exist).
+    public Future<Integer> setScore(long studentId, long subjectId, int score, @Nullable Callback<Integer> callback) {
+        return submit(writeExecutor, SET_SCORE_TIMER, () -> {
+            if (subjectId != MyDatabaseHelper.SUBJECT_PHYSICS && subjectId != MyDatabaseHelper.SUBJECT_MATH) {
+                return myDB.setScore(studentId, subjectId, score);
+            }
+            SQLiteDatabase db = myDB.getWritableDatabase();
+            int changed;
+            db.beginTransaction();
+            try {
+                changed = myDB.setScore(studentId, subjectId, score);
+                SQLiteStatement regrade = myDB.compileRegradeStatement(db, gradingPolicy);
+                try {
+                    regrade.bindLong(1, studentId - 1);
+                    regrade.bindLong(2, studentId);
+                    regrade.executeUpdateDelete();
+                } finally {
+                    regrade.close();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                studentCache.invalidate(studentId);
+            }
+            if (changed > 0) {
+                publishChange(new StudentChange.Builder().updated(studentId));
+            }
+            return changed;
+        }, callback);
+    }
+
+    // Method to remove a student's score in a subject other than physics or math.
+    // The callback receives the number of rows deleted.
+    public Future<Integer> deleteScore(long studentId, long subjectId, @Nullable Callback<Integer> callback) {
+        return submit(writeExecutor, null, () -> myDB.deleteScore(studentId, subjectId), callback);
+    }
+
+    /**
+     * Bulk-imports students from CSV or TSV text on the writer thread.
+     * Progress updates and the final result are delivered on the main thread.
+     *
+     * @param source Opens the stream to import; called on the writer thread and closed afterwards.
+     * @param listener Optional receiver of progress updates.
+     * @param callback Receives the import summary, or null if the stream could not be read.
+     */
+    public Future<StudentCsvImporter.Result> importCsv(Callable<InputStream> source,
+                                                       @Nullable StudentCsvImporter.ProgressListener listener,
+                                                       @Nullable Callback<StudentCsvImporter.Result> callback) {
+        StudentCsvImporter.ProgressListener mainThreadListener = listener == null ? null :
+                (imported, skipped, rate, batch) -> mainHandler.post(() -> listener.onProgress(imported, skipped, rate, batch));
+        return submit(writeExecutor, IMPORT_CSV_TIMER, () -> {
+            StudentCsvImporter importer = new StudentCsvImporter(myDB, StudentCsvImporter.DEFAULT_BATCH_SIZE, gradingPolicy);
+            try (InputStream in = source.call()) {
+                return importer.importFrom(in, mainThreadListener);
+            } catch (IOException e) {
+                Log.e(TAG, "CSV import failed", e);
+                return null;
+            } finally {
+                // Batches are committed as they go, so some rows may be in (or updated) even if the import failed
+                studentCache.invalidateAll();
+                publishChange(new StudentChange.Builder().everything());
+            }
+        }, callback);
+    }
+
+    /**
+     * Streams every student to CSV or JSON Lines on a reader thread.
+     * Cancel the returned Future (with interruption) to stop the export early.
+     *
+     * @param target Opens the stream to write to; called on the reader thread and closed afterwards.
+     * @param format The output format.
+     * @param listener Optional receiver of progress updates, called on the main thread.
+     * @param callback Receives the export summary, or null if the stream could not be written.
+     */
+    public Future<StudentExporter.Result> export(Callable<OutputStream> target, StudentExporter.Format format,
+                                                 @Nullable StudentExporter.ProgressListener listener,
+                                                 @Nullable Callback<StudentExporter.Result> callback) {
+        StudentExporter.ProgressListener mainThreadListener = listener == null ? null :
+                (rows, bytes) -> mainHandler.post(() -> listener.onProgress(rows, bytes));
+        return submit(readExecutor, EXPORT_TIMER, () -> {
+            StudentExporter exporter = new StudentExporter(myDB, StudentExporter.DEFAULT_CHUNK_SIZE);
+            try (OutputStream out = target.call()) {
+                // Write straight to the FileChannel when the target is a file
+                WritableByteChannel channel = (out instanceof FileOutputStream)
+                        ? ((FileOutputStream) out).getChannel()
+                        : Channels.newChannel(out);
+                return exporter.export(channel, format, mainThreadListener);
+            } catch (IOException e) {
+                Log.e(TAG, "Export failed", e);
+                return null;
+            }
+        }, callback);
+    }
+
+    // Method to read the students with the given IDs (for example to patch rows after a change).
+    // The callback receives them as a table, sorted by ID.
+    public Future<StudentTable> loadStudents(long[] ids, @Nullable Callback<StudentTable> callback) {
+        return submit(readExecutor, LOAD_STUDENTS_TIMER, () -> {
+            StudentTable.Builder builder = new StudentTable.Builder(ids.length);
+            Cursor cursor = myDB.readStudents(ids);
+            try {
+                while (cursor.moveToNext()) {
+                    builder.appendFromCursor(cursor);
+                }
+            } finally {
+                cursor.close();
+            }
+            return builder.build();
+        }, callback);
+    }
+
+    // Registers a listener for committed changes. Call on the main thread, and remove it when done.
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Records changes that have just been committed, and schedules them to be handed to the change
+     * listeners. Changes recorded within CHANGE_BATCH_DELAY_MS of each other are combined into one batch,
+     * so a burst of writes makes the screens update once.
+     */
+    private void publishChange(StudentChange.Builder change) {
+        StudentChange committed = change.build();
+        synchronized (pendingChanges) {
+            publishedChanges++;
+            pendingChanges.add(committed);
+            if (changeDispatchPosted) {
+                return;
+            }
+            changeDispatchPosted = true;
+        }
+        mainHandler.postDelayed(() -> {
+            StudentChange batch;
+            synchronized (pendingChanges) {
+                changeDispatchPosted = false;
+                batch = pendingChanges.build();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            for (ChangeListener listener : new ArrayList<>(changeListeners)) {
+                listener.onStudentsChanged(batch);
+            }
+            scheduleListSnapshotWrite(); // So the next cold start shows these changes
+        }, CHANGE_BATCH_DELAY_MS);
+    }
+
+    // Method to restart a page source and load its first page into a new (empty) table builder.
+    // The callback receives a snapshot of the builder.
+    public Future<StudentTable> loadFirstPage(StudentPageSource pageSource, StudentTable.Builder builder,
+                                              @Nullable Callback<StudentTable> callback) {
+        return submit(readExecutor, LOAD_FIRST_PAGE_TIMER, () -> {
+            synchronized (pageSource) {
+                pageSource.reset();
+                pageSource.loadNextPage(builder::appendFromCursor);
+            }
+            return builder.build();
+        }, callback);
+    }
+
+    // Method to re-read every row a page source has loaded so far into a new (empty) table builder.
+    // The callback receives a snapshot of the builder.
+    public Future<StudentTable> reload(StudentPageSource pageSource, StudentTable.Builder builder,
+                                       @Nullable Callback<StudentTable> callback) {
+        return submit(readExecutor, RELOAD_TIMER, () -> {
+            pageSource.reload(builder::appendFromCursor);
+            return builder.build();
+        }, callback);
+    }
+
+    // Method to append the next page from a page source to a table builder.
+    // The callback receives a snapshot of the builder including the new rows.
+    public Future<StudentTable> loadNextPage(StudentPageSource pageSource, StudentTable.Builder builder,
+                                             @Nullable Callback<StudentTable> callback) {
+        return submit(readExecutor, LOAD_NEXT_PAGE_TIMER, () -> {
+            pageSource.loadNextPage(builder::appendFromCursor);
+            return builder.build();
+        }, callback);
+    }
+
+    /**
+     * The first page of the student list (in ID order) read ahead at startup: the page source, positioned
+     * after the page, the table builder holding it and a snapshot of the builder.
+     */
+    public static final class FirstPage {
+        public final StudentPageSource pageSource;
+        public final StudentTable.Builder builder;
+        public final StudentTable table;
+
+        // Value of publishedChanges before the page was read
+        final long changesBefore;
+
+        FirstPage(StudentPageSource pageSource, StudentTable.Builder builder, StudentTable table, long changesBefore) {
+            this.pageSource = pageSource;
+            this.builder = builder;
+            this.table = table;
+            this.changesBefore = changesBefore;
+        }
+    }
+
+    /**
+     * Reads the first page of the student list in the background, so the list can show it as soon as it opens.
+     * Call it right after open(): the page is read once the database is open and any migrations have run,
+     * while the splash and login screens are showing. Call on the main thread.
+     */
+    public void prefetchFirstPage() {
+        if (prefetching || prefetchedPage != null) {
+            return;
+        }
+        prefetching = true;
+        StudentPageSource pageSource = StudentPageSource.forSort(myDB, StudentSort.ID, StudentPageSource.DEFAULT_PAGE_SIZE);
+        StudentTable.Builder builder = new StudentTable.Builder(StudentPageSource.DEFAULT_PAGE_SIZE);
+        long[] changesBefore = new long[1];
+        long[] dataVersion = new long[1];
+        submit(readExecutor, LOAD_FIRST_PAGE_TIMER, () -> {
+            changesBefore[0] = publishedChanges;
+            try {
+                dataVersion[0] = myDB.getDataVersion();
+                pageSource.loadNextPage(builder::appendFromCursor);
+                return builder.build();
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not read the first page ahead", e);
+                return null; // The list reads it itself
+            }
+        }, table -> {
+            prefetching = false;
+            prefetchedPage = table == null ? null : new FirstPage(pageSource, builder, table, changesBefore[0]);
+            if (table != null) {
+                checkListSnapshot(dataVersion[0]);
+            }
+            List<Runnable> waiters = new ArrayList<>(prefetchWaiters);
+            prefetchWaiters.clear();
+            for (Runnable waiter : waiters) {
+                waiter.run();
+            }
+        });
+    }
+
+    // Runs the given action on the main thread once the first page read ahead is ready (straight away if
+    // none is being read). Call on the main thread.
+    public void whenFirstPagePrefetched(Runnable action) {
+        if (prefetching) {
+            prefetchWaiters.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    // Hands out the first page read ahead, once. Returns null if there is none, or if the students have
+    // changed since it was read. Call on the main thread.
+    @Nullable
+    public FirstPage takePrefetchedFirstPage() {
+        FirstPage page = prefetchedPage;
+        prefetchedPage = null;
+        if (page == null || page.changesBefore != publishedChanges) {
+            return null;
+        }
+        return page;
+    }
+
+    // Returns true if the list snapshot from the last session can be shown while the first page is being read.
+    // Call on the main thread.
+    public boolean hasListSnapshot() {
+        return prefetching && mapListSnapshot() != null;
+    }
+
+    // Hands out the list snapshot from the last session, once. Returns null if there is none, or if the first
+    // page is not being read any more (the list shows that instead). Call on the main thread.
+    @Nullable
+    public StudentListSnapshot takeListSnapshot() {
+        StudentListSnapshot snapshot = prefetching ? mapListSnapshot() : null;
+        listSnapshot = null;
+        return snapshot;
+    }
+
+    /**
+     * Maps the list snapshot saved by the last session, the first time it is asked for. This is cheap enough
+     * for the main thread: the file is small and only its header and row table are checked. Gives null if
+     * there is no snapshot or it is damaged. Whether its rows are current is only decided by its stamp, once
+     * the first page has been read with the database's data version (see checkListSnapshot()); a snapshot
+     * found out of date there is never handed out, and one already showing is replaced by that page.
+     */
+    @Nullable
+    private StudentListSnapshot mapListSnapshot() {
+        if (listSnapshotMapped || listSnapshotFile == null) {
+            return listSnapshot;
+        }
+        listSnapshotMapped = true;
+        long start = MAP_LIST_SNAPSHOT_TIMER.start();
+        try {
+            if (!listSnapshotFile.exists()) {
+                return null; // Written again once the first page has been read
+            }
+            listSnapshot = StudentListSnapshot.map(listSnapshotFile);
+            listSnapshotStamp = listSnapshot.getStamp();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not map the list snapshot", e);
+        } finally {
+            MAP_LIST_SNAPSHOT_TIMER.stop(start);
+        }
+        return listSnapshot;
+    }
+
+    // Called once the first page has been read at startup: the database is open, so this is where a list
+    // snapshot saved at a different data version is found out. It is dropped and written again.
+    private void checkListSnapshot(long dataVersion) {
+        if (listSnapshotFile == null) {
+            return;
+        }
+        mapListSnapshot(); // In case no screen has asked for it yet
+        if (listSnapshotStamp == dataVersion) {
+            return;
+        }
+        if (listSnapshotStamp >= 0) {
+            STALE_LIST_SNAPSHOTS.increment();
+        }
+        listSnapshot = null;
+        scheduleListSnapshotWrite();
+    }
+
+    /**
+     * Saves the first page of the student list (in ID order) to the list snapshot file on a reader thread.
+     * Requests made before the queued write has started reading are covered by it, so a burst of change
+     * batches writes the file once or twice. The data version is read before the rows, so if a write slips
+     * in between, the snapshot looks older than it is and is just written again at the next start.
+     */
+    private void scheduleListSnapshotWrite() {
+        if (listSnapshotFile == null || !listSnapshotWriteQueued.compareAndSet(false, true)) {
+            return;
+        }
+        submit(readExecutor, WRITE_LIST_SNAPSHOT_TIMER, () -> {
+            synchronized (listSnapshotLock) {
+                listSnapshotWriteQueued.set(false);
+                long dataVersion = myDB.getDataVersion();
+                StudentPageSource pageSource = StudentPageSource.forSort(myDB, StudentSort.ID, LIST_SNAPSHOT_ROWS);
+                StudentTable.Builder builder = new StudentTable.Builder(LIST_SNAPSHOT_ROWS);
+                pageSource.loadNextPage(builder::appendFromCursor);
+                StudentListSnapshot.write(builder.build(), LIST_SNAPSHOT_ROWS, listSnapshotFile, dataVersion);
+            }
+            return null;
+        }, null);
+    }
+
+    // Runs a task that shares the database with the other tasks (see the next method)
+    private <T> Future<T> submit(ExecutorService executor, @Nullable Metrics.Timer timer, Callable<T> task,
+                                 @Nullable Callback<T> callback) {
+        return submit(executor, timer, databaseLock.readLock(), task, callback);
+    }
+
+    /**
+     * Runs a task on the given executor and posts its result to the main thread.
+     * Failures are logged and passed to the callback's onError() instead; the returned Future still reports them.
+     * The time the task waits in the queue and the time it runs are recorded in Metrics.
+     *
+     * @param timer The timer for the task, or null to leave it untimed.
+     * @param lock The side of databaseLock held while the task runs (waiting for it counts as queued): the write
+     *             lock to run only while no other task is running, or null for a task that takes it itself.
+     */
+    private <T> Future<T> submit(ExecutorService executor, @Nullable Metrics.Timer timer, @Nullable Lock lock,
+                                 Callable<T> task, @Nullable Callback<T> callback) {
+        Metrics.Timer waitTimer = executor == writeExecutor ? WRITER_WAIT_TIMER
+                : executor == readExecutor ? READER_WAIT_TIMER : SYNC_WAIT_TIMER;
+        long queuedAt = System.nanoTime();
+        Callable<T> body = () -> {
+            if (lock != null) {
+                lock.lock();
+            }
+            try {
+                waitTimer.record(System.nanoTime() - queuedAt);
+                if (timer == null) {
+                    return task.call();
+                }
+                long start = timer.start();
+                try {
+                    return task.call();
+                } finally {
+                    timer.stop(start);
+                }
+            } finally {
+                if (lock != null) {
+                    lock.unlock();
+                }
+            }
+        };
+
+        // A FutureTask that can also be failed without running, when the executor has no room for it
+        class Operation extends FutureTask<T> {
+            Operation() {
+                super(body);
+            }
+
+            void reject(RejectedExecutionException e) {
+                setException(e);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                T result;
+                try {
+                    result = get();
+                } catch (Exception e) {
+                    Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                    FAILURES.increment();
+                    Log.e(TAG, "Database operation failed", cause);
+                    if (callback != null) {
+                        Exception error = cause instanceof Exception ? (Exception) cause : new ExecutionException(cause);
+                        mainHandler.post(() -> callback.onError(error));
+                    }
+                    return;
+                }
+                if (callback != null) {
+                    mainHandler.post(() -> callback.onResult(result));
+                }
+            }
+        }
+        Operation future = new Operation();
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            // The queue is full and the caller is the main thread, which must not wait for room (see
+            // newExecutor()), or the executor is shut down. The operation fails like any other, so the
+            // callback's onError() is called.
+            future.reject(e);
+        }
+        return future;
+    }
+
+    /**
+     * Creates an executor with the given number of named daemon threads and a queue of MAX_QUEUED_TASKS.
+     * When the queue is full, a background caller waits for room, so a runaway producer is slowed down
+     * instead of filling memory. Two callers cannot wait:
+     * - one of the executor's own threads would wait for itself, so it runs the operation there and then;
+     * - the main thread must stay responsive, so its operation is rejected and fails through the
+     *   callback's onError() (see submit()).
+     */
+    private static ExecutorService newExecutor(int threads, String name) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        RejectedExecutionHandler whenFull = (runnable, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException(name + " is shut down");
+            }
+            if (Thread.currentThread().getName().startsWith(name + "-")) {
+                QUEUE_FULL_RUNS.increment();
+                runnable.run();
+                return;
+            }
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                QUEUE_FULL_REJECTIONS.increment();
+                throw new RejectedExecutionException(name + " queue is full");
+            }
+            QUEUE_FULL_WAITS.increment();
+            try {
+                executor.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(name + " queue is full", e);
+            }
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_TASKS), factory, whenFull);
+    }
+}
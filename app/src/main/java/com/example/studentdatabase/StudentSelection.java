@@ -0,0 +1,109 @@
+/**
+ * StudentSelection.java
+
+ * This class describes a set of students for the batch operations in MyDatabaseHelper: either an explicit
+ * list of IDs (for example the rows picked in the list) or a condition on the student table (every student
+ * with a grade, or with a student number in a range, such as a graduating cohort).
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: A selection is immutable. Conditions are turned into SQL by MyDatabaseHelper, with the values
+ * bound as arguments, never pasted into the SQL text.
+ */
+
+package com.example.studentdatabase;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+public final class StudentSelection {
+
+    // The selected IDs, sorted and without duplicates (null for a condition)
+    @Nullable
+    private final long[] ids;
+
+    // The grade to match (null to match any grade)
+    @Nullable
+    final String grade;
+
+    // The student number range to match, inclusive (null for no limit)
+    @Nullable
+    final Integer minNumber;
+    @Nullable
+    final Integer maxNumber;
+
+    private StudentSelection(@Nullable long[] ids, @Nullable String grade,
+                             @Nullable Integer minNumber, @Nullable Integer maxNumber) {
+        this.ids = ids;
+        this.grade = grade;
+        this.minNumber = minNumber;
+        this.maxNumber = maxNumber;
+    }
+
+    // Selects the students with the given IDs (unknown IDs are ignored)
+    public static StudentSelection ofIds(long... ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return new StudentSelection(Arrays.copyOf(sorted, count), null, null, null);
+    }
+
+    // Selects the students with the given IDs (unknown IDs are ignored)
+    public static StudentSelection ofIds(Collection<Long> ids) {
+        long[] array = new long[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            array[i++] = id;
+        }
+        return ofIds(array);
+    }
+
+    // Selects every student with the given grade
+    public static StudentSelection byGrade(String grade) {
+        return new StudentSelection(null, grade, null, null);
+    }
+
+    // Selects every student whose number is between min and max (inclusive)
+    public static StudentSelection byNumberRange(int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Empty number range " + min + ".." + max);
+        }
+        return new StudentSelection(null, null, min, max);
+    }
+
+    // Returns true if this selection is a list of IDs rather than a condition
+    public boolean isIdList() {
+        return ids != null;
+    }
+
+    // Returns a copy of the selected IDs, sorted (only for an ID list)
+    public long[] getIds() {
+        if (ids == null) {
+            throw new IllegalStateException("Not an ID list");
+        }
+        return ids.clone();
+    }
+
+    // The selected IDs without copying (package-private, the caller must not modify them)
+    @Nullable
+    long[] ids() {
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        if (ids != null) {
+            return "StudentSelection{" + ids.length + " ids}";
+        }
+        return "StudentSelection{grade=" + grade + ", number=" + minNumber + ".." + maxNumber + "}";
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * StudentSort.java
+
+ * This enum lists the orders the student list can be shown in. Every order except ID has its own index
+ * on the student table, and SQLite adds the row ID to the end of every index, so each index is already
+ * ordered by (sort key, _id). That is the order the list uses, so ties always come out the same way and
+ * a page can continue exactly where the last one ended (see MyDatabaseHelper.readSortedPage()).
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Marks are sorted best first. Grades are sorted as text (A, A+, B, B+, ...), which keeps
+ * each grade together as a group.
+ */
+
+package com.example.studentdatabase;
+
+import androidx.annotation.Nullable;
+
+public enum StudentSort {
+
+    ID(null, "", false),
+    NAME("student_name", " COLLATE NOCASE", false),
+    NUMBER("student_num", "", false),
+    GRADE("student_grade", "", false),
+    PHYSICS("student_physics", "", true),
+    MATH("student_math", "", true);
+
+    // The column sorted on (null for ID order)
+    @Nullable
+    public final String column;
+
+    // The collation the column's index uses, so comparisons match the index order
+    final String collation;
+
+    // True if the largest values come first
+    public final boolean descending;
+
+    StudentSort(@Nullable String column, String collation, boolean descending) {
+        this.column = column;
+        this.collation = collation;
+        this.descending = descending;
+    }
+
+    // Returns the sort key as it must appear in SQL for the index to be used
+    String key() {
+        return column + collation;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * StudentStatistics.java
+
+ * This class is an immutable snapshot of the class-wide statistics shown on the dashboard:
+ * the number of students, the average marks per subject, and how many students have each grade.
+ * The numbers come from small summary tables that database triggers keep up to date on every
+ * insert, update and delete, so reading them costs the same however many students there are.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Averages are 0 when there are no students.
+ */
+
+package com.example.studentdatabase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class StudentStatistics {
+
+    public final long studentCount;
+    public final long physicsSum;
+    public final long mathSum;
+
+    // Number of students per grade (grades nobody has are left out)
+    private final Map<String, Long> gradeCounts;
+
+    /**
+     * Constructor for the StudentStatistics class.
+     *
+     * @param studentCount The number of students.
+     * @param physicsSum The total of all Physics marks.
+     * @param mathSum The total of all Math marks.
+     * @param gradeCounts The number of students per grade.
+     */
+    public StudentStatistics(long studentCount, long physicsSum, long mathSum, Map<String, Long> gradeCounts) {
+        this.studentCount = studentCount;
+        this.physicsSum = physicsSum;
+        this.mathSum = mathSum;
+        this.gradeCounts = Collections.unmodifiableMap(new HashMap<>(gradeCounts));
+    }
+
+    public double getPhysicsAverage() {
+        return studentCount == 0 ? 0 : (double) physicsSum / studentCount;
+    }
+
+    public double getMathAverage() {
+        return studentCount == 0 ? 0 : (double) mathSum / studentCount;
+    }
+
+    // Average of both subjects together
+    public double getOverallAverage() {
+        return studentCount == 0 ? 0 : (double) (physicsSum + mathSum) / (2 * studentCount);
+    }
+
+    /**
+     * Returns the number of students with the given grade.
+     *
+     * @param grade A grade, for example "B+".
+     * @return The number of students, or 0 if nobody has that grade.
+     */
+    public long getGradeCount(String grade) {
+        Long count = gradeCounts.get(grade);
+        return count == null ? 0 : count;
+    }
+
+    // Returns every grade that at least one student has, with its count
+    public Map<String, Long> getGradeCounts() {
+        return gradeCounts;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StudentStatistics)) {
+            return false;
+        }
+        StudentStatistics other = (StudentStatistics) o;
+        return studentCount == other.studentCount && physicsSum == other.physicsSum && mathSum == other.mathSum
+                && gradeCounts.equals(other.gradeCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (studentCount ^ physicsSum ^ mathSum);
+    }
+
+    @Override
+    public String toString() {
+        return "StudentStatistics{count=" + studentCount + ", physicsSum=" + physicsSum
+                + ", mathSum=" + mathSum + ", grades=" + gradeCounts + "}";
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * StudentTable.java
+
+ * This class holds a list of students column by column in primitive arrays instead of one object per student.
+ * IDs are a long[], numbers and marks are int[]s, grades are one byte each (an index into a small
+ * dictionary of grade strings), and all names and emails share one char[] pool with an int[] of offsets.
+ * Rows are loaded straight from a Cursor with getLong/getInt and copyStringToBuffer, so no String is
+ * created per row while loading.
+
+ * A StudentTable is an immutable snapshot of the first size() rows. Its Builder only ever appends,
+ * so earlier snapshots stay valid (and can be shown or diffed) while more pages are added.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Cursor rows must use the column order of "SELECT *" on the student table.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import java.util.Arrays;
+
+public final class StudentTable {
+
+    // Fixed bytes per row: id (8) + number (4) + physics (4) + math (4) + grade (1) + name offset (4) + mail offset (4)
+    static final int FIXED_BYTES_PER_ROW = 8 + 4 + 4 + 4 + 1 + 4 + 4;
+
+    private static final StudentTable EMPTY = new Builder(0).build();
+
+    private final int size;
+    private final long[] ids;
+    private final int[] numbers;
+    private final int[] physics;
+    private final int[] math;
+    private final byte[] grades;
+    private final String[] gradeDictionary;
+
+    // Text pool: name i is text[nameStart[i] .. mailStart[i]), mail i is text[mailStart[i] .. nameStart[i + 1])
+    private final char[] text;
+    private final int[] nameStart;
+    private final int[] mailStart;
+
+    private StudentTable(Builder b) {
+        this.size = b.size;
+        this.ids = b.ids;
+        this.numbers = b.numbers;
+        this.physics = b.physics;
+        this.math = b.math;
+        this.grades = b.grades;
+        this.gradeDictionary = Arrays.copyOf(b.gradeDictionary, b.gradeCount);
+        this.text = b.text;
+        this.nameStart = b.nameStart;
+        this.mailStart = b.mailStart;
+    }
+
+    // Returns a table with no rows
+    public static StudentTable empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public int getNumber(int row) {
+        return numbers[row];
+    }
+
+    public int getPhysics(int row) {
+        return physics[row];
+    }
+
+    public int getMath(int row) {
+        return math[row];
+    }
+
+    public String getGrade(int row) {
+        return gradeDictionary[grades[row] & 0xFF];
+    }
+
+    // Creates a String for the name (only call this for rows being shown)
+    public String getName(int row) {
+        return new String(text, nameStart[row], mailStart[row] - nameStart[row]);
+    }
+
+    // Creates a String for the email (only call this for rows being shown)
+    public String getMail(int row) {
+        return new String(text, mailStart[row], nameStart[row + 1] - mailStart[row]);
+    }
+
+    int getNameLength(int row) {
+        return mailStart[row] - nameStart[row];
+    }
+
+    int getMailLength(int row) {
+        return nameStart[row + 1] - mailStart[row];
+    }
+
+    // Copies at most max chars of the name into dest at the given offset and returns how many were copied
+    int copyName(int row, char[] dest, int at, int max) {
+        int length = Math.min(getNameLength(row), max);
+        System.arraycopy(text, nameStart[row], dest, at, length);
+        return length;
+    }
+
+    // Copies at most max chars of the email into dest at the given offset and returns how many were copied
+    int copyMail(int row, char[] dest, int at, int max) {
+        int length = Math.min(getMailLength(row), max);
+        System.arraycopy(text, mailStart[row], dest, at, length);
+        return length;
+    }
+
+    // Returns the whole row as a Student object
+    public Student get(int row) {
+        return new Student(getId(row), getName(row), getNumber(row), getMail(row), getPhysics(row), getMath(row), getGrade(row));
+    }
+
+    /**
+     * Compares a row of this table with a row of another table without creating any objects.
+     *
+     * @return True if every column is equal.
+     */
+    public boolean rowEquals(int row, StudentTable other, int otherRow) {
+        if (ids[row] != other.ids[otherRow] || numbers[row] != other.numbers[otherRow]
+                || physics[row] != other.physics[otherRow] || math[row] != other.math[otherRow]
+                || !getGrade(row).equals(other.getGrade(otherRow))) {
+            return false;
+        }
+        return rangeEquals(text, nameStart[row], nameStart[row + 1],
+                other.text, other.nameStart[otherRow], other.nameStart[otherRow + 1])
+                && mailStart[row] - nameStart[row] == other.mailStart[otherRow] - other.nameStart[otherRow];
+    }
+
+    private static boolean rangeEquals(char[] a, int aFrom, int aTo, char[] b, int bFrom, int bTo) {
+        if (aTo - aFrom != bTo - bFrom) {
+            return false;
+        }
+        for (int i = 0; i < aTo - aFrom; i++) {
+            if (a[aFrom + i] != b[bFrom + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the heap used by the rows of this snapshot (array contents only, excluding spare capacity).
+     *
+     * @return The estimated size in bytes.
+     */
+    public long estimateHeapBytes() {
+        return (long) size * FIXED_BYTES_PER_ROW + 2L * nameStart[size];
+    }
+
+    /**
+     * Appends rows and produces snapshots. A Builder is used from one thread at a time, but the
+     * snapshots it returns can be read from any thread.
+     */
+    public static final class Builder {
+
+        private int size = 0;
+        private long[] ids;
+        private int[] numbers;
+        private int[] physics;
+        private int[] math;
+        private byte[] grades;
+        private String[] gradeDictionary = new String[8];
+        private int gradeCount = 0;
+        private char[] text;
+        private int[] nameStart;
+        private int[] mailStart;
+
+        // Reused buffer for copying text out of a cursor (created on first use)
+        private CharArrayBuffer cursorText;
+
+        /**
+         * Constructor for the Builder class.
+         *
+         * @param capacity The number of rows to allocate space for up front.
+         */
+        public Builder(int capacity) {
+            int rows = Math.max(capacity, 16);
+            ids = new long[rows];
+            numbers = new int[rows];
+            physics = new int[rows];
+            math = new int[rows];
+            grades = new byte[rows];
+            text = new char[rows * 32];
+            nameStart = new int[rows + 1];
+            mailStart = new int[rows];
+        }
+
+        // Returns the number of rows appended so far
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Appends the row the cursor is positioned on, reading numbers as primitives and
+         * copying text directly into the pool.
+         */
+        public void appendFromCursor(Cursor cursor) {
+            ensureRowCapacity();
+            if (cursorText == null) {
+                cursorText = new CharArrayBuffer(64);
+            }
+            ids[size] = cursor.getLong(0);
+            numbers[size] = cursor.getInt(2);
+            physics[size] = cursor.getInt(4); // Physics column
+            math[size] = cursor.getInt(5);    // Math column
+
+            int start = nameStart[size];
+            cursor.copyStringToBuffer(1, cursorText);
+            int mail = appendText(start, cursorText.data, cursorText.sizeCopied);
+            cursor.copyStringToBuffer(3, cursorText);
+            int end = appendText(mail, cursorText.data, cursorText.sizeCopied);
+
+            cursor.copyStringToBuffer(6, cursorText);
+            grades[size] = gradeCode(cursorText.data, cursorText.sizeCopied);
+
+            mailStart[size] = mail;
+            nameStart[size + 1] = end;
+            size++;
+        }
+
+        /**
+         * Appends a row from plain values.
+         */
+        public void append(long id, String name, int number, String mail, int physicsMarks, int mathMarks, String grade) {
+            ensureRowCapacity();
+            ids[size] = id;
+            numbers[size] = number;
+            physics[size] = physicsMarks;
+            math[size] = mathMarks;
+
+            char[] chars = (name == null ? "" : name).toCharArray();
+            int mailAt = appendText(nameStart[size], chars, chars.length);
+            chars = (mail == null ? "" : mail).toCharArray();
+            int end = appendText(mailAt, chars, chars.length);
+            chars = (grade == null ? "" : grade).toCharArray();
+            grades[size] = gradeCode(chars, chars.length);
+
+            mailStart[size] = mailAt;
+            nameStart[size + 1] = end;
+            size++;
+        }
+
+        /**
+         * Appends a row copied from another table, without creating any Strings for its text.
+         */
+        public void appendRow(StudentTable table, int row) {
+            ensureRowCapacity();
+            ids[size] = table.ids[row];
+            numbers[size] = table.numbers[row];
+            physics[size] = table.physics[row];
+            math[size] = table.math[row];
+
+            int mail = appendText(nameStart[size], table.text, table.nameStart[row], table.mailStart[row]);
+            int end = appendText(mail, table.text, table.mailStart[row], table.nameStart[row + 1]);
+            char[] grade = table.getGrade(row).toCharArray();
+            grades[size] = gradeCode(grade, grade.length);
+
+            mailStart[size] = mail;
+            nameStart[size + 1] = end;
+            size++;
+        }
+
+        /**
+         * Returns an immutable snapshot of the rows appended so far. Later appends do not affect it.
+         */
+        public StudentTable build() {
+            return new StudentTable(this);
+        }
+
+        // Copies chars into the pool at the given offset and returns the offset after them
+        private int appendText(int at, char[] chars, int length) {
+            return appendText(at, chars, 0, length);
+        }
+
+        // Copies chars[from, to) into the pool at the given offset and returns the offset after them
+        private int appendText(int at, char[] chars, int from, int to) {
+            int length = to - from;
+            if (at + length > text.length) {
+                text = Arrays.copyOf(text, Math.max(text.length * 2, at + length));
+            }
+            System.arraycopy(chars, from, text, at, length);
+            return at + length;
+        }
+
+        // Returns the dictionary index for a grade, adding it if it has not been seen yet
+        private byte gradeCode(char[] chars, int length) {
+            for (int i = 0; i < gradeCount; i++) {
+                String g = gradeDictionary[i];
+                if (g.length() != length) {
+                    continue;
+                }
+                int j = 0;
+                while (j < length && g.charAt(j) == chars[j]) {
+                    j++;
+                }
+                if (j == length) {
+                    return (byte) i;
+                }
+            }
+            if (gradeCount == 256) {
+                throw new IllegalStateException("Too many distinct grades");
+            }
+            if (gradeCount == gradeDictionary.length) {
+                gradeDictionary = Arrays.copyOf(gradeDictionary, gradeCount * 2);
+            }
+            gradeDictionary[gradeCount] = new String(chars, 0, length);
+            return (byte) gradeCount++;
+        }
+
+        // Grows the row arrays when full. Published snapshots keep the old arrays, so they are unaffected.
+        private void ensureRowCapacity() {
+            if (size < ids.length) {
+                return;
+            }
+            int rows = ids.length * 2;
+            ids = Arrays.copyOf(ids, rows);
+            numbers = Arrays.copyOf(numbers, rows);
+            physics = Arrays.copyOf(physics, rows);
+            math = Arrays.copyOf(math, rows);
+            grades = Arrays.copyOf(grades, rows);
+            nameStart = Arrays.copyOf(nameStart, rows + 1);
+            mailStart = Arrays.copyOf(mailStart, rows);
+        }
+    }
+}
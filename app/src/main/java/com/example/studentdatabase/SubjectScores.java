@@ -0,0 +1,148 @@
+/**
+ * SubjectScores.java
+
+ * This class holds the scores of a group of students in every subject, as one score vector per student.
+ * The scores are kept in a single int[] laid out student by student (row-major), with one slot per
+ * subject, so a page of students with any number of subjects is a handful of arrays.
+ * It is filled from one joined query over the students and their score rows (ordered by student,
+ * then subject), so loading a page never runs a separate query per student.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: A student with no score in a subject has NO_SCORE in that slot.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+
+import java.util.Arrays;
+
+public final class SubjectScores {
+
+    // Marks a missing score
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+
+    private final long[] subjectIds;
+    private final String[] subjectNames;
+    private final int studentCount;
+    private final long[] studentIds;
+    private final int[] scores;
+
+    private SubjectScores(Builder b) {
+        this.subjectIds = b.subjectIds;
+        this.subjectNames = b.subjectNames;
+        this.studentCount = b.studentCount;
+        this.studentIds = Arrays.copyOf(b.studentIds, b.studentCount);
+        this.scores = Arrays.copyOf(b.scores, b.studentCount * b.subjectIds.length);
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    public int getSubjectCount() {
+        return subjectIds.length;
+    }
+
+    public long getSubjectId(int subject) {
+        return subjectIds[subject];
+    }
+
+    public String getSubjectName(int subject) {
+        return subjectNames[subject];
+    }
+
+    public long getStudentId(int row) {
+        return studentIds[row];
+    }
+
+    // Returns the score of a student in a subject, or NO_SCORE if they have none
+    public int getScore(int row, int subject) {
+        return scores[row * subjectIds.length + subject];
+    }
+
+    public boolean hasScore(int row, int subject) {
+        return getScore(row, subject) != NO_SCORE;
+    }
+
+    // Returns the position of a subject in this table, or -1 if it is not included
+    public int indexOfSubject(long subjectId) {
+        for (int i = 0; i < subjectIds.length; i++) {
+            if (subjectIds[i] == subjectId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Collects score rows into a SubjectScores. Rows must arrive grouped by student.
+     */
+    public static final class Builder {
+
+        private final long[] subjectIds;
+        private final String[] subjectNames;
+        private int studentCount = 0;
+        private long[] studentIds = new long[16];
+        private int[] scores;
+
+        /**
+         * Constructor for the Builder class.
+         *
+         * @param subjectIds The IDs of the subjects to include, in the order they should appear.
+         * @param subjectNames The names of those subjects.
+         */
+        public Builder(long[] subjectIds, String[] subjectNames) {
+            if (subjectIds.length != subjectNames.length) {
+                throw new IllegalArgumentException("Need one name per subject");
+            }
+            this.subjectIds = subjectIds.clone();
+            this.subjectNames = subjectNames.clone();
+            this.scores = new int[16 * subjectIds.length];
+        }
+
+        /**
+         * Appends a (student ID, subject ID, score) row. The subject and score may be null for a student
+         * with no scores at all (as a LEFT JOIN returns them).
+         */
+        public void appendFromCursor(Cursor cursor) {
+            if (cursor.isNull(1) || cursor.isNull(2)) {
+                appendStudent(cursor.getLong(0));
+            } else {
+                append(cursor.getLong(0), cursor.getLong(1), cursor.getInt(2));
+            }
+        }
+
+        // Adds a student with no scores yet (does nothing if it is the student added last)
+        public void appendStudent(long studentId) {
+            if (studentCount > 0 && studentIds[studentCount - 1] == studentId) {
+                return;
+            }
+            if (studentCount == studentIds.length) {
+                studentIds = Arrays.copyOf(studentIds, studentCount * 2);
+                scores = Arrays.copyOf(scores, studentIds.length * subjectIds.length);
+            }
+            studentIds[studentCount] = studentId;
+            Arrays.fill(scores, studentCount * subjectIds.length, (studentCount + 1) * subjectIds.length, NO_SCORE);
+            studentCount++;
+        }
+
+        // Adds a score, starting a new student if the ID differs from the last one. Unknown subjects are skipped.
+        public void append(long studentId, long subjectId, int score) {
+            appendStudent(studentId);
+            for (int i = 0; i < subjectIds.length; i++) {
+                if (subjectIds[i] == subjectId) {
+                    scores[(studentCount - 1) * subjectIds.length + i] = score;
+                    return;
+                }
+            }
+        }
+
+        public SubjectScores build() {
+            return new SubjectScores(this);
+        }
+    }
+}
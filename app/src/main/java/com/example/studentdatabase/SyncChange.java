@@ -0,0 +1,186 @@
+/**
+ * SyncChange.java
+
+ * This class is one change to the student roster as it travels between a device and the roster service:
+ * a student written (added or edited), a student deleted, or every student removed (a reset).
+ * Students are identified by their sync ID, which is the same on every device, not by their local row ID.
+ * A batch of changes is sent as gzip-compressed JSON Lines, one change per line, for example:
+ * {"seq":12,"op":"W","id":"3f2a...","name":"Aisha","number":2024001,"mail":"a@cyryx.edu.mv","physics":80,"math":75,"grade":"A"}
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: seq is the roster service's position of a change, used as the pull watermark. It is 0 in pushed batches.
+ */
+
+package com.example.studentdatabase;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public final class SyncChange {
+
+    // Kinds of change
+    public static final String WRITE = "W";
+    public static final String DELETE = "D";
+    public static final String RESET = "R";
+
+    public final long seq;
+    public final String op;
+
+    // The student's sync ID (null for a reset)
+    @Nullable
+    public final String syncId;
+
+    // The student's values (only for a write)
+    @Nullable
+    public final String name;
+    public final int number;
+    @Nullable
+    public final String mail;
+    public final int physics;
+    public final int math;
+    @Nullable
+    public final String grade;
+
+    private SyncChange(long seq, String op, @Nullable String syncId, @Nullable String name, int number,
+                       @Nullable String mail, int physics, int math, @Nullable String grade) {
+        this.seq = seq;
+        this.op = op;
+        this.syncId = syncId;
+        this.name = name;
+        this.number = number;
+        this.mail = mail;
+        this.physics = physics;
+        this.math = math;
+        this.grade = grade;
+    }
+
+    // A student was added or edited; the change carries the student's current values
+    public static SyncChange write(long seq, String syncId, @Nullable String name, int number, @Nullable String mail,
+                                   int physics, int math, @Nullable String grade) {
+        return new SyncChange(seq, WRITE, syncId, name, number, mail, physics, math, grade);
+    }
+
+    public static SyncChange delete(long seq, String syncId) {
+        return new SyncChange(seq, DELETE, syncId, null, 0, null, 0, 0, null);
+    }
+
+    // Every student was removed
+    public static SyncChange reset(long seq) {
+        return new SyncChange(seq, RESET, null, null, 0, null, 0, 0, null);
+    }
+
+    // Returns the same change at another position
+    public SyncChange withSeq(long newSeq) {
+        return new SyncChange(newSeq, op, syncId, name, number, mail, physics, math, grade);
+    }
+
+    /**
+     * Encodes a batch of changes as gzip-compressed JSON Lines.
+     *
+     * @param changes The changes, in the order they should be applied.
+     * @return The compressed batch.
+     */
+    public static byte[] encode(List<SyncChange> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            for (SyncChange change : changes) {
+                out.write(change.toJson().toString());
+                out.write('\n');
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a batch written by encode().
+     *
+     * @param batch The compressed batch.
+     * @return The changes, in order.
+     * @throws IOException If the batch is not valid gzip or a line is not a valid change.
+     */
+    public static List<SyncChange> decode(byte[] batch) throws IOException {
+        List<SyncChange> changes = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(batch)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    changes.add(fromJson(line));
+                }
+            }
+        }
+        return changes;
+    }
+
+    private JSONObject toJson() throws IOException {
+        try {
+            JSONObject json = new JSONObject();
+            json.put("seq", seq);
+            json.put("op", op);
+            if (syncId != null) {
+                json.put("id", syncId);
+            }
+            if (WRITE.equals(op)) {
+                json.put("name", name == null ? JSONObject.NULL : name);
+                json.put("number", number);
+                json.put("mail", mail == null ? JSONObject.NULL : mail);
+                json.put("physics", physics);
+                json.put("math", math);
+                json.put("grade", grade == null ? JSONObject.NULL : grade);
+            }
+            return json;
+        } catch (JSONException e) {
+            throw new IOException("Could not encode " + op + " change", e);
+        }
+    }
+
+    private static SyncChange fromJson(String line) throws IOException {
+        try {
+            JSONObject json = new JSONObject(line);
+            long seq = json.optLong("seq", 0);
+            String op = json.getString("op");
+            switch (op) {
+                case WRITE:
+                    return write(seq, json.getString("id"), text(json, "name"), json.getInt("number"),
+                            text(json, "mail"), json.getInt("physics"), json.getInt("math"), text(json, "grade"));
+                case DELETE:
+                    return delete(seq, json.getString("id"));
+                case RESET:
+                    return reset(seq);
+                default:
+                    throw new IOException("Unknown change type: " + op);
+            }
+        } catch (JSONException e) {
+            throw new IOException("Invalid change: " + line, e);
+        }
+    }
+
+    // Reads a text field that may be null
+    @Nullable
+    private static String text(JSONObject json, String key) {
+        return json.isNull(key) ? null : json.optString(key);
+    }
+
+    @Override
+    public String toString() {
+        return "SyncChange{" + seq + " " + op + (syncId == null ? "" : " " + syncId) + "}";
+    }
+}
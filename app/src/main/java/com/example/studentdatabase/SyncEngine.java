@@ -0,0 +1,298 @@
+/**
+ * SyncEngine.java
+
+ * This class keeps the students on this device in step with the roster service, sending and receiving only
+ * the changes since the last sync instead of the whole table:
+ * 1. Push: the changes in the local change log (see MyDatabaseHelper.createChangeLogSchema()) are sent in
+ *    batches, several changes to the same student becoming one, and removed from the log once sent.
+ * 2. Pull: the changes other devices made after this device's watermark (the seq of the last change it
+ *    applied) are fetched in batches, and each batch is applied in one transaction together with the new
+ *    watermark, so an interrupted sync carries on where it stopped.
+ * Network calls that fail are retried with exponential backoff. The bytes sent and received and the number
+ * of retries are counted in Metrics.
+ * The given lock is only held for each database step, not while waiting for the network, so a restore can
+ * replace the database between two steps. The sync then stops, and the next one starts from the restored state.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: This class blocks on disk and network I/O. Run it through StudentRepository.sync().
+ * When two devices change the same student, the change the roster service received last wins.
+ */
+
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.os.SystemClock;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class SyncEngine {
+
+    // Number of changes sent or received per batch by default
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Retry schedule for failed network calls: 0.5 s, 1 s, 2 s, 4 s (each with up to half taken off at random)
+    static final int MAX_ATTEMPTS = 5;
+    static final long INITIAL_BACKOFF_MS = 500;
+    static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final Metrics.Counter BYTES_SENT = Metrics.counter("sync.bytesSent");
+    private static final Metrics.Counter BYTES_RECEIVED = Metrics.counter("sync.bytesReceived");
+    private static final Metrics.Counter RETRIES = Metrics.counter("sync.retries");
+
+    /**
+     * Waits between retries (replaced in tests so they do not actually wait).
+     */
+    public interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    // A network call that may be retried, or a database step
+    private interface Call<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Summary of a sync run.
+     */
+    public static class Result {
+        public final int changesPushed;
+        public final int changesPulled;
+        public final int studentsChanged;
+        public final long bytesSent;
+        public final long bytesReceived;
+        public final int retries;
+        public final long elapsedMillis;
+
+        Result(int changesPushed, int changesPulled, int studentsChanged, long bytesSent, long bytesReceived,
+               int retries, long elapsedMillis) {
+            this.changesPushed = changesPushed;
+            this.changesPulled = changesPulled;
+            this.studentsChanged = studentsChanged;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+            this.retries = retries;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Sync{pushed " + changesPushed + " (" + bytesSent + " bytes), pulled " + changesPulled +
+                    " (" + bytesReceived + " bytes), " + studentsChanged + " students changed, " + retries +
+                    " retries, " + elapsedMillis + " ms}";
+        }
+    }
+
+    private final MyDatabaseHelper myDB;
+    private final RosterService service;
+    private final int batchSize;
+    private final Sleeper sleeper;
+    private final Lock databaseLock;
+    private final Random random = new Random();
+
+    // The database file this run started on (see MyDatabaseHelper.getFileGeneration())
+    private int fileGeneration;
+
+    // Totals of the current run
+    private int changesPushed, changesPulled, studentsChanged, retries;
+    private long bytesSent, bytesReceived;
+
+    /**
+     * Constructor for the SyncEngine class.
+     *
+     * @param myDB The database helper to sync.
+     * @param service The roster service to sync with.
+     * @param batchSize The most changes sent or received per call.
+     */
+    public SyncEngine(MyDatabaseHelper myDB, RosterService service, int batchSize) {
+        this(myDB, service, batchSize, new ReentrantLock());
+    }
+
+    // Constructor with the lock to hold for each database step (StudentRepository's read lock)
+    SyncEngine(MyDatabaseHelper myDB, RosterService service, int batchSize, Lock databaseLock) {
+        this(myDB, service, batchSize, Thread::sleep, databaseLock);
+    }
+
+    // Constructor with a custom way of waiting between retries
+    SyncEngine(MyDatabaseHelper myDB, RosterService service, int batchSize, Sleeper sleeper) {
+        this(myDB, service, batchSize, sleeper, new ReentrantLock());
+    }
+
+    private SyncEngine(MyDatabaseHelper myDB, RosterService service, int batchSize, Sleeper sleeper,
+                       Lock databaseLock) {
+        this.myDB = myDB;
+        this.service = service;
+        this.batchSize = batchSize;
+        this.sleeper = sleeper;
+        this.databaseLock = databaseLock;
+    }
+
+    /**
+     * Pushes this device's changes, then pulls everyone else's.
+     *
+     * @return What was sent and received.
+     * @throws IOException If the roster service could not be reached after MAX_ATTEMPTS tries, or the database
+     *                     was restored meanwhile. Everything pushed or pulled before that is kept, and the next
+     *                     sync carries on from there.
+     */
+    public Result run() throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        changesPushed = changesPulled = studentsChanged = retries = 0;
+        bytesSent = bytesReceived = 0;
+        fileGeneration = myDB.getFileGeneration();
+
+        String deviceId = withDatabase(this::getDeviceId);
+        push(deviceId);
+        pull(deviceId);
+        return new Result(changesPushed, changesPulled, studentsChanged, bytesSent, bytesReceived, retries,
+                SystemClock.elapsedRealtime() - start);
+    }
+
+    // Returns this device's ID, creating it on the first sync
+    private String getDeviceId() {
+        String deviceId = myDB.getSyncState(MyDatabaseHelper.SYNC_DEVICE_ID);
+        if (deviceId == null) {
+            deviceId = UUID.randomUUID().toString();
+            myDB.setSyncState(MyDatabaseHelper.SYNC_DEVICE_ID, deviceId);
+        }
+        return deviceId;
+    }
+
+    // Sends the change log a batch at a time, removing each batch once the roster service has it
+    private void push(String deviceId) throws IOException {
+        while (true) {
+            List<SyncChange> changes = new ArrayList<>();
+            long lastSeq = withDatabase(() -> readBatch(changes));
+            if (lastSeq == 0) {
+                return; // Nothing left to send
+            }
+            if (!changes.isEmpty()) {
+                byte[] batch = SyncChange.encode(changes);
+                withRetry(() -> {
+                    service.push(deviceId, lastSeq, batch);
+                    return null;
+                });
+                bytesSent += batch.length;
+                BYTES_SENT.add(batch.length);
+                changesPushed += changes.size();
+            }
+            withDatabase(() -> {
+                myDB.removePushedChanges(lastSeq);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Reads the next batch of the change log and combines the changes to each student into one, in the
+     * order of their last change. A reset makes every change before it pointless, so it starts the batch.
+     *
+     * @param changes Receives the combined changes.
+     * @return The seq of the last log entry read, or 0 if the log is empty.
+     */
+    private long readBatch(List<SyncChange> changes) {
+        LinkedHashMap<String, SyncChange> bySyncId = new LinkedHashMap<>();
+        boolean reset = false;
+        long lastSeq = 0;
+        Cursor cursor = myDB.readChangeLog(0, batchSize);
+        try {
+            while (cursor.moveToNext()) {
+                lastSeq = cursor.getLong(0);
+                String op = cursor.getString(1);
+                if (SyncChange.RESET.equals(op)) {
+                    reset = true;
+                    bySyncId.clear();
+                    continue;
+                }
+                String syncId = cursor.getString(2);
+                bySyncId.remove(syncId); // So the student moves to the position of its latest change
+                if (SyncChange.DELETE.equals(op)) {
+                    bySyncId.put(syncId, SyncChange.delete(0, syncId));
+                } else if (!cursor.isNull(9)) {
+                    bySyncId.put(syncId, SyncChange.write(0, syncId, cursor.getString(3), cursor.getInt(4),
+                            cursor.getString(5), cursor.getInt(6), cursor.getInt(7), cursor.getString(8)));
+                }
+                // A written student that no longer exists is skipped: its deletion is logged further on
+            }
+        } finally {
+            cursor.close();
+        }
+        if (reset) {
+            changes.add(SyncChange.reset(0));
+        }
+        changes.addAll(bySyncId.values());
+        return lastSeq;
+    }
+
+    // Fetches and applies other devices' changes a batch at a time until there are no more
+    private void pull(String deviceId) throws IOException {
+        String saved = withDatabase(() -> myDB.getSyncState(MyDatabaseHelper.SYNC_PULLED_SEQ));
+        long pulledSeq = saved == null ? 0 : Long.parseLong(saved);
+        while (true) {
+            long afterSeq = pulledSeq;
+            byte[] batch = withRetry(() -> service.pull(deviceId, afterSeq, batchSize));
+            bytesReceived += batch.length;
+            BYTES_RECEIVED.add(batch.length);
+
+            List<SyncChange> changes = SyncChange.decode(batch);
+            if (changes.isEmpty()) {
+                return;
+            }
+            long lastSeq = changes.get(changes.size() - 1).seq;
+            studentsChanged += withDatabase(() -> myDB.applySyncChanges(changes, lastSeq));
+            pulledSeq = lastSeq;
+            changesPulled += changes.size();
+            if (changes.size() < batchSize) {
+                return; // A short batch means this device is up to date
+            }
+        }
+    }
+
+    // Runs a database step while holding the database lock. If the database file was replaced since the run
+    // started, the log and watermark read earlier belong to the old file, so the run stops instead.
+    private <T> T withDatabase(Call<T> step) throws IOException {
+        databaseLock.lock();
+        try {
+            if (myDB.getFileGeneration() != fileGeneration) {
+                throw new IOException("The database was restored during the sync");
+            }
+            return step.call();
+        } finally {
+            databaseLock.unlock();
+        }
+    }
+
+    // Runs a network call, retrying with exponential backoff (and some randomness, so devices that failed
+    // together do not all retry at the same moment) until it succeeds or MAX_ATTEMPTS tries have failed
+    private <T> T withRetry(Call<T> call) throws IOException {
+        long backoff = INITIAL_BACKOFF_MS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (IOException e) {
+                if (attempt >= MAX_ATTEMPTS || e instanceof InterruptedIOException) {
+                    throw e;
+                }
+            }
+            retries++;
+            RETRIES.increment();
+            try {
+                sleeper.sleep(backoff - (long) (random.nextDouble() * backoff / 2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Sync interrupted");
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * TableRebuilder.java
+
+ * This class changes the layout of a table that SQLite cannot alter in place (for example changing
+ * a column's type or constraints, or removing a column) without losing any rows.
+ * It creates the new table under a temporary name, copies the rows across in chunks of row IDs,
+ * then drops the old table and renames the new one into its place. The AUTOINCREMENT counter is carried
+ * over so IDs of deleted students are never handed out again.
+
+ * Copying in chunks keeps every statement short and lets the copy report progress as it goes,
+ * which matters once a table has hundreds of thousands of rows.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Indexes and triggers belong to the old table and are dropped with it; the migration step
+ * must create them again after rebuild(). Run it inside a transaction (migration steps always are).
+ */
+
+package com.example.studentdatabase;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+public class TableRebuilder {
+
+    // Number of rows copied per statement
+    public static final int DEFAULT_CHUNK_SIZE = 5000;
+
+    // Suffix of the temporary table the rows are copied into
+    private static final String NEW_SUFFIX = "_new";
+
+    private final String table;
+    private final String createSql;
+    private final String targetColumns;
+    private final String sourceColumns;
+    private final int chunkSize;
+
+    /**
+     * Constructor for the TableRebuilder class.
+     *
+     * @param table The table to rebuild. Its rows must have a rowid (an INTEGER PRIMARY KEY counts).
+     * @param createSql The CREATE TABLE statement for the new layout, with %s where the table name goes.
+     * @param targetColumns The columns of the new table to fill, comma separated.
+     * @param sourceColumns Expressions over the old table giving those columns' values, in the same order.
+     * @param chunkSize The number of rows copied per statement.
+     */
+    public TableRebuilder(String table, String createSql, String targetColumns, String sourceColumns, int chunkSize) {
+        this.table = table;
+        this.createSql = createSql;
+        this.targetColumns = targetColumns;
+        this.sourceColumns = sourceColumns;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Rebuilds the table.
+     *
+     * @param db The database, already inside a transaction.
+     * @param progress Optional receiver of the number of rows copied so far.
+     * @return The number of rows copied.
+     */
+    public long rebuild(SQLiteDatabase db, @Nullable Migration.Progress progress) {
+        if (!db.inTransaction()) {
+            throw new IllegalStateException("Rebuild " + table + " inside a transaction");
+        }
+        String newTable = table + NEW_SUFFIX;
+
+        db.execSQL("DROP TABLE IF EXISTS " + newTable); // Left over from an earlier attempt that was rolled back
+        db.execSQL(String.format(createSql, newTable));
+
+        long copied = copyInChunks(db, table, newTable, targetColumns, sourceColumns, null, chunkSize, progress);
+
+        carryOverSequence(db, newTable);
+        db.execSQL("DROP TABLE " + table);
+        db.execSQL("ALTER TABLE " + newTable + " RENAME TO " + table);
+        return copied;
+    }
+
+    /**
+     * Copies rows from one table into another in chunks of row IDs, one INSERT ... SELECT per chunk.
+     * Also used by migration steps that fill a new table from an existing one.
+     *
+     * @param db The database, already inside a transaction.
+     * @param sourceTable The table to copy from. Its rows must have a rowid.
+     * @param targetTable The table to copy into.
+     * @param targetColumns The columns of the target table to fill, comma separated.
+     * @param sourceColumns Expressions over the source table giving those columns' values, in the same order.
+     * @param filter Optional condition on the source rows; rows that fail it are skipped (but still count as progress).
+     * @param chunkSize The number of source rows per statement.
+     * @param progress Optional receiver of the number of source rows processed so far.
+     * @return The number of source rows processed.
+     */
+    static long copyInChunks(SQLiteDatabase db, String sourceTable, String targetTable, String targetColumns,
+                             String sourceColumns, @Nullable String filter, int chunkSize,
+                             @Nullable Migration.Progress progress) {
+        long total = DatabaseUtils.queryNumEntries(db, sourceTable);
+        long copied = 0;
+        long lastRowId = Long.MIN_VALUE;
+        SQLiteStatement copy = db.compileStatement("INSERT INTO " + targetTable + " (" + targetColumns + ")" +
+                " SELECT " + sourceColumns + " FROM " + sourceTable +
+                " WHERE rowid > ? AND rowid <= ?" + (filter == null ? "" : " AND (" + filter + ")") +
+                " ORDER BY rowid");
+        try {
+            if (progress != null) {
+                progress.report(0, total);
+            }
+            while (true) {
+                // Find the last row ID of the next chunk by walking the rowid order
+                long upToRowId;
+                int inChunk;
+                Cursor chunk = db.rawQuery("SELECT COUNT(*), MAX(rowid) FROM (SELECT rowid FROM " + sourceTable +
+                        " WHERE rowid > CAST(? AS INTEGER) ORDER BY rowid LIMIT " + chunkSize + ")", new String[]{String.valueOf(lastRowId)});
+                try {
+                    chunk.moveToFirst();
+                    inChunk = chunk.getInt(0);
+                    upToRowId = chunk.getLong(1);
+                } finally {
+                    chunk.close();
+                }
+                if (inChunk == 0) {
+                    break;
+                }
+
+                copy.bindLong(1, lastRowId);
+                copy.bindLong(2, upToRowId);
+                copy.executeUpdateDelete();
+                copied += inChunk;
+                lastRowId = upToRowId;
+
+                if (progress != null) {
+                    progress.report(copied, total);
+                }
+                if (inChunk < chunkSize) {
+                    break; // Last chunk
+                }
+            }
+        } finally {
+            copy.close();
+        }
+        return copied;
+    }
+
+    // Copies the AUTOINCREMENT counter of the old table to the new one (if the database uses AUTOINCREMENT at all)
+    private void carryOverSequence(SQLiteDatabase db, String newTable) {
+        if (DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = 'sqlite_sequence'", null) == 0) {
+            return;
+        }
+        db.execSQL("DELETE FROM sqlite_sequence WHERE name = ?", new Object[]{newTable});
+        db.execSQL("INSERT INTO sqlite_sequence (name, seq) SELECT ?, seq FROM sqlite_sequence WHERE name = ?",
+                new Object[]{newTable, table});
+    }
+}
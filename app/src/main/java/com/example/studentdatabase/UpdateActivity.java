@@ -3,6 +3,8 @@
 
  * This activity allows users to update or delete an existing student's information.
  * The student details are retrieved from the database and displayed in input fields.
+ * Only the student's ID is passed in the Intent; the row itself comes from StudentRepository's
+ * row cache, or from the database if it is not cached, so the screen always shows the current data.
  * Users can modify the information and update it in the database, or delete the student's record.
 
  * Author: Abdulla Nibah Hussain
@@ -26,6 +28,9 @@ import androidx.appcompat.app.AppCompatActivity;
 
 public class UpdateActivity extends AppCompatActivity {
 
+    // Intent extra holding the ID (a long) of the student to show
+    public static final String EXTRA_ID = "id";
+
     // UI elements
     EditText name_input, number_input, mail_input, physics_input, math_input;
     Button update_button, delete_button;
@@ -47,15 +52,9 @@ public class UpdateActivity extends AppCompatActivity {
         update_button = findViewById(R.id.update_button);
         delete_button = findViewById(R.id.delete_button);
 
-        // Retrieve data passed via Intent and set it to the input fields
+        // Retrieve the student's ID passed via Intent and load their data into the input fields
         getAndSetIntentData();
 
-        // Set the ActionBar title to the student's name
-        ActionBar ab = getSupportActionBar();
-        if (ab != null) {
-            ab.setTitle(name);
-        }
-
         // Handle the update button click event
         update_button.setOnClickListener(view -> {
             try {
@@ -66,24 +65,23 @@ public class UpdateActivity extends AppCompatActivity {
                 int updatedPhysics = Integer.parseInt(physics_input.getText().toString());
                 int updatedMath = Integer.parseInt(math_input.getText().toString());
 
-                // Calculate the average and assign a grade
-                int average = (updatedPhysics + updatedMath) / 2;
-                String updatedGrade = (average >= 90) ? "A+" : (average >= 80) ? "A" :
-                        (average >= 70) ? "B+" : (average >= 60) ? "B" :
-                                (average >= 50) ? "C+" : (average >= 40) ? "C" :
-                                        (average >= 33) ? "D" : "F";
-
-                // Update the student data in the database
-                MyDatabaseHelper myDB = new MyDatabaseHelper(UpdateActivity.this);
-                myDB.updateStudent(id, updatedName, updatedNumber, updatedMail, updatedPhysics, updatedMath, updatedGrade);
-
-                // Send the result back to MainActivity to indicate successful update
-                Intent resultIntent = new Intent();
-                setResult(RESULT_OK, resultIntent);
-
-                // Show a success message
-                Toast.makeText(UpdateActivity.this, "Updated Successfully", Toast.LENGTH_SHORT).show();
-                finish(); // Close the activity
+                // Update the student data in the database on a background thread (the repository regrades it)
+                StudentRepository.getInstance(UpdateActivity.this).updateStudent(id, updatedName, updatedNumber,
+                        updatedMail, updatedPhysics, updatedMath, StudentRepository.callback(result -> {
+                    if (result == 0) {
+                        Toast.makeText(UpdateActivity.this, "Failed to update student. The number or email may already be in use.", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+
+                    // Send the result back to MainActivity to indicate successful update
+                    Intent resultIntent = new Intent();
+                    setResult(RESULT_OK, resultIntent);
+
+                    // Show a success message
+                    Toast.makeText(UpdateActivity.this, "Updated Successfully", Toast.LENGTH_SHORT).show();
+                    finish(); // Close the activity
+                }, error -> Toast.makeText(UpdateActivity.this, "Failed to update student: " + error.getMessage(),
+                        Toast.LENGTH_SHORT).show()));
             } catch (NumberFormatException e) {
                 // Show an error message if invalid numbers are entered
                 Toast.makeText(UpdateActivity.this, "Please enter valid numbers!", Toast.LENGTH_SHORT).show();
@@ -97,31 +95,67 @@ public class UpdateActivity extends AppCompatActivity {
     }
 
     /**
-     * Retrieves the student data from the Intent and populates the input fields.
+     * Retrieves the student's ID from the Intent and loads the student, from the row cache if possible.
+     * The buttons stay disabled until the data is shown.
      */
     void getAndSetIntentData() {
-        if (getIntent().hasExtra("id") && getIntent().hasExtra("name") &&
-                getIntent().hasExtra("number") && getIntent().hasExtra("mail") &&
-                getIntent().hasExtra("physics") && getIntent().hasExtra("math") && getIntent().hasExtra("grade")) {
-
-            // Retrieve the data passed via Intent
-            id = getIntent().getStringExtra("id");
-            name = getIntent().getStringExtra("name");
-            number = getIntent().getStringExtra("number");
-            mail = getIntent().getStringExtra("mail");
-            physics = getIntent().getStringExtra("physics");
-            math = getIntent().getStringExtra("math");
-            grade = getIntent().getStringExtra("grade");
-
-            // Set the retrieved data to the input fields
-            name_input.setText(name);
-            number_input.setText(number);
-            mail_input.setText(mail);
-            physics_input.setText(physics);
-            math_input.setText(math);
-        } else {
+        update_button.setEnabled(false);
+        delete_button.setEnabled(false);
+
+        long studentId = getIntent().getLongExtra(EXTRA_ID, -1);
+        if (studentId < 0) {
             // Show a message if no data is found
             Toast.makeText(this, "No data.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        id = String.valueOf(studentId);
+
+        StudentRepository repository = StudentRepository.getInstance(this);
+        Student cached = repository.getCachedStudent(studentId);
+        if (cached != null) {
+            showStudent(cached); // Cache hit: no database access, no waiting
+            return;
+        }
+        repository.loadStudent(studentId, StudentRepository.callback(student -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (student == null) {
+                // The student was deleted since the list was shown
+                Toast.makeText(UpdateActivity.this, "No data.", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            showStudent(student);
+        }, error -> {
+            // The buttons stay disabled, so close the screen rather than leave it waiting
+            Toast.makeText(UpdateActivity.this, "Could not load the student.", Toast.LENGTH_SHORT).show();
+            finish();
+        }));
+    }
+
+    // Sets the student's data to the input fields and the ActionBar title
+    private void showStudent(Student student) {
+        name = student.name;
+        number = String.valueOf(student.number);
+        mail = student.mail;
+        physics = String.valueOf(student.physics);
+        math = String.valueOf(student.math);
+        grade = student.grade;
+
+        // Set the retrieved data to the input fields
+        name_input.setText(name);
+        number_input.setText(number);
+        mail_input.setText(mail);
+        physics_input.setText(physics);
+        math_input.setText(math);
+        update_button.setEnabled(true);
+        delete_button.setEnabled(true);
+
+        // Set the ActionBar title to the student's name
+        ActionBar ab = getSupportActionBar();
+        if (ab != null) {
+            ab.setTitle(name);
         }
     }
 
@@ -135,14 +169,19 @@ public class UpdateActivity extends AppCompatActivity {
 
         // Handle the positive button (Yes)
         builder.setPositiveButton("Yes", (dialogInterface, i) -> {
-            // Delete the student record from the database
-            MyDatabaseHelper myDB = new MyDatabaseHelper(UpdateActivity.this);
-            myDB.deleteOneRow(id);
-
-            // Send the result back to MainActivity to indicate deletion
-            Intent resultIntent = new Intent();
-            setResult(RESULT_OK, resultIntent);
-            finish(); // Close the activity after deletion
+            // Delete the student record from the database on a background thread
+            StudentRepository.getInstance(UpdateActivity.this).deleteOneRow(id, StudentRepository.callback(result -> {
+                if (result == 0) {
+                    Toast.makeText(UpdateActivity.this, "Failed to delete student", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                Toast.makeText(UpdateActivity.this, "Student deleted successfully", Toast.LENGTH_SHORT).show();
+
+                // Send the result back to MainActivity to indicate deletion
+                Intent resultIntent = new Intent();
+                setResult(RESULT_OK, resultIntent);
+                finish(); // Close the activity after deletion
+            }, error -> Toast.makeText(UpdateActivity.this, "Failed to delete student", Toast.LENGTH_SHORT).show()));
         });
 
         // Handle the negative button (No)
@@ -0,0 +1,59 @@
+/**
+ * UpsertResult.java
+
+ * This class is an immutable summary of one batch written by MyDatabaseHelper.upsertStudents().
+ * Students are matched by student number: a new number is inserted, an existing one is updated if
+ * any of its values differ and left alone if they are all the same. A student whose email already
+ * belongs to a different student number is rejected, because both columns must be unique.
+
+ * Author: Abdulla Nibah Hussain
+ * Date: 18/10/2026
+ * Version: 1.0
+
+ * Note: Running the same batch twice reports every student as unchanged the second time.
+ */
+
+package com.example.studentdatabase;
+
+public final class UpsertResult {
+
+    public final int inserted;
+    public final int updated;
+    public final int unchanged;
+    public final int rejected;
+
+    /**
+     * Constructor for the UpsertResult class.
+     *
+     * @param inserted The number of students added.
+     * @param updated The number of existing students whose values changed.
+     * @param unchanged The number of existing students that already had these values.
+     * @param rejected The number of students skipped because their email belongs to another student.
+     */
+    public UpsertResult(int inserted, int updated, int unchanged, int rejected) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+        this.rejected = rejected;
+    }
+
+    // Students in the batch that matched an existing student number or email
+    public int getConflicts() {
+        return updated + unchanged + rejected;
+    }
+
+    // Students in the batch that actually changed the database
+    public int getChanged() {
+        return inserted + updated;
+    }
+
+    public int getTotal() {
+        return inserted + updated + unchanged + rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "UpsertResult{inserted " + inserted + ", updated " + updated + ", unchanged " + unchanged +
+                ", rejected " + rejected + "}";
+    }
+}
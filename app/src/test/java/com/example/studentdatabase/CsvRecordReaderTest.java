@@ -0,0 +1,49 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for CsvRecordReader.
+ */
+public class CsvRecordReaderTest {
+
+    private static List<List<String>> readAll(String text, char delimiter) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(text), delimiter);
+        List<List<String>> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        while (reader.readRecord(fields)) {
+            records.add(new ArrayList<>(fields));
+        }
+        return records;
+    }
+
+    @Test
+    public void plainRecords_withCrLf() throws IOException {
+        List<List<String>> records = readAll("Ali,1001,ali@example.com,80,90\r\nSara,1002,sara@example.com,70,60", ',');
+        assertEquals(2, records.size());
+        assertEquals(Arrays.asList("Ali", "1001", "ali@example.com", "80", "90"), records.get(0));
+        assertEquals("60", records.get(1).get(4));
+    }
+
+    @Test
+    public void quotedFields_keepDelimitersQuotesAndLineBreaks() throws IOException {
+        List<List<String>> records = readAll("\"Hassan, Ali\",\"say \"\"hi\"\"\",\"two\nlines\"\n", ',');
+        assertEquals(1, records.size());
+        assertEquals(Arrays.asList("Hassan, Ali", "say \"hi\"", "two\nlines"), records.get(0));
+    }
+
+    @Test
+    public void tabDelimited() throws IOException {
+        List<List<String>> records = readAll("Ali\t1001\tali@example.com\t80\t90\n", '\t');
+        assertEquals(5, records.get(0).size());
+        assertEquals("ali@example.com", records.get(0).get(2));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for DatabaseSnapshot: full and incremental snapshots rebuild the exact file,
+ * and damaged or incomplete snapshots are rejected instead of restored.
+ */
+public class DatabaseSnapshotTest {
+
+    private static final int PAGE_SIZE = 1024;
+
+    // Builds a file that looks like an SQLite database: a valid header on page 0, random bytes on the rest
+    private static byte[] image(int pages, long seed) {
+        byte[] bytes = new byte[pages * PAGE_SIZE];
+        new Random(seed).nextBytes(bytes);
+        byte[] magic = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(magic, 0, bytes, 0, magic.length);
+        bytes[16] = (byte) (PAGE_SIZE >> 8);
+        bytes[17] = (byte) PAGE_SIZE;
+        bytes[60] = 0;
+        bytes[61] = 0;
+        bytes[62] = 0;
+        bytes[63] = 7; // user_version
+        return bytes;
+    }
+
+    private static File temp(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static File write(byte[] bytes) throws IOException {
+        File file = temp("image", ".db");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[(int) in.length()];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+
+    private static DatabaseSnapshot snapshot(File image, long number, long baseNumber, long[] baseDigests) throws IOException {
+        File target = temp("snapshot", ".sdb");
+        DatabaseSnapshot.PageScan scan = DatabaseSnapshot.scan(image, PAGE_SIZE);
+        DatabaseSnapshot.write(image, target, number, baseNumber, scan, baseDigests, 42, 1000L * number);
+        return DatabaseSnapshot.read(target);
+    }
+
+    @Test
+    public void fullSnapshot_rebuildsTheFile() throws IOException {
+        byte[] original = image(20, 1);
+        File image = write(original);
+        DatabaseSnapshot full = snapshot(image, 1, 0, null);
+        assertTrue(full.isFull());
+        assertEquals(20, full.pagesStored);
+        assertEquals(42, full.studentCount);
+
+        File restored = temp("restored", ".db");
+        DatabaseSnapshot.restore(Collections.singletonList(full), restored);
+        assertArrayEquals(original, read(restored));
+    }
+
+    @Test
+    public void incrementalSnapshot_storesOnlyChangedPages() throws IOException {
+        byte[] first = image(20, 2);
+        File image = write(first);
+        DatabaseSnapshot full = snapshot(image, 1, 0, null);
+        long[] digests = DatabaseSnapshot.scan(image, PAGE_SIZE).digests;
+
+        // Change one byte of page 5 and add two pages
+        byte[] second = Arrays.copyOf(first, 22 * PAGE_SIZE);
+        second[5 * PAGE_SIZE + 100] ^= 1;
+        second[21 * PAGE_SIZE] = 9;
+        File changed = write(second);
+        DatabaseSnapshot incremental = snapshot(changed, 2, 1, digests);
+        assertFalse(incremental.isFull());
+        assertEquals(3, incremental.pagesStored);
+        assertTrue(incremental.file.length() < full.file.length());
+
+        File restored = temp("restored", ".db");
+        DatabaseSnapshot.restore(Arrays.asList(full, incremental), restored);
+        assertArrayEquals(second, read(restored));
+    }
+
+    @Test
+    public void incrementalSnapshot_followsAShrinkingFile() throws IOException {
+        byte[] first = image(20, 3);
+        File image = write(first);
+        DatabaseSnapshot full = snapshot(image, 1, 0, null);
+        long[] digests = DatabaseSnapshot.scan(image, PAGE_SIZE).digests;
+
+        byte[] second = Arrays.copyOf(first, 12 * PAGE_SIZE);
+        DatabaseSnapshot incremental = snapshot(write(second), 2, 1, digests);
+        assertEquals(0, incremental.pagesStored);
+
+        File restored = temp("restored", ".db");
+        DatabaseSnapshot.restore(Arrays.asList(full, incremental), restored);
+        assertArrayEquals(second, read(restored));
+    }
+
+    @Test
+    public void damagedSnapshot_isRejected() throws IOException {
+        DatabaseSnapshot full = snapshot(write(image(20, 4)), 1, 0, null);
+        try (RandomAccessFile file = new RandomAccessFile(full.file, "rw")) {
+            file.seek(file.length() / 2);
+            int b = file.read();
+            file.seek(file.length() / 2);
+            file.write(b ^ 0xFF);
+        }
+        try {
+            DatabaseSnapshot.restore(Collections.singletonList(full), temp("restored", ".db"));
+            fail("A damaged snapshot should not restore");
+        } catch (IOException expected) {
+            // The gzip or database checksum caught it
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void incrementalSnapshot_needsItsBase() throws IOException {
+        File image = write(image(20, 5));
+        long[] digests = DatabaseSnapshot.scan(image, PAGE_SIZE).digests;
+        DatabaseSnapshot incremental = snapshot(image, 2, 1, digests);
+        DatabaseSnapshot.restore(Collections.singletonList(incremental), temp("restored", ".db"));
+    }
+
+    @Test
+    public void digests_areOnlyUsedForTheSamePageSize() throws IOException {
+        File image = write(image(8, 6));
+        DatabaseSnapshot.PageScan scan = DatabaseSnapshot.scan(image, PAGE_SIZE);
+        File digests = temp("snapshot", ".pages");
+        DatabaseSnapshot.writeDigests(scan, digests);
+        assertArrayEquals(scan.digests, DatabaseSnapshot.readDigests(digests, PAGE_SIZE));
+        assertNull(DatabaseSnapshot.readDigests(digests, PAGE_SIZE * 2));
+        assertTrue(digests.delete());
+        assertNull(DatabaseSnapshot.readDigests(digests, PAGE_SIZE));
+    }
+
+    @Test
+    public void fileHeader_givesPageSizeAndVersion() throws IOException {
+        byte[] bytes = image(2, 7);
+        assertEquals(PAGE_SIZE, DatabaseSnapshot.readPageSize(write(bytes)));
+        assertEquals(7, DatabaseSnapshot.readUserVersion(write(bytes)));
+        bytes[16] = 0;
+        bytes[17] = 1; // The largest page size is stored as 1
+        assertEquals(65536, DatabaseSnapshot.readPageSize(write(bytes)));
+    }
+
+    @Test(expected = IOException.class)
+    public void fileHeader_rejectsOtherFiles() throws IOException {
+        DatabaseSnapshot.readPageSize(write(new byte[PAGE_SIZE]));
+    }
+}
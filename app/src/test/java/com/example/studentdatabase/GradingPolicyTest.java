@@ -0,0 +1,69 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for GradingPolicy.
+ */
+public class GradingPolicyTest {
+
+    // The ladder that AddActivity and UpdateActivity used to repeat inline
+    private static String legacyGrade(int physics, int math) {
+        int average = (physics + math) / 2;
+        return (average >= 90) ? "A+" : (average >= 80) ? "A" :
+                (average >= 70) ? "B+" : (average >= 60) ? "B" :
+                        (average >= 50) ? "C+" : (average >= 40) ? "C" :
+                                (average >= 33) ? "D" : "F";
+    }
+
+    @Test
+    public void defaultPolicy_matchesLegacyLadder() {
+        for (int physics = -10; physics <= 110; physics++) {
+            for (int math = -10; math <= 110; math++) {
+                assertEquals(physics + "/" + math, legacyGrade(physics, math), GradingPolicy.DEFAULT.grade(physics, math));
+            }
+        }
+    }
+
+    @Test
+    public void weights_changeTheScore() {
+        GradingPolicy mathHeavy = new GradingPolicy(1, 3, new String[]{"Pass", "Fail"}, new int[]{50});
+        assertEquals(55, mathHeavy.score(40, 60)); // (40 + 3 * 60) / 4
+        assertEquals("Pass", mathHeavy.grade(40, 60));
+        assertEquals("Fail", mathHeavy.grade(60, 40)); // (60 + 3 * 40) / 4 = 45
+    }
+
+    @Test
+    public void scores_areClampedToRange() {
+        assertEquals(0, GradingPolicy.DEFAULT.score(-50, -50));
+        assertEquals(GradingPolicy.MAX_SCORE, GradingPolicy.DEFAULT.score(500, 500));
+        assertEquals("A+", GradingPolicy.DEFAULT.grade(Integer.MAX_VALUE, Integer.MAX_VALUE)); // No overflow
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bandsOutOfOrder_areRejected() {
+        new GradingPolicy(1, 1, new String[]{"A", "B", "C"}, new int[]{50, 70});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingFallbackGrade_isRejected() {
+        new GradingPolicy(1, 1, new String[]{"A", "B"}, new int[]{70, 50});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroWeights_areRejected() {
+        new GradingPolicy(0, 0, new String[]{"Pass", "Fail"}, new int[]{50});
+    }
+
+    @Test
+    public void toSql_quotesGradesAndUsesWeights() {
+        GradingPolicy policy = new GradingPolicy(2, 1, new String[]{"O'Level", "Fail"}, new int[]{40});
+        String sql = policy.toSql("p", "m");
+        assertTrue(sql, sql.contains("IFNULL(p, 0) * 2"));
+        assertTrue(sql, sql.contains(") / 3"));
+        assertTrue(sql, sql.contains("'O''Level'"));
+        assertTrue(sql, sql.endsWith("ELSE 'Fail' END)"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithoutGaps() {
+        // Each bucket starts right after the previous one ends
+        for (int i = 1; i <= LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_NANOS); i++) {
+            long firstValue = LatencyHistogram.bucketUpperBound(i - 1) + 1;
+            assertEquals(i, LatencyHistogram.bucketIndex(firstValue));
+            assertEquals(i, LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperBound(i)));
+        }
+    }
+
+    @Test
+    public void bucketErrorIsSmall() {
+        for (long value = 1; value < LatencyHistogram.MAX_TRACKABLE_NANOS; value = value * 3 + 7) {
+            long upper = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+            assertTrue(upper >= value);
+            assertTrue(upper - value <= value / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void percentilesOfAUniformSpread() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 1e-6);
+
+        // Never below the true value, and within one bucket (about 6%) above it
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 17 / 16);
+        assertTrue(p99 >= 990_000 && p99 <= 990_000 * 17 / 16);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void aSingleSlowCallShowsUpInP99() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(100_000); // 0.1 ms
+        }
+        histogram.record(50_000_000); // 50 ms
+        histogram.record(50_000_000);
+        assertTrue(histogram.getValueAtPercentile(50) < 110_000);
+        assertTrue(histogram.getValueAtPercentile(99) >= 50_000_000);
+    }
+
+    @Test
+    public void clampsOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void resetForgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1234);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean(), 0);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for Metrics. Timers are fed with record(), since start() and stop() use android.os.Trace.
+ */
+public class MetricsTest {
+
+    @Test
+    public void sameNameGivesTheSameTimerAndCounter() {
+        assertSame(Metrics.timer("test.same"), Metrics.timer("test.same"));
+        assertSame(Metrics.counter("test.same"), Metrics.counter("test.same"));
+    }
+
+    @Test
+    public void jsonHoldsEveryTimerAndCounter() {
+        Metrics.Timer timer = Metrics.timer("test.json");
+        Metrics.Counter counter = Metrics.counter("test.jsonRows");
+        timer.getHistogram().reset();
+        timer.record(2_000_000); // 2 ms
+        timer.record(4_000_000);
+        counter.add(42 - counter.get());
+
+        String json = Metrics.toJson();
+        assertTrue(json, json.startsWith("{\"timers\":{"));
+        assertTrue(json, json.contains("\"test.json\":{\"count\":2,\"mean_us\":3000.0,"));
+        assertTrue(json, json.contains("\"max_us\":4000}"));
+        assertTrue(json, json.contains("\"test.jsonRows\":42"));
+        assertTrue(json, json.endsWith("}}"));
+    }
+
+    @Test
+    public void resetClearsMeasurementsButKeepsNames() {
+        Metrics.Timer timer = Metrics.timer("test.reset");
+        timer.record(1000);
+        Metrics.counter("test.reset").increment();
+
+        Metrics.reset();
+        assertEquals(0, timer.getHistogram().getCount());
+        assertEquals(0, Metrics.counter("test.reset").get());
+        assertTrue(Metrics.getTimers().contains(timer));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for MigrationRunner's step planning.
+ */
+public class MigrationRunnerTest {
+
+    private static Migration step(int version) {
+        return new Migration(version, "step " + version, (db, progress) -> { });
+    }
+
+    @Test
+    public void plan_runsOnlyTheStepsBetweenVersions() {
+        MigrationRunner runner = new MigrationRunner(Arrays.asList(step(2), step(3), step(4), step(5)));
+        List<Migration> steps = runner.plan(2, 4);
+        assertEquals(2, steps.size());
+        assertEquals(3, steps.get(0).version);
+        assertEquals(4, steps.get(1).version);
+        assertEquals(5, runner.getLatestVersion());
+        assertTrue(runner.plan(5, 5).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void plan_rejectsMissingStep() {
+        new MigrationRunner(Arrays.asList(step(2), step(4))).plan(1, 4);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void plan_rejectsVersionPastLastStep() {
+        new MigrationRunner(Arrays.asList(step(2), step(3))).plan(1, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsStepsOutOfOrder() {
+        new MigrationRunner(Arrays.asList(step(3), step(2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsDuplicateVersions() {
+        new MigrationRunner(Arrays.asList(step(2), step(2)));
+    }
+
+    @Test
+    public void appMigrations_coverEveryVersion() {
+        // Every released version must be able to reach the current one
+        for (int version = 1; version < MyDatabaseHelper.MIGRATIONS.getLatestVersion(); version++) {
+            assertFalse(MyDatabaseHelper.MIGRATIONS.plan(version, MyDatabaseHelper.MIGRATIONS.getLatestVersion()).isEmpty());
+        }
+    }
+}
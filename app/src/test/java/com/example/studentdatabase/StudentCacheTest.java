@@ -0,0 +1,74 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for StudentCache.
+ */
+public class StudentCacheTest {
+
+    private static Student student(long id) {
+        return new Student(id, "Student " + id, 1000, "s" + id + "@cyryx.edu.mv", 50, 60, "C+");
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        StudentCache cache = new StudentCache(10);
+        assertNull(cache.get(1));
+        assertTrue(cache.put(student(1), cache.getVersion()));
+        assertEquals(student(1), cache.get(1));
+        assertEquals(student(1), cache.get(1));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        StudentCache cache = new StudentCache(3);
+        for (long id = 1; id <= 3; id++) {
+            cache.put(student(id), cache.getVersion());
+        }
+        cache.get(1); // 2 is now the least recently used
+        cache.put(student(4), cache.getVersion());
+
+        assertEquals(3, cache.size());
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertNotNull(cache.get(4));
+    }
+
+    @Test
+    public void invalidateRemovesRows() {
+        StudentCache cache = new StudentCache(10);
+        cache.put(student(1), cache.getVersion());
+        cache.put(student(2), cache.getVersion());
+
+        cache.invalidate(1);
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void readFromBeforeAnInvalidationIsNotStored() {
+        StudentCache cache = new StudentCache(10);
+        long version = cache.getVersion(); // A reader starts loading student 1...
+        cache.invalidate(1);                // ...while a writer updates it
+
+        assertFalse(cache.put(student(1), version));
+        assertNull(cache.get(1));
+        assertTrue(cache.put(student(1), cache.getVersion()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizeMustBePositive() {
+        new StudentCache(0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for StudentChange: how changes to the same student are combined within a batch.
+ */
+public class StudentChangeTest {
+
+    @Test
+    public void idsAreSortedByKind() {
+        StudentChange change = new StudentChange.Builder()
+                .inserted(9).inserted(7)
+                .updated(3, 1)
+                .deleted(5)
+                .build();
+
+        assertArrayEquals(new long[]{7, 9}, change.inserted);
+        assertArrayEquals(new long[]{1, 3}, change.updated);
+        assertArrayEquals(new long[]{5}, change.deleted);
+        assertFalse(change.everything);
+        assertFalse(change.isEmpty());
+    }
+
+    @Test
+    public void changesToTheSameStudentAreCombined() {
+        StudentChange change = new StudentChange.Builder()
+                .inserted(1).updated(1)    // Still a new row
+                .inserted(2).deleted(2)    // Never seen, so not reported
+                .updated(3).deleted(3)     // Gone
+                .deleted(4).updated(4)     // Deleted and back again
+                .build();
+
+        assertArrayEquals(new long[]{1}, change.inserted);
+        assertArrayEquals(new long[]{4}, change.updated);
+        assertArrayEquals(new long[]{3}, change.deleted);
+    }
+
+    @Test
+    public void tooManyIdsBecomeEverything() {
+        StudentChange.Builder builder = new StudentChange.Builder();
+        for (long id = 1; id <= StudentChange.MAX_TRACKED_IDS; id++) {
+            builder.updated(id);
+        }
+        assertFalse(builder.build().everything);
+
+        for (long id = 1; id <= StudentChange.MAX_TRACKED_IDS + 1; id++) {
+            builder.updated(id);
+        }
+        StudentChange change = builder.build();
+        assertTrue(change.everything);
+        assertEquals(0, change.updated.length);
+    }
+
+    @Test
+    public void addingEverythingOverridesIds() {
+        StudentChange everything = new StudentChange.Builder().everything().build();
+        StudentChange change = new StudentChange.Builder()
+                .updated(1)
+                .add(everything)
+                .deleted(2)
+                .build();
+
+        assertTrue(change.everything);
+        assertEquals(0, change.deleted.length);
+    }
+
+    @Test
+    public void buildEmptiesTheBuilder() {
+        StudentChange.Builder builder = new StudentChange.Builder().inserted(1).everything();
+        builder.build();
+
+        assertTrue(builder.isEmpty());
+        assertTrue(builder.build().isEmpty());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for StudentListSnapshot: rows read back from the mapped file match the table they
+ * were written from, and damaged or half-written files are rejected.
+ */
+public class StudentListSnapshotTest {
+
+    private static File temp(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static StudentTable table() {
+        StudentTable.Builder builder = new StudentTable.Builder(4);
+        builder.append(3, "Aisha Ibrahim", 100003, "aisha@cyryx.edu.mv", 90, 85, "A+");
+        builder.append(7, "Hawwa Moh\u0101med", 100007, null, 55, 60, "C");
+        builder.append(12, "", 100012, "blank@cyryx.edu.mv", 0, 0, "");
+        return builder.build();
+    }
+
+    private static String name(StudentListSnapshot snapshot, int row) {
+        char[] chars = new char[snapshot.getNameLength(row)];
+        snapshot.copyName(row, chars);
+        return new String(chars);
+    }
+
+    private static String mail(StudentListSnapshot snapshot, int row) {
+        char[] chars = new char[snapshot.getMailLength(row)];
+        snapshot.copyMail(row, chars);
+        return new String(chars);
+    }
+
+    private static String grade(StudentListSnapshot snapshot, int row) {
+        char[] chars = new char[snapshot.getGradeLength(row)];
+        snapshot.copyGrade(row, chars);
+        return new String(chars);
+    }
+
+    @Test
+    public void mappedRows_matchTheTable() throws IOException {
+        File file = temp("list", ".snapshot");
+        StudentTable table = table();
+        long bytes = StudentListSnapshot.write(table, 10, file, 42);
+        assertEquals(file.length(), bytes);
+
+        StudentListSnapshot snapshot = StudentListSnapshot.map(file);
+        assertEquals(3, snapshot.size());
+        assertEquals(42, snapshot.getStamp());
+        assertTrue(snapshot.getCreatedAt() > 0);
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(table.getId(row), snapshot.getId(row));
+            assertEquals(table.getNumber(row), snapshot.getNumber(row));
+            assertEquals(table.getName(row), name(snapshot, row));
+            assertEquals(table.getMail(row), mail(snapshot, row));
+            assertEquals(table.getGrade(row), grade(snapshot, row));
+        }
+    }
+
+    @Test
+    public void onlyTheFirstRows_areWritten() throws IOException {
+        File file = temp("list", ".snapshot");
+        StudentListSnapshot.write(table(), 2, file, 1);
+        StudentListSnapshot snapshot = StudentListSnapshot.map(file);
+        assertEquals(2, snapshot.size());
+        assertEquals(7, snapshot.getId(1));
+        assertEquals("C", grade(snapshot, 1));
+    }
+
+    @Test
+    public void replacedFile_leavesEarlierMappingsReadable() throws IOException {
+        File file = temp("list", ".snapshot");
+        StudentListSnapshot.write(table(), 10, file, 1);
+        StudentListSnapshot before = StudentListSnapshot.map(file);
+
+        StudentTable.Builder builder = new StudentTable.Builder(1);
+        builder.append(99, "New", 200000, "new@cyryx.edu.mv", 50, 50, "C");
+        StudentListSnapshot.write(builder.build(), 10, file, 2);
+
+        assertEquals("Aisha Ibrahim", name(before, 0));
+        StudentListSnapshot after = StudentListSnapshot.map(file);
+        assertEquals(1, after.size());
+        assertEquals(2, after.getStamp());
+        assertEquals("New", name(after, 0));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedFile_isRejected() throws IOException {
+        File file = temp("list", ".snapshot");
+        StudentListSnapshot.write(table(), 10, file, 1);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(out.length() - 2);
+        }
+        StudentListSnapshot.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFile_isRejected() throws IOException {
+        File file = temp("list", ".snapshot");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[StudentListSnapshot.HEADER_BYTES]);
+        }
+        StudentListSnapshot.map(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void rowPointingOutsideTheText_isRejected() throws IOException {
+        File file = temp("list", ".snapshot");
+        StudentListSnapshot.write(table(), 10, file, 1);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.seek(StudentListSnapshot.HEADER_BYTES + StudentListSnapshot.ROW_BYTES + 12); // Text offset of row 1
+            out.writeInt(1_000_000);
+        }
+        StudentListSnapshot.map(file);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for StudentSelection.
+ */
+public class StudentSelectionTest {
+
+    @Test
+    public void idsAreSortedWithoutDuplicates() {
+        StudentSelection selection = StudentSelection.ofIds(5, 3, 5, 1, 3);
+        assertTrue(selection.isIdList());
+        assertArrayEquals(new long[]{1, 3, 5}, selection.getIds());
+    }
+
+    @Test
+    public void idsFromACollection() {
+        StudentSelection selection = StudentSelection.ofIds(Arrays.asList(9L, 2L));
+        assertArrayEquals(new long[]{2, 9}, selection.getIds());
+    }
+
+    @Test
+    public void conditionsAreNotIdLists() {
+        assertFalse(StudentSelection.byGrade("A").isIdList());
+        assertFalse(StudentSelection.byNumberRange(100, 200).isIdList());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void conditionHasNoIds() {
+        StudentSelection.byGrade("A").getIds();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void numberRangeMustNotBeEmpty() {
+        StudentSelection.byNumberRange(200, 100);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for StudentTable.
+ */
+public class StudentTableTest {
+
+    // Approximate size of a String on a 64-bit VM with compressed references:
+    // object header and fields (24 bytes) plus a char[] (16 byte header, 2 bytes per char, 8-byte aligned)
+    private static long stringBytes(String s) {
+        return 24 + align(16 + 2L * s.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static StudentTable.Builder fill(int rows) {
+        StudentTable.Builder builder = new StudentTable.Builder(16);
+        for (int i = 0; i < rows; i++) {
+            builder.append(i + 1, "Student Name " + i, 100000 + i, "student" + i + "@cyryx.edu.mv", i % 101, (i * 7) % 101,
+                    GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101));
+        }
+        return builder;
+    }
+
+    @Test
+    public void rowsReadBack() {
+        StudentTable table = fill(3).build();
+        assertEquals(3, table.size());
+        assertEquals(2, table.getId(1));
+        assertEquals("Student Name 1", table.getName(1));
+        assertEquals("student1@cyryx.edu.mv", table.getMail(1));
+        assertEquals(100001, table.getNumber(1));
+        assertEquals(GradingPolicy.DEFAULT.grade(1, 7), table.getGrade(1));
+    }
+
+    @Test
+    public void snapshots_areNotAffectedByLaterAppends() {
+        StudentTable.Builder builder = fill(10);
+        StudentTable before = builder.build();
+        for (int i = 0; i < 1000; i++) {
+            builder.append(1000 + i, "Later " + i, i, "later" + i + "@x", 1, 1, "F"); // Forces the arrays to grow
+        }
+        StudentTable after = builder.build();
+
+        assertEquals(10, before.size());
+        assertEquals("Student Name 9", before.getName(9));
+        assertEquals(1010, after.size());
+        assertTrue(before.rowEquals(9, after, 9));
+        assertFalse(before.rowEquals(8, after, 9));
+    }
+
+    // Compares estimates, not measured heap: the String sizes above against StudentTable.estimateHeapBytes()
+    @Test
+    public void estimatedFootprint_isAtLeastThreeTimesSmallerThanSevenStringLists() {
+        int rows = 100_000;
+        StudentTable table = fill(rows).build();
+
+        long legacy = 0;
+        for (int i = 0; i < rows; i++) {
+            legacy += stringBytes(String.valueOf(table.getId(i)));
+            legacy += stringBytes(table.getName(i));
+            legacy += stringBytes(String.valueOf(table.getNumber(i)));
+            legacy += stringBytes(table.getMail(i));
+            legacy += stringBytes(String.valueOf(table.getPhysics(i)));
+            legacy += stringBytes(String.valueOf(table.getMath(i)));
+            legacy += stringBytes(table.getGrade(i));
+            legacy += 7 * 4; // One reference slot in each ArrayList
+        }
+
+        long columnar = table.estimateHeapBytes();
+        double ratio = (double) legacy / columnar;
+        assertTrue("Estimated only " + ratio + "x smaller", ratio >= 3.0);
+    }
+
+    @Test
+    public void appendRow_copiesRowsFromAnotherTable() {
+        StudentTable table = fill(100).build();
+        StudentTable.Builder builder = new StudentTable.Builder(16);
+        for (int row = 0; row < table.size(); row += 3) {
+            builder.appendRow(table, row); // Keep every third row
+        }
+        StudentTable copy = builder.build();
+
+        assertEquals(34, copy.size());
+        for (int row = 0; row < copy.size(); row++) {
+            assertTrue(copy.rowEquals(row, table, row * 3));
+            assertEquals(table.get(row * 3), copy.get(row));
+        }
+    }
+}
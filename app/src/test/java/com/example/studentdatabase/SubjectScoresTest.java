@@ -0,0 +1,80 @@
+package com.example.studentdatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for SubjectScores.
+ */
+public class SubjectScoresTest {
+
+    private static SubjectScores.Builder builder() {
+        return new SubjectScores.Builder(new long[]{1, 2, 5}, new String[]{"Physics", "Math", "Chemistry"});
+    }
+
+    @Test
+    public void rowsAreGroupedIntoOneVectorPerStudent() {
+        SubjectScores.Builder builder = builder();
+        builder.append(10, 1, 80);
+        builder.append(10, 2, 70);
+        builder.append(10, 5, 60);
+        builder.append(11, 2, 55);
+        SubjectScores scores = builder.build();
+
+        assertEquals(2, scores.getStudentCount());
+        assertEquals(3, scores.getSubjectCount());
+        assertEquals(10, scores.getStudentId(0));
+        assertEquals(60, scores.getScore(0, 2));
+        assertEquals(11, scores.getStudentId(1));
+        assertEquals(55, scores.getScore(1, 1));
+        assertFalse(scores.hasScore(1, 0));
+        assertEquals(SubjectScores.NO_SCORE, scores.getScore(1, 2));
+    }
+
+    @Test
+    public void studentsWithoutScoresKeepTheirPlace() {
+        SubjectScores.Builder builder = builder();
+        builder.appendStudent(3);
+        builder.append(4, 1, 90);
+        builder.appendStudent(4); // Same student again, ignored
+        SubjectScores scores = builder.build();
+
+        assertEquals(2, scores.getStudentCount());
+        assertFalse(scores.hasScore(0, 0));
+        assertEquals(90, scores.getScore(1, 0));
+    }
+
+    @Test
+    public void unknownSubjectsAreSkipped() {
+        SubjectScores.Builder builder = builder();
+        builder.append(1, 99, 50);
+        SubjectScores scores = builder.build();
+
+        assertEquals(1, scores.getStudentCount());
+        assertEquals(-1, scores.indexOfSubject(99));
+        assertEquals(2, scores.indexOfSubject(5));
+        for (int subject = 0; subject < scores.getSubjectCount(); subject++) {
+            assertFalse(scores.hasScore(0, subject));
+        }
+    }
+
+    @Test
+    public void growsPastItsFirstCapacity() {
+        SubjectScores.Builder builder = builder();
+        for (int id = 1; id <= 1000; id++) {
+            builder.append(id, 2, id % 101);
+        }
+        SubjectScores scores = builder.build();
+
+        assertEquals(1000, scores.getStudentCount());
+        assertEquals(1000, scores.getStudentId(999));
+        assertEquals(1000 % 101, scores.getScore(999, 1));
+        assertFalse(scores.hasScore(999, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void subjectNamesMustMatchIds() {
+        new SubjectScores.Builder(new long[]{1, 2}, new String[]{"Physics"});
+    }
+}
@@ -0,0 +1,123 @@
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+
+plugins {
+    alias(libs.plugins.android.test)
+}
+
+android {
+    namespace = "com.example.studentdatabase.benchmark"
+    compileSdk = 34
+
+    defaultConfig {
+        minSdk = 24
+        targetSdk = 34
+
+        testInstrumentationRunner = "androidx.benchmark.junit4.AndroidBenchmarkRunner"
+    }
+
+    buildTypes {
+        // The test APK itself is debuggable; the app code it measures comes from the app's non-debuggable
+        // "benchmark" build type, which this one matches by name
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    targetProjectPath = ":app"
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_1_8
+        targetCompatibility = JavaVersion.VERSION_1_8
+    }
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.benchmark.junit4)
+    implementation(libs.material)
+}
+
+// Results written by androidx.benchmark after connectedBenchmarkAndroidTest
+val benchmarkResults = fileTree(layout.buildDirectory.dir("outputs/connected_android_test_additional_output")) {
+    include("**/*benchmarkData.json")
+}
+val baselineFile = file("baseline.json")
+val summaryFile = layout.buildDirectory.file("benchmark-summary.json")
+
+// Reads the median time (ns) of every benchmark, keyed by "ClassName#testName"
+fun readMedians(): Map<String, Double> {
+    val medians = sortedMapOf<String, Double>()
+    benchmarkResults.files.forEach { file ->
+        @Suppress("UNCHECKED_CAST")
+        val json = JsonSlurper().parse(file) as Map<String, Any>
+        @Suppress("UNCHECKED_CAST")
+        (json["benchmarks"] as List<Map<String, Any>>).forEach { benchmark ->
+            val className = (benchmark["className"] as String).substringAfterLast('.')
+            @Suppress("UNCHECKED_CAST")
+            val timeNs = (benchmark["metrics"] as Map<String, Map<String, Any>>)["timeNs"]
+            if (timeNs != null) {
+                medians["$className#${benchmark["name"]}"] = (timeNs["median"] as Number).toDouble()
+            }
+        }
+    }
+    return medians
+}
+
+// Compares the latest results with baseline.json and fails if any benchmark is slower than the threshold allows
+// or has no baseline median to compare with
+tasks.register("checkBenchmarkRegressions") {
+    group = "verification"
+    description = "Compares benchmark medians with baseline.json and writes build/benchmark-summary.json."
+    doLast {
+        val medians = readMedians()
+        if (medians.isEmpty()) {
+            throw GradleException("No benchmark results found. Run connectedBenchmarkAndroidTest first.")
+        }
+        @Suppress("UNCHECKED_CAST")
+        val baseline = JsonSlurper().parse(baselineFile) as Map<String, Any>
+        val threshold = (project.findProperty("benchmarkThresholdPercent") as String?)?.toDouble()
+            ?: (baseline["thresholdPercent"] as Number).toDouble()
+        @Suppress("UNCHECKED_CAST")
+        val baselineMedians = baseline["benchmarks"] as Map<String, Number>
+
+        val regressions = mutableListOf<String>()
+        val missing = mutableListOf<String>()
+        val summary = medians.map { (name, median) ->
+            val base = baselineMedians[name]?.toDouble()
+            if (base == null) {
+                missing += name
+            }
+            val changePercent = if (base == null) null else (median - base) / base * 100.0
+            if (changePercent != null && changePercent > threshold) {
+                regressions += "$name: ${"%.0f".format(base)} ns -> ${"%.0f".format(median)} ns (+${"%.1f".format(changePercent)}%)"
+            }
+            mapOf("name" to name, "medianNs" to median, "baselineNs" to base, "changePercent" to changePercent)
+        }
+        summaryFile.get().asFile.writeText(JsonOutput.prettyPrint(JsonOutput.toJson(
+            mapOf("thresholdPercent" to threshold, "benchmarks" to summary))))
+
+        if (regressions.isNotEmpty()) {
+            throw GradleException("Benchmark regressions over $threshold%:\n" + regressions.joinToString("\n"))
+        }
+        if (missing.isNotEmpty()) {
+            throw GradleException("No baseline for ${missing.size} benchmarks (run updateBenchmarkBaseline on the " +
+                    "reference device and check in baseline.json):\n" + missing.joinToString("\n"))
+        }
+        logger.lifecycle("${medians.size} benchmarks within $threshold% of baseline.")
+    }
+}
+
+// Replaces the medians in baseline.json with the latest results (run on the reference device only)
+tasks.register("updateBenchmarkBaseline") {
+    group = "verification"
+    description = "Writes the latest benchmark medians into baseline.json."
+    doLast {
+        @Suppress("UNCHECKED_CAST")
+        val baseline = JsonSlurper().parse(baselineFile) as Map<String, Any>
+        baselineFile.writeText(JsonOutput.prettyPrint(JsonOutput.toJson(
+            mapOf("thresholdPercent" to baseline["thresholdPercent"], "benchmarks" to readMedians()))) + "\n")
+    }
+}
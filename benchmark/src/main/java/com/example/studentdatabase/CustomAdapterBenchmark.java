@@ -0,0 +1,64 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmark of CustomAdapter.onBindViewHolder() at 1k, 10k and 100k students.
+ * The same ViewHolder is rebound to a different row each iteration, as happens while scrolling.
+ */
+@RunWith(Parameterized.class)
+public class CustomAdapterBenchmark {
+
+    @Parameterized.Parameters(name = "rows={0}")
+    public static List<Object[]> rows() {
+        return Arrays.asList(new Object[][]{{1_000}, {10_000}, {100_000}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int rows;
+    private CustomAdapter adapter;
+    private CustomAdapter.MyViewHolder holder;
+
+    public CustomAdapterBenchmark(int rows) {
+        this.rows = rows;
+    }
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        StudentTable.Builder builder = new StudentTable.Builder(rows);
+        for (int i = 0; i < rows; i++) {
+            builder.append(i + 1, "Student " + i, 100000 + i, "student" + i + "@cyryx.edu.mv", i % 101, (i * 7) % 101,
+                    GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101));
+        }
+        adapter = new CustomAdapter(null, context);
+        adapter.submitList(builder.build(), null);
+        holder = adapter.onCreateViewHolder(new FrameLayout(context), 0);
+    }
+
+    @Test
+    public void onBindViewHolder() {
+        BenchmarkState state = benchmarkRule.getState();
+        int position = 0;
+        while (state.keepRunning()) {
+            adapter.onBindViewHolder(holder, position);
+            position = (position + 1) % rows;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Benchmarks of the two ways the student list can put its first screen of rows up at a cold start:
+ * mapping the list snapshot saved by the last session, or opening the database and reading the first page.
+ * Both bind the same rows into the same ViewHolder, so the difference is what the snapshot saves before the
+ * first frame.
+ */
+public class ListSnapshotBenchmark {
+
+    private static final String DB_NAME = "list-snapshot-benchmark.db";
+
+    // Students in the database, and rows bound per iteration (about one phone screen)
+    private static final int STUDENTS = 1_000;
+    private static final int FIRST_SCREEN_ROWS = 12;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private File snapshotFile;
+    private CustomAdapter.MyViewHolder holder;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME);
+        try {
+            for (int i = 0; i < STUDENTS; i++) {
+                myDB.addStudent("Student " + i, 100000 + i, "student" + i + "@cyryx.edu.mv", i % 101, (i * 7) % 101,
+                        GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101));
+            }
+            snapshotFile = new File(context.getCacheDir(), "benchmark.snapshot");
+            StudentListSnapshot.write(readFirstPage(myDB), StudentRepository.LIST_SNAPSHOT_ROWS, snapshotFile,
+                    myDB.getDataVersion());
+        } finally {
+            myDB.close();
+        }
+        holder = new CustomAdapter(null, context).onCreateViewHolder(new FrameLayout(context), 0);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DB_NAME);
+        snapshotFile.delete();
+    }
+
+    private static StudentTable readFirstPage(MyDatabaseHelper myDB) {
+        StudentPageSource pageSource = StudentPageSource.forSort(myDB, StudentSort.ID, StudentPageSource.DEFAULT_PAGE_SIZE);
+        StudentTable.Builder builder = new StudentTable.Builder(StudentPageSource.DEFAULT_PAGE_SIZE);
+        pageSource.loadNextPage(builder::appendFromCursor);
+        return builder.build();
+    }
+
+    @Test
+    public void mapAndBindFirstScreen() throws IOException {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            CustomAdapter adapter = new CustomAdapter(null, context);
+            adapter.showSnapshot(StudentListSnapshot.map(snapshotFile));
+            for (int position = 0; position < FIRST_SCREEN_ROWS; position++) {
+                adapter.onBindViewHolder(holder, position);
+            }
+        }
+    }
+
+    @Test
+    public void openDatabaseAndBindFirstScreen() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME);
+            try {
+                CustomAdapter adapter = new CustomAdapter(null, context);
+                adapter.submitList(readFirstPage(myDB), null);
+                for (int position = 0; position < FIRST_SCREEN_ROWS; position++) {
+                    adapter.onBindViewHolder(holder, position);
+                }
+            } finally {
+                myDB.close();
+            }
+        }
+    }
+}
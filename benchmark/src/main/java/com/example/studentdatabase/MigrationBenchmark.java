@@ -0,0 +1,136 @@
+package com.example.studentdatabase;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmarks of schema upgrades at 1k, 10k and 100k students: the full upgrade from the first
+ * release's schema to the current one, and a chunked copy-and-swap rebuild of the student table.
+ * Building the starting database is excluded from the measured time.
+ */
+@RunWith(Parameterized.class)
+public class MigrationBenchmark {
+
+    private static final String DB_NAME = "migration-benchmark.db";
+
+    // The student table as the first release of the app created it
+    private static final String V1_SCHEMA = "CREATE TABLE cyryx_college (_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            "student_name TEXT, student_num INTEGER, student_mail TEXT, " +
+            "student_physics INTEGER, student_math INTEGER, student_grade TEXT)";
+
+    @Parameterized.Parameters(name = "rows={0}")
+    public static List<Object[]> rows() {
+        return Arrays.asList(new Object[][]{{1_000}, {10_000}, {100_000}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int rows;
+    private Context context;
+
+    public MigrationBenchmark(int rows) {
+        this.rows = rows;
+    }
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DB_NAME);
+    }
+
+    // Creates a version 1 database file filled with students
+    private void createVersion1() {
+        context.deleteDatabase(DB_NAME);
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(DB_NAME), null);
+        try {
+            db.execSQL(V1_SCHEMA);
+            SQLiteStatement insert = db.compileStatement("INSERT INTO cyryx_college (student_name, student_num, " +
+                    "student_mail, student_physics, student_math, student_grade) VALUES (?, ?, ?, ?, ?, ?)");
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < rows; i++) {
+                    insert.bindString(1, "Student " + i);
+                    insert.bindLong(2, 100000 + i);
+                    insert.bindString(3, "student" + i + "@cyryx.edu.mv");
+                    insert.bindLong(4, i % 101);
+                    insert.bindLong(5, (i * 7) % 101);
+                    insert.bindString(6, GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101));
+                    insert.executeInsert();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                insert.close();
+            }
+            db.setVersion(1);
+        } finally {
+            db.close();
+        }
+    }
+
+    // Opening a first-release database, which runs every migration step
+    @Test
+    public void upgradeFromVersion1() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            createVersion1();
+            MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME);
+            state.resumeTiming();
+
+            myDB.getWritableDatabase();
+
+            state.pauseTiming();
+            myDB.close();
+            state.resumeTiming();
+        }
+    }
+
+    // Copying the student table into a new table in chunks and swapping it in (indexes and triggers not included)
+    @Test
+    public void rebuildStudentTable() {
+        createVersion1();
+        MyDatabaseHelper myDB = new MyDatabaseHelper(context, DB_NAME);
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        TableRebuilder rebuilder = new TableRebuilder("cyryx_college",
+                V1_SCHEMA.replace("cyryx_college", "%s"),
+                "_id, student_name, student_num, student_mail, student_physics, student_math, student_grade",
+                "_id, student_name, student_num, student_mail, student_physics, student_math, student_grade",
+                TableRebuilder.DEFAULT_CHUNK_SIZE);
+        try {
+            BenchmarkState state = benchmarkRule.getState();
+            while (state.keepRunning()) {
+                db.beginTransaction();
+                try {
+                    rebuilder.rebuild(db, null);
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            myDB.close();
+        }
+    }
+}
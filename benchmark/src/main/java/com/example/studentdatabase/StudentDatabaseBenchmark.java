@@ -0,0 +1,398 @@
+package com.example.studentdatabase;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Benchmarks of the MyDatabaseHelper CRUD paths and of loading the list, at 1k, 10k and 100k students.
+ * Each benchmark works on its own database file, filled before measuring.
+ * The searchStudents_* benchmarks time one page of each kind of search (StudentSearchTest checks their query plans).
+ * The *_contentValues benchmarks repeat the single-row writes the way they were done before the statement
+ * pool, so the time and allocationCount of the two can be compared. The upsertStudents_* benchmarks show
+ * that importing students that are already there costs a lookup per student and no writes.
+ */
+@RunWith(Parameterized.class)
+public class StudentDatabaseBenchmark {
+
+    private static final String DB_NAME = "benchmark.db";
+
+    // Rows inserted per transaction in the batched insert benchmark
+    private static final int BATCH_SIZE = 100;
+
+    // Rows read per search, as the list loads them
+    private static final int SEARCH_PAGE_SIZE = 50;
+
+    @Parameterized.Parameters(name = "rows={0}")
+    public static List<Object[]> rows() {
+        return Arrays.asList(new Object[][]{{1_000}, {10_000}, {100_000}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int rows;
+    private Context context;
+    private MyDatabaseHelper myDB;
+    private int next = 0;
+
+    public StudentDatabaseBenchmark(int rows) {
+        this.rows = rows;
+    }
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        myDB = new MyDatabaseHelper(context, DB_NAME);
+        fill(rows);
+    }
+
+    @After
+    public void tearDown() {
+        myDB.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    // Inserts the given number of students in one transaction
+    private void fill(int count) {
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        SQLiteStatement insert = myDB.compileInsertStatement(db);
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                bind(insert, next++);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    private static void bind(SQLiteStatement insert, int i) {
+        insert.bindString(1, "Student " + i);
+        insert.bindLong(2, 100000 + i);
+        insert.bindString(3, "student" + i + "@cyryx.edu.mv");
+        insert.bindLong(4, i % 101);
+        insert.bindLong(5, (i * 7) % 101);
+        insert.bindString(6, GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101));
+    }
+
+    @Test
+    public void addStudent_single() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            // Student numbers and emails are unique, so each insert takes the next ones
+            int n = next++;
+            myDB.addStudent("New Student", 100000 + n, "student" + n + "@cyryx.edu.mv", 70, 80, "B+");
+        }
+    }
+
+    // The insert as it was before the statement pool: new ContentValues and SQL text on every call
+    @Test
+    public void addStudent_single_contentValues() {
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            int n = next++;
+            ContentValues cv = new ContentValues();
+            cv.put("student_name", "New Student");
+            cv.put("student_num", 100000 + n);
+            cv.put("student_mail", "student" + n + "@cyryx.edu.mv");
+            cv.put("student_physics", 70);
+            cv.put("student_math", 80);
+            cv.put("student_grade", "B+");
+            db.insert("cyryx_college", null, cv);
+        }
+    }
+
+    @Test
+    public void addStudent_batchOf100() {
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        SQLiteStatement insert = myDB.compileInsertStatement(db);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    bind(insert, next++);
+                    insert.executeInsert();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        insert.close();
+    }
+
+    // Students as fill() inserts them, numbered from first
+    private static List<Student> students(int first, int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            students.add(new Student(0, "Student " + i, 100000 + i, "student" + i + "@cyryx.edu.mv",
+                    i % 101, (i * 7) % 101, GradingPolicy.DEFAULT.grade(i % 101, (i * 7) % 101)));
+        }
+        return students;
+    }
+
+    // A batch of new students through the upsert (compare with addStudent_batchOf100)
+    @Test
+    public void upsertStudents_newBatchOf100() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            List<Student> batch = students(next, BATCH_SIZE);
+            next += BATCH_SIZE;
+            state.resumeTiming();
+            myDB.upsertStudents(batch);
+        }
+    }
+
+    // The same batch again: every student is found unchanged and nothing is written
+    @Test
+    public void upsertStudents_repeatedBatchOf100() {
+        List<Student> batch = students(rows / 2, BATCH_SIZE);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            myDB.upsertStudents(batch);
+        }
+    }
+
+    @Test
+    public void updateStudent() {
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            // Keeps the row's own number and email (student IDs start at 1, fill() numbers from 0)
+            int n = (i++ * 7919) % rows;
+            myDB.updateStudent(String.valueOf(1 + n), "Updated Student", 100000 + n, "student" + n + "@cyryx.edu.mv",
+                    90, 95, "A+");
+        }
+    }
+
+    // The update as it was before the statement pool
+    @Test
+    public void updateStudent_contentValues() {
+        SQLiteDatabase db = myDB.getWritableDatabase();
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            int n = (i++ * 7919) % rows;
+            ContentValues cv = new ContentValues();
+            cv.put("student_name", "Updated Student");
+            cv.put("student_num", 100000 + n);
+            cv.put("student_mail", "student" + n + "@cyryx.edu.mv");
+            cv.put("student_physics", 90);
+            cv.put("student_math", 95);
+            cv.put("student_grade", "A+");
+            db.update("cyryx_college", cv, "_id=?", new String[]{String.valueOf(1 + n)});
+        }
+    }
+
+    @Test
+    public void deleteOneRow() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            long id = myDB.addStudent("Temp Student", 1, "temp@cyryx.edu.mv", 50, 50, "C+");
+            state.resumeTiming();
+            myDB.deleteOneRow(String.valueOf(id));
+        }
+    }
+
+    @Test
+    public void deleteAllData() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            myDB.deleteAllData();
+            state.pauseTiming();
+            fill(rows);
+            state.resumeTiming();
+        }
+    }
+
+    // Regrading every student, alternating between two policies so each run rewrites the grades
+    @Test
+    public void recomputeGrades_wholeTable() {
+        GradingPolicy stricter = new GradingPolicy(1, 1, new String[]{"A+", "A", "B+", "B", "C+", "C", "D", "F"},
+                new int[]{95, 85, 75, 65, 55, 45, 40});
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            GradingPolicy policy = (i++ % 2 == 0) ? stricter : GradingPolicy.DEFAULT;
+            new GradeRecalculator(myDB, policy, GradeRecalculator.DEFAULT_CHUNK_SIZE).run(null);
+        }
+    }
+
+    @Test
+    public void readAllData() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Cursor cursor = myDB.readAllData();
+            try {
+                while (cursor.moveToNext()) {
+                    cursor.getLong(0);
+                    cursor.getString(1);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+    }
+
+    // Loading every row into the list model (what storeDataInArrays() would need for the whole table)
+    @Test
+    public void storeDataInArrays_wholeTable() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            StudentPageSource pageSource = new StudentPageSource(myDB, StudentPageSource.DEFAULT_PAGE_SIZE);
+            StudentTable.Builder builder = new StudentTable.Builder(rows);
+            while (pageSource.loadNextPage(builder::appendFromCursor) > 0) {
+                // Keep loading until the end of the table
+            }
+            builder.build();
+        }
+    }
+
+    // Loading only the first page, as MainActivity does on open (time to first row)
+    @Test
+    public void storeDataInArrays_firstPage() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            StudentPageSource pageSource = new StudentPageSource(myDB, StudentPageSource.DEFAULT_PAGE_SIZE);
+            StudentTable.Builder builder = new StudentTable.Builder(StudentPageSource.DEFAULT_PAGE_SIZE);
+            pageSource.loadNextPage(builder::appendFromCursor);
+            builder.build();
+        }
+    }
+
+    // Runs one page of a search and reads every row, as the list does with the results
+    private void search(String text) {
+        Cursor cursor = myDB.searchStudents(text, null, 0, SEARCH_PAGE_SIZE);
+        try {
+            while (cursor.moveToNext()) {
+                cursor.getLong(0);
+                cursor.getString(1);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // A search by student number (idx_student_num)
+    @Test
+    public void searchStudents_byNumber() {
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            search(String.valueOf(100000 + (i++ * 7919) % rows));
+        }
+    }
+
+    // A search by the start of an email (idx_student_mail)
+    @Test
+    public void searchStudents_byMailPrefix() {
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            search("student" + (i++ * 7919) % rows + "@");
+        }
+    }
+
+    // A search by name, matching many students (the full-text index)
+    @Test
+    public void searchStudents_byName() {
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            search("student " + (i++ % 10));
+        }
+    }
+
+    // Switching the list to name order: the first page in the new order
+    @Test
+    public void sortedFirstPage_byName() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            StudentPageSource pageSource = StudentPageSource.forSort(myDB, StudentSort.NAME, StudentPageSource.DEFAULT_PAGE_SIZE);
+            StudentTable.Builder builder = new StudentTable.Builder(StudentPageSource.DEFAULT_PAGE_SIZE);
+            pageSource.loadNextPage(builder::appendFromCursor);
+            builder.build();
+        }
+    }
+
+    // A page from the middle of the grade order, where thousands of students share each grade
+    @Test
+    public void sortedMiddlePage_byGrade() {
+        StudentPageSource pageSource = StudentPageSource.forSort(myDB, StudentSort.GRADE, StudentPageSource.DEFAULT_PAGE_SIZE);
+        StudentTable.Builder skipped = new StudentTable.Builder(rows / 2);
+        for (int i = 0; i < rows / 2; i += StudentPageSource.DEFAULT_PAGE_SIZE) {
+            pageSource.loadNextPage(skipped::appendFromCursor);
+        }
+        StudentTable first = skipped.build();
+        long afterId = first.getId(first.size() - 1);
+        String afterGrade = first.getGrade(first.size() - 1);
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Cursor cursor = myDB.readSortedPage(StudentSort.GRADE, false, afterGrade, afterId, StudentPageSource.DEFAULT_PAGE_SIZE);
+            StudentTable.Builder builder = new StudentTable.Builder(StudentPageSource.DEFAULT_PAGE_SIZE);
+            for (int i = 0; i < StudentPageSource.DEFAULT_PAGE_SIZE && cursor.moveToNext(); i++) {
+                builder.appendFromCursor(cursor);
+            }
+            cursor.close();
+        }
+    }
+
+    // Reading one student by ID from the database (a row cache miss)
+    @Test
+    public void readStudent_database() {
+        BenchmarkState state = benchmarkRule.getState();
+        long id = 1;
+        while (state.keepRunning()) {
+            Cursor cursor = myDB.readStudent(id);
+            cursor.moveToFirst();
+            Student.fromCursor(cursor);
+            cursor.close();
+            id = id % rows + 1;
+        }
+    }
+
+    // Reading one student from a warm row cache (what reopening a detail screen costs)
+    @Test
+    public void readStudent_cacheHit() {
+        StudentCache cache = new StudentCache(StudentCache.DEFAULT_MAX_SIZE);
+        for (long id = 1; id <= StudentCache.DEFAULT_MAX_SIZE; id++) {
+            Cursor cursor = myDB.readStudent(id);
+            cursor.moveToFirst();
+            cache.put(Student.fromCursor(cursor), cache.getVersion());
+            cursor.close();
+        }
+        BenchmarkState state = benchmarkRule.getState();
+        long id = 1;
+        while (state.keepRunning()) {
+            cache.get(id);
+            id = id % StudentCache.DEFAULT_MAX_SIZE + 1;
+        }
+    }
+}
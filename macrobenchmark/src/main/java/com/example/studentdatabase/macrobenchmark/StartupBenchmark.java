@@ -0,0 +1,109 @@
+package com.example.studentdatabase.macrobenchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import kotlin.Unit;
+
+/**
+ * Cold start benchmarks of the app, measured from outside its process.
+ * timeToFullDisplayMs is the time to the first row of the student list: MainActivity reports itself fully
+ * drawn once its first rows (or its empty state) are on screen. The db.open and db.loadFirstPage trace
+ * sections show how much of that is spent opening the database and reading the first page.
+ * At a cold start the list first shows the rows saved in the list snapshot, without waiting for the
+ * database; the startup.mapListSnapshot section is the time spent mapping it. Comparing coldStartToFirstRow
+ * with coldStartToFirstRow_withoutListSnapshot shows what the snapshot saves.
+ * Results depend on the students already on the device, so compare runs on the same data.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String PACKAGE_NAME = "com.example.studentdatabase";
+    private static final int ITERATIONS = 10;
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    // Opens the student list straight away (MainActivity is exported), skipping the splash and login screens
+    @Test
+    public void coldStartToFirstRow() {
+        coldStartToFirstRow(true);
+    }
+
+    // The same, but the list waits for the database instead of showing the list snapshot
+    @Test
+    public void coldStartToFirstRow_withoutListSnapshot() {
+        coldStartToFirstRow(false);
+    }
+
+    private void coldStartToFirstRow(boolean listSnapshot) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Arrays.asList(new StartupTimingMetric(),
+                        new TraceSectionMetric("db.open"),
+                        new TraceSectionMetric("db.loadFirstPage"),
+                        new TraceSectionMetric("startup.mapListSnapshot")),
+                CompilationMode.DEFAULT,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> Unit.INSTANCE,
+                scope -> {
+                    Intent intent = new Intent();
+                    intent.setClassName(PACKAGE_NAME, PACKAGE_NAME + ".MainActivity");
+                    intent.putExtra(PACKAGE_NAME + ".NO_LIST_SNAPSHOT", !listSnapshot);
+                    scope.startActivityAndWait(intent);
+                    waitFor(scope.getDevice(), By.res(PACKAGE_NAME, "student_name_txt"), By.res(PACKAGE_NAME, "no_data"));
+                    return Unit.INSTANCE;
+                });
+    }
+
+    // Launches the app from the launcher and waits until the splash screen has moved on to the login screen
+    @Test
+    public void coldStartToLogin() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Arrays.asList(new StartupTimingMetric(),
+                        new TraceSectionMetric("db.open"),
+                        new TraceSectionMetric("db.loadFirstPage")),
+                CompilationMode.DEFAULT,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> Unit.INSTANCE,
+                scope -> {
+                    scope.startActivityAndWait();
+                    waitFor(scope.getDevice(), By.res(PACKAGE_NAME, "buttonLogin"));
+                    return Unit.INSTANCE;
+                });
+    }
+
+    // Waits until any of the given views is on screen, failing the benchmark if none appears in time
+    private static void waitFor(UiDevice device, BySelector... selectors) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            for (BySelector selector : selectors) {
+                if (device.hasObject(selector)) {
+                    return;
+                }
+            }
+            device.wait(Until.hasObject(selectors[0]), 100);
+        }
+        throw new AssertionError("Timed out waiting for " + Arrays.toString(selectors));
+    }
+}